@@ -0,0 +1,183 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.data.source.local;
+
+import android.support.annotation.NonNull;
+import android.support.test.filters.LargeTest;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.davidmiguel.gobees.data.model.Apiary;
+import com.davidmiguel.gobees.data.model.MeteoRecord;
+import com.davidmiguel.gobees.data.source.GoBeesDataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import io.realm.Realm;
+import io.realm.RealmConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Benchmark of the current weather update over many apiaries.
+ * It compares the legacy two-transaction update (with a lookup by id of every apiary and
+ * every meteo record) with the single-transaction update of GoBeesLocalDataSource.
+ * It runs on its own in-memory Realm (set as default while the test runs), so the data of the
+ * app is not touched.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class UpdateWeatherBenchmarkTest {
+
+    private static final String TAG = UpdateWeatherBenchmarkTest.class.getSimpleName();
+    private static final int NUM_APIARIES = 500;
+    private static final int NUM_ROUNDS = 5;
+    private static final String ID = "id";
+    private static final String DATABASE_NAME = "update-weather-benchmark.realm";
+
+    private GoBeesLocalDataSource localDataSource;
+    private Realm realm;
+    private RealmConfiguration appConfiguration;
+
+    @Before
+    public void setUp() {
+        // Use a dedicated in-memory db as default (the data source uses the default one)
+        appConfiguration = Realm.getDefaultConfiguration();
+        Realm.setDefaultConfiguration(new RealmConfiguration.Builder()
+                .name(DATABASE_NAME)
+                .inMemory()
+                .build());
+        localDataSource = GoBeesLocalDataSource.getInstance();
+        localDataSource.openDb();
+        realm = Realm.getDefaultInstance();
+        realm.executeTransaction(new Realm.Transaction() {
+            @Override
+            public void execute(@NonNull Realm realm) {
+                for (int i = 0; i < NUM_APIARIES; i++) {
+                    realm.copyToRealm(new Apiary(i, "A" + i, null, 42.34, -3.7, null,
+                            null, null, null));
+                }
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        // The in-memory db is discarded when its last instance is closed
+        realm.close();
+        localDataSource.closeDb();
+        if (appConfiguration != null) {
+            Realm.setDefaultConfiguration(appConfiguration);
+        } else {
+            Realm.removeDefaultConfiguration();
+        }
+    }
+
+    @Test
+    public void updateApiariesCurrentWeather() {
+        long legacyTime = 0;
+        long newTime = 0;
+        for (int round = 0; round < NUM_ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            legacyUpdate(newApiariesWithWeather());
+            legacyTime += System.nanoTime() - t0;
+            t0 = System.nanoTime();
+            localDataSource.updateApiariesCurrentWeather(newApiariesWithWeather(),
+                    new GoBeesDataSource.TaskCallback() {
+                        @Override
+                        public void onSuccess() {
+                            // Nothing to do
+                        }
+
+                        @Override
+                        public void onFailure() {
+                            throw new AssertionError("Weather update failed");
+                        }
+                    });
+            newTime += System.nanoTime() - t0;
+        }
+        Log.i(TAG, String.format("%d apiaries: two transactions %d ms, one transaction %d ms",
+                NUM_APIARIES, legacyTime / NUM_ROUNDS / 1000000, newTime / NUM_ROUNDS / 1000000));
+        // Every apiary has its current weather and old records were deleted
+        for (Apiary apiary : realm.where(Apiary.class).findAll()) {
+            assertNotNull(apiary.getCurrentWeather());
+        }
+        assertEquals(NUM_APIARIES, realm.where(MeteoRecord.class).count());
+    }
+
+    /**
+     * Creates unmanaged apiaries with a new current weather.
+     *
+     * @return apiaries to update.
+     */
+    private List<Apiary> newApiariesWithWeather() {
+        List<Apiary> apiaries = new ArrayList<>();
+        for (int i = 0; i < NUM_APIARIES; i++) {
+            apiaries.add(new Apiary(i, "A" + i, null, 42.34, -3.7, null, null,
+                    new MeteoRecord(new Date(), "Burgos", 800, "01d", 20, 18, 22,
+                            1013, 50, 3, 180, 0, 0, 0), null));
+        }
+        return apiaries;
+    }
+
+    /**
+     * Weather update as it was done before (two transactions with lookups by id).
+     *
+     * @param apiariesToUpdate apiaries to update.
+     */
+    @SuppressWarnings("ConstantConditions")
+    private void legacyUpdate(final List<Apiary> apiariesToUpdate) {
+        realm.executeTransaction(new Realm.Transaction() {
+            @Override
+            public void execute(@NonNull Realm realm) {
+                Number n = realm.where(MeteoRecord.class).max(ID);
+                long nextId = n != null ? n.longValue() + 1 : 0;
+                for (Apiary apiary : apiariesToUpdate) {
+                    MeteoRecord meteoRecord = apiary.getCurrentWeather();
+                    meteoRecord.setId(nextId++);
+                    realm.copyToRealmOrUpdate(meteoRecord);
+                }
+            }
+        });
+        realm.executeTransaction(new Realm.Transaction() {
+            @Override
+            public void execute(@NonNull Realm realm) {
+                for (Apiary apiary : apiariesToUpdate) {
+                    Apiary requestedApiary = realm.where(Apiary.class)
+                            .equalTo(ID, apiary.getId()).findFirst();
+                    MeteoRecord oldMeteoRecord = requestedApiary.getCurrentWeather();
+                    if (oldMeteoRecord != null) {
+                        oldMeteoRecord.deleteFromRealm();
+                    }
+                    MeteoRecord meteoRecord = realm.where(MeteoRecord.class)
+                            .equalTo(ID, apiary.getCurrentWeather().getId()).findFirst();
+                    requestedApiary.setCurrentWeather(meteoRecord);
+                }
+            }
+        });
+    }
+}
@@ -1,64 +1,155 @@
-/*
- * GoBees
- * Copyright (c) 2016 - 2017 David Miguel Lozano
- *
- * This program is free software: you can redistribute it and/or modify
- * it under the terms of the GNU General Public License as published by
- * the Free Software Foundation, either version 3 of the License, or
- * any later version.
- *
- * This program is distributed in the hope that it will be useful,
- * but WITHOUT ANY WARRANTY; without even the implied warranty of
- * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- * GNU General Public License for more details.
- *
- * You should have received a copy of the GNU General Public License
- * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
- */
-
-package com.davidmiguel.gobees;
-
-import android.app.Application;
-
-import com.crashlytics.android.Crashlytics;
-import com.crashlytics.android.core.CrashlyticsCore;
-import com.davidmiguel.gobees.data.source.local.GoBeesDbConfig;
-import com.davidmiguel.gobees.logging.Log;
-
-import io.fabric.sdk.android.Fabric;
-import io.realm.Realm;
-
-public class BaseApp extends Application {
-
-    @Override
-    public void onCreate() {
-        super.onCreate();
-        initCrashlytics();
-        initLogger();
-        initRealm();
-    }
-
-    protected void initCrashlytics() {
-        // Set up Crashlytics, disabled for mock builds
-        Fabric.with(this, new Crashlytics.Builder().core(new CrashlyticsCore.Builder()
-                .disabled(isMock()).build())
-                .build());
-    }
-
-    protected void initLogger() {
-        Log.initLogger();
-    }
-
-    protected void initRealm() {
-        // Initialize Realm. Should only be done once when the application starts.
-        Realm.init(this);
-        // Get Realm config
-        GoBeesDbConfig realmConfig = new GoBeesDbConfig();
-        Realm.setDefaultConfiguration(realmConfig.getRealmConfiguration());
-    }
-
-    public static boolean isMock() {
-        return "mock".equals(BuildConfig.FLAVOR);
-    }
-
-}
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees;
+
+import android.app.Application;
+import android.os.AsyncTask;
+
+import com.crashlytics.android.Crashlytics;
+import com.crashlytics.android.core.CrashlyticsCore;
+import com.davidmiguel.gobees.data.source.local.GoBeesDbConfig;
+import com.davidmiguel.gobees.data.source.local.RecordRollup;
+import com.davidmiguel.gobees.data.source.local.StorageMaintenance;
+import com.davidmiguel.gobees.data.source.preferences.GoBeesPreferences;
+import com.davidmiguel.gobees.logging.Log;
+import com.davidmiguel.gobees.utils.OpenCvInitializer;
+import com.davidmiguel.gobees.utils.StartupInitializer;
+import com.davidmiguel.gobees.utils.StartupTrace;
+
+import java.util.Date;
+
+import io.fabric.sdk.android.Fabric;
+import io.realm.CompactOnLaunchCallback;
+import io.realm.Realm;
+
+public class BaseApp extends Application {
+
+    private static final String TASK_LOGGER = "logger";
+    private static final String TASK_REALM = "realm";
+    private static final String TASK_CRASHLYTICS = "crashlytics";
+    private static final String TASK_CRASH_REPORTS = "crash-reports";
+    private static final String TASK_OPENCV = "opencv";
+    private static final String TASK_REALM_WARM_UP = "realm-warm-up";
+    private static final String TASK_RECORD_ROLLUP = "record-rollup";
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        StartupTrace.start();
+        // Only the logger and Realm (needed by the first query) are initialized before the first
+        // activity, the rest is initialized in background
+        new StartupInitializer(AsyncTask.THREAD_POOL_EXECUTOR)
+                .addCriticalTask(TASK_LOGGER, new Runnable() {
+                    @Override
+                    public void run() {
+                        initLogger();
+                    }
+                })
+                .addCriticalTask(TASK_REALM, new Runnable() {
+                    @Override
+                    public void run() {
+                        initRealm();
+                    }
+                })
+                .addTask(TASK_CRASHLYTICS, new Runnable() {
+                    @Override
+                    public void run() {
+                        initCrashlytics();
+                    }
+                })
+                .addTask(TASK_CRASH_REPORTS, new Runnable() {
+                    @Override
+                    public void run() {
+                        initCrashReports();
+                    }
+                }, TASK_LOGGER, TASK_CRASHLYTICS)
+                .addTask(TASK_OPENCV, new Runnable() {
+                    @Override
+                    public void run() {
+                        initOpenCv();
+                    }
+                })
+                .addTask(TASK_REALM_WARM_UP, new Runnable() {
+                    @Override
+                    public void run() {
+                        warmUpRealm();
+                    }
+                }, TASK_REALM)
+                .addTask(TASK_RECORD_ROLLUP, new Runnable() {
+                    @Override
+                    public void run() {
+                        rollUpRecords();
+                    }
+                }, TASK_REALM_WARM_UP)
+                .start();
+        StartupTrace.mark("application created");
+    }
+
+    protected void initCrashlytics() {
+        // Set up Crashlytics, disabled for mock builds
+        Fabric.with(this, new Crashlytics.Builder().core(new CrashlyticsCore.Builder()
+                .disabled(isMock()).build())
+                .build());
+    }
+
+    protected void initLogger() {
+        Log.initLogger();
+    }
+
+    protected void initCrashReports() {
+        Log.initCrashReports();
+    }
+
+    protected void initOpenCv() {
+        // Load OpenCV native libraries in background (monitoring waits for them)
+        OpenCvInitializer.init();
+    }
+
+    protected void initRealm() {
+        // Initialize Realm. Should only be done once when the application starts.
+        Realm.init(this);
+        // Get Realm config
+        GoBeesDbConfig realmConfig = new GoBeesDbConfig(this);
+        Realm.setDefaultConfiguration(realmConfig.getRealmConfiguration());
+    }
+
+    protected void warmUpRealm() {
+        // Open the database once in background (schema validation, migrations and compaction),
+        // so the first query in the main thread is faster
+        Realm realm = Realm.getDefaultInstance();
+        // Report space reclaimed by the compaction
+        CompactOnLaunchCallback compaction = realm.getConfiguration().getCompactOnLaunchCallback();
+        if (compaction instanceof StorageMaintenance) {
+            ((StorageMaintenance) compaction).reportCompaction(realm.getPath());
+        }
+        realm.close();
+    }
+
+    protected void rollUpRecords() {
+        // Roll up the old records into aggregates (retention configured by the user)
+        new RecordRollup(GoBeesPreferences.getRecordsRetentionDays(this)).run(new Date());
+        // Charts prepared meanwhile may show the records before the roll up
+        Injection.provideApiariesRepository(this).increaseDataVersion();
+    }
+
+    public static boolean isMock() {
+        return "mock".equals(BuildConfig.FLAVOR);
+    }
+
+}
@@ -41,6 +41,7 @@ import com.davidmiguel.gobees.apiary.ApiaryActivity;
 import com.davidmiguel.gobees.apiary.ApiaryHivesFragment;
 import com.davidmiguel.gobees.data.model.Apiary;
 import com.davidmiguel.gobees.utils.AndroidUtils;
+import com.davidmiguel.gobees.utils.StartupTrace;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -127,6 +128,7 @@ public class ApiariesFragment extends Fragment
         listAdapter.replaceData(apiaries);
         apiariesView.setVisibility(View.VISIBLE);
         noApiariesView.setVisibility(View.GONE);
+        StartupTrace.finish("apiaries list");
     }
 
     @Override
@@ -158,6 +160,7 @@ public class ApiariesFragment extends Fragment
     @Override
     public void showNoApiaries() {
         showNoApiariesViews();
+        StartupTrace.finish("apiaries list");
     }
 
     @Override
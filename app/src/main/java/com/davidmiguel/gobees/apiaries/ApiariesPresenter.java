@@ -88,6 +88,10 @@ class ApiariesPresenter implements ApiariesContract.LoadDataPresenter {
                     view.showApiaries(apiaries);
                     // Check whether current weather is up to date
                     checkCurrentWeather(forceUpdate, apiaries);
+                    // Fill recordings weather gaps (there may be connectivity again)
+                    if (update) {
+                        backfillWeather();
+                    }
                 }
             }
 
@@ -190,4 +194,22 @@ class ApiariesPresenter implements ApiariesContract.LoadDataPresenter {
                     });
         }
     }
+
+    /**
+     * Orders to fill the gaps in the weather data of the recordings (recorded without
+     * connectivity). It runs in background, so errors are not shown.
+     */
+    private void backfillWeather() {
+        goBeesRepository.backfillWeather(new GoBeesDataSource.TaskCallback() {
+            @Override
+            public void onSuccess() {
+                // Nothing to update in the list of apiaries
+            }
+
+            @Override
+            public void onFailure() {
+                // It will be retried next time apiaries are refreshed
+            }
+        });
+    }
 }
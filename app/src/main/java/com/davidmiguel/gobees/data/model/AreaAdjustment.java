@@ -0,0 +1,116 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.data.model;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.base.Objects;
+
+import java.util.Date;
+
+import io.realm.RealmObject;
+import io.realm.annotations.PrimaryKey;
+import io.realm.annotations.Required;
+
+/**
+ * Model class for an adjustment of the min and max area of a bee made by the online calibration
+ * while monitoring a hive. The limits only change on each adjustment, so they are not stored
+ * with every record.
+ */
+@SuppressWarnings("unused")
+public class AreaAdjustment extends RealmObject implements Comparable<AreaAdjustment> {
+
+    @PrimaryKey
+    private long id;
+
+    /**
+     * When the limits were adjusted.
+     */
+    @Required
+    private Date timestamp;
+
+    /**
+     * Dominant area of the blobs that triggered the adjustment (at full resolution).
+     */
+    private double mode;
+
+    /**
+     * New min and max area of a bee (at full resolution).
+     */
+    private double minArea;
+    private double maxArea;
+
+    public AreaAdjustment() {
+        // Needed by Realm
+    }
+
+    public AreaAdjustment(Date timestamp, double mode, double minArea, double maxArea) {
+        this.id = -1;
+        this.timestamp = timestamp;
+        this.mode = mode;
+        this.minArea = minArea;
+        this.maxArea = maxArea;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    public double getMode() {
+        return mode;
+    }
+
+    public double getMinArea() {
+        return minArea;
+    }
+
+    public double getMaxArea() {
+        return maxArea;
+    }
+
+    @Override
+    public int compareTo(@NonNull AreaAdjustment a) {
+        return this.getTimestamp().compareTo(a.getTimestamp());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        AreaAdjustment adjustment = (AreaAdjustment) obj;
+        return id == adjustment.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+}
@@ -73,6 +73,24 @@ public class Hive extends RealmObject {
     @Nullable
     private RealmList<Record> records;
 
+    /**
+     * Performance profiles of the monitoring sessions of the hive.
+     */
+    @Nullable
+    private RealmList<SessionProfile> profiles;
+
+    /**
+     * Aggregates of the old records of the hive (the records are deleted once aggregated).
+     */
+    @Nullable
+    private RealmList<RecordAggregate> aggregates;
+
+    /**
+     * Adjustments of the area limits made by the online calibration.
+     */
+    @Nullable
+    private RealmList<AreaAdjustment> areaAdjustments;
+
     /**
      * List of recordings. It's used to display the records grouped according to some criteria,
      * e.g. grouped by day.
@@ -146,6 +164,21 @@ public class Hive extends RealmObject {
         this.records = records;
     }
 
+    @Nullable
+    public RealmList<SessionProfile> getProfiles() {
+        return profiles;
+    }
+
+    @Nullable
+    public RealmList<RecordAggregate> getAggregates() {
+        return aggregates;
+    }
+
+    @Nullable
+    public RealmList<AreaAdjustment> getAreaAdjustments() {
+        return areaAdjustments;
+    }
+
     public boolean isValidHive() {
         return !Strings.isNullOrEmpty(name);
     }
@@ -170,6 +203,24 @@ public class Hive extends RealmObject {
         }
     }
 
+    public void addProfile(@NonNull SessionProfile profile) {
+        if (profiles != null) {
+            profiles.add(profile);
+        }
+    }
+
+    public void addAggregates(@NonNull List<RecordAggregate> aggregatesList) {
+        if (aggregates != null) {
+            aggregates.addAll(aggregatesList);
+        }
+    }
+
+    public void addAreaAdjustments(@NonNull List<AreaAdjustment> adjustmentsList) {
+        if (areaAdjustments != null) {
+            areaAdjustments.addAll(adjustmentsList);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -48,6 +48,16 @@ public class Record extends RealmObject implements Comparable<Record> {
      */
     private int numBees;
 
+    /**
+     * Number of bees that entered the hive since the previous record.
+     */
+    private int numIn;
+
+    /**
+     * Number of bees that left the hive since the previous record.
+     */
+    private int numOut;
+
     public Record() {
         // Needed by Realm
     }
@@ -62,6 +72,12 @@ public class Record extends RealmObject implements Comparable<Record> {
         this(-1, timestamp, numBees);
     }
 
+    public Record(Date timestamp, int numBees, int numIn, int numOut) {
+        this(-1, timestamp, numBees);
+        this.numIn = numIn;
+        this.numOut = numOut;
+    }
+
     public long getId() {
         return id;
     }
@@ -82,6 +98,14 @@ public class Record extends RealmObject implements Comparable<Record> {
         this.numBees = numBees;
     }
 
+    public int getNumIn() {
+        return numIn;
+    }
+
+    public int getNumOut() {
+        return numOut;
+    }
+
     @Override
     public int compareTo(@NonNull Record r) {
         return this.getTimestamp().compareTo(r.getTimestamp());
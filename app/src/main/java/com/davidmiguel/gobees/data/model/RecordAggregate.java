@@ -0,0 +1,159 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+
+package com.davidmiguel.gobees.data.model;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.base.Objects;
+
+import java.util.Date;
+
+import io.realm.RealmObject;
+import io.realm.annotations.PrimaryKey;
+import io.realm.annotations.Required;
+
+/**
+ * Model class for an aggregate of records. Old records are rolled up into aggregates of a fixed
+ * resolution (i.e. one per minute) to bound the size of the db.
+ */
+@SuppressWarnings("unused")
+public class RecordAggregate extends RealmObject implements Comparable<RecordAggregate> {
+
+    @PrimaryKey
+    private long id;
+
+    /**
+     * Start of the aggregate period.
+     */
+    @Required
+    private Date timestamp;
+
+    /**
+     * Length of the aggregate period (ms).
+     */
+    private long resolution;
+
+    /**
+     * Number of records aggregated.
+     */
+    private int count;
+
+    /**
+     * Min, max and mean number of bees of the records.
+     */
+    private int minBees;
+    private int maxBees;
+    private double meanBees;
+
+    /**
+     * Number of bees that entered and left the hive in the period.
+     */
+    private int numIn;
+    private int numOut;
+
+    public RecordAggregate() {
+        // Needed by Realm
+    }
+
+    public RecordAggregate(Date timestamp, long resolution, int count, int minBees, int maxBees,
+                           double meanBees, int numIn, int numOut) {
+        this.id = -1;
+        this.timestamp = timestamp;
+        this.resolution = resolution;
+        this.count = count;
+        this.minBees = minBees;
+        this.maxBees = maxBees;
+        this.meanBees = meanBees;
+        this.numIn = numIn;
+        this.numOut = numOut;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    public long getResolution() {
+        return resolution;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getMinBees() {
+        return minBees;
+    }
+
+    public int getMaxBees() {
+        return maxBees;
+    }
+
+    public double getMeanBees() {
+        return meanBees;
+    }
+
+    public int getNumIn() {
+        return numIn;
+    }
+
+    public int getNumOut() {
+        return numOut;
+    }
+
+    /**
+     * Get an (unmanaged) record with the mean number of bees of the period, so aggregates can be
+     * displayed as records.
+     *
+     * @return record.
+     */
+    public Record toRecord() {
+        return new Record(timestamp, (int) Math.round(meanBees), numIn, numOut);
+    }
+
+    @Override
+    public int compareTo(@NonNull RecordAggregate a) {
+        return this.getTimestamp().compareTo(a.getTimestamp());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        RecordAggregate aggregate = (RecordAggregate) obj;
+        return id == aggregate.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+}
@@ -46,6 +46,11 @@ public class Recording implements Comparable<Recording> {
      */
     private List<MeteoRecord> meteo;
 
+    /**
+     * Performance profiles of the monitoring sessions of that date.
+     */
+    private List<SessionProfile> profiles;
+
     public Recording(Date date, List<Record> records, List<MeteoRecord> meteo) {
         this.date = date;
         this.records = records;
@@ -69,6 +74,14 @@ public class Recording implements Comparable<Recording> {
         return meteo;
     }
 
+    public List<SessionProfile> getProfiles() {
+        return profiles;
+    }
+
+    public void setProfiles(List<SessionProfile> profiles) {
+        this.profiles = profiles;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -0,0 +1,183 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.data.model;
+
+import android.support.annotation.Nullable;
+
+import com.google.common.base.Objects;
+
+import java.util.Date;
+
+import io.realm.RealmObject;
+import io.realm.annotations.PrimaryKey;
+import io.realm.annotations.Required;
+
+/**
+ * Model class for the performance profile of a monitoring session (how the pipeline performed
+ * on the device during the recording).
+ */
+@SuppressWarnings("unused")
+public class SessionProfile extends RealmObject {
+
+    @PrimaryKey
+    private long id;
+
+    /**
+     * Session start timestamp.
+     */
+    @Required
+    private Date timestamp;
+
+    /**
+     * Session duration (ms).
+     */
+    private long duration;
+
+    /**
+     * Number of processed frames.
+     */
+    private int numFrames;
+
+    /**
+     * Number of frames that were not taken because the previous ones were still being processed.
+     */
+    private int numDropped;
+
+    /**
+     * Processing latency percentiles of the frames (ms).
+     */
+    private double latencyP50;
+    private double latencyP90;
+    private double latencyP99;
+
+    /**
+     * CPU time used by the app during the session (ms).
+     */
+    private long cpuTime;
+
+    /**
+     * Device model.
+     */
+    @Nullable
+    private String device;
+
+    /**
+     * Number of hives monitored in the session. The profile covers the whole pipeline (all the
+     * regions of the frame), so it is saved once and linked to every monitored hive.
+     */
+    private int numHives = 1;
+
+    public SessionProfile() {
+        // Needed by Realm
+    }
+
+    public SessionProfile(Date timestamp, long duration, int numFrames, int numDropped,
+                          double latencyP50, double latencyP90, double latencyP99,
+                          long cpuTime, @Nullable String device) {
+        this.id = -1;
+        this.timestamp = timestamp;
+        this.duration = duration;
+        this.numFrames = numFrames;
+        this.numDropped = numDropped;
+        this.latencyP50 = latencyP50;
+        this.latencyP90 = latencyP90;
+        this.latencyP99 = latencyP99;
+        this.cpuTime = cpuTime;
+        this.device = device;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public int getNumFrames() {
+        return numFrames;
+    }
+
+    public int getNumDropped() {
+        return numDropped;
+    }
+
+    public double getLatencyP50() {
+        return latencyP50;
+    }
+
+    public double getLatencyP90() {
+        return latencyP90;
+    }
+
+    public double getLatencyP99() {
+        return latencyP99;
+    }
+
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    @Nullable
+    public String getDevice() {
+        return device;
+    }
+
+    public int getNumHives() {
+        return numHives;
+    }
+
+    public void setNumHives(int numHives) {
+        this.numHives = numHives;
+    }
+
+    /**
+     * Get actual frame rate.
+     *
+     * @return frames per second.
+     */
+    public double getFps() {
+        return duration > 0 ? numFrames * 1000.0 / duration : 0;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        SessionProfile profile = (SessionProfile) obj;
+        return id == profile.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+}
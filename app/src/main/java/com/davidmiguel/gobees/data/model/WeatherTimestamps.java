@@ -0,0 +1,76 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+
+package com.davidmiguel.gobees.data.model;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Model class with the timestamps of the records and meteo records of an apiary, used to find
+ * the gaps in the weather data without loading the whole apiary.
+ * It is not stored in the db.
+ */
+public class WeatherTimestamps {
+
+    private long apiaryId;
+
+    private double latitude;
+
+    private double longitude;
+
+    /**
+     * Timestamps of the records of all the hives of the apiary.
+     */
+    private List<Date> recordTimestamps;
+
+    /**
+     * Timestamps of the meteo records of the apiary.
+     */
+    private List<Date> meteoTimestamps;
+
+    public WeatherTimestamps(long apiaryId, double latitude, double longitude,
+                             List<Date> recordTimestamps, List<Date> meteoTimestamps) {
+        this.apiaryId = apiaryId;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.recordTimestamps = recordTimestamps;
+        this.meteoTimestamps = meteoTimestamps;
+    }
+
+    public long getApiaryId() {
+        return apiaryId;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public List<Date> getRecordTimestamps() {
+        return recordTimestamps;
+    }
+
+    public List<Date> getMeteoTimestamps() {
+        return meteoTimestamps;
+    }
+}
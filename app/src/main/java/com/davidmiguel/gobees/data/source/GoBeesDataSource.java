@@ -21,10 +21,13 @@ package com.davidmiguel.gobees.data.source;
 import android.support.annotation.NonNull;
 
 import com.davidmiguel.gobees.data.model.Apiary;
+import com.davidmiguel.gobees.data.model.AreaAdjustment;
 import com.davidmiguel.gobees.data.model.Hive;
 import com.davidmiguel.gobees.data.model.MeteoRecord;
 import com.davidmiguel.gobees.data.model.Record;
 import com.davidmiguel.gobees.data.model.Recording;
+import com.davidmiguel.gobees.data.model.SessionProfile;
+import com.davidmiguel.gobees.data.model.WeatherTimestamps;
 
 import java.util.Date;
 import java.util.List;
@@ -195,6 +198,45 @@ public interface GoBeesDataSource {
      */
     void saveRecords(long hiveId, @NonNull List<Record> records, @NonNull SaveRecordingCallback callback);
 
+    /**
+     * Appends given list of records to a recording that is still in progress (i.e. the records
+     * flushed periodically by the monitoring service). Unlike saveRecords(), short lists are
+     * also saved.
+     * Note: record must be a new unmanaged object (don't modify managed objects).
+     * The record id will be assigned (actual id will be ignored).
+     *
+     * @param hiveId   hive id.
+     * @param records  list of record unmanaged objects.
+     * @param callback TaskCallback.
+     */
+    void appendRecords(long hiveId, @NonNull List<Record> records, @NonNull TaskCallback callback);
+
+    /**
+     * Saves the performance profile of a monitoring session. The same profile is linked to each
+     * monitored hive (it is not duplicated).
+     * Note: profile must be a new unmanaged object (don't modify managed objects).
+     * The profile id will be assigned (actual id will be ignored).
+     *
+     * @param hiveIds  ids of the monitored hives.
+     * @param profile  profile unmanaged object.
+     * @param callback TaskCallback.
+     */
+    void saveSessionProfile(@NonNull List<Long> hiveIds, @NonNull SessionProfile profile,
+                            @NonNull TaskCallback callback);
+
+    /**
+     * Saves the adjustments of the area limits made by the online calibration while monitoring
+     * a hive.
+     * Note: adjustments must be new unmanaged objects (don't modify managed objects).
+     * The adjustment ids will be assigned (actual ids will be ignored).
+     *
+     * @param hiveId      hive id.
+     * @param adjustments list of adjustment unmanaged objects.
+     * @param callback    TaskCallback.
+     */
+    void saveAreaAdjustments(long hiveId, @NonNull List<AreaAdjustment> adjustments,
+                             @NonNull TaskCallback callback);
+
     /**
      * Gets recording with records and weather data of given period.
      *
@@ -239,6 +281,23 @@ public interface GoBeesDataSource {
      */
     void saveMeteoRecords(long apiaryId, @NonNull List<MeteoRecord> meteoRecords);
 
+    /**
+     * Gets the timestamps of the records and meteo records (since the given date) of the
+     * apiaries with location. It runs in background.
+     *
+     * @param since    date of the oldest timestamps.
+     * @param callback GetWeatherTimestampsCallback.
+     */
+    void getWeatherTimestamps(@NonNull Date since, @NonNull GetWeatherTimestampsCallback callback);
+
+    /**
+     * Fills the gaps in the weather data of the recordings (i.e. when there was no connectivity
+     * while recording) with historical weather data.
+     *
+     * @param callback TaskCallback.
+     */
+    void backfillWeather(@NonNull TaskCallback callback);
+
     /**
      * Force to update recordings cache.
      */
@@ -282,6 +341,12 @@ public interface GoBeesDataSource {
         void onDataNotAvailable();
     }
 
+    interface GetWeatherTimestampsCallback {
+        void onWeatherTimestampsLoaded(List<WeatherTimestamps> weatherTimestamps);
+
+        void onDataNotAvailable();
+    }
+
     interface SaveRecordingCallback extends TaskCallback {
         void onRecordingTooShort();
     }
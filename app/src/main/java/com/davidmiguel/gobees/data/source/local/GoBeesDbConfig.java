@@ -18,6 +18,9 @@
 
 package com.davidmiguel.gobees.data.source.local;
 
+import android.content.Context;
+import android.support.annotation.NonNull;
+
 import io.realm.RealmConfiguration;
 
 /**
@@ -25,11 +28,21 @@ import io.realm.RealmConfiguration;
  */
 public class GoBeesDbConfig {
 
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 5;
     private static final String DATABASE_NAME = "gobees.realm";
 
+    private final Context context;
     private RealmConfiguration realmConfiguration = null;
 
+    /**
+     * GoBeesDbConfig constructor.
+     *
+     * @param context context (used by the storage maintenance).
+     */
+    public GoBeesDbConfig(@NonNull Context context) {
+        this.context = context;
+    }
+
     public RealmConfiguration getRealmConfiguration() {
         if (realmConfiguration != null) {
             return realmConfiguration;
@@ -39,6 +52,7 @@ public class GoBeesDbConfig {
                 .name(DATABASE_NAME)
                 .schemaVersion(DATABASE_VERSION)
                 .migration(new GoBeesDbMigration())
+                .compactOnLaunch(new StorageMaintenance(context))
                 .build();
         return realmConfiguration;
     }
@@ -20,8 +20,13 @@ package com.davidmiguel.gobees.data.source.local;
 
 import android.support.annotation.NonNull;
 
+import java.util.Date;
+
 import io.realm.DynamicRealm;
+import io.realm.FieldAttribute;
 import io.realm.RealmMigration;
+import io.realm.RealmObjectSchema;
+import io.realm.RealmSchema;
 
 /**
  * Defines schema changes between db versions.
@@ -29,6 +34,59 @@ import io.realm.RealmMigration;
 class GoBeesDbMigration implements RealmMigration {
     @Override
     public void migrate(@NonNull DynamicRealm realm, long oldVersion, long newVersion) {
-        // No schema changes so far
+        RealmSchema schema = realm.getSchema();
+        // Version 2: in and out events of the records
+        if (oldVersion == 1) {
+            schema.get("Record")
+                    .addField("numIn", int.class)
+                    .addField("numOut", int.class);
+            oldVersion++;
+        }
+        // Version 3: performance profiles of the monitoring sessions
+        if (oldVersion == 2) {
+            RealmObjectSchema profileSchema = schema.create("SessionProfile")
+                    .addField("id", long.class, FieldAttribute.PRIMARY_KEY)
+                    .addField("timestamp", Date.class, FieldAttribute.REQUIRED)
+                    .addField("duration", long.class)
+                    .addField("numFrames", int.class)
+                    .addField("numDropped", int.class)
+                    .addField("latencyP50", double.class)
+                    .addField("latencyP90", double.class)
+                    .addField("latencyP99", double.class)
+                    .addField("cpuTime", long.class)
+                    .addField("device", String.class)
+                    .addField("numHives", int.class);
+            schema.get("Hive")
+                    .addRealmListField("profiles", profileSchema);
+            oldVersion++;
+        }
+        // Version 4: aggregates of the old records
+        if (oldVersion == 3) {
+            RealmObjectSchema aggregateSchema = schema.create("RecordAggregate")
+                    .addField("id", long.class, FieldAttribute.PRIMARY_KEY)
+                    .addField("timestamp", Date.class, FieldAttribute.REQUIRED)
+                    .addField("resolution", long.class)
+                    .addField("count", int.class)
+                    .addField("minBees", int.class)
+                    .addField("maxBees", int.class)
+                    .addField("meanBees", double.class)
+                    .addField("numIn", int.class)
+                    .addField("numOut", int.class);
+            schema.get("Hive")
+                    .addRealmListField("aggregates", aggregateSchema);
+            oldVersion++;
+        }
+        // Version 5: adjustments of the area limits (online calibration)
+        if (oldVersion == 4) {
+            RealmObjectSchema adjustmentSchema = schema.create("AreaAdjustment")
+                    .addField("id", long.class, FieldAttribute.PRIMARY_KEY)
+                    .addField("timestamp", Date.class, FieldAttribute.REQUIRED)
+                    .addField("mode", double.class)
+                    .addField("minArea", double.class)
+                    .addField("maxArea", double.class);
+            schema.get("Hive")
+                    .addRealmListField("areaAdjustments", adjustmentSchema);
+            oldVersion++;
+        }
     }
 }
@@ -18,13 +18,18 @@
 
 package com.davidmiguel.gobees.data.source.local;
 
+import android.os.AsyncTask;
 import android.support.annotation.NonNull;
 
 import com.davidmiguel.gobees.data.model.Apiary;
+import com.davidmiguel.gobees.data.model.AreaAdjustment;
 import com.davidmiguel.gobees.data.model.Hive;
 import com.davidmiguel.gobees.data.model.MeteoRecord;
 import com.davidmiguel.gobees.data.model.Record;
+import com.davidmiguel.gobees.data.model.RecordAggregate;
 import com.davidmiguel.gobees.data.model.Recording;
+import com.davidmiguel.gobees.data.model.SessionProfile;
+import com.davidmiguel.gobees.data.model.WeatherTimestamps;
 import com.davidmiguel.gobees.data.source.GoBeesDataSource;
 import com.davidmiguel.gobees.logging.Log;
 import com.davidmiguel.gobees.utils.DateTimeUtils;
@@ -32,7 +37,9 @@ import com.davidmiguel.gobees.utils.DateTimeUtils;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import io.realm.Realm;
 import io.realm.RealmResults;
@@ -46,6 +53,7 @@ public class GoBeesLocalDataSource implements GoBeesDataSource {
     private static final String ID = "id";
     private static final String TIMESTAMP = "timestamp";
     private static final String LAST_REVISION = "lastRevision";
+    private static final String PROFILES_ID = "profiles.id";
 
     private static GoBeesLocalDataSource instance;
     private Realm realm;
@@ -153,11 +161,20 @@ public class GoBeesLocalDataSource implements GoBeesDataSource {
                 @Override
                 public void execute(@NonNull Realm realm) {
                     if (apiary.getHives() != null) {
-                        // Delete records of the hives
+                        // Delete records, aggregates, profiles and area adjustments of the hives
                         for (Hive hive : apiary.getHives()) {
                             if (hive.getRecords() != null) {
                                 hive.getRecords().where().findAll().deleteAllFromRealm();
                             }
+                            if (hive.getAggregates() != null) {
+                                hive.getAggregates().where().findAll().deleteAllFromRealm();
+                            }
+                            if (hive.getProfiles() != null) {
+                                deleteProfiles(realm, hive, hive.getProfiles());
+                            }
+                            if (hive.getAreaAdjustments() != null) {
+                                hive.getAreaAdjustments().where().findAll().deleteAllFromRealm();
+                            }
                         }
                         // Delete hives
                         apiary.getHives().where().findAll().deleteAllFromRealm();
@@ -268,10 +285,14 @@ public class GoBeesLocalDataSource implements GoBeesDataSource {
                         .lessThan(TIMESTAMP, DateTimeUtils.getNextDay(nextDay))
                         .findAll();
                 // Create recording
-                recordings.add(new Recording(day, new ArrayList<>(filteredRecords)));
+                Recording recording = new Recording(day, new ArrayList<>(filteredRecords));
+                recording.setProfiles(getProfiles(hive, day, nextDay));
+                recordings.add(recording);
             }
+            // Add recordings of the days already rolled up
+            addAggregatedRecordings(hive, recordings);
             // Sort recordings (newest - oldest)
-            Collections.reverse(recordings);
+            Collections.sort(recordings, Collections.<Recording>reverseOrder());
             // Set recordings to hive
             hive.setRecordings(recordings);
             // Return hive
@@ -282,6 +303,106 @@ public class GoBeesLocalDataSource implements GoBeesDataSource {
         }
     }
 
+    /**
+     * Get the performance profiles of the sessions of a hive started in the given period.
+     *
+     * @param hive  hive.
+     * @param start start of the period (inclusive).
+     * @param end   end of the period (exclusive).
+     * @return list of profiles (oldest first).
+     */
+    private List<SessionProfile> getProfiles(Hive hive, Date start, Date end) {
+        if (hive.getProfiles() == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(hive.getProfiles()
+                .where()
+                .greaterThanOrEqualTo(TIMESTAMP, start)
+                .lessThan(TIMESTAMP, end)
+                .findAll()
+                .sort(TIMESTAMP));
+    }
+
+    /**
+     * Adds the recordings of the days whose records have been rolled up into aggregates (the
+     * aggregates are returned as records, one per aggregate period).
+     *
+     * @param hive       hive.
+     * @param recordings recordings of the raw records (one per day).
+     */
+    private void addAggregatedRecordings(Hive hive, List<Recording> recordings) {
+        if (hive.getAggregates() == null) {
+            return;
+        }
+        Map<Date, Recording> recordingsByDay = new HashMap<>();
+        for (Recording recording : recordings) {
+            recordingsByDay.put(recording.getDate(), recording);
+        }
+        RealmResults<RecordAggregate> aggregates = hive.getAggregates().where().findAll();
+        Date nextDay = new Date(0);
+        while (true) {
+            // Get all aggregates greater than last recordings
+            aggregates = aggregates.where().greaterThanOrEqualTo(TIMESTAMP, nextDay).findAll()
+                    .sort(TIMESTAMP);
+            if (aggregates.isEmpty()) {
+                break;
+            }
+            // Get range of days to filter
+            Date day = DateTimeUtils.getDateOnly(aggregates.first().getTimestamp());
+            nextDay = DateTimeUtils.getNextDay(day);
+            // Filter aggregates of that date
+            List<Record> records = toRecords(aggregates.where()
+                    .lessThan(TIMESTAMP, nextDay)
+                    .findAll()
+                    .sort(TIMESTAMP));
+            Recording recording = recordingsByDay.get(day);
+            if (recording == null) {
+                // Day already rolled up
+                recording = new Recording(day, records);
+                recording.setProfiles(getProfiles(hive, day, nextDay));
+                recordings.add(recording);
+            } else {
+                // Day with raw records (i.e. recordings after midnight)
+                recording.getRecords().addAll(records);
+                Collections.sort(recording.getRecords());
+            }
+        }
+    }
+
+    /**
+     * Converts aggregates into (unmanaged) records.
+     *
+     * @param aggregates aggregates.
+     * @return list of records.
+     */
+    private List<Record> toRecords(List<RecordAggregate> aggregates) {
+        List<Record> records = new ArrayList<>(aggregates.size());
+        for (RecordAggregate aggregate : aggregates) {
+            records.add(aggregate.toRecord());
+        }
+        return records;
+    }
+
+    /**
+     * Deletes profiles of a hive. A profile shared with other hives (a session that monitored
+     * several hives) is only unlinked from the hive.
+     * Note: it must be called inside a transaction.
+     *
+     * @param realm    realm instance.
+     * @param hive     hive.
+     * @param profiles profiles of the hive to delete.
+     */
+    private void deleteProfiles(Realm realm, Hive hive, List<SessionProfile> profiles) {
+        for (SessionProfile profile : new ArrayList<>(profiles)) {
+            long numHives = realm.where(Hive.class).equalTo(PROFILES_ID, profile.getId()).count();
+            if (numHives > 1 && hive.getProfiles() != null) {
+                hive.getProfiles().remove(profile);
+            } else {
+                profile.deleteFromRealm();
+            }
+        }
+    }
+
     @Override
     public void refreshHives(long apiaryId) {
         // Not required because the GoBeesRepository handles the logic of refreshing the
@@ -322,10 +443,19 @@ public class GoBeesLocalDataSource implements GoBeesDataSource {
             realm.executeTransaction(new Realm.Transaction() {
                 @Override
                 public void execute(@NonNull Realm realm) {
-                    // Delete records of the hive
+                    // Delete records, aggregates, profiles and area adjustments of the hive
                     if (hive.getRecords() != null) {
                         hive.getRecords().where().findAll().deleteAllFromRealm();
                     }
+                    if (hive.getAggregates() != null) {
+                        hive.getAggregates().where().findAll().deleteAllFromRealm();
+                    }
+                    if (hive.getProfiles() != null) {
+                        deleteProfiles(realm, hive, hive.getProfiles());
+                    }
+                    if (hive.getAreaAdjustments() != null) {
+                        hive.getAreaAdjustments().where().findAll().deleteAllFromRealm();
+                    }
                     // Delete hive
                     hive.deleteFromRealm();
                 }
@@ -365,13 +495,38 @@ public class GoBeesLocalDataSource implements GoBeesDataSource {
     }
 
     @Override
-    public void saveRecords(final long hiveId, @NonNull final List<Record> records,
+    public void saveRecords(long hiveId, @NonNull List<Record> records,
                             @NonNull SaveRecordingCallback callback) {
         if (records.size() < 5) {
             // Recording too short
             callback.onRecordingTooShort();
             return;
         }
+        if (addRecords(hiveId, records)) {
+            callback.onSuccess();
+        } else {
+            callback.onFailure();
+        }
+    }
+
+    @Override
+    public void appendRecords(long hiveId, @NonNull List<Record> records,
+                              @NonNull TaskCallback callback) {
+        if (records.isEmpty() || addRecords(hiveId, records)) {
+            callback.onSuccess();
+        } else {
+            callback.onFailure();
+        }
+    }
+
+    /**
+     * Saves given list of records and adds them to the hive.
+     *
+     * @param hiveId  hive id.
+     * @param records list of record unmanaged objects.
+     * @return true if the records have been saved.
+     */
+    private boolean addRecords(final long hiveId, @NonNull final List<Record> records) {
         try {
             // Get first id
             Number n = realm.where(Record.class).max(ID);
@@ -395,9 +550,64 @@ public class GoBeesLocalDataSource implements GoBeesDataSource {
                     hive.setLastRevision(new Date());
                 }
             });
+            return true;
+        } catch (Exception e) {
+            Log.e(e, "Error: addRecords()");
+            return false;
+        }
+    }
+
+    @Override
+    public void saveSessionProfile(@NonNull final List<Long> hiveIds,
+                                   @NonNull final SessionProfile profile,
+                                   @NonNull TaskCallback callback) {
+        try {
+            // Set id
+            Number n = realm.where(SessionProfile.class).max(ID);
+            profile.setId(n != null ? n.longValue() + 1 : 0);
+            // Save profile
+            realm.executeTransaction(new Realm.Transaction() {
+                @Override
+                public void execute(@NonNull Realm realm) {
+                    SessionProfile managed = realm.copyToRealmOrUpdate(profile);
+                    // Link to each hive
+                    for (long hiveId : hiveIds) {
+                        Hive hive = realm.where(Hive.class).equalTo(ID, hiveId).findFirst();
+                        hive.addProfile(managed);
+                    }
+                }
+            });
             callback.onSuccess();
         } catch (Exception e) {
-            Log.e(e, "Error: saveRecords()");
+            Log.e(e, "Error: saveSessionProfile()");
+            callback.onFailure();
+        }
+    }
+
+    @Override
+    public void saveAreaAdjustments(final long hiveId,
+                                    @NonNull final List<AreaAdjustment> adjustments,
+                                    @NonNull TaskCallback callback) {
+        try {
+            // Set ids
+            Number n = realm.where(AreaAdjustment.class).max(ID);
+            long nextId = n != null ? n.longValue() + 1 : 0;
+            for (AreaAdjustment adjustment : adjustments) {
+                adjustment.setId(nextId++);
+            }
+            // Save adjustments
+            realm.executeTransaction(new Realm.Transaction() {
+                @Override
+                public void execute(@NonNull Realm realm) {
+                    List<AreaAdjustment> managed = realm.copyToRealmOrUpdate(adjustments);
+                    // Add to hive
+                    Hive hive = realm.where(Hive.class).equalTo(ID, hiveId).findFirst();
+                    hive.addAreaAdjustments(managed);
+                }
+            });
+            callback.onSuccess();
+        } catch (Exception e) {
+            Log.e(e, "Error: saveAreaAdjustments()");
             callback.onFailure();
         }
     }
@@ -418,12 +628,26 @@ public class GoBeesLocalDataSource implements GoBeesDataSource {
             return;
         }
         // Get records
-        RealmResults<Record> records = hive.getRecords()
+        Date from = DateTimeUtils.setTime(start, 0, 0, 0, 0);
+        Date to = DateTimeUtils.setTime(end, 23, 59, 59, 999);
+        List<Record> records = realm.copyFromRealm(hive.getRecords()
                 .where()
-                .greaterThanOrEqualTo(TIMESTAMP, DateTimeUtils.setTime(start, 0, 0, 0, 0))
-                .lessThanOrEqualTo(TIMESTAMP, DateTimeUtils.setTime(end, 23, 59, 59, 999))
+                .greaterThanOrEqualTo(TIMESTAMP, from)
+                .lessThanOrEqualTo(TIMESTAMP, to)
                 .findAll()
-                .sort(TIMESTAMP);
+                .sort(TIMESTAMP));
+        // Get aggregates of the records already rolled up
+        if (hive.getAggregates() != null) {
+            RealmResults<RecordAggregate> aggregates = hive.getAggregates()
+                    .where()
+                    .greaterThanOrEqualTo(TIMESTAMP, from)
+                    .lessThanOrEqualTo(TIMESTAMP, to)
+                    .findAll();
+            if (!aggregates.isEmpty()) {
+                records.addAll(toRecords(aggregates));
+                Collections.sort(records);
+            }
+        }
         if (records.isEmpty()) {
             callback.onDataNotAvailable();
             return;
@@ -431,13 +655,12 @@ public class GoBeesLocalDataSource implements GoBeesDataSource {
         // Get weather data
         RealmResults<MeteoRecord> meteoRecords = apiary.getMeteoRecords()
                 .where()
-                .greaterThanOrEqualTo(TIMESTAMP, records.first().getTimestamp())
-                .lessThanOrEqualTo(TIMESTAMP, records.last().getTimestamp())
+                .greaterThanOrEqualTo(TIMESTAMP, records.get(0).getTimestamp())
+                .lessThanOrEqualTo(TIMESTAMP, records.get(records.size() - 1).getTimestamp())
                 .findAll()
                 .sort(TIMESTAMP);
         // Create recording
-        Recording recording = new Recording(start,
-                realm.copyFromRealm(records), realm.copyFromRealm(meteoRecords));
+        Recording recording = new Recording(start, records, realm.copyFromRealm(meteoRecords));
         callback.onRecordingLoaded(recording);
     }
 
@@ -446,7 +669,7 @@ public class GoBeesLocalDataSource implements GoBeesDataSource {
                                 @NonNull TaskCallback callback) {
         try {
             // Get hive
-            Hive hive = realm.where(Hive.class).equalTo(ID, hiveId).findFirst();
+            final Hive hive = realm.where(Hive.class).equalTo(ID, hiveId).findFirst();
             if (hive == null) {
                 callback.onFailure();
                 return;
@@ -469,6 +692,60 @@ public class GoBeesLocalDataSource implements GoBeesDataSource {
                     }
                 });
             }
+            if (hive.getAggregates() != null) {
+                // Get aggregates to delete
+                final RealmResults<RecordAggregate> aggregates;
+                aggregates = hive.getAggregates()
+                        .where()
+                        .greaterThanOrEqualTo(TIMESTAMP,
+                                DateTimeUtils.setTime(recording.getDate(), 0, 0, 0, 0))
+                        .lessThanOrEqualTo(TIMESTAMP,
+                                DateTimeUtils.setTime(recording.getDate(), 23, 59, 59, 999))
+                        .findAll();
+                // Delete aggregates
+                realm.executeTransaction(new Realm.Transaction() {
+                    @Override
+                    public void execute(@NonNull Realm realm) {
+                        aggregates.deleteAllFromRealm();
+                    }
+                });
+            }
+            if (hive.getProfiles() != null) {
+                // Get profiles to delete
+                final RealmResults<SessionProfile> profiles;
+                profiles = hive.getProfiles()
+                        .where()
+                        .greaterThanOrEqualTo(TIMESTAMP,
+                                DateTimeUtils.setTime(recording.getDate(), 0, 0, 0, 0))
+                        .lessThanOrEqualTo(TIMESTAMP,
+                                DateTimeUtils.setTime(recording.getDate(), 23, 59, 59, 999))
+                        .findAll();
+                // Delete profiles
+                realm.executeTransaction(new Realm.Transaction() {
+                    @Override
+                    public void execute(@NonNull Realm realm) {
+                        deleteProfiles(realm, hive, profiles);
+                    }
+                });
+            }
+            if (hive.getAreaAdjustments() != null) {
+                // Get area adjustments to delete
+                final RealmResults<AreaAdjustment> adjustments;
+                adjustments = hive.getAreaAdjustments()
+                        .where()
+                        .greaterThanOrEqualTo(TIMESTAMP,
+                                DateTimeUtils.setTime(recording.getDate(), 0, 0, 0, 0))
+                        .lessThanOrEqualTo(TIMESTAMP,
+                                DateTimeUtils.setTime(recording.getDate(), 23, 59, 59, 999))
+                        .findAll();
+                // Delete area adjustments
+                realm.executeTransaction(new Realm.Transaction() {
+                    @Override
+                    public void execute(@NonNull Realm realm) {
+                        adjustments.deleteAllFromRealm();
+                    }
+                });
+            }
             callback.onSuccess();
         } catch (Exception e) {
             Log.e(e, "Error: deleteRecording()");
@@ -481,41 +758,42 @@ public class GoBeesLocalDataSource implements GoBeesDataSource {
     public void updateApiariesCurrentWeather(final List<Apiary> apiariesToUpdate,
                                              @NonNull TaskCallback callback) {
         try {
-            // Save meteo records
+            final long t0 = System.nanoTime();
+            // Save meteo records and link them to the apiaries (in one transaction)
             realm.executeTransaction(new Realm.Transaction() {
                 @Override
                 public void execute(@NonNull Realm realm) {
+                    // Get all apiaries to update with one query
+                    Long[] ids = new Long[apiariesToUpdate.size()];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = apiariesToUpdate.get(i).getId();
+                    }
+                    Map<Long, Apiary> requestedApiaries = new HashMap<>();
+                    for (Apiary a : realm.where(Apiary.class).in(ID, ids).findAll()) {
+                        requestedApiaries.put(a.getId(), a);
+                    }
                     // Get next id
                     Number n = realm.where(MeteoRecord.class).max(ID);
                     long nextId = n != null ? n.longValue() + 1 : 0;
-                    // Save meteo records
                     for (Apiary apiary : apiariesToUpdate) {
-                        MeteoRecord meteoRecord = apiary.getCurrentWeather();
-                        meteoRecord.setId(nextId++);
-                        realm.copyToRealmOrUpdate(meteoRecord);
-                    }
-                }
-            });
-            realm.executeTransaction(new Realm.Transaction() {
-                @Override
-                public void execute(@NonNull Realm realm) {
-                    // Save apiaries with current weather updated
-                    for (Apiary apiary : apiariesToUpdate) {
-                        // Get apiary from db
-                        Apiary requestedApiary = realm.where(Apiary.class)
-                                .equalTo(ID, apiary.getId()).findFirst();
+                        Apiary requestedApiary = requestedApiaries.get(apiary.getId());
+                        if (requestedApiary == null) {
+                            continue;
+                        }
                         // Delete previous record
                         MeteoRecord oldMeteoRecord = requestedApiary.getCurrentWeather();
                         if (oldMeteoRecord != null) {
                             oldMeteoRecord.deleteFromRealm();
                         }
-                        // Add new current weather to apiary
-                        MeteoRecord meteoRecord = realm.where(MeteoRecord.class)
-                                .equalTo(ID, apiary.getCurrentWeather().getId()).findFirst();
-                        requestedApiary.setCurrentWeather(meteoRecord);
+                        // Save new record and link the managed copy to the apiary
+                        MeteoRecord meteoRecord = apiary.getCurrentWeather();
+                        meteoRecord.setId(nextId++);
+                        requestedApiary.setCurrentWeather(realm.copyToRealm(meteoRecord));
                     }
                 }
             });
+            Log.d("updateApiariesCurrentWeather time: %d",
+                    (System.nanoTime() - t0) / 1000000);
             callback.onSuccess();
         } catch (Exception e) {
             Log.e(e, "Error: updateApiariesCurrentWeather()");
@@ -573,9 +851,89 @@ public class GoBeesLocalDataSource implements GoBeesDataSource {
         });
     }
 
+    @Override
+    public void getWeatherTimestamps(@NonNull Date since,
+                                     @NonNull GetWeatherTimestampsCallback callback) {
+        new GetWeatherTimestampsTask(since, callback).execute();
+    }
+
+    @Override
+    public void backfillWeather(@NonNull TaskCallback callback) {
+        // Not required because the GoBeesRepository handles the logic of refreshing the
+        // data from all the available data sources
+    }
+
     @Override
     public void refreshRecordings(long hiveId) {
         // Not required because the GoBeesRepository handles the logic of refreshing the
         // data from all the available data sources
     }
+
+    /**
+     * Background task to get the weather timestamps. It uses its own Realm instance (the one of
+     * the data source belongs to the UI thread) and it only reads the timestamps, so the
+     * records are not copied.
+     */
+    private static class GetWeatherTimestampsTask
+            extends AsyncTask<Void, Void, List<WeatherTimestamps>> {
+
+        private final Date since;
+        private final GetWeatherTimestampsCallback callback;
+
+        GetWeatherTimestampsTask(Date since, GetWeatherTimestampsCallback callback) {
+            this.since = since;
+            this.callback = callback;
+        }
+
+        @Override
+        protected List<WeatherTimestamps> doInBackground(Void... params) {
+            Realm realm = null;
+            try {
+                realm = Realm.getDefaultInstance();
+                List<WeatherTimestamps> weatherTimestamps = new ArrayList<>();
+                for (Apiary apiary : realm.where(Apiary.class).findAll()) {
+                    if (!apiary.hasLocation() || apiary.getHives() == null) {
+                        continue;
+                    }
+                    // Records since the given date
+                    List<Date> recordTimestamps = new ArrayList<>();
+                    for (Hive hive : apiary.getHives()) {
+                        for (Record record : hive.getRecords().where()
+                                .greaterThanOrEqualTo(TIMESTAMP, since).findAll()) {
+                            recordTimestamps.add(record.getTimestamp());
+                        }
+                    }
+                    if (recordTimestamps.isEmpty()) {
+                        continue;
+                    }
+                    // Meteo records since the given date
+                    List<Date> meteoTimestamps = new ArrayList<>();
+                    for (MeteoRecord meteoRecord : apiary.getMeteoRecords().where()
+                            .greaterThanOrEqualTo(TIMESTAMP, since).findAll()) {
+                        meteoTimestamps.add(meteoRecord.getTimestamp());
+                    }
+                    weatherTimestamps.add(new WeatherTimestamps(apiary.getId(),
+                            apiary.getLocationLat(), apiary.getLocationLong(),
+                            recordTimestamps, meteoTimestamps));
+                }
+                return weatherTimestamps;
+            } catch (Exception e) {
+                Log.e(e, "Error: getWeatherTimestamps()");
+                return null;
+            } finally {
+                if (realm != null) {
+                    realm.close();
+                }
+            }
+        }
+
+        @Override
+        protected void onPostExecute(List<WeatherTimestamps> weatherTimestamps) {
+            if (weatherTimestamps == null) {
+                callback.onDataNotAvailable();
+                return;
+            }
+            callback.onWeatherTimestampsLoaded(weatherTimestamps);
+        }
+    }
 }
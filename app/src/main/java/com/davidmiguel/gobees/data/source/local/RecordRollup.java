@@ -0,0 +1,356 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+
+package com.davidmiguel.gobees.data.source.local;
+
+import android.support.annotation.NonNull;
+
+import com.davidmiguel.gobees.data.model.Hive;
+import com.davidmiguel.gobees.data.model.Record;
+import com.davidmiguel.gobees.data.model.RecordAggregate;
+import com.davidmiguel.gobees.logging.Log;
+import com.davidmiguel.gobees.utils.DateTimeUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import io.realm.OrderedRealmCollectionSnapshot;
+import io.realm.Realm;
+
+/**
+ * Retention of the records. Records are kept at full resolution during the configured number
+ * of days, then they are rolled up into per-minute aggregates (count, min, max and mean number
+ * of bees, and in / out events) and deleted. Per-minute aggregates older than
+ * MINUTE_RETENTION_DAYS are rolled up into per-10-minute aggregates.
+ * Notes:
+ * - Whole days are rolled up (the limit is the start of a day), so a recording is either raw or
+ * aggregated.
+ * - The start and end records of the recordings (numBees = -1) are not aggregated: they are kept
+ * as raw records, so the aggregated recordings keep their limits and the statistics are not
+ * affected by them.
+ * - The data to roll up is queried once and walked in batches of about BATCH_SIZE (one
+ * transaction per batch, cut at the end of an aggregate period), so transactions are short.
+ * - It opens its own realm instance, so it can run in a background thread.
+ */
+public class RecordRollup {
+
+    // Resolutions of the aggregates (ms)
+    static final long MINUTE = DateTimeUtils.T_1_MINUTE;
+    static final long TEN_MINUTES = DateTimeUtils.T_10_MINUTES;
+    // Days the per-minute aggregates are kept
+    static final int MINUTE_RETENTION_DAYS = 365;
+    // Number of records / aggregates processed in each transaction
+    static final int BATCH_SIZE = 5000;
+
+    // Fields names
+    private static final String ID = "id";
+    private static final String TIMESTAMP = "timestamp";
+    private static final String NUM_BEES = "numBees";
+    private static final String RESOLUTION = "resolution";
+
+    private final int recordsRetentionDays;
+
+    /**
+     * RecordRollup constructor.
+     *
+     * @param recordsRetentionDays days the records are kept at full resolution (0 to keep them
+     *                             forever).
+     */
+    public RecordRollup(int recordsRetentionDays) {
+        this.recordsRetentionDays = recordsRetentionDays;
+    }
+
+    /**
+     * Rolls up the old records and aggregates of all hives.
+     *
+     * @param now current date.
+     */
+    public void run(@NonNull Date now) {
+        Realm realm = Realm.getDefaultInstance();
+        try {
+            long start = System.currentTimeMillis();
+            int numRecords = 0;
+            int numAggregates = 0;
+            Date minuteLimit = getLimit(now, MINUTE_RETENTION_DAYS);
+            for (Hive hive : realm.where(Hive.class).findAll()) {
+                if (recordsRetentionDays > 0) {
+                    numRecords += rollUpRecords(realm, hive.getId(),
+                            getLimit(now, recordsRetentionDays));
+                }
+                numAggregates += rollUpAggregates(realm, hive.getId(), minuteLimit);
+            }
+            if (numRecords > 0 || numAggregates > 0) {
+                Log.i("Rolled up %d records and %d aggregates in %d ms", numRecords,
+                        numAggregates, System.currentTimeMillis() - start);
+            }
+        } finally {
+            realm.close();
+        }
+    }
+
+    /**
+     * Aggregates a list of records. The start and end records of the recordings (numBees < 0)
+     * are skipped.
+     *
+     * @param records    records sorted by timestamp.
+     * @param resolution length of the aggregate periods (ms).
+     * @return list of (unmanaged) aggregates, sorted by timestamp.
+     */
+    static List<RecordAggregate> aggregateRecords(List<Record> records, long resolution) {
+        List<RecordAggregate> aggregates = new ArrayList<>();
+        int first = 0;
+        while (first < records.size()) {
+            long period = getPeriodStart(records.get(first).getTimestamp(), resolution);
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            long sum = 0;
+            int count = 0;
+            int numIn = 0;
+            int numOut = 0;
+            int last = first;
+            while (last < records.size()
+                    && getPeriodStart(records.get(last).getTimestamp(), resolution) == period) {
+                Record record = records.get(last);
+                last++;
+                if (record.getNumBees() < 0) {
+                    // Start or end of a recording
+                    continue;
+                }
+                count++;
+                min = Math.min(min, record.getNumBees());
+                max = Math.max(max, record.getNumBees());
+                sum += record.getNumBees();
+                numIn += record.getNumIn();
+                numOut += record.getNumOut();
+            }
+            if (count > 0) {
+                aggregates.add(new RecordAggregate(new Date(period), resolution, count, min, max,
+                        sum / (double) count, numIn, numOut));
+            }
+            first = last;
+        }
+        return aggregates;
+    }
+
+    /**
+     * Merges a list of aggregates into aggregates of a lower resolution.
+     *
+     * @param aggregates aggregates sorted by timestamp.
+     * @param resolution length of the new aggregate periods (ms).
+     * @return list of (unmanaged) aggregates, sorted by timestamp.
+     */
+    static List<RecordAggregate> mergeAggregates(List<RecordAggregate> aggregates,
+                                                 long resolution) {
+        List<RecordAggregate> merged = new ArrayList<>();
+        int first = 0;
+        while (first < aggregates.size()) {
+            long period = getPeriodStart(aggregates.get(first).getTimestamp(), resolution);
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            double sum = 0;
+            int count = 0;
+            int numIn = 0;
+            int numOut = 0;
+            int last = first;
+            while (last < aggregates.size() && getPeriodStart(
+                    aggregates.get(last).getTimestamp(), resolution) == period) {
+                RecordAggregate aggregate = aggregates.get(last);
+                min = Math.min(min, aggregate.getMinBees());
+                max = Math.max(max, aggregate.getMaxBees());
+                sum += aggregate.getMeanBees() * aggregate.getCount();
+                count += aggregate.getCount();
+                numIn += aggregate.getNumIn();
+                numOut += aggregate.getNumOut();
+                last++;
+            }
+            merged.add(new RecordAggregate(new Date(period), resolution, count, min, max,
+                    sum / count, numIn, numOut));
+            first = last;
+        }
+        return merged;
+    }
+
+    /**
+     * Rolls up the records of a hive older than the limit into per-minute aggregates.
+     *
+     * @return number of records rolled up.
+     */
+    private int rollUpRecords(Realm realm, long hiveId, Date limit) {
+        final Hive hive = realm.where(Hive.class).equalTo(ID, hiveId).findFirst();
+        if (hive == null || hive.getRecords() == null) {
+            return 0;
+        }
+        // Snapshot, so the indexes don't change when the records are deleted
+        final OrderedRealmCollectionSnapshot<Record> old = hive.getRecords()
+                .where()
+                .lessThan(TIMESTAMP, limit)
+                .greaterThanOrEqualTo(NUM_BEES, 0)
+                .findAll()
+                .sort(TIMESTAMP)
+                .createSnapshot();
+        int first = 0;
+        while (first < old.size()) {
+            final int start = first;
+            final int end = getRecordsBatchEnd(old, first, limit);
+            final List<RecordAggregate> aggregates =
+                    aggregateRecords(old.subList(start, end), MINUTE);
+            realm.executeTransaction(new Realm.Transaction() {
+                @Override
+                public void execute(@NonNull Realm realm) {
+                    hive.addAggregates(saveAggregates(realm, aggregates));
+                    for (int i = start; i < end; i++) {
+                        old.deleteFromRealm(i);
+                    }
+                }
+            });
+            first = end;
+        }
+        return old.size();
+    }
+
+    /**
+     * Rolls up the per-minute aggregates of a hive older than the limit into per-10-minute
+     * aggregates.
+     *
+     * @return number of aggregates rolled up.
+     */
+    private int rollUpAggregates(Realm realm, long hiveId, Date limit) {
+        final Hive hive = realm.where(Hive.class).equalTo(ID, hiveId).findFirst();
+        if (hive == null || hive.getAggregates() == null) {
+            return 0;
+        }
+        // Snapshot, so the indexes don't change when the aggregates are deleted
+        final OrderedRealmCollectionSnapshot<RecordAggregate> old = hive.getAggregates()
+                .where()
+                .equalTo(RESOLUTION, MINUTE)
+                .lessThan(TIMESTAMP, limit)
+                .findAll()
+                .sort(TIMESTAMP)
+                .createSnapshot();
+        int first = 0;
+        while (first < old.size()) {
+            final int start = first;
+            final int end = getAggregatesBatchEnd(old, first, limit);
+            final List<RecordAggregate> aggregates =
+                    mergeAggregates(old.subList(start, end), TEN_MINUTES);
+            realm.executeTransaction(new Realm.Transaction() {
+                @Override
+                public void execute(@NonNull Realm realm) {
+                    for (int i = start; i < end; i++) {
+                        old.deleteFromRealm(i);
+                    }
+                    hive.addAggregates(saveAggregates(realm, aggregates));
+                }
+            });
+            first = end;
+        }
+        return old.size();
+    }
+
+    /**
+     * Saves the aggregates (it must be called inside a transaction).
+     *
+     * @return managed aggregates.
+     */
+    private static List<RecordAggregate> saveAggregates(Realm realm,
+                                                        List<RecordAggregate> aggregates) {
+        // Get first id
+        Number n = realm.where(RecordAggregate.class).max(ID);
+        long nextId = n != null ? n.longValue() + 1 : 0;
+        // Save aggregates
+        List<RecordAggregate> managed = new ArrayList<>(aggregates.size());
+        for (RecordAggregate aggregate : aggregates) {
+            aggregate.setId(nextId++);
+            managed.add(realm.copyToRealm(aggregate));
+        }
+        return managed;
+    }
+
+    /**
+     * Get the limit of the data to roll up: start of the day the given number of days ago.
+     *
+     * @param now  current date.
+     * @param days number of days.
+     * @return limit.
+     */
+    static Date getLimit(Date now, int days) {
+        return DateTimeUtils.getDateOnly(DateTimeUtils.addDays(now, -days));
+    }
+
+    /**
+     * Get the end of a batch of records: about BATCH_SIZE records, extended to the end of the
+     * minute of its last record.
+     *
+     * @param records records sorted by timestamp.
+     * @param first   index of the first record of the batch.
+     * @param limit   limit of the data to roll up.
+     * @return index of the end of the batch (exclusive).
+     */
+    static int getRecordsBatchEnd(List<Record> records, int first, Date limit) {
+        int end = Math.min(first + BATCH_SIZE, records.size());
+        long periodEnd = getPeriodEnd(records.get(end - 1).getTimestamp(), MINUTE, limit);
+        while (end < records.size() && records.get(end).getTimestamp().getTime() < periodEnd) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Get the end of a batch of per-minute aggregates: about BATCH_SIZE aggregates, extended to
+     * the end of the 10 minutes of its last aggregate.
+     *
+     * @param aggregates aggregates sorted by timestamp.
+     * @param first      index of the first aggregate of the batch.
+     * @param limit      limit of the data to roll up.
+     * @return index of the end of the batch (exclusive).
+     */
+    static int getAggregatesBatchEnd(List<RecordAggregate> aggregates, int first, Date limit) {
+        int end = Math.min(first + BATCH_SIZE, aggregates.size());
+        long periodEnd = getPeriodEnd(aggregates.get(end - 1).getTimestamp(), TEN_MINUTES, limit);
+        while (end < aggregates.size()
+                && aggregates.get(end).getTimestamp().getTime() < periodEnd) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Get the end of the aggregate period of a timestamp (bounded by the limit).
+     *
+     * @param timestamp  timestamp.
+     * @param resolution length of the periods (ms).
+     * @param limit      limit of the data to roll up.
+     * @return end of the period (ms, exclusive).
+     */
+    private static long getPeriodEnd(Date timestamp, long resolution, Date limit) {
+        return Math.min(getPeriodStart(timestamp, resolution) + resolution, limit.getTime());
+    }
+
+    /**
+     * Get the start of the aggregate period of a timestamp.
+     *
+     * @param timestamp  timestamp.
+     * @param resolution length of the periods (ms).
+     * @return start of the period (ms).
+     */
+    private static long getPeriodStart(Date timestamp, long resolution) {
+        return timestamp.getTime() - timestamp.getTime() % resolution;
+    }
+}
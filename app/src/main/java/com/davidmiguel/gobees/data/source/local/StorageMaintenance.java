@@ -0,0 +1,131 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+
+package com.davidmiguel.gobees.data.source.local;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+import com.davidmiguel.gobees.logging.Log;
+
+import java.io.File;
+
+import io.realm.CompactOnLaunchCallback;
+
+/**
+ * Storage maintenance of the realm database.
+ * The realm file only grows (records are constantly inserted and recordings deleted), so it is
+ * compacted when the space not used by live data crosses a threshold. Realm can only compact
+ * the file when no instance is open, so it is checked when the database is opened for the first
+ * time after the application starts.
+ * Notes:
+ * - While the device is charging, the thresholds are lower (compaction takes longer with a big
+ * file, so it is done when it does not drain the battery).
+ * - The reclaimed bytes are reported by reportCompaction() once the database is open.
+ * - The file is never compacted on the main thread (it can take a while with a big file and block
+ * the startup). Only the background warm-up of the database compacts it. If the main thread opens
+ * the database first, compaction is left for the next start.
+ */
+public class StorageMaintenance implements CompactOnLaunchCallback {
+
+    // Min file size to compact (bytes)
+    static final long MIN_FILE_SIZE = 16 * 1024 * 1024;
+    static final long MIN_FILE_SIZE_CHARGING = 2 * 1024 * 1024;
+    // Min fraction of the file not used by live data to compact
+    static final double MIN_FREE_RATIO = 0.5;
+    static final double MIN_FREE_RATIO_CHARGING = 0.2;
+
+    private final Context context;
+    private volatile long sizeBeforeCompaction = -1;
+
+    /**
+     * StorageMaintenance constructor.
+     *
+     * @param context context (used to check whether the device is charging).
+     */
+    public StorageMaintenance(@NonNull Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Checks whether the realm file has to be compacted.
+     *
+     * @param totalBytes size of the file (bytes).
+     * @param usedBytes  size of the live data (bytes).
+     * @param charging   whether the device is charging.
+     * @return true if the file has to be compacted.
+     */
+    static boolean shouldCompact(long totalBytes, long usedBytes, boolean charging) {
+        long minFileSize = charging ? MIN_FILE_SIZE_CHARGING : MIN_FILE_SIZE;
+        double minFreeRatio = charging ? MIN_FREE_RATIO_CHARGING : MIN_FREE_RATIO;
+        return totalBytes >= minFileSize
+                && (totalBytes - usedBytes) >= totalBytes * minFreeRatio;
+    }
+
+    @Override
+    public boolean shouldCompact(long totalBytes, long usedBytes) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            Log.d("Realm file: %d bytes, %d bytes used (main thread, not compacted)",
+                    totalBytes, usedBytes);
+            return false;
+        }
+        boolean charging = isCharging();
+        boolean compact = shouldCompact(totalBytes, usedBytes, charging);
+        Log.d("Realm file: %d bytes, %d bytes used (charging: %b, compact: %b)",
+                totalBytes, usedBytes, charging, compact);
+        if (compact) {
+            sizeBeforeCompaction = totalBytes;
+        }
+        return compact;
+    }
+
+    /**
+     * Reports the bytes reclaimed by the last compaction (if any).
+     * It must be called once the database has been opened.
+     *
+     * @param realmPath path of the realm file.
+     * @return reclaimed bytes (0 if the file has not been compacted).
+     */
+    public long reportCompaction(@NonNull String realmPath) {
+        if (sizeBeforeCompaction < 0) {
+            return 0;
+        }
+        long sizeAfterCompaction = new File(realmPath).length();
+        long reclaimed = sizeBeforeCompaction - sizeAfterCompaction;
+        Log.i("Realm file compacted: %d -> %d bytes (%d bytes reclaimed)",
+                sizeBeforeCompaction, sizeAfterCompaction, reclaimed);
+        sizeBeforeCompaction = -1;
+        return reclaimed;
+    }
+
+    /**
+     * Checks whether the device is charging (sticky battery intent).
+     *
+     * @return true if it is plugged.
+     */
+    private boolean isCharging() {
+        Intent battery = context.registerReceiver(null,
+                new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        return battery != null && battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+    }
+}
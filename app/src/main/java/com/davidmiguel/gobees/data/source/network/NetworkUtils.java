@@ -27,6 +27,7 @@ import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Date;
 import java.util.Scanner;
 
 /**
@@ -38,11 +39,21 @@ class NetworkUtils {
     private static final String CURRENT_WEATHER_URL =
             "http://api.openweathermap.org/data/2.5/weather";
 
+    /* Historical weather API (http://openweathermap.org/history) */
+    private static final String HISTORICAL_WEATHER_URL =
+            "http://history.openweathermap.org/data/2.5/history/city";
+
     /* Query parameters */
     private static final String LAT_PARAM = "lat";
     private static final String LON_PARAM = "lon";
     private static final String UNITS_PARAM = "units";
     private static final String APPID_PARAM = "appid";
+    private static final String TYPE_PARAM = "type";
+    private static final String START_PARAM = "start";
+    private static final String END_PARAM = "end";
+
+    /* Granularity of the historical data */
+    private static final String TYPE_HOUR = "hour";
 
     /* The units we want our API to return */
     private static final String UNITS = "metric";
@@ -72,6 +83,33 @@ class NetworkUtils {
         }
     }
 
+    /**
+     * Builds the URL to get historical weather data (hourly) of a time interval.
+     *
+     * @param latitude  the latitude of the location.
+     * @param longitude the longitude of the location.
+     * @param start     start of the interval.
+     * @param end       end of the interval.
+     * @return url to use to query the weather server.
+     */
+    static URL getHistoricalWeatherUrl(double latitude, double longitude, Date start, Date end) {
+        Uri weatherQueryUri = Uri.parse(HISTORICAL_WEATHER_URL).buildUpon()
+                .appendQueryParameter(LAT_PARAM, String.valueOf(latitude))
+                .appendQueryParameter(LON_PARAM, String.valueOf(longitude))
+                .appendQueryParameter(TYPE_PARAM, TYPE_HOUR)
+                .appendQueryParameter(START_PARAM, String.valueOf(start.getTime() / 1000))
+                .appendQueryParameter(END_PARAM, String.valueOf(end.getTime() / 1000))
+                .appendQueryParameter(UNITS_PARAM, UNITS)
+                .appendQueryParameter(APPID_PARAM, BuildConfig.OPEN_WEATHER_MAP_API_KEY)
+                .build();
+
+        try {
+            return new URL(weatherQueryUri.toString());
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
     /**
      * This method returns the entire result from the HTTP response.
      *
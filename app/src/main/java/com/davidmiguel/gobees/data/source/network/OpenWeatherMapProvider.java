@@ -0,0 +1,76 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+package com.davidmiguel.gobees.data.source.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.davidmiguel.gobees.data.model.MeteoRecord;
+import com.davidmiguel.gobees.utils.DateTimeUtils;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * OpenWeatherMap implementation of the weather provider.
+ */
+public class OpenWeatherMapProvider implements WeatherProvider {
+
+    // OpenWeatherMap history api returns up to one week per request
+    private static final long MAX_HISTORICAL_INTERVAL = DateTimeUtils.T_1_WEEK;
+
+    @Nullable
+    @Override
+    public MeteoRecord getCurrentWeather(double latitude, double longitude) throws IOException {
+        String json = NetworkUtils.getResponseFromHttpUrl(
+                NetworkUtils.getCurrentWeatherUrl(latitude, longitude));
+        if (json == null) {
+            return null;
+        }
+        try {
+            return OpenWeatherMapUtils.parseCurrentWeatherJson(json);
+        } catch (JSONException e) {
+            throw new IOException("Invalid current weather response", e);
+        }
+    }
+
+    @NonNull
+    @Override
+    public List<MeteoRecord> getHistoricalWeather(double latitude, double longitude,
+                                                  Date start, Date end) throws IOException {
+        String json = NetworkUtils.getResponseFromHttpUrl(
+                NetworkUtils.getHistoricalWeatherUrl(latitude, longitude, start, end));
+        if (json == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return OpenWeatherMapUtils.parseHistoricalWeatherJson(json);
+        } catch (JSONException e) {
+            throw new IOException("Invalid historical weather response", e);
+        }
+    }
+
+    @Override
+    public long getMaxHistoricalInterval() {
+        return MAX_HISTORICAL_INTERVAL;
+    }
+}
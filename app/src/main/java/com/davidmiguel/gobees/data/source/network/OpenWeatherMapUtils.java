@@ -25,7 +25,9 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Utility functions to handle OpenWeatherMap JSON data.
@@ -35,6 +37,12 @@ class OpenWeatherMapUtils {
     /* Result code */
     private static final String OWM_MESSAGE_CODE = "cod";
 
+    /* List of results (historical data) */
+    private static final String OWM_LIST = "list";
+
+    /* Time of data calculation (unix, UTC) */
+    private static final String OWM_DATE = "dt";
+
     /* Location information */
     private static final String OWM_CITY = "name";
 
@@ -63,6 +71,7 @@ class OpenWeatherMapUtils {
     /* Rain */
     private static final String OWM_RAIN = "rain";
     private static final String OWM_RAIN_3H = "3h";
+    private static final String OWM_RAIN_1H = "1h";
 
     /* Snow */
     private static final String OWM_SNOW = "snow";
@@ -71,24 +80,83 @@ class OpenWeatherMapUtils {
     private OpenWeatherMapUtils() {
     }
 
+    /**
+     * Parses the response of the current weather api.
+     *
+     * @param weatherJson json response.
+     * @return meteo record or null if the response contains an error.
+     * @throws JSONException if the response is not valid.
+     */
     static MeteoRecord parseCurrentWeatherJson(String weatherJson) throws JSONException {
         // Get JSON
         JSONObject jsonObject = new JSONObject(weatherJson);
+        // Check errors
+        if (hasError(jsonObject)) {
+            return null;
+        }
+        return parseWeatherObject(jsonObject, new Date());
+    }
 
+    /**
+     * Parses the response of the historical weather api.
+     *
+     * @param weatherJson json response.
+     * @return list of meteo records (empty if the response contains an error).
+     * @throws JSONException if the response is not valid.
+     */
+    static List<MeteoRecord> parseHistoricalWeatherJson(String weatherJson)
+            throws JSONException {
+        List<MeteoRecord> meteoRecords = new ArrayList<>();
+        // Get JSON
+        JSONObject jsonObject = new JSONObject(weatherJson);
         // Check errors
+        if (hasError(jsonObject) || !jsonObject.has(OWM_LIST)) {
+            return meteoRecords;
+        }
+        // Parse every record (its timestamp is the time of data calculation)
+        JSONArray jsonList = jsonObject.getJSONArray(OWM_LIST);
+        for (int i = 0; i < jsonList.length(); i++) {
+            JSONObject jsonRecord = jsonList.getJSONObject(i);
+            if (jsonRecord.has(OWM_DATE)) {
+                Date timestamp = new Date(jsonRecord.getLong(OWM_DATE) * 1000);
+                meteoRecords.add(parseWeatherObject(jsonRecord, timestamp));
+            }
+        }
+        return meteoRecords;
+    }
+
+    /**
+     * Checks whether the response contains an error code.
+     *
+     * @param jsonObject json response.
+     * @return true if there is an error.
+     * @throws JSONException if the response is not valid.
+     */
+    private static boolean hasError(JSONObject jsonObject) throws JSONException {
         if (jsonObject.has(OWM_MESSAGE_CODE)) {
             int errorCode = jsonObject.getInt(OWM_MESSAGE_CODE);
             switch (errorCode) {
                 case HttpURLConnection.HTTP_OK:
-                    break;
+                    return false;
                 case HttpURLConnection.HTTP_NOT_FOUND: // Location invalid
                 default: // Server probably down
-                    return null;
+                    return true;
             }
         }
+        return false;
+    }
 
+    /**
+     * Parses a json object with weather data.
+     *
+     * @param jsonObject json object.
+     * @param timestamp  timestamp of the meteo record.
+     * @return meteo record.
+     * @throws JSONException if the json object is not valid.
+     */
+    private static MeteoRecord parseWeatherObject(JSONObject jsonObject, Date timestamp)
+            throws JSONException {
         // Parse JSON
-        Date timestamp = new Date();
         String cityName = null;
         int weatherCondition = 0;
         String weatherConditionIcon = null;
@@ -152,8 +220,11 @@ class OpenWeatherMapUtils {
         // Get rain
         if (jsonObject.has(OWM_RAIN)) {
             JSONObject jsonRainObject = jsonObject.getJSONObject(OWM_RAIN);
-            rain = jsonRainObject.has(OWM_RAIN_3H) ?
-                    jsonRainObject.getDouble(OWM_RAIN_3H) : 0;
+            if (jsonRainObject.has(OWM_RAIN_3H)) {
+                rain = jsonRainObject.getDouble(OWM_RAIN_3H);
+            } else if (jsonRainObject.has(OWM_RAIN_1H)) {
+                rain = jsonRainObject.getDouble(OWM_RAIN_1H);
+            }
         }
 
         // Get snow
@@ -0,0 +1,327 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.data.source.network;
+
+import android.content.SharedPreferences;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.davidmiguel.gobees.data.model.MeteoRecord;
+import com.davidmiguel.gobees.logging.Log;
+import com.davidmiguel.gobees.utils.DateTimeUtils;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Cache of current weather records keyed by location.
+ * Notes:
+ * - The location is rounded to ~1 km (LOCATION_PRECISION decimals), so apiaries (or several
+ * hives recorded at the same time) that are close share the same entry.
+ * - An entry younger than TTL is fresh and it is served without contacting the server. TTL is
+ * shorter than the weather refresh intervals (15 min), so periodic refreshes always reach the
+ * server instead of getting the previous period's record.
+ * - An entry between TTL and MAX_STALE is only used as fallback when the server is not reachable.
+ * - Records are stored serialized (instead of the MeteoRecord), so every client gets a new
+ * unmanaged MeteoRecord that can be saved independently, whatever the weather provider is.
+ * - Entries are persisted in shared preferences to survive process restarts. Expired entries of
+ * other locations are evicted every time a new entry is stored, so they do not pile up.
+ */
+public class WeatherCache {
+
+    // Time while an entry is considered fresh
+    private static final long TTL = DateTimeUtils.T_10_MINUTES;
+    // Max age of an entry to be served while it is revalidated
+    private static final long MAX_STALE = DateTimeUtils.T_1_HOUR;
+    // Number of decimals of the location used as key
+    private static final int LOCATION_PRECISION = 2;
+    // Factor to round the location
+    private static final double LOCATION_SCALE = Math.pow(10, LOCATION_PRECISION);
+    // Shared preferences keys
+    private static final String KEY_PREFIX = "weather_";
+    private static final String JSON_SUFFIX = "_json";
+    private static final String TIMESTAMP_SUFFIX = "_timestamp";
+    // Serialized record fields
+    private static final String CITY = "city";
+    private static final String CONDITION = "condition";
+    private static final String ICON = "icon";
+    private static final String TEMPERATURE = "temp";
+    private static final String TEMPERATURE_MIN = "temp_min";
+    private static final String TEMPERATURE_MAX = "temp_max";
+    private static final String PRESSURE = "pressure";
+    private static final String HUMIDITY = "humidity";
+    private static final String WIND_SPEED = "wind_speed";
+    private static final String WIND_DEGREES = "wind_deg";
+    private static final String CLOUDS = "clouds";
+    private static final String RAIN = "rain";
+    private static final String SNOW = "snow";
+
+    private final SharedPreferences preferences;
+    private final Map<String, Entry> entries;
+
+    /**
+     * WeatherCache constructor.
+     *
+     * @param preferences shared preferences where to persist the entries.
+     */
+    public WeatherCache(@NonNull SharedPreferences preferences) {
+        this.preferences = preferences;
+        this.entries = new HashMap<>();
+    }
+
+    /**
+     * Get the cache key of a location (rounded latitude and longitude).
+     *
+     * @param latitude  the latitude of the location.
+     * @param longitude the longitude of the location.
+     * @return key.
+     */
+    static String getKey(double latitude, double longitude) {
+        String format = "%." + LOCATION_PRECISION + "f";
+        return String.format(Locale.US, format + "_" + format,
+                roundCoordinate(latitude), roundCoordinate(longitude));
+    }
+
+    /**
+     * Rounds a coordinate to LOCATION_PRECISION decimals. Small negative values are rounded to
+     * 0.0 (instead of -0.0), so locations around the equator or the prime meridian share key.
+     *
+     * @param coordinate latitude or longitude.
+     * @return rounded coordinate.
+     */
+    private static double roundCoordinate(double coordinate) {
+        // Adding 0.0 turns -0.0 into 0.0
+        return Math.round(coordinate * LOCATION_SCALE) / LOCATION_SCALE + 0.0;
+    }
+
+    /**
+     * Get the cached entry of a location.
+     *
+     * @param latitude  the latitude of the location.
+     * @param longitude the longitude of the location.
+     * @return cached entry or null if there is no usable entry.
+     */
+    @Nullable
+    synchronized Entry get(double latitude, double longitude) {
+        String key = getKey(latitude, longitude);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            // Try to restore it from disk
+            String json = preferences.getString(KEY_PREFIX + key + JSON_SUFFIX, null);
+            long timestamp = preferences.getLong(KEY_PREFIX + key + TIMESTAMP_SUFFIX, 0);
+            if (json == null) {
+                return null;
+            }
+            entry = new Entry(json, timestamp);
+            entries.put(key, entry);
+        }
+        // Evict expired entries
+        if (!entry.isUsable(System.currentTimeMillis())) {
+            remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores a weather record. Its timestamp is used as the time of the entry.
+     *
+     * @param latitude    the latitude of the location.
+     * @param longitude   the longitude of the location.
+     * @param meteoRecord current weather of that location.
+     */
+    synchronized void put(double latitude, double longitude, @NonNull MeteoRecord meteoRecord) {
+        String json;
+        try {
+            json = toJson(meteoRecord);
+        } catch (JSONException e) {
+            Log.e(e, "Error: WeatherCache.put()");
+            return;
+        }
+        String key = getKey(latitude, longitude);
+        long timestamp = meteoRecord.getTimestamp().getTime();
+        entries.put(key, new Entry(json, timestamp));
+        SharedPreferences.Editor editor = preferences.edit()
+                .putString(KEY_PREFIX + key + JSON_SUFFIX, json)
+                .putLong(KEY_PREFIX + key + TIMESTAMP_SUFFIX, timestamp);
+        evictExpired(key, editor);
+        editor.apply();
+    }
+
+    /**
+     * Removes the expired entries of other locations (from memory and disk).
+     *
+     * @param currentKey key of the entry that is being stored.
+     * @param editor     editor where to add the removals.
+     */
+    private void evictExpired(String currentKey, SharedPreferences.Editor editor) {
+        long now = System.currentTimeMillis();
+        Map<String, ?> persisted = preferences.getAll();
+        if (persisted == null) {
+            return;
+        }
+        List<String> expired = new ArrayList<>();
+        for (Map.Entry<String, ?> pref : persisted.entrySet()) {
+            String prefKey = pref.getKey();
+            if (!prefKey.startsWith(KEY_PREFIX) || !prefKey.endsWith(TIMESTAMP_SUFFIX)) {
+                continue;
+            }
+            String key = prefKey.substring(KEY_PREFIX.length(),
+                    prefKey.length() - TIMESTAMP_SUFFIX.length());
+            Object timestamp = pref.getValue();
+            if (!key.equals(currentKey) && (!(timestamp instanceof Long)
+                    || !new Entry(null, (Long) timestamp).isUsable(now))) {
+                expired.add(key);
+            }
+        }
+        for (String key : expired) {
+            entries.remove(key);
+            editor.remove(KEY_PREFIX + key + JSON_SUFFIX)
+                    .remove(KEY_PREFIX + key + TIMESTAMP_SUFFIX);
+        }
+    }
+
+    /**
+     * Removes an entry from memory and disk.
+     *
+     * @param key entry key.
+     */
+    private void remove(String key) {
+        entries.remove(key);
+        preferences.edit()
+                .remove(KEY_PREFIX + key + JSON_SUFFIX)
+                .remove(KEY_PREFIX + key + TIMESTAMP_SUFFIX)
+                .apply();
+    }
+
+    /**
+     * Serializes a weather record (the id and the timestamp are not included).
+     *
+     * @param meteoRecord weather record.
+     * @return json.
+     * @throws JSONException if the record could not be serialized.
+     */
+    static String toJson(@NonNull MeteoRecord meteoRecord) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put(CITY, meteoRecord.getCityName());
+        json.put(CONDITION, meteoRecord.getWeatherCondition());
+        json.put(ICON, meteoRecord.getWeatherConditionIcon());
+        json.put(TEMPERATURE, meteoRecord.getTemperature());
+        json.put(TEMPERATURE_MIN, meteoRecord.getTemperatureMin());
+        json.put(TEMPERATURE_MAX, meteoRecord.getTemperatureMax());
+        json.put(PRESSURE, meteoRecord.getPressure());
+        json.put(HUMIDITY, meteoRecord.getHumidity());
+        json.put(WIND_SPEED, meteoRecord.getWindSpeed());
+        json.put(WIND_DEGREES, meteoRecord.getWindDegrees());
+        json.put(CLOUDS, meteoRecord.getClouds());
+        json.put(RAIN, meteoRecord.getRain());
+        json.put(SNOW, meteoRecord.getSnow());
+        return json.toString();
+    }
+
+    /**
+     * Deserializes a weather record.
+     *
+     * @param json      serialized record.
+     * @param timestamp timestamp of the record.
+     * @return new unmanaged weather record.
+     * @throws JSONException if the json is not valid.
+     */
+    static MeteoRecord fromJson(@NonNull String json, long timestamp) throws JSONException {
+        JSONObject jsonObject = new JSONObject(json);
+        return new MeteoRecord(new Date(timestamp),
+                jsonObject.has(CITY) ? jsonObject.getString(CITY) : null,
+                jsonObject.getInt(CONDITION),
+                jsonObject.has(ICON) ? jsonObject.getString(ICON) : null,
+                jsonObject.getDouble(TEMPERATURE),
+                jsonObject.getDouble(TEMPERATURE_MIN),
+                jsonObject.getDouble(TEMPERATURE_MAX),
+                jsonObject.getInt(PRESSURE),
+                jsonObject.getInt(HUMIDITY),
+                jsonObject.getDouble(WIND_SPEED),
+                jsonObject.getDouble(WIND_DEGREES),
+                jsonObject.getInt(CLOUDS),
+                jsonObject.getDouble(RAIN),
+                jsonObject.getDouble(SNOW));
+    }
+
+    /**
+     * Cached weather record.
+     */
+    static class Entry {
+
+        private final String json;
+        private final long timestamp;
+
+        Entry(String json, long timestamp) {
+            this.json = json;
+            this.timestamp = timestamp;
+        }
+
+        String getJson() {
+            return json;
+        }
+
+        long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Get a new unmanaged copy of the cached record.
+         *
+         * @return weather record or null if it could not be deserialized.
+         */
+        @Nullable
+        MeteoRecord getMeteoRecord() {
+            try {
+                return fromJson(json, timestamp);
+            } catch (JSONException e) {
+                Log.e(e, "Error: WeatherCache.Entry.getMeteoRecord()");
+                return null;
+            }
+        }
+
+        /**
+         * Checks whether the entry can be served without contacting the server.
+         *
+         * @param now actual time (in milliseconds).
+         * @return true if it is fresh.
+         */
+        boolean isFresh(long now) {
+            return now - timestamp < TTL;
+        }
+
+        /**
+         * Checks whether the entry can be served when the server is not reachable.
+         *
+         * @param now actual time (in milliseconds).
+         * @return true if it is usable.
+         */
+        boolean isUsable(long now) {
+            return now - timestamp < MAX_STALE;
+        }
+    }
+}
@@ -18,35 +18,59 @@
 
 package com.davidmiguel.gobees.data.source.network;
 
+import android.content.Context;
 import android.os.AsyncTask;
 
 import com.davidmiguel.gobees.data.model.MeteoRecord;
 import com.davidmiguel.gobees.logging.Log;
 
-import org.json.JSONException;
-
 import java.io.IOException;
-import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 
 /**
- * Provides access to the weather server.
+ * Provides access to the weather server (through a WeatherProvider).
+ * Current weather responses are cached by location (see WeatherCache) to avoid redundant requests.
  */
 public class WeatherDataSource {
 
+    private static final String WEATHER_CACHE_PREFS = "weather_cache";
+
     private static WeatherDataSource instance;
 
-    private WeatherDataSource() {
+    private final WeatherProvider weatherProvider;
+
+    private final WeatherCache weatherCache;
+
+    private WeatherDataSource(WeatherProvider weatherProvider, WeatherCache weatherCache) {
+        this.weatherProvider = weatherProvider;
+        this.weatherCache = weatherCache;
     }
 
-    public static WeatherDataSource getInstance() {
+    /**
+     * Get WeatherDataSource instance.
+     *
+     * @param context         context used to access the persistent weather cache.
+     * @param weatherProvider weather data provider.
+     * @return WeatherDataSource instance.
+     */
+    public static WeatherDataSource getInstance(Context context, WeatherProvider weatherProvider) {
         if (instance == null) {
-            instance = new WeatherDataSource();
+            instance = new WeatherDataSource(weatherProvider,
+                    new WeatherCache(context.getApplicationContext()
+                            .getSharedPreferences(WEATHER_CACHE_PREFS, Context.MODE_PRIVATE)));
         }
         return instance;
     }
 
     /**
      * Get current weather data.
+     * If there is a fresh cached response for that location, the server is not contacted.
+     * Otherwise, the server is requested and the stale cached response (if any) is only
+     * returned when the server is not reachable. Callers refresh the weather less often than the
+     * cache TTL, so serving stale data while revalidating would always return the previous
+     * period's record.
      *
      * @param id        identifier of the operation.
      * @param latitude  the latitude of the location.
@@ -54,72 +78,196 @@ public class WeatherDataSource {
      */
     public void getCurrentWeather(int id, double latitude, double longitude,
                                   GetWeatherCallback getWeatherCallback) {
-        URL weatherRequestUrl = NetworkUtils.getCurrentWeatherUrl(latitude, longitude);
-        DataHolder data = new DataHolder(id, weatherRequestUrl, getWeatherCallback);
+        DataHolder data = new DataHolder(id, latitude, longitude);
+        data.setGetWeatherCallback(getWeatherCallback);
         new GetWeatherTask().execute(data);
     }
 
+    /**
+     * Get historical weather data of a time interval.
+     * Long intervals are split in as few requests as the provider allows. Responses are not
+     * cached.
+     *
+     * @param id        identifier of the operation.
+     * @param latitude  the latitude of the location.
+     * @param longitude the longitude of the location.
+     * @param start     start of the interval.
+     * @param end       end of the interval.
+     */
+    public void getHistoricalWeather(int id, double latitude, double longitude, Date start,
+                                     Date end, GetHistoricalWeatherCallback callback) {
+        DataHolder data = new DataHolder(id, latitude, longitude);
+        data.setInterval(start, end);
+        data.setGetHistoricalWeatherCallback(callback);
+        new GetHistoricalWeatherTask().execute(data);
+    }
+
+    /**
+     * Requests the current weather to the provider and stores the response in the cache.
+     *
+     * @param latitude  the latitude of the location.
+     * @param longitude the longitude of the location.
+     * @return meteo record or null if the request failed.
+     */
+    private MeteoRecord fetchCurrentWeather(double latitude, double longitude) {
+        try {
+            MeteoRecord meteoRecord = weatherProvider.getCurrentWeather(latitude, longitude);
+            if (meteoRecord != null) {
+                // Only valid responses are cached
+                weatherCache.put(latitude, longitude, meteoRecord);
+            }
+            return meteoRecord;
+        } catch (IOException e) {
+            Log.e(e, "Error: fetchCurrentWeather()");
+        }
+        return null;
+    }
+
     public interface GetWeatherCallback {
         void onWeatherLoaded(int id, MeteoRecord meteoRecord);
 
         void onDataNotAvailable();
     }
 
+    public interface GetHistoricalWeatherCallback {
+        void onHistoricalWeatherLoaded(int id, List<MeteoRecord> meteoRecords);
+
+        void onDataNotAvailable(int id);
+    }
+
     /**
-     * Background task to connect to the weather api, get the data and parse it.
+     * Background task to get the data from the cache or the weather provider.
      */
     private class GetWeatherTask extends AsyncTask<DataHolder, Void, DataHolder> {
         @Override
         protected DataHolder doInBackground(DataHolder... dataArray) {
             DataHolder data = dataArray[0];
-            URL weatherRequestUrl = data.getUrl();
-            try {
-                String json = NetworkUtils.getResponseFromHttpUrl(weatherRequestUrl);
-                MeteoRecord meteoRecord = OpenWeatherMapUtils.parseCurrentWeatherJson(json);
-                data.setMeteoRecord(meteoRecord);
-                return data;
-            } catch (IOException | JSONException e) {
-                Log.e(e, "Error: GetWeatherTask()");
+            long now = System.currentTimeMillis();
+            // Check cache
+            WeatherCache.Entry entry = weatherCache.get(data.getLatitude(), data.getLongitude());
+            if (entry != null && entry.isFresh(now)) {
+                data.setMeteoRecord(entry.getMeteoRecord());
                 return data;
             }
+            // Request weather server
+            MeteoRecord meteoRecord = fetchCurrentWeather(data.getLatitude(), data.getLongitude());
+            if (meteoRecord == null && entry != null) {
+                // Server not reachable -> fall back on stale data
+                meteoRecord = entry.getMeteoRecord();
+            }
+            data.setMeteoRecord(meteoRecord);
+            return data;
         }
 
         @Override
         protected void onPostExecute(DataHolder data) {
             if (data.getMeteoRecord() == null) {
                 data.getGetWeatherCallback().onDataNotAvailable();
+                return;
             }
             data.getGetWeatherCallback().onWeatherLoaded(data.getId(), data.getMeteoRecord());
         }
     }
 
     /**
-     * Class to pass data to the async task.
+     * Background task to get historical data from the weather provider.
+     */
+    private class GetHistoricalWeatherTask extends AsyncTask<DataHolder, Void, DataHolder> {
+        @Override
+        protected DataHolder doInBackground(DataHolder... dataArray) {
+            DataHolder data = dataArray[0];
+            List<MeteoRecord> meteoRecords = new ArrayList<>();
+            long maxInterval = weatherProvider.getMaxHistoricalInterval();
+            long start = data.getStart().getTime();
+            long end = data.getEnd().getTime();
+            try {
+                // Request the interval in chunks as long as the provider allows
+                while (start < end) {
+                    long chunkEnd = Math.min(start + maxInterval, end);
+                    meteoRecords.addAll(weatherProvider.getHistoricalWeather(data.getLatitude(),
+                            data.getLongitude(), new Date(start), new Date(chunkEnd)));
+                    start = chunkEnd;
+                }
+            } catch (IOException e) {
+                Log.e(e, "Error: GetHistoricalWeatherTask()");
+                return data;
+            }
+            data.setMeteoRecords(meteoRecords);
+            return data;
+        }
+
+        @Override
+        protected void onPostExecute(DataHolder data) {
+            if (data.getMeteoRecords() == null) {
+                data.getGetHistoricalWeatherCallback().onDataNotAvailable(data.getId());
+                return;
+            }
+            data.getGetHistoricalWeatherCallback()
+                    .onHistoricalWeatherLoaded(data.getId(), data.getMeteoRecords());
+        }
+    }
+
+    /**
+     * Class to pass data to the async tasks.
      */
     private class DataHolder {
-        GetWeatherCallback getWeatherCallback;
+        private GetWeatherCallback getWeatherCallback;
+        private GetHistoricalWeatherCallback getHistoricalWeatherCallback;
         private int id;
-        private URL url;
+        private double latitude;
+        private double longitude;
+        private Date start;
+        private Date end;
         private MeteoRecord meteoRecord;
+        private List<MeteoRecord> meteoRecords;
 
-        DataHolder(int id, URL url, GetWeatherCallback getWeatherCallback) {
+        DataHolder(int id, double latitude, double longitude) {
             this.id = id;
-            this.url = url;
-            this.getWeatherCallback = getWeatherCallback;
+            this.latitude = latitude;
+            this.longitude = longitude;
         }
 
         int getId() {
             return id;
         }
 
-        URL getUrl() {
-            return url;
+        double getLatitude() {
+            return latitude;
+        }
+
+        double getLongitude() {
+            return longitude;
+        }
+
+        Date getStart() {
+            return start;
+        }
+
+        Date getEnd() {
+            return end;
+        }
+
+        void setInterval(Date start, Date end) {
+            this.start = start;
+            this.end = end;
         }
 
         GetWeatherCallback getGetWeatherCallback() {
             return getWeatherCallback;
         }
 
+        void setGetWeatherCallback(GetWeatherCallback getWeatherCallback) {
+            this.getWeatherCallback = getWeatherCallback;
+        }
+
+        GetHistoricalWeatherCallback getGetHistoricalWeatherCallback() {
+            return getHistoricalWeatherCallback;
+        }
+
+        void setGetHistoricalWeatherCallback(GetHistoricalWeatherCallback callback) {
+            this.getHistoricalWeatherCallback = callback;
+        }
+
         MeteoRecord getMeteoRecord() {
             return meteoRecord;
         }
@@ -127,5 +275,13 @@ public class WeatherDataSource {
         void setMeteoRecord(MeteoRecord meteoRecord) {
             this.meteoRecord = meteoRecord;
         }
+
+        List<MeteoRecord> getMeteoRecords() {
+            return meteoRecords;
+        }
+
+        void setMeteoRecords(List<MeteoRecord> meteoRecords) {
+            this.meteoRecords = meteoRecords;
+        }
     }
 }
@@ -0,0 +1,66 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+package com.davidmiguel.gobees.data.source.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.davidmiguel.gobees.data.model.MeteoRecord;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Weather data provider (weather server) used by WeatherDataSource.
+ * Methods are blocking, so they must not be called from the main thread.
+ */
+public interface WeatherProvider {
+
+    /**
+     * Get current weather data.
+     *
+     * @param latitude  the latitude of the location.
+     * @param longitude the longitude of the location.
+     * @return meteo record or null if the provider has no data for that location.
+     * @throws IOException if the provider could not be reached.
+     */
+    @Nullable
+    MeteoRecord getCurrentWeather(double latitude, double longitude) throws IOException;
+
+    /**
+     * Get historical weather data of a time interval (all the records in a single request).
+     *
+     * @param latitude  the latitude of the location.
+     * @param longitude the longitude of the location.
+     * @param start     start of the interval.
+     * @param end       end of the interval.
+     * @return list of meteo records sorted by timestamp (empty if there is no data).
+     * @throws IOException if the provider could not be reached.
+     */
+    @NonNull
+    List<MeteoRecord> getHistoricalWeather(double latitude, double longitude,
+                                           Date start, Date end) throws IOException;
+
+    /**
+     * Get the max length of the interval that can be requested at once.
+     *
+     * @return max interval length (in milliseconds).
+     */
+    long getMaxHistoricalInterval();
+}
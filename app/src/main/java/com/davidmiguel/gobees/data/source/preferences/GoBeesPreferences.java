@@ -46,4 +46,23 @@ public class GoBeesPreferences {
         String metric = context.getString(R.string.pref_weather_units_metric);
         return metric.equals(preferredUnits);
     }
+
+    /**
+     * Returns the number of days the records are kept at full resolution (older records are
+     * rolled up into aggregates).
+     *
+     * @param context Context used to get the Strings.
+     * @return number of days (0 if records are kept forever).
+     */
+    public static int getRecordsRetentionDays(Context context) {
+        SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(context);
+        String keyForRetention = context.getString(R.string.pref_records_retention_key);
+        String defaultRetention = context.getString(R.string.pref_records_retention_month);
+        String retention = sp.getString(keyForRetention, defaultRetention);
+        try {
+            return Integer.parseInt(retention);
+        } catch (NumberFormatException e) {
+            return Integer.parseInt(defaultRetention);
+        }
+    }
 }
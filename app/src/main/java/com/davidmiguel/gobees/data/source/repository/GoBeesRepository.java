@@ -21,16 +21,20 @@ package com.davidmiguel.gobees.data.source.repository;
 import android.support.annotation.NonNull;
 
 import com.davidmiguel.gobees.data.model.Apiary;
+import com.davidmiguel.gobees.data.model.AreaAdjustment;
 import com.davidmiguel.gobees.data.model.Hive;
 import com.davidmiguel.gobees.data.model.MeteoRecord;
 import com.davidmiguel.gobees.data.model.Record;
 import com.davidmiguel.gobees.data.model.Recording;
+import com.davidmiguel.gobees.data.model.SessionProfile;
+import com.davidmiguel.gobees.data.model.WeatherTimestamps;
 import com.davidmiguel.gobees.data.source.GoBeesDataSource;
 import com.davidmiguel.gobees.data.source.network.WeatherDataSource;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -72,10 +76,30 @@ public class GoBeesRepository implements GoBeesDataSource {
      */
     boolean cacheIsDirty = false;
 
+    /**
+     * Weather gaps (by apiary id) that the weather server could not fill, so they are not
+     * requested again.
+     */
+    private final Map<Long, List<WeatherGapFinder.Gap>> unfillableGaps;
+
+    /**
+     * Data version of each hive (by hive id). It increases on each write of its records, so
+     * data prepared from them (i.e. recording charts) can be detected as outdated.
+     */
+    private final Map<Long, Long> hiveDataVersions;
+
+    /**
+     * Data version shared by all hives. It increases when data of every hive may have changed
+     * (i.e. weather data or rolled up records).
+     */
+    private long dataVersion;
+
     private GoBeesRepository(GoBeesDataSource goBeesDataSource,
                              WeatherDataSource weatherDataSource) {
         this.goBeesDataSource = goBeesDataSource;
         this.weatherDataSource = weatherDataSource;
+        this.unfillableGaps = new HashMap<>();
+        this.hiveDataVersions = new HashMap<>();
     }
 
     /**
@@ -113,6 +137,7 @@ public class GoBeesRepository implements GoBeesDataSource {
         if(cachedApiaries != null) {
             cachedApiaries.clear();
         }
+        increaseDataVersion();
         goBeesDataSource.deleteAll(callback);
     }
 
@@ -185,6 +210,7 @@ public class GoBeesRepository implements GoBeesDataSource {
             cachedApiaries = new LinkedHashMap<>();
         }
         cachedApiaries.remove(apiaryId);
+        increaseDataVersion();
         // Delete apiary
         goBeesDataSource.deleteApiary(apiaryId, callback);
     }
@@ -197,6 +223,7 @@ public class GoBeesRepository implements GoBeesDataSource {
             cachedApiaries = new LinkedHashMap<>();
         }
         cachedApiaries.clear();
+        increaseDataVersion();
         // Delete all apiaries
         goBeesDataSource.deleteAllApiaries(callback);
     }
@@ -257,6 +284,7 @@ public class GoBeesRepository implements GoBeesDataSource {
     @Override
     public void deleteHive(long hiveId, @NonNull TaskCallback callback) {
         checkNotNull(callback);
+        increaseDataVersion(hiveId);
         // Delete hive
         goBeesDataSource.deleteHive(hiveId, callback);
         refreshHives(-1);
@@ -272,6 +300,7 @@ public class GoBeesRepository implements GoBeesDataSource {
     @Override
     public void saveRecord(long hiveId, @NonNull Record record, @NonNull TaskCallback callback) {
         checkNotNull(callback);
+        increaseDataVersion(hiveId);
         // Save record
         goBeesDataSource.saveRecord(hiveId, record, callback);
     }
@@ -280,10 +309,37 @@ public class GoBeesRepository implements GoBeesDataSource {
     public void saveRecords(long hiveId, @NonNull List<Record> records,
                             @NonNull SaveRecordingCallback callback) {
         checkNotNull(callback);
+        increaseDataVersion(hiveId);
         // Save record
         goBeesDataSource.saveRecords(hiveId, records, callback);
     }
 
+    @Override
+    public void appendRecords(long hiveId, @NonNull List<Record> records,
+                              @NonNull TaskCallback callback) {
+        checkNotNull(callback);
+        // The chart of the recording in progress is outdated
+        increaseDataVersion(hiveId);
+        // Append records
+        goBeesDataSource.appendRecords(hiveId, records, callback);
+    }
+
+    @Override
+    public void saveSessionProfile(@NonNull List<Long> hiveIds, @NonNull SessionProfile profile,
+                                   @NonNull TaskCallback callback) {
+        checkNotNull(callback);
+        // Save profile
+        goBeesDataSource.saveSessionProfile(hiveIds, profile, callback);
+    }
+
+    @Override
+    public void saveAreaAdjustments(long hiveId, @NonNull List<AreaAdjustment> adjustments,
+                                    @NonNull TaskCallback callback) {
+        checkNotNull(callback);
+        // Save adjustments
+        goBeesDataSource.saveAreaAdjustments(hiveId, adjustments, callback);
+    }
+
     @Override
     public void getRecording(long apiaryId, long hiveId, Date start, Date end,
                              @NonNull GetRecordingCallback callback) {
@@ -296,6 +352,7 @@ public class GoBeesRepository implements GoBeesDataSource {
     public void deleteRecording(long hiveId, @NonNull Recording recording,
                                 @NonNull TaskCallback callback) {
         checkNotNull(callback);
+        increaseDataVersion(hiveId);
         // Delete recording
         goBeesDataSource.deleteRecording(hiveId, recording, callback);
     }
@@ -359,6 +416,8 @@ public class GoBeesRepository implements GoBeesDataSource {
                         RealmList<MeteoRecord> meteoRecords = new RealmList<>();
                         meteoRecords.add(meteoRecord);
                         apiary.setMeteoRecords(meteoRecords);
+                        // Weather charts of the apiary hives are outdated
+                        increaseDataVersion();
                         // Save data
                         goBeesDataSource.getAndSaveMeteoRecord(apiary, callback);
                         callback.onSuccess();
@@ -374,12 +433,177 @@ public class GoBeesRepository implements GoBeesDataSource {
     @Override
     public void saveMeteoRecords(long apiaryId, @NonNull List<MeteoRecord> meteoRecords) {
         checkNotNull(meteoRecords);
+        increaseDataVersion();
         goBeesDataSource.saveMeteoRecords(apiaryId, meteoRecords);
     }
 
+    @Override
+    public void getWeatherTimestamps(@NonNull Date since,
+                                     @NonNull GetWeatherTimestampsCallback callback) {
+        checkNotNull(since);
+        checkNotNull(callback);
+        goBeesDataSource.getWeatherTimestamps(since, callback);
+    }
+
+    @Override
+    public void backfillWeather(@NonNull final TaskCallback callback) {
+        checkNotNull(callback);
+        // Only the timestamps of the last days are needed (older gaps cannot be filled)
+        final long now = System.currentTimeMillis();
+        goBeesDataSource.getWeatherTimestamps(WeatherGapFinder.getWindowStart(now),
+                new GetWeatherTimestampsCallback() {
+                    @Override
+                    public void onWeatherTimestampsLoaded(
+                            List<WeatherTimestamps> weatherTimestamps) {
+                        backfillApiariesWeather(weatherTimestamps, now, callback);
+                    }
+
+                    @Override
+                    public void onDataNotAvailable() {
+                        callback.onFailure();
+                    }
+                });
+    }
+
     @Override
     public void refreshRecordings(long hiveId) {
-        // No action needed
+        // Prepared recording charts may be outdated
+        increaseDataVersion(hiveId);
+    }
+
+    /**
+     * Get the data version of a hive. It changes whenever its records or its weather data
+     * change.
+     *
+     * @param hiveId hive id.
+     * @return data version.
+     */
+    public synchronized long getDataVersion(long hiveId) {
+        Long hiveDataVersion = hiveDataVersions.get(hiveId);
+        return dataVersion + (hiveDataVersion == null ? 0 : hiveDataVersion);
+    }
+
+    /**
+     * Increases the data version of all hives (i.e. after the records have been rolled up).
+     */
+    public synchronized void increaseDataVersion() {
+        dataVersion++;
+    }
+
+    /**
+     * Increases the data version of a hive.
+     *
+     * @param hiveId hive id.
+     */
+    private synchronized void increaseDataVersion(long hiveId) {
+        Long hiveDataVersion = hiveDataVersions.get(hiveId);
+        hiveDataVersions.put(hiveId, hiveDataVersion == null ? 1 : hiveDataVersion + 1);
+    }
+
+    /**
+     * Requests the historical weather of the gaps of each apiary (a single batched request
+     * per apiary covering all its gaps) and saves the meteo records that fill them.
+     * Gaps that could not be filled are remembered and not requested again.
+     *
+     * @param weatherTimestamps timestamps of the records and meteo records of each apiary.
+     * @param now               actual time (in milliseconds).
+     * @param callback          TaskCallback.
+     */
+    private void backfillApiariesWeather(List<WeatherTimestamps> weatherTimestamps, long now,
+                                         @NonNull final TaskCallback callback) {
+        // Find gaps
+        final List<WeatherTimestamps> apiariesToBackfill = new ArrayList<>();
+        final List<List<WeatherGapFinder.Gap>> apiariesGaps = new ArrayList<>();
+        for (WeatherTimestamps apiary : weatherTimestamps) {
+            List<WeatherGapFinder.Gap> gaps = WeatherGapFinder.findGaps(
+                    apiary.getRecordTimestamps(), apiary.getMeteoTimestamps(), now);
+            List<WeatherGapFinder.Gap> known = unfillableGaps.get(apiary.getApiaryId());
+            if (known != null) {
+                gaps = WeatherGapFinder.removeKnownGaps(gaps, known);
+            }
+            if (!gaps.isEmpty()) {
+                apiariesToBackfill.add(apiary);
+                apiariesGaps.add(gaps);
+            }
+        }
+        if (apiariesToBackfill.isEmpty()) {
+            callback.onSuccess();
+            return;
+        }
+        // Prepare callback
+        final AtomicBoolean error = new AtomicBoolean(false);
+        final AtomicInteger counter = new AtomicInteger(0);
+        WeatherDataSource.GetHistoricalWeatherCallback getHistoricalWeatherCallback =
+                new WeatherDataSource.GetHistoricalWeatherCallback() {
+                    @Override
+                    public void onHistoricalWeatherLoaded(int id, List<MeteoRecord> meteoRecords) {
+                        // Save only the meteo records that fill the gaps
+                        WeatherTimestamps apiary = apiariesToBackfill.get(id);
+                        List<WeatherGapFinder.Gap> gaps = apiariesGaps.get(id);
+                        List<MeteoRecord> filtered = WeatherGapFinder.filterGaps(meteoRecords,
+                                gaps, apiary.getMeteoTimestamps());
+                        if (!filtered.isEmpty()) {
+                            saveMeteoRecords(apiary.getApiaryId(), filtered);
+                            cacheIsDirty = true;
+                        }
+                        // Remember the gaps without data
+                        rememberUnfillableGaps(apiary.getApiaryId(),
+                                WeatherGapFinder.findUnfilledGaps(gaps, filtered));
+                        onApiaryFinished();
+                    }
+
+                    @Override
+                    public void onDataNotAvailable(int id) {
+                        error.set(true);
+                        onApiaryFinished();
+                    }
+
+                    private void onApiaryFinished() {
+                        // Check if all apiaries have finished
+                        int value = counter.incrementAndGet();
+                        if (value >= apiariesToBackfill.size()) {
+                            if (!error.get()) {
+                                callback.onSuccess();
+                            } else {
+                                callback.onFailure();
+                            }
+                        }
+                    }
+                };
+        // Request historical weather
+        for (int i = 0; i < apiariesToBackfill.size(); i++) {
+            WeatherTimestamps apiary = apiariesToBackfill.get(i);
+            List<WeatherGapFinder.Gap> gaps = apiariesGaps.get(i);
+            Date start = new Date(gaps.get(0).getStart() - WeatherGapFinder.MAX_DISTANCE);
+            Date end = new Date(gaps.get(gaps.size() - 1).getEnd()
+                    + WeatherGapFinder.MAX_DISTANCE);
+            weatherDataSource.getHistoricalWeather(i, apiary.getLatitude(),
+                    apiary.getLongitude(), start, end, getHistoricalWeatherCallback);
+        }
+    }
+
+    /**
+     * Adds gaps to the list of unfillable gaps of an apiary. Gaps that are out of the backfill
+     * window are discarded.
+     *
+     * @param apiaryId apiary id.
+     * @param gaps     gaps that could not be filled.
+     */
+    private void rememberUnfillableGaps(long apiaryId, List<WeatherGapFinder.Gap> gaps) {
+        long windowStart = WeatherGapFinder.getWindowStart(System.currentTimeMillis()).getTime();
+        List<WeatherGapFinder.Gap> known = new ArrayList<>();
+        List<WeatherGapFinder.Gap> previous = unfillableGaps.get(apiaryId);
+        if (previous != null) {
+            known.addAll(previous);
+        }
+        known.addAll(gaps);
+        // Discard old gaps
+        for (int i = known.size() - 1; i >= 0; i--) {
+            if (known.get(i).getEnd() < windowStart) {
+                known.remove(i);
+            }
+        }
+        unfillableGaps.put(apiaryId, known);
     }
 
     /**
@@ -0,0 +1,256 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+package com.davidmiguel.gobees.data.source.repository;
+
+import android.support.annotation.NonNull;
+
+import com.davidmiguel.gobees.data.model.MeteoRecord;
+import com.davidmiguel.gobees.utils.DateTimeUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Finds the intervals of the recordings without weather data (i.e. when there was no
+ * connectivity while recording).
+ * Notes:
+ * - A record is covered if there is a meteo record closer than MAX_DISTANCE. It is half the
+ * granularity of the historical data (hourly), so gaps are not requested again once filled.
+ * - Uncovered records separated less than MAX_GAP_SEPARATION are joined into the same gap.
+ * - Records older than MAX_AGE are ignored (historical data is limited by the providers).
+ * - Gaps the provider had no data for are remembered by the caller and skipped afterwards
+ * (see removeKnownGaps()), so they are not requested again every time.
+ */
+final class WeatherGapFinder {
+
+    static final long MAX_DISTANCE = DateTimeUtils.T_1_HOUR / 2;
+    private static final long MAX_GAP_SEPARATION = DateTimeUtils.T_1_HOUR;
+    private static final long MAX_AGE = DateTimeUtils.T_1_WEEK;
+
+    private WeatherGapFinder() {
+    }
+
+    /**
+     * Get the date of the oldest timestamps needed to find the gaps (older records are ignored,
+     * but older meteo records can cover the first ones).
+     *
+     * @param now actual time (in milliseconds).
+     * @return date.
+     */
+    @NonNull
+    static Date getWindowStart(long now) {
+        return new Date(now - MAX_AGE - MAX_DISTANCE);
+    }
+
+    /**
+     * Finds the gaps in the weather data.
+     *
+     * @param recordTimestamps timestamps of the records of all the hives of an apiary.
+     * @param meteoTimestamps  timestamps of the meteo records of the apiary.
+     * @param now              actual time (in milliseconds).
+     * @return list of gaps sorted by time (empty if everything is covered).
+     */
+    @NonNull
+    static List<Gap> findGaps(@NonNull List<Date> recordTimestamps,
+                              @NonNull List<Date> meteoTimestamps, long now) {
+        long[] records = toSortedArray(recordTimestamps);
+        long[] meteo = toSortedArray(meteoTimestamps);
+        List<Gap> gaps = new ArrayList<>();
+        Gap current = null;
+        for (long record : records) {
+            if (now - record > MAX_AGE || isCovered(meteo, record)) {
+                continue;
+            }
+            if (current != null && record - current.getEnd() <= MAX_GAP_SEPARATION) {
+                current.setEnd(record);
+            } else {
+                current = new Gap(record, record);
+                gaps.add(current);
+            }
+        }
+        return gaps;
+    }
+
+    /**
+     * Filters the historical data to keep only the meteo records that fill a gap and that are
+     * not duplicated (close to an existing meteo record).
+     *
+     * @param meteoRecords    historical meteo records.
+     * @param gaps            gaps to fill.
+     * @param meteoTimestamps timestamps of the existing meteo records.
+     * @return meteo records to save.
+     */
+    @NonNull
+    static List<MeteoRecord> filterGaps(@NonNull List<MeteoRecord> meteoRecords,
+                                        @NonNull List<Gap> gaps,
+                                        @NonNull List<Date> meteoTimestamps) {
+        long[] meteo = toSortedArray(meteoTimestamps);
+        List<MeteoRecord> filtered = new ArrayList<>();
+        for (MeteoRecord meteoRecord : meteoRecords) {
+            long timestamp = meteoRecord.getTimestamp().getTime();
+            if (isInAnyGap(gaps, timestamp) && !isCovered(meteo, timestamp)) {
+                filtered.add(meteoRecord);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * Get the gaps that the historical data did not fill (the provider had no data for them).
+     *
+     * @param gaps     requested gaps.
+     * @param filtered meteo records that fill the gaps (see filterGaps()).
+     * @return unfilled gaps.
+     */
+    @NonNull
+    static List<Gap> findUnfilledGaps(@NonNull List<Gap> gaps,
+                                      @NonNull List<MeteoRecord> filtered) {
+        List<Gap> unfilled = new ArrayList<>();
+        for (Gap gap : gaps) {
+            boolean filled = false;
+            for (MeteoRecord meteoRecord : filtered) {
+                if (isInAnyGap(Collections.singletonList(gap),
+                        meteoRecord.getTimestamp().getTime())) {
+                    filled = true;
+                    break;
+                }
+            }
+            if (!filled) {
+                unfilled.add(gap);
+            }
+        }
+        return unfilled;
+    }
+
+    /**
+     * Removes the gaps contained in a known (already requested and unfilled) gap.
+     *
+     * @param gaps  gaps to check.
+     * @param known known gaps.
+     * @return gaps to request.
+     */
+    @NonNull
+    static List<Gap> removeKnownGaps(@NonNull List<Gap> gaps, @NonNull List<Gap> known) {
+        List<Gap> remaining = new ArrayList<>();
+        for (Gap gap : gaps) {
+            boolean isKnown = false;
+            for (Gap knownGap : known) {
+                if (knownGap.contains(gap)) {
+                    isKnown = true;
+                    break;
+                }
+            }
+            if (!isKnown) {
+                remaining.add(gap);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Checks whether there is a meteo record close to the given time.
+     *
+     * @param meteo     sorted meteo timestamps.
+     * @param timestamp time to check.
+     * @return true if it is covered.
+     */
+    private static boolean isCovered(long[] meteo, long timestamp) {
+        return distanceToClosest(meteo, timestamp) <= MAX_DISTANCE;
+    }
+
+    /**
+     * Get the distance to the closest timestamp (binary search).
+     *
+     * @param sorted    sorted timestamps.
+     * @param timestamp time to check.
+     * @return distance in milliseconds (Long.MAX_VALUE if there are no timestamps).
+     */
+    private static long distanceToClosest(long[] sorted, long timestamp) {
+        int pos = Arrays.binarySearch(sorted, timestamp);
+        if (pos >= 0) {
+            return 0;
+        }
+        int insertion = -pos - 1;
+        long distance = Long.MAX_VALUE;
+        if (insertion < sorted.length) {
+            distance = sorted[insertion] - timestamp;
+        }
+        if (insertion > 0) {
+            distance = Math.min(distance, timestamp - sorted[insertion - 1]);
+        }
+        return distance;
+    }
+
+    private static boolean isInAnyGap(List<Gap> gaps, long timestamp) {
+        for (Gap gap : gaps) {
+            if (timestamp >= gap.getStart() - MAX_DISTANCE
+                    && timestamp <= gap.getEnd() + MAX_DISTANCE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long[] toSortedArray(List<Date> dates) {
+        long[] array = new long[dates.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = dates.get(i).getTime();
+        }
+        Arrays.sort(array);
+        return array;
+    }
+
+    /**
+     * Interval without weather data.
+     */
+    static class Gap {
+
+        private final long start;
+        private long end;
+
+        Gap(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        long getStart() {
+            return start;
+        }
+
+        long getEnd() {
+            return end;
+        }
+
+        void setEnd(long end) {
+            this.end = end;
+        }
+
+        /**
+         * Checks whether the given gap is inside this one.
+         *
+         * @param gap gap to check.
+         * @return true if it is contained.
+         */
+        boolean contains(Gap gap) {
+            return start <= gap.getStart() && end >= gap.getEnd();
+        }
+    }
+}
@@ -39,6 +39,7 @@ import android.widget.TextView;
 import com.davidmiguel.gobees.R;
 import com.davidmiguel.gobees.data.model.Record;
 import com.davidmiguel.gobees.data.model.Recording;
+import com.davidmiguel.gobees.data.model.SessionProfile;
 import com.davidmiguel.gobees.utils.BaseViewHolder;
 import com.davidmiguel.gobees.utils.HourAxisValueFormatter;
 import com.davidmiguel.gobees.utils.ItemTouchHelperViewHolder;
@@ -114,6 +115,7 @@ class RecordingsAdapter extends RecyclerView.Adapter<RecordingsAdapter.Recording
         private View viewHolder;
         private CardView card;
         private TextView recordingDate;
+        private TextView recordingProfile;
         private LineChart chart;
         private ImageView moreIcon;
 
@@ -127,6 +129,7 @@ class RecordingsAdapter extends RecyclerView.Adapter<RecordingsAdapter.Recording
             viewHolder = itemView;
             card = (CardView) itemView.findViewById(R.id.card);
             recordingDate = (TextView) itemView.findViewById(R.id.recording_date);
+            recordingProfile = (TextView) itemView.findViewById(R.id.recording_profile);
             chart = (LineChart) itemView.findViewById(R.id.chart);
             moreIcon = (ImageView) itemView.findViewById(R.id.more_icon);
 
@@ -152,6 +155,14 @@ class RecordingsAdapter extends RecyclerView.Adapter<RecordingsAdapter.Recording
             String date = formatter.format(recording.getDate());
             recordingDate.setText(StringUtils.capitalize(date));
 
+            // Performance of the monitoring sessions
+            if (recording.getProfiles() != null && !recording.getProfiles().isEmpty()) {
+                recordingProfile.setText(getProfileSummary(recording.getProfiles()));
+                recordingProfile.setVisibility(View.VISIBLE);
+            } else {
+                recordingProfile.setVisibility(View.GONE);
+            }
+
             // Chart
             if (recording.getRecords() != null && !recording.getRecords().isEmpty()) {
                 long firstTimestamp = recording.getRecords().get(0).getTimestamp().getTime() / 1000;
@@ -196,6 +207,40 @@ class RecordingsAdapter extends RecyclerView.Adapter<RecordingsAdapter.Recording
             card.setBackground(background);
         }
 
+        /**
+         * Get the summary of the performance of the monitoring sessions of a recording: actual
+         * fps, dropped frames, worst 90th percentile of the latency and CPU usage (and the
+         * number of hives if the sessions monitored several hives, as they share the profile).
+         *
+         * @param profiles performance profiles of the sessions.
+         * @return summary text.
+         */
+        private String getProfileSummary(List<SessionProfile> profiles) {
+            long duration = 0;
+            long cpuTime = 0;
+            int numFrames = 0;
+            int numDropped = 0;
+            double latencyP90 = 0;
+            int numHives = 1;
+            for (SessionProfile profile : profiles) {
+                duration += profile.getDuration();
+                cpuTime += profile.getCpuTime();
+                numFrames += profile.getNumFrames();
+                numDropped += profile.getNumDropped();
+                latencyP90 = Math.max(latencyP90, profile.getLatencyP90());
+                numHives = Math.max(numHives, profile.getNumHives());
+            }
+            double fps = duration > 0 ? numFrames * 1000.0 / duration : 0;
+            int cpuUsage = duration > 0 ? (int) (cpuTime * 100 / duration) : 0;
+            String summary = context.getString(R.string.hive_recordings_profile, fps, numDropped,
+                    (int) latencyP90, cpuUsage);
+            if (numHives > 1) {
+                return context.getString(R.string.hive_recordings_profile_shared, summary,
+                        numHives);
+            }
+            return summary;
+        }
+
         /**
          * Get and prepare the data to draw in the chart.
          *
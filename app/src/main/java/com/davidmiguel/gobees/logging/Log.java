@@ -41,6 +41,12 @@ public class Log {
         if (BuildConfig.DEBUG) {
             Timber.plant(new DebugTree());
         }
+    }
+
+    /**
+     * Initialises crash reports logging (Crashlytics must be initialised).
+     */
+    public static void initCrashReports() {
         // Log to Crashlytics
         Timber.plant(new CrashlyticsTree());
         // Attach build info
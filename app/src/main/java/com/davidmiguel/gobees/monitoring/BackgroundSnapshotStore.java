@@ -0,0 +1,108 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring;
+
+import com.davidmiguel.gobees.logging.Log;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+
+/**
+ * Stores snapshots of the background model of a hive in the app storage (as PNG images).
+ * If the monitoring service is killed, the last snapshot is used to seed the background model
+ * when it is restarted, so it doesn't need to create it again. Snapshots older than maxAge are
+ * discarded (light conditions may have changed).
+ */
+class BackgroundSnapshotStore {
+
+    private static final String FILE_PREFIX = "background_";
+    private static final String FILE_EXTENSION = ".png";
+
+    private File directory;
+    private long maxAge;
+
+    /**
+     * BackgroundSnapshotStore constructor.
+     *
+     * @param directory directory where the snapshots are stored.
+     * @param maxAge    max age of a valid snapshot (in ms).
+     */
+    BackgroundSnapshotStore(File directory, long maxAge) {
+        this.directory = directory;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Saves the background snapshot of a hive (replacing the previous one).
+     *
+     * @param hiveId     hive id.
+     * @param background CV_8UC1 background image.
+     */
+    void save(long hiveId, Mat background) {
+        if (background.empty()) {
+            return;
+        }
+        File file = getFile(hiveId);
+        if (!Imgcodecs.imwrite(file.getAbsolutePath(), background)) {
+            Log.e("Error saving background snapshot: %s", file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Loads the background snapshot of a hive.
+     *
+     * @param hiveId hive id.
+     * @return CV_8UC1 background image or null if there is no valid snapshot.
+     */
+    Mat load(long hiveId) {
+        File file = getFile(hiveId);
+        if (!file.exists()) {
+            return null;
+        }
+        if (System.currentTimeMillis() - file.lastModified() > maxAge) {
+            // Too old
+            delete(hiveId);
+            return null;
+        }
+        Mat background = Imgcodecs.imread(file.getAbsolutePath(), Imgcodecs.IMREAD_GRAYSCALE);
+        if (background.empty()) {
+            Log.e("Error loading background snapshot: %s", file.getAbsolutePath());
+            return null;
+        }
+        return background;
+    }
+
+    /**
+     * Deletes the background snapshot of a hive.
+     *
+     * @param hiveId hive id.
+     */
+    void delete(long hiveId) {
+        File file = getFile(hiveId);
+        if (file.exists() && !file.delete()) {
+            Log.e("Error deleting background snapshot: %s", file.getAbsolutePath());
+        }
+    }
+
+    private File getFile(long hiveId) {
+        return new File(directory, FILE_PREFIX + hiveId + FILE_EXTENSION);
+    }
+}
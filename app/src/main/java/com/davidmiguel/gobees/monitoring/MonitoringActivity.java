@@ -19,15 +19,15 @@
 package com.davidmiguel.gobees.monitoring;
 
 import android.os.Bundle;
-import android.support.v7.app.AppCompatActivity;
 
 import com.davidmiguel.gobees.R;
 import com.davidmiguel.gobees.utils.AndroidUtils;
+import com.davidmiguel.gobees.utils.BaseActivity;
 
 /**
  * Monitoring activity.
  */
-public class MonitoringActivity extends AppCompatActivity {
+public class MonitoringActivity extends BaseActivity {
 
     public static final int REQUEST_MONITORING = 1;
     public static final int NO_APIARY = -1;
@@ -69,7 +69,8 @@ public class MonitoringActivity extends AppCompatActivity {
                 .commit();
 
         // Create the presenter
-        new MonitoringPresenter(monitoringFragment, monitoringSettingsFragment, apiaryId, hiveId);
+        new MonitoringPresenter(goBeesRepository, monitoringFragment, monitoringSettingsFragment,
+                apiaryId, hiveId);
     }
 
     @Override
@@ -82,10 +83,4 @@ public class MonitoringActivity extends AppCompatActivity {
         }
         super.onBackPressed();
     }
-
-    @Override
-    public boolean onSupportNavigateUp() {
-        onBackPressed();
-        return true;
-    }
 }
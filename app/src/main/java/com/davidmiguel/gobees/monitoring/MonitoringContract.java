@@ -18,12 +18,16 @@
 
 package com.davidmiguel.gobees.monitoring;
 
+import com.davidmiguel.gobees.data.model.Hive;
 import com.davidmiguel.gobees.monitoring.algorithm.BeesCounter;
+import com.davidmiguel.gobees.monitoring.algorithm.EntranceLine;
 import com.davidmiguel.gobees.utils.BasePresenter;
 import com.davidmiguel.gobees.utils.BaseView;
 
 import org.opencv.android.CameraBridgeViewBase;
 
+import java.util.List;
+
 /**
  * This specifies the contract between the view and the presenter.
  */
@@ -90,6 +94,11 @@ interface MonitoringContract {
          * @param active true to show.
          */
         void showNumBeesView(boolean active);
+
+        /**
+         * Shows that an entrance has no hive selected.
+         */
+        void showEntranceHivesError();
     }
 
     interface SettingsView extends BaseView<MonitoringContract.Presenter> {
@@ -114,6 +123,14 @@ interface MonitoringContract {
          * @return monitoring settings.
          */
         MonitoringSettings getMonitoringSettings();
+
+        /**
+         * Sets the hives of the apiary that can be selected for each entrance.
+         *
+         * @param hives  hives of the apiary.
+         * @param hiveId id of the hive being monitored.
+         */
+        void setHives(List<Hive> hives, long hiveId);
     }
 
     interface Presenter extends BasePresenter {
@@ -150,6 +167,20 @@ interface MonitoringContract {
          */
         void showAlgoOutput(boolean status);
 
+        /**
+         * Update the bees counter algorithm.
+         *
+         * @param type algorithm.
+         */
+        void updateAlgoCounterType(BeesCounter.CounterType type);
+
+        /**
+         * Update background model in the algorithm.
+         *
+         * @param type background model type.
+         */
+        void updateAlgoBackgroundType(BeesCounter.BackgroundType type);
+
         /**
          * Update blob size parameter in the algorithm.
          *
@@ -171,6 +202,34 @@ interface MonitoringContract {
          */
         void updateAlgoMaxArea(double value);
 
+        /**
+         * Update downscale levels parameter in the algorithm.
+         *
+         * @param levels downscale levels.
+         */
+        void updateAlgoDownscaleLevels(int levels);
+
+        /**
+         * Update motion threshold parameter in the algorithm.
+         *
+         * @param threshold motion threshold (0 = disabled).
+         */
+        void updateAlgoMotionThreshold(int threshold);
+
+        /**
+         * Enable or disable the online calibration of the min and max area in the algorithm.
+         *
+         * @param enabled true to enable it.
+         */
+        void updateAlgoAutoCalibration(boolean enabled);
+
+        /**
+         * Update entrance line parameter in the algorithm.
+         *
+         * @param line entrance line (null to disable the in and out counting).
+         */
+        void updateAlgoEntranceLine(EntranceLine line);
+
         /**
          * Update zoom parameter in the algorithm.
          *
@@ -28,6 +28,7 @@ import android.os.IBinder;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.app.Fragment;
+import android.support.design.widget.Snackbar;
 import android.support.v4.content.ContextCompat;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -44,12 +45,12 @@ import com.davidmiguel.gobees.hive.HiveRecordingsFragment;
 import com.davidmiguel.gobees.monitoring.MonitoringService.MonitoringBinder;
 import com.davidmiguel.gobees.monitoring.camera.CameraView;
 import com.davidmiguel.gobees.utils.BackClickHelperFragment;
+import com.davidmiguel.gobees.utils.OpenCvInitializer;
 
 import org.opencv.android.BaseLoaderCallback;
 import org.opencv.android.CameraBridgeViewBase;
 import org.opencv.android.CameraBridgeViewBase.CvCameraViewListener2;
 import org.opencv.android.LoaderCallbackInterface;
-import org.opencv.android.OpenCVLoader;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -220,7 +221,7 @@ public class MonitoringFragment extends Fragment implements MonitoringContract.V
 
     @Override
     public void initOpenCV(CvCameraViewListener2 listener) {
-        OpenCVLoader.initAsync(OpenCVLoader.OPENCV_VERSION_3_2_0, getContext(), loaderCallback);
+        OpenCvInitializer.whenReady(getContext(), loaderCallback);
         cameraView.setCvCameraViewListener(listener);
     }
 
@@ -306,6 +307,12 @@ public class MonitoringFragment extends Fragment implements MonitoringContract.V
         }
     }
 
+    @Override
+    public void showEntranceHivesError() {
+        Snackbar.make(getView(), getString(R.string.monitoring_entrance_hives_error),
+                Snackbar.LENGTH_LONG).show();
+    }
+
     @Override
     public boolean onBackPressed() {
         if (settingsLayout.getVisibility() == View.VISIBLE) {
@@ -18,13 +18,21 @@
 
 package com.davidmiguel.gobees.monitoring;
 
-import com.davidmiguel.gobees.monitoring.algorithm.AreaBeesCounter;
+import com.davidmiguel.gobees.data.model.Hive;
+import com.davidmiguel.gobees.data.source.GoBeesDataSource.GetHivesCallback;
+import com.davidmiguel.gobees.data.source.repository.GoBeesRepository;
 import com.davidmiguel.gobees.monitoring.algorithm.BeesCounter;
+import com.davidmiguel.gobees.monitoring.algorithm.BeesCounterConfig;
+import com.davidmiguel.gobees.monitoring.algorithm.BeesCounterFactory;
+import com.davidmiguel.gobees.monitoring.algorithm.EntranceLine;
 
 import org.opencv.android.CameraBridgeViewBase.CvCameraViewFrame;
 import org.opencv.android.CameraBridgeViewBase.CvCameraViewListener2;
 import org.opencv.core.Mat;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Listens to user actions from the UI MonitoringFragment, retrieves the data and updates the
  * UI as required.
@@ -33,15 +41,20 @@ class MonitoringPresenter implements MonitoringContract.Presenter, CvCameraViewL
 
     private MonitoringContract.View view;
     private MonitoringContract.SettingsView settingsView;
+    private GoBeesRepository goBeesRepository;
 
     private long apiaryId;
     private long hiveId;
     private BeesCounter bc;
+    private BeesCounter.CounterType counterType;
+    // New bees counter that replaces the current one in the next frame
+    private final AtomicReference<BeesCounter> newBc = new AtomicReference<>();
     private Mat processedFrame;
     private boolean showAlgoOutput;
 
-    MonitoringPresenter(MonitoringContract.View view, MonitoringContract.SettingsView settingsView,
-                        long apiaryId, long hiveId) {
+    MonitoringPresenter(GoBeesRepository goBeesRepository, MonitoringContract.View view,
+                        MonitoringContract.SettingsView settingsView, long apiaryId, long hiveId) {
+        this.goBeesRepository = goBeesRepository;
         this.view = view;
         this.view.setPresenter(this);
         this.settingsView = settingsView;
@@ -66,6 +79,12 @@ class MonitoringPresenter implements MonitoringContract.Presenter, CvCameraViewL
         MonitoringSettings ms = settingsView.getMonitoringSettings();
         ms.setApiaryId(apiaryId);
         ms.setHiveId(hiveId);
+        // Refuse to start if an entrance has no hive
+        if (!ms.hasEntranceHives()) {
+            settingsView.showSettings();
+            view.showEntranceHivesError();
+            return;
+        }
         // Hide camera view
         view.hideCameraView();
         // Show monitoring view
@@ -92,6 +111,26 @@ class MonitoringPresenter implements MonitoringContract.Presenter, CvCameraViewL
         view.showNumBeesView(status);
     }
 
+    @Override
+    public void updateAlgoCounterType(BeesCounter.CounterType type) {
+        if (type == counterType) {
+            return;
+        }
+        counterType = type;
+        // Create new bee counter with actual settings
+        BeesCounterConfig config = settingsView.getMonitoringSettings().getBeesCounterConfig();
+        config.setCounterType(type);
+        BeesCounter previous = newBc.getAndSet(BeesCounterFactory.createBeesCounter(config));
+        if (previous != null) {
+            previous.release();
+        }
+    }
+
+    @Override
+    public void updateAlgoBackgroundType(BeesCounter.BackgroundType type) {
+        bc.updateBackgroundType(type);
+    }
+
     @Override
     public void updateAlgoBlobSize(BeesCounter.BlobSize size) {
         bc.updateBlobSize(size);
@@ -107,6 +146,26 @@ class MonitoringPresenter implements MonitoringContract.Presenter, CvCameraViewL
         bc.updateMaxArea(value);
     }
 
+    @Override
+    public void updateAlgoDownscaleLevels(int levels) {
+        bc.updateDownscaleLevels(levels);
+    }
+
+    @Override
+    public void updateAlgoMotionThreshold(int threshold) {
+        bc.updateMotionThreshold(threshold);
+    }
+
+    @Override
+    public void updateAlgoAutoCalibration(boolean enabled) {
+        bc.updateAutoCalibration(enabled);
+    }
+
+    @Override
+    public void updateAlgoEntranceLine(EntranceLine line) {
+        bc.updateEntranceLine(line);
+    }
+
     @Override
     public void updateAlgoZoom(int ratio) {
         view.updateAlgoZoom(ratio);
@@ -120,11 +179,31 @@ class MonitoringPresenter implements MonitoringContract.Presenter, CvCameraViewL
             view.hideCameraView();
             view.showMonitoringView();
         } else {
+            // Load the hives that can be selected for each entrance
+            loadHives();
             // Start camera view
             view.initOpenCV(this);
         }
     }
 
+    /**
+     * Load the hives of the apiary and set them in the settings.
+     */
+    private void loadHives() {
+        goBeesRepository.getHives(apiaryId, new GetHivesCallback() {
+            @Override
+            public void onHivesLoaded(List<Hive> hives) {
+                settingsView.setHives(hives, hiveId);
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                // No hive can be selected, monitoring won't start
+                settingsView.setHives(null, hiveId);
+            }
+        });
+    }
+
     @Override
     public void start() {
         // Not needed
@@ -133,17 +212,31 @@ class MonitoringPresenter implements MonitoringContract.Presenter, CvCameraViewL
     @Override
     public void onCameraViewStarted(int width, int height) {
         processedFrame = new Mat();
-        bc = AreaBeesCounter.getInstance();
+        BeesCounterConfig config = settingsView.getMonitoringSettings().getBeesCounterConfig();
+        counterType = config.getCounterType();
+        bc = BeesCounterFactory.createBeesCounter(config);
         settingsView.initSettings();
     }
 
     @Override
     public void onCameraViewStopped() {
-        // No action needed
+        // Release bees counters
+        if (bc != null) {
+            bc.release();
+            bc = null;
+        }
+        releaseNewBeesCounter();
+        counterType = null;
     }
 
     @Override
     public Mat onCameraFrame(CvCameraViewFrame inputFrame) {
+        // Replace bees counter (if the algorithm has changed)
+        BeesCounter replacement = newBc.getAndSet(null);
+        if (replacement != null) {
+            bc.release();
+            bc = replacement;
+        }
         if(showAlgoOutput) {
             int numBees = bc.countBees(inputFrame.gray());
             view.setNumBees(numBees);
@@ -154,4 +247,14 @@ class MonitoringPresenter implements MonitoringContract.Presenter, CvCameraViewL
         // If show algorithm output is false -> show original frame
         return inputFrame.rgba();
     }
+
+    /**
+     * Release the new bees counter (if it has not replaced the current one yet).
+     */
+    private void releaseNewBeesCounter() {
+        BeesCounter replacement = newBc.getAndSet(null);
+        if (replacement != null) {
+            replacement.release();
+        }
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring;
+
+import org.opencv.core.Rect;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Region of interest of the frame with the entrance of a hive.
+ * The region is given as a fraction of the frame (0-1), so it does not depend on the resolution.
+ */
+class MonitoringRoi {
+
+    private long hiveId;
+    private double x;
+    private double y;
+    private double width;
+    private double height;
+
+    /**
+     * MonitoringRoi constructor.
+     *
+     * @param hiveId hive id.
+     * @param x      left edge (fraction of the frame width).
+     * @param y      top edge (fraction of the frame height).
+     * @param width  width (fraction of the frame width).
+     * @param height height (fraction of the frame height).
+     */
+    MonitoringRoi(long hiveId, double x, double y, double width, double height) {
+        this.hiveId = hiveId;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Split the frame into side by side columns of the same width, one for each hive
+     * (from left to right).
+     *
+     * @param hiveIds hive ids.
+     * @return regions of interest.
+     */
+    static List<MonitoringRoi> splitColumns(List<Long> hiveIds) {
+        List<MonitoringRoi> rois = new ArrayList<>(hiveIds.size());
+        double width = 1.0 / hiveIds.size();
+        for (int i = 0; i < hiveIds.size(); i++) {
+            rois.add(new MonitoringRoi(hiveIds.get(i), i * width, 0, width, 1));
+        }
+        return rois;
+    }
+
+    long getHiveId() {
+        return hiveId;
+    }
+
+    /**
+     * Get the region in pixels of a frame of the given size.
+     *
+     * @param frameWidth  frame width.
+     * @param frameHeight frame height.
+     * @return region in pixels.
+     */
+    Rect toRect(int frameWidth, int frameHeight) {
+        int left = (int) Math.round(x * frameWidth);
+        int top = (int) Math.round(y * frameHeight);
+        int right = (int) Math.round((x + width) * frameWidth);
+        int bottom = (int) Math.round((y + height) * frameHeight);
+        return new Rect(left, top, Math.min(right, frameWidth) - left,
+                Math.min(bottom, frameHeight) - top);
+    }
+}
@@ -22,9 +22,15 @@ import android.app.Notification;
 import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.hardware.Camera;
+import android.os.BatteryManager;
 import android.os.Binder;
+import android.os.Build;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.Process;
 import android.os.SystemClock;
 import android.support.annotation.Nullable;
 import android.support.v4.app.NotificationCompat;
@@ -32,27 +38,41 @@ import android.support.v4.app.NotificationCompat;
 import com.davidmiguel.gobees.Injection;
 import com.davidmiguel.gobees.R;
 import com.davidmiguel.gobees.data.model.Apiary;
+import com.davidmiguel.gobees.data.model.AreaAdjustment;
+import com.davidmiguel.gobees.data.model.Hive;
 import com.davidmiguel.gobees.data.model.Record;
+import com.davidmiguel.gobees.data.model.SessionProfile;
 import com.davidmiguel.gobees.data.source.GoBeesDataSource;
 import com.davidmiguel.gobees.data.source.GoBeesDataSource.SaveRecordingCallback;
 import com.davidmiguel.gobees.data.source.repository.GoBeesRepository;
-import com.davidmiguel.gobees.monitoring.algorithm.AreaBeesCounter;
+import com.davidmiguel.gobees.logging.Log;
+import com.davidmiguel.gobees.monitoring.algorithm.AreaCalibrator;
 import com.davidmiguel.gobees.monitoring.algorithm.BeesCounter;
+import com.davidmiguel.gobees.monitoring.algorithm.BeesCounterConfig;
+import com.davidmiguel.gobees.monitoring.algorithm.BeesCounterPool;
+import com.davidmiguel.gobees.monitoring.algorithm.MultiRoiBeesCounter;
 import com.davidmiguel.gobees.monitoring.camera.AndroidCamera;
 import com.davidmiguel.gobees.monitoring.camera.AndroidCameraImpl;
 import com.davidmiguel.gobees.monitoring.camera.AndroidCameraListener;
 import com.davidmiguel.gobees.monitoring.camera.CameraFrame;
 import com.davidmiguel.gobees.utils.DateTimeUtils;
 import com.davidmiguel.gobees.utils.NotificationsHelper;
+import com.davidmiguel.gobees.utils.OpenCvInitializer;
 
 import org.opencv.android.BaseLoaderCallback;
 import org.opencv.android.LoaderCallbackInterface;
-import org.opencv.android.OpenCVLoader;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
 
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Monitoring service.
@@ -66,7 +86,42 @@ import java.util.TimerTask;
  * - The first INITIAL_NUM_FRAMES frames are used to create a background model (they are not used
  * to count bees). During this time, the frame rate is INITIAL_FRAME_RATE.
  * - After the background model is created, the frame rate is set to the one configured by the user.
- * - The recording must have more than 5 records, if not, it is ignored.
+ * The motion gate and the online calibration of the areas are also enabled then (if configured).
+ * - Every GOVERNOR_RATE, the battery state (level, charging and temperature) is read from the
+ * sticky battery intent. When the phone gets hot or the battery runs low, the ResourceGovernor
+ * steps down the frame rate, the processing resolution and the optional stages (according to the
+ * configured policy). Step changes are applied in the camera thread and logged. When the
+ * resolution changes, the background models are seeded with the background learned so far.
+ * - The adjustments of the online calibration of the areas are saved on the db with the flushed
+ * records and when monitoring stops (only when they happen, not with every record).
+ * - A snapshot of the background model is saved every BACKGROUND_SNAPSHOT_RATE. If the service
+ * is restarted, a snapshot newer than BACKGROUND_SNAPSHOT_MAX_AGE is used to seed the background
+ * model, so the initial frames are not needed. Snapshots are deleted when monitoring stops.
+ * - The frame can be split into NUM_ENTRANCES side by side regions, one for each hive entrance
+ * (the user selects the hive of each entrance, from left to right, and monitoring does not start
+ * if an entrance has no hive). Each region has its own bees counter and records, and the regions
+ * are processed in parallel.
+ * - If an entrance line is configured, each record also has the number of bees that entered and
+ * left the hive since the previous record.
+ * - Records are kept in memory in a primitive buffer (RecordBuffer). Every FLUSH_RATE they are
+ * appended to the recording on the db and a checkpoint of the session (settings, start time and
+ * saved records) is stored. The last NUM_LAST_SEC_TO_DELETE (and the record before them) are
+ * kept in the buffer, so they can be trimmed and the end of the recording can be marked when
+ * monitoring stops. The rest of records are saved when monitoring stops.
+ * - Flushed records are only counted as saved (and added to the checkpoint) when the db confirms
+ * it. Pending flushes are saved before the recordings and before the db is closed, and a failed
+ * flush is retried in the next one.
+ * - If the service is killed, the system restarts it with a null intent. Then, the session is
+ * resumed from the checkpoint (only the records since the last flush are lost). If it is
+ * recovered more than MAX_RECOVERIES times within RECOVERY_WINDOW, the session is abandoned
+ * (to avoid a restart storm). Without a checkpoint, the service just stops.
+ * - A watchdog checks every WATCHDOG_RATE that frames are being received. If there is no frame in
+ * WATCHDOG_TIMEOUT (or 10 frames, if the current frame rate is lower), the camera is restarted.
+ * - The performance of the pipeline (fps, dropped frames, latency percentiles and CPU time) is
+ * recorded from the first processed frame (PerformanceRecorder). When monitoring stops, the
+ * profile of the session is saved once and linked to each monitored hive.
+ * - The recording must have more than 5 records, if not, it is ignored (unless some records have
+ * already been flushed).
  * - The first and last record of a recording always have numBees = -1 (this is used to know
  * when the recording starts and ends).
  * - The service gets and saves apiary weather data every WEATHER_REFRESH_RATE.
@@ -91,8 +146,26 @@ public class MonitoringService extends Service implements AndroidCameraListener
     private static final long INITIAL_NUM_FRAMES = 10;
     // Number of last recording seconds to delete (they usually contains noise)
     private static final long NUM_LAST_SEC_TO_DELETE = DateTimeUtils.T_5_SECONDS;
+    // Background model snapshot rate
+    private static final long BACKGROUND_SNAPSHOT_RATE = DateTimeUtils.T_1_MINUTE;
+    // Max age of a background model snapshot to be used to seed the model
+    private static final long BACKGROUND_SNAPSHOT_MAX_AGE = DateTimeUtils.T_10_MINUTES;
     // Weather refresh rate
     private static final long WEATHER_REFRESH_RATE = DateTimeUtils.T_15_MINUTES;
+    // Records flush rate
+    private static final long FLUSH_RATE = DateTimeUtils.T_1_MINUTE;
+    // Max age of a session checkpoint to be resumed
+    private static final long CHECKPOINT_MAX_AGE = DateTimeUtils.T_1_HOUR;
+    // Max number of consecutive recoveries of a session
+    private static final int MAX_RECOVERIES = 3;
+    // Max time between recoveries to be considered consecutive
+    private static final long RECOVERY_WINDOW = DateTimeUtils.T_10_MINUTES;
+    // Watchdog check rate
+    private static final long WATCHDOG_RATE = DateTimeUtils.T_1_MINUTE;
+    // Max time without frames before restarting the camera
+    private static final long WATCHDOG_TIMEOUT = DateTimeUtils.T_1_MINUTE;
+    // Battery check rate
+    private static final long GOVERNOR_RATE = DateTimeUtils.T_1_MINUTE;
 
     // Notifications
     private NotificationsHelper notificationsHelper;
@@ -104,18 +177,44 @@ public class MonitoringService extends Service implements AndroidCameraListener
     // Persistence
     private GoBeesRepository goBeesRepository;
     private SaveRecordingCallback callback;
-    private LinkedList<Record> records;
+    private List<RecordBuffer> records;
+    private SessionCheckpointStore sessionCheckpointStore;
+    private SessionCheckpointStore.Checkpoint checkpoint;
+    // Records handed off by the camera thread and not saved yet (in order)
+    private final Queue<PendingFlush> pendingFlushes = new ConcurrentLinkedQueue<>();
+    // Records of each region handed off to be saved (camera thread) and saved (main thread)
+    private int[] numHandedOff;
+    private int[] numFlushed;
+    private long lastFlush;
+    private Handler mainHandler;
+    private final Runnable drainFlushesTask = new Runnable() {
+        @Override
+        public void run() {
+            drainFlushes();
+        }
+    };
 
     // Camera and algorithm
     private AndroidCamera androidCamera;
     private boolean openCvLoaded = false;
-    private BeesCounter bc;
+    private List<MonitoringRoi> rois;
+    private BeesCounterPool beesCounterPool;
+    private ExecutorService roiExecutor;
+    private MultiRoiBeesCounter bc;
     private int initialNumFrames;
     private long startTime;
+    private BackgroundSnapshotStore backgroundSnapshotStore;
+    private long lastBackgroundSnapshot;
+    private volatile long lastFrame;
+    private ResourceGovernor resourceGovernor;
+    private ResourceGovernor.Step appliedStep;
+    private Boolean appliedOptionalStages;
+    private PerformanceRecorder performanceRecorder;
 
     // Weather
     private Timer timer;
     private FetchWeatherTask fetchWeatherTask;
+    private WatchdogTask watchdogTask;
 
     // Model info
     private Apiary apiary;
@@ -134,13 +233,21 @@ public class MonitoringService extends Service implements AndroidCameraListener
     public void onCreate() {
         super.onCreate();
         instance = this;
-        // Init record list
-        records = new LinkedList<>();
+        // Init record lists
+        records = new ArrayList<>();
+        // Bees counters
+        beesCounterPool = new BeesCounterPool();
         // Notifications
         notificationsHelper = new NotificationsHelper(this);
         // Init db
-        goBeesRepository = Injection.provideApiariesRepository();
+        goBeesRepository = Injection.provideApiariesRepository(this);
         goBeesRepository.openDb();
+        // Background model snapshots
+        backgroundSnapshotStore = new BackgroundSnapshotStore(getFilesDir(),
+                BACKGROUND_SNAPSHOT_MAX_AGE);
+        // Session checkpoints (records are flushed from the camera thread to the main thread)
+        sessionCheckpointStore = new SessionCheckpointStore(getFilesDir(), CHECKPOINT_MAX_AGE);
+        mainHandler = new Handler(Looper.getMainLooper());
         // Create fetch weather task
         fetchWeatherTask = new FetchWeatherTask();
         timer = new Timer();
@@ -149,9 +256,10 @@ public class MonitoringService extends Service implements AndroidCameraListener
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         super.onStartCommand(intent, flags, startId);
+        String action = intent != null ? intent.getAction() : null;
 
         // START action
-        if (intent.getAction().equals(START_ACTION)) {
+        if (START_ACTION.equals(action)) {
             // Calculate start time (to be use in chronometer)
             Date now = new Date();
             long elapsedRealTimeOffset = System.currentTimeMillis() - SystemClock.elapsedRealtime();
@@ -161,48 +269,46 @@ public class MonitoringService extends Service implements AndroidCameraListener
                     (MonitoringSettings) intent.getSerializableExtra(ARGUMENT_MON_SETTINGS);
             // Get apiary
             apiary = goBeesRepository.getApiaryBlocking(monitoringSettings.getApiaryId());
+            // Refuse to start if an entrance has no hive
+            List<Long> hiveIds = getEntranceHiveIds();
+            if (hiveIds == null) {
+                Log.e("Entrances without a hive of the apiary, monitoring not started");
+                stopService();
+                return START_NOT_STICKY;
+            }
             // Configurations
-            configBeeCounter();
-            configCamera();
-            Notification not = notificationsHelper.getMonitoringNotification(
-                    monitoringSettings.getApiaryId(), monitoringSettings.getHiveId());
-            configOpenCv();
-            // Start service in foreground
-            startForeground(NOTIFICATION_ID, not);
+            configRois(hiveIds);
+            // Checkpoint of the new session
+            checkpoint = new SessionCheckpointStore.Checkpoint(monitoringSettings, startTime,
+                    getHiveIds());
+            sessionCheckpointStore.save(checkpoint);
+            startSession();
 
             // STOP action
-        } else if (intent.getAction().equals(STOP_ACTION)) {
-            // Release camera
-            androidCamera.release();
-            // Save records
-            if (!records.isEmpty()) {
-                // Clean records
-                cleanRecords();
-                // Save records on db
-                goBeesRepository.saveRecords(monitoringSettings.getHiveId(), records,
-                        new SaveRecordingCallback() {
-                            @Override
-                            public void onRecordingTooShort() {
-                                stopService();
-                                callback.onRecordingTooShort();
-                            }
-
-                            @Override
-                            public void onSuccess() {
-                                stopService();
-                                callback.onSuccess();
-                            }
-
-                            @Override
-                            public void onFailure() {
-                                stopService();
-                                callback.onFailure();
-                            }
-                        });
-            } else {
+        } else if (STOP_ACTION.equals(action)) {
+            if (rois == null) {
+                // There is no session in progress
                 stopService();
-                callback.onRecordingTooShort();
+                return START_NOT_STICKY;
+            }
+            // Stop watchdog and release camera
+            if (watchdogTask != null) {
+                watchdogTask.cancel();
+                watchdogTask = null;
+            }
+            androidCamera.release();
+            // Monitoring stopped by the user, snapshots and checkpoint are no longer needed
+            for (MonitoringRoi roi : rois) {
+                backgroundSnapshotStore.delete(roi.getHiveId());
             }
+            sessionCheckpointStore.delete();
+            // Save records
+            saveRecordings();
+
+            // Restarted by the system (null intent)
+        } else if (rois == null && !recoverSession()) {
+            stopService();
+            return START_NOT_STICKY;
         }
         return START_STICKY;
     }
@@ -216,6 +322,13 @@ public class MonitoringService extends Service implements AndroidCameraListener
             androidCamera.release();
             androidCamera = null;
         }
+        // Save pending flushes (the db is going to be closed)
+        mainHandler.removeCallbacksAndMessages(null);
+        drainFlushes();
+        if (!pendingFlushes.isEmpty()) {
+            Log.e("%d flushes of records could not be saved", pendingFlushes.size());
+            pendingFlushes.clear();
+        }
         // Stop fetching weather data
         if (timer != null) {
             timer.cancel();
@@ -224,6 +337,13 @@ public class MonitoringService extends Service implements AndroidCameraListener
         }
         // Close database
         goBeesRepository.closeDb();
+        // Log motion gate metrics and release bees counters
+        releaseBeesCounter();
+        beesCounterPool.clear();
+        if (roiExecutor != null) {
+            roiExecutor.shutdown();
+            roiExecutor = null;
+        }
     }
 
     @Nullable
@@ -241,26 +361,66 @@ public class MonitoringService extends Service implements AndroidCameraListener
     public void onCameraStarted(int width, int height) {
         // Counter for creating background model with the first frames
         initialNumFrames = 0;
+        lastBackgroundSnapshot = SystemClock.elapsedRealtime();
+        lastFlush = SystemClock.elapsedRealtime();
+        // Create a bees counter for each region of the frame
+        configBeeCounter(width, height);
+        // Seed background models with the last snapshots (if the service has been restarted)
+        boolean restored = true;
+        for (int i = 0; i < rois.size(); i++) {
+            restored &= restoreBackgroundSnapshot(i);
+        }
+        if (restored) {
+            // Background models are ready, skip initial frames
+            initialNumFrames = (int) INITIAL_NUM_FRAMES;
+            Log.d("Background models restored from snapshots");
+        }
     }
 
     @Override
     public void onPreviewFrame(CameraFrame cameraFrame) {
+        lastFrame = SystemClock.elapsedRealtime();
+        long frameStart = System.nanoTime();
         if (initialNumFrames < INITIAL_NUM_FRAMES) {
             // To create background model
             bc.countBees(cameraFrame.gray());
-            bc.getProcessedFrame().release();
             initialNumFrames++;
             return;
         } else if (initialNumFrames == INITIAL_NUM_FRAMES) {
             // After creating background model, set real configuration
-            androidCamera.updateFrameRate(0, monitoringSettings.getFrameRate());
+            for (int i = 0; i < bc.getNumRois(); i++) {
+                bc.getBeesCounter(i).updateMotionThreshold(
+                        monitoringSettings.getMotionThreshold());
+                bc.getBeesCounter(i).getMotionGate().reset();
+            }
+            applyResourceStep();
+            if (!performanceRecorder.isStarted()) {
+                performanceRecorder.start(System.currentTimeMillis(), lastFrame,
+                        Process.getElapsedCpuTime());
+            }
             initialNumFrames++;
+        } else if (appliedStep != resourceGovernor.getStep()) {
+            // Battery state has changed
+            applyResourceStep();
+        }
+        // Process frame (all regions in parallel)
+        int[] numBees = bc.countBees(cameraFrame.gray());
+        // Save records
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < numBees.length; i++) {
+            BeesCounter roiBc = bc.getBeesCounter(i);
+            records.get(i).add(now, numBees[i], roiBc.getNumIn(), roiBc.getNumOut());
+        }
+        performanceRecorder.onFrame(lastFrame, (System.nanoTime() - frameStart) / 1000000,
+                resourceGovernor.getFrameRate(monitoringSettings.getFrameRate()));
+        // Save background model snapshot
+        if (SystemClock.elapsedRealtime() - lastBackgroundSnapshot > BACKGROUND_SNAPSHOT_RATE) {
+            saveBackgroundSnapshot();
+        }
+        // Flush records
+        if (SystemClock.elapsedRealtime() - lastFlush > FLUSH_RATE) {
+            flushRecords();
         }
-        // Process frame
-        int numBees = bc.countBees(cameraFrame.gray());
-        bc.getProcessedFrame().release();
-        // Save record
-        records.add(new Record(new Date(), numBees));
     }
 
     /**
@@ -273,13 +433,333 @@ public class MonitoringService extends Service implements AndroidCameraListener
     }
 
     /**
-     * Config bee counter with settings.
+     * Resume the session of the checkpoint (after the service has been killed and restarted).
+     *
+     * @return true if the session has been resumed.
+     */
+    private boolean recoverSession() {
+        checkpoint = sessionCheckpointStore.load();
+        if (checkpoint == null) {
+            Log.w("Monitoring service restarted without a session to resume");
+            return false;
+        }
+        // Avoid restart storms
+        int numRecoveries = checkpoint.registerRecovery(System.currentTimeMillis(),
+                RECOVERY_WINDOW);
+        if (numRecoveries > MAX_RECOVERIES) {
+            Log.e("Monitoring session recovered %d times in a row, abandoning it",
+                    numRecoveries - 1);
+            abandonSession();
+            return false;
+        }
+        sessionCheckpointStore.save(checkpoint);
+        // Restore session
+        monitoringSettings = checkpoint.getSettings();
+        startTime = checkpoint.getStartTime();
+        apiary = goBeesRepository.getApiaryBlocking(monitoringSettings.getApiaryId());
+        if (apiary == null) {
+            Log.e("Apiary of the monitoring session not found: %d",
+                    monitoringSettings.getApiaryId());
+            abandonSession();
+            return false;
+        }
+        List<Long> hiveIds = new ArrayList<>();
+        for (long hiveId : checkpoint.getHiveIds()) {
+            hiveIds.add(hiveId);
+        }
+        configRois(hiveIds);
+        for (int i = 0; i < rois.size(); i++) {
+            numFlushed[i] = checkpoint.getNumFlushed(i);
+            numHandedOff[i] = numFlushed[i];
+            Log.i("Monitoring session of hive %d resumed (%d records saved until %tT)",
+                    hiveIds.get(i), numFlushed[i], checkpoint.getLastFlushed(i));
+        }
+        startSession();
+        return true;
+    }
+
+    /**
+     * Abandon the session of the checkpoint (the records already flushed are kept).
+     */
+    private void abandonSession() {
+        for (long hiveId : checkpoint.getHiveIds()) {
+            backgroundSnapshotStore.delete(hiveId);
+        }
+        sessionCheckpointStore.delete();
+        checkpoint = null;
+    }
+
+    /**
+     * Start the session: config camera and OpenCV and start the service in foreground.
+     */
+    private void startSession() {
+        resourceGovernor = new ResourceGovernor(monitoringSettings.getResourcePolicy());
+        performanceRecorder = new PerformanceRecorder();
+        configCamera();
+        Notification not = notificationsHelper.getMonitoringNotification(
+                monitoringSettings.getApiaryId(), monitoringSettings.getHiveId());
+        configOpenCv();
+        // Start service in foreground
+        startForeground(NOTIFICATION_ID, not);
+    }
+
+    /**
+     * Hand off the records of each hive to be appended to the recording on the db (in the main
+     * thread, where the db has been opened). The last seconds (and the record before them) are
+     * kept in the buffer to be cleaned when monitoring stops.
+     * Note: it is called from the camera thread.
+     */
+    private void flushRecords() {
+        boolean handedOff = false;
+        for (int i = 0; i < rois.size(); i++) {
+            RecordBuffer hiveRecords = records.get(i);
+            if (hiveRecords.isEmpty()) {
+                continue;
+            }
+            int numRecords = hiveRecords.countUntil(hiveRecords.getTimestamp(
+                    hiveRecords.size() - 1) - NUM_LAST_SEC_TO_DELETE) - 1;
+            if (numRecords <= 0) {
+                continue;
+            }
+            if (numHandedOff[i] == 0) {
+                // Beginning of the recording
+                hiveRecords.setNumBees(0, -1);
+            }
+            List<Record> flushed = hiveRecords.toRecords(numRecords);
+            long lastTimestamp = hiveRecords.getTimestamp(numRecords - 1);
+            hiveRecords.removeFirst(numRecords);
+            numHandedOff[i] += numRecords;
+            pendingFlushes.add(new PendingFlush(i, flushed, lastTimestamp,
+                    pollAreaAdjustments(i)));
+            handedOff = true;
+        }
+        if (handedOff) {
+            mainHandler.post(drainFlushesTask);
+        }
+        lastFlush = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Append the records handed off by the camera thread to the recordings on the db (in order).
+     * If a flush fails, it is kept to be retried in the next drain.
+     * Note: it is called from the main thread.
+     */
+    private void drainFlushes() {
+        PendingFlush flush;
+        while ((flush = pendingFlushes.peek()) != null) {
+            if (!appendRecords(flush)) {
+                return;
+            }
+            pendingFlushes.poll();
+        }
+    }
+
+    /**
+     * Append records to the recording of a hive and update the number of saved records and the
+     * checkpoint.
+     *
+     * @param flush records of a region.
+     * @return true if the records have been saved.
+     */
+    private boolean appendRecords(final PendingFlush flush) {
+        final boolean[] saved = new boolean[1];
+        final long hiveId = rois.get(flush.index).getHiveId();
+        goBeesRepository.appendRecords(hiveId, flush.records,
+                new GoBeesDataSource.TaskCallback() {
+                    @Override
+                    public void onSuccess() {
+                        saved[0] = true;
+                        numFlushed[flush.index] += flush.records.size();
+                        if (checkpoint != null) {
+                            checkpoint.addFlushed(flush.index, flush.records.size(),
+                                    flush.lastTimestamp);
+                            sessionCheckpointStore.save(checkpoint);
+                        }
+                        saveAreaAdjustments(hiveId, flush.adjustments);
+                    }
+
+                    @Override
+                    public void onFailure() {
+                        Log.e("Error flushing %d records of hive %d", flush.records.size(),
+                                hiveId);
+                    }
+                });
+        return saved[0];
+    }
+
+    /**
+     * Get the adjustments of the areas of a region made since the last poll.
+     *
+     * @param i index of the region.
+     * @return adjustments (unmanaged objects).
+     */
+    private List<AreaAdjustment> pollAreaAdjustments(int i) {
+        List<AreaAdjustment> adjustments = new ArrayList<>();
+        if (bc == null) {
+            return adjustments;
+        }
+        for (AreaCalibrator.Adjustment adjustment
+                : bc.getBeesCounter(i).getAreaCalibrator().pollAdjustments()) {
+            adjustments.add(new AreaAdjustment(new Date(adjustment.getTimestamp()),
+                    adjustment.getMode(), adjustment.getMinArea(), adjustment.getMaxArea()));
+        }
+        return adjustments;
+    }
+
+    /**
+     * Save the adjustments of the areas of a hive (if any).
+     *
+     * @param hiveId      hive id.
+     * @param adjustments adjustments (unmanaged objects).
+     */
+    private void saveAreaAdjustments(final long hiveId, final List<AreaAdjustment> adjustments) {
+        if (adjustments.isEmpty()) {
+            return;
+        }
+        goBeesRepository.saveAreaAdjustments(hiveId, adjustments,
+                new GoBeesDataSource.TaskCallback() {
+                    @Override
+                    public void onSuccess() {
+                        // Don't do anything
+                    }
+
+                    @Override
+                    public void onFailure() {
+                        Log.e("Error saving %d area adjustments of hive %d", adjustments.size(),
+                                hiveId);
+                    }
+                });
+    }
+
+    /**
+     * Save a snapshot of the background models (used to seed them if the service is restarted).
+     */
+    private void saveBackgroundSnapshot() {
+        for (int i = 0; i < rois.size(); i++) {
+            Mat background = bc.getBeesCounter(i).getBackgroundImage();
+            backgroundSnapshotStore.save(rois.get(i).getHiveId(), background);
+            background.release();
+        }
+        lastBackgroundSnapshot = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Seed the background model of a region with its last snapshot (if it has the same size).
+     *
+     * @param i index of the region.
+     * @return true if the background model has been restored.
+     */
+    private boolean restoreBackgroundSnapshot(int i) {
+        Mat background = backgroundSnapshotStore.load(rois.get(i).getHiveId());
+        if (background == null) {
+            return false;
+        }
+        Rect roi = bc.getRoi(i);
+        boolean valid = background.width() == roi.width && background.height() == roi.height;
+        if (valid) {
+            bc.getBeesCounter(i).setBackgroundImage(background);
+        }
+        background.release();
+        return valid;
+    }
+
+    /**
+     * Config the regions of the frame (one for each hive entrance) and their records.
+     *
+     * @param hiveIds ids of the monitored hives (from left to right).
+     */
+    private void configRois(List<Long> hiveIds) {
+        rois = MonitoringRoi.splitColumns(hiveIds);
+        records.clear();
+        for (int i = 0; i < rois.size(); i++) {
+            records.add(new RecordBuffer());
+        }
+        pendingFlushes.clear();
+        numHandedOff = new int[rois.size()];
+        numFlushed = new int[rois.size()];
+        // The first region is processed in the camera thread
+        if (rois.size() > 1 && roiExecutor == null) {
+            roiExecutor = Executors.newFixedThreadPool(rois.size() - 1);
+        }
+    }
+
+    /**
+     * Get the ids of the monitored hives: the hive selected by the user for each entrance.
+     *
+     * @return hive ids (from left to right) or null if an entrance has no hive of the apiary.
+     */
+    @Nullable
+    private List<Long> getEntranceHiveIds() {
+        if (apiary == null || apiary.getHives() == null || !monitoringSettings.hasEntranceHives()) {
+            return null;
+        }
+        List<Long> hiveIds = new ArrayList<>();
+        for (long entranceHiveId : monitoringSettings.getEntranceHiveIds()) {
+            boolean found = false;
+            for (Hive hive : apiary.getHives()) {
+                found |= hive.getId() == entranceHiveId;
+            }
+            if (!found) {
+                return null;
+            }
+            hiveIds.add(entranceHiveId);
+        }
+        return hiveIds;
+    }
+
+    /**
+     * Get the ids of the hives of the regions.
+     *
+     * @return hive ids (from left to right).
+     */
+    private List<Long> getHiveIds() {
+        List<Long> hiveIds = new ArrayList<>(rois.size());
+        for (MonitoringRoi roi : rois) {
+            hiveIds.add(roi.getHiveId());
+        }
+        return hiveIds;
+    }
+
+    /**
+     * Config bee counters with settings (one for each region of the frame).
+     *
+     * @param width  frame width.
+     * @param height frame height.
+     */
+    private void configBeeCounter(int width, int height) {
+        releaseBeesCounter();
+        BeesCounterConfig config = monitoringSettings.getBeesCounterConfig();
+        // Motion gate and area calibration are enabled after creating the background model
+        config.setMotionThreshold(0);
+        config.setAutoCalibration(false);
+        // Background models are created at the resolution of the current resource step
+        config.setDownscaleLevels(
+                resourceGovernor.getDownscaleLevels(monitoringSettings.getDownscaleLevels()));
+        List<Rect> rects = new ArrayList<>(rois.size());
+        for (MonitoringRoi roi : rois) {
+            rects.add(roi.toRect(width, height));
+        }
+        bc = new MultiRoiBeesCounter(beesCounterPool, config, rects, roiExecutor);
+        appliedOptionalStages = null;
+    }
+
+    /**
+     * Log motion gate metrics and release the bees counters.
      */
-    private void configBeeCounter() {
-        bc = AreaBeesCounter.getInstance();
-        bc.updateBlobSize(monitoringSettings.getBlobSize());
-        bc.updateMinArea(monitoringSettings.getMinArea());
-        bc.updateMaxArea(monitoringSettings.getMaxArea());
+    private void releaseBeesCounter() {
+        if (bc == null) {
+            return;
+        }
+        int numSkipped = 0;
+        int numPassed = 0;
+        for (int i = 0; i < bc.getNumRois(); i++) {
+            BeesCounter roiBc = bc.getBeesCounter(i);
+            numSkipped += roiBc.getMotionGate().getNumSkipped();
+            numPassed += roiBc.getMotionGate().getNumPassed();
+        }
+        Log.d("Static frames skipped: %d, frames processed: %d", numSkipped, numPassed);
+        bc.release();
+        bc = null;
     }
 
     /**
@@ -319,7 +799,7 @@ public class MonitoringService extends Service implements AndroidCameraListener
 
 
     /**
-     * Config OpenCV (config callback and init OpenCV).
+     * Config OpenCV (config callback and wait for the libraries loaded by the application).
      * When OpenCV is ready, it starts monitoring.
      */
     private void configOpenCv() {
@@ -335,8 +815,8 @@ public class MonitoringService extends Service implements AndroidCameraListener
                 }
             }
         };
-        // Init openCV
-        OpenCVLoader.initAsync(OpenCVLoader.OPENCV_VERSION_3_2_0, this, loaderCallback);
+        // Wait for openCV
+        OpenCvInitializer.whenReady(this, loaderCallback);
     }
 
     /**
@@ -352,6 +832,59 @@ public class MonitoringService extends Service implements AndroidCameraListener
         if (!androidCamera.isConnected()) {
             androidCamera.connect();
         }
+        // Start watchdog
+        lastFrame = SystemClock.elapsedRealtime();
+        watchdogTask = new WatchdogTask();
+        timer.scheduleAtFixedRate(watchdogTask, WATCHDOG_RATE, WATCHDOG_RATE);
+        // Start checking the battery
+        timer.scheduleAtFixedRate(new ResourceGovernorTask(), 0, GOVERNOR_RATE);
+    }
+
+    /**
+     * Apply the settings of the current step of the resource governor: frame rate, processing
+     * resolution and optional stages (calibration and in / out counting).
+     * The optional stages are only updated when they change (setting the entrance line drops the
+     * tracks in progress).
+     * Note: it is called from the camera thread.
+     */
+    private void applyResourceStep() {
+        appliedStep = resourceGovernor.getStep();
+        long frameRate = resourceGovernor.getFrameRate(monitoringSettings.getFrameRate());
+        int levels = resourceGovernor.getDownscaleLevels(monitoringSettings.getDownscaleLevels());
+        boolean optionalStages = resourceGovernor.areOptionalStagesEnabled();
+        boolean updateOptionalStages = !Boolean.valueOf(optionalStages)
+                .equals(appliedOptionalStages);
+        androidCamera.updateFrameRate(0, frameRate);
+        for (int i = 0; i < bc.getNumRois(); i++) {
+            BeesCounter roiBc = bc.getBeesCounter(i);
+            roiBc.updateDownscaleLevels(levels);
+            if (updateOptionalStages) {
+                roiBc.updateAutoCalibration(
+                        optionalStages && monitoringSettings.isAutoCalibration());
+                roiBc.updateEntranceLine(
+                        optionalStages ? monitoringSettings.getEntranceLine() : null);
+            }
+        }
+        appliedOptionalStages = optionalStages;
+        Log.i("Resource step %s applied: frame rate %d ms, downscale levels %d, "
+                + "optional stages %b", appliedStep, frameRate, levels, optionalStages);
+    }
+
+    /**
+     * Restart the camera (the background models are seeded with the last snapshots when the
+     * camera is started again).
+     */
+    private void restartCamera() {
+        if (androidCamera == null || watchdogTask == null) {
+            // Monitoring stopped
+            return;
+        }
+        Log.w("No frames received in %d ms, restarting camera",
+                SystemClock.elapsedRealtime() - lastFrame);
+        androidCamera.release();
+        lastFrame = SystemClock.elapsedRealtime();
+        configCamera();
+        androidCamera.connect();
     }
 
     /**
@@ -362,21 +895,122 @@ public class MonitoringService extends Service implements AndroidCameraListener
         stopSelf();
     }
 
+    /**
+     * Save the recording of each hive and notify the result: success if any recording is saved,
+     * failure if any fails and too short otherwise.
+     * If some records of a hive have already been flushed, the rest are appended to its recording.
+     */
+    private void saveRecordings() {
+        // Save pending flushes first (the rest of records are appended to them)
+        mainHandler.removeCallbacks(drainFlushesTask);
+        drainFlushes();
+        if (!pendingFlushes.isEmpty()) {
+            Log.e("%d flushes of records could not be saved", pendingFlushes.size());
+            pendingFlushes.clear();
+        }
+        final int[] results = new int[2];
+        SaveRecordingCallback saveCallback = new SaveRecordingCallback() {
+            @Override
+            public void onRecordingTooShort() {
+                // Don't do anything
+            }
+
+            @Override
+            public void onSuccess() {
+                results[0]++;
+            }
+
+            @Override
+            public void onFailure() {
+                results[1]++;
+            }
+        };
+        for (int i = 0; i < rois.size(); i++) {
+            RecordBuffer hiveRecords = records.get(i);
+            if (!hiveRecords.isEmpty()) {
+                // Clean records
+                cleanRecords(hiveRecords, numFlushed[i] == 0);
+                // Save records on db
+                if (numFlushed[i] == 0) {
+                    goBeesRepository.saveRecords(rois.get(i).getHiveId(),
+                            hiveRecords.toRecords(), saveCallback);
+                } else {
+                    goBeesRepository.appendRecords(rois.get(i).getHiveId(),
+                            hiveRecords.toRecords(), saveCallback);
+                }
+                hiveRecords.clear();
+            } else if (numFlushed[i] > 0) {
+                // All records already flushed
+                saveCallback.onSuccess();
+            }
+            saveAreaAdjustments(rois.get(i).getHiveId(), pollAreaAdjustments(i));
+        }
+        saveSessionProfile();
+        stopService();
+        if (callback == null) {
+            // No client bound (i.e. the session has been resumed after a restart)
+            return;
+        }
+        if (results[0] > 0) {
+            callback.onSuccess();
+        } else if (results[1] > 0) {
+            callback.onFailure();
+        } else {
+            callback.onRecordingTooShort();
+        }
+    }
+
+    /**
+     * Save the performance profile of the session with the recordings of the monitored hives.
+     * The profile covers the whole pipeline (all the regions), so it is saved once, linked to
+     * each hive and marked as shared by the number of monitored hives.
+     */
+    private void saveSessionProfile() {
+        if (performanceRecorder == null || performanceRecorder.getNumFrames() == 0) {
+            return;
+        }
+        final List<Long> hiveIds = new ArrayList<>(rois.size());
+        for (MonitoringRoi roi : rois) {
+            hiveIds.add(roi.getHiveId());
+        }
+        SessionProfile profile = performanceRecorder.toProfile(SystemClock.elapsedRealtime(),
+                Process.getElapsedCpuTime(), Build.MODEL);
+        profile.setNumHives(rois.size());
+        Log.i("Session profile of hives %s: %.2f fps, %d frames, %d dropped, "
+                        + "latency p50 %.0f ms p90 %.0f ms p99 %.0f ms, CPU %d ms", hiveIds,
+                profile.getFps(), profile.getNumFrames(), profile.getNumDropped(),
+                profile.getLatencyP50(), profile.getLatencyP90(), profile.getLatencyP99(),
+                profile.getCpuTime());
+        goBeesRepository.saveSessionProfile(hiveIds, profile,
+                new GoBeesDataSource.TaskCallback() {
+                    @Override
+                    public void onSuccess() {
+                        // Don't do anything
+                    }
+
+                    @Override
+                    public void onFailure() {
+                        Log.e("Error saving session profile of hives %s", hiveIds);
+                    }
+                });
+    }
+
     /**
      * Delete last records that usually contain noise and add two special records
      * at the beginning and ending to know the limits of the recording.
+     *
+     * @param records records of a hive.
+     * @param first   true if they are the first records of the recording.
      */
-    private void cleanRecords() {
+    private void cleanRecords(RecordBuffer records, boolean first) {
         // Delete last seconds
-        long endTime = records.getLast().getTimestamp().getTime();
-        while (!records.isEmpty()
-                && endTime - records.getLast().getTimestamp().getTime() < NUM_LAST_SEC_TO_DELETE) {
-            records.removeLast();
-        }
+        records.trimLast(NUM_LAST_SEC_TO_DELETE);
         // Save initial and last record (to know the beginning and ending of the recording)
         if (!records.isEmpty()) {
-            records.getFirst().setNumBees(-1);
-            records.getLast().setNumBees(-1);
+            if (first) {
+                records.setNumBees(0, -1);
+            }
+            records.setNumBees(records.size() - 1, -1);
         }
     }
 
@@ -401,6 +1035,68 @@ public class MonitoringService extends Service implements AndroidCameraListener
         }
     }
 
+    /**
+     * Records of a region (and the adjustments of its areas) handed off to be appended to its
+     * recording.
+     */
+    private static class PendingFlush {
+
+        private final int index;
+        private final List<Record> records;
+        private final long lastTimestamp;
+        private final List<AreaAdjustment> adjustments;
+
+        PendingFlush(int index, List<Record> records, long lastTimestamp,
+                     List<AreaAdjustment> adjustments) {
+            this.index = index;
+            this.records = records;
+            this.lastTimestamp = lastTimestamp;
+            this.adjustments = adjustments;
+        }
+    }
+
+    /**
+     * Task that restarts the camera if no frames have been received in a while.
+     */
+    private class WatchdogTask extends TimerTask {
+        @Override
+        public void run() {
+            long timeout = Math.max(WATCHDOG_TIMEOUT,
+                    10 * resourceGovernor.getFrameRate(monitoringSettings.getFrameRate()));
+            if (SystemClock.elapsedRealtime() - lastFrame > timeout) {
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        restartCamera();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Task that reads the battery state (sticky battery intent) and updates the resource governor.
+     */
+    private class ResourceGovernorTask extends TimerTask {
+        @Override
+        public void run() {
+            Intent battery = registerReceiver(null,
+                    new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+            if (battery == null) {
+                return;
+            }
+            int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, 0) * 100
+                    / battery.getIntExtra(BatteryManager.EXTRA_SCALE, 100);
+            boolean charging = battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+            // Temperature in tenths of a degree
+            double temperature = battery.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, 0) / 10.0;
+            if (resourceGovernor.update(level, charging, temperature)) {
+                Log.i("Resource step changed to %s (battery %d%%, charging %b, %.1f °C)",
+                        resourceGovernor.getStep(), level, charging, temperature);
+            }
+        }
+    }
+
     /**
      * Task that makes a request to weather server and stores the received weather data.
      */
@@ -19,14 +19,23 @@
 package com.davidmiguel.gobees.monitoring;
 
 import com.davidmiguel.gobees.monitoring.algorithm.BeesCounter;
+import com.davidmiguel.gobees.monitoring.algorithm.BeesCounterConfig;
+import com.davidmiguel.gobees.monitoring.algorithm.EntranceLine;
 
 import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Model class to store the monitoring settings.
  */
 class MonitoringSettings implements Serializable {
 
+    /**
+     * Entrance without a hive selected.
+     */
+    static final long NO_HIVE = -1;
+
     /**
      * Apiary id.
      */
@@ -37,6 +46,16 @@ class MonitoringSettings implements Serializable {
      */
     private long hiveId;
 
+    /**
+     * Bees counter algorithm.
+     */
+    private BeesCounter.CounterType counterType;
+
+    /**
+     * Background model.
+     */
+    private BeesCounter.BackgroundType backgroundType;
+
     /**
      * Blob blobSize. This causes regions within an image get "thicker" or "thinner".
      */
@@ -52,6 +71,36 @@ class MonitoringSettings implements Serializable {
      */
     private double maxArea;
 
+    /**
+     * Downscale levels (0 = full resolution, 1 = half, 2 = quarter).
+     */
+    private int downscaleLevels;
+
+    /**
+     * Motion threshold to skip static frames (0 = disabled).
+     */
+    private int motionThreshold;
+
+    /**
+     * Online calibration of the min and max area.
+     */
+    private boolean autoCalibration;
+
+    /**
+     * Entrance line to count in and out events (null = disabled).
+     */
+    private EntranceLine entranceLine;
+
+    /**
+     * Number of hive entrances in the frame (side by side, one for each hive).
+     */
+    private int numEntrances = 1;
+
+    /**
+     * Hive of each entrance, from left to right (NO_HIVE if not selected).
+     */
+    private long[] entranceHiveIds = new long[0];
+
     /**
      * Max width frame.
      */
@@ -72,6 +121,11 @@ class MonitoringSettings implements Serializable {
      */
     private long frameRate;
 
+    /**
+     * Policy to throttle the monitoring when the phone gets hot or the battery runs low.
+     */
+    private ResourceGovernor.Policy resourcePolicy = ResourceGovernor.Policy.BALANCED;
+
     public long getApiaryId() {
         return apiaryId;
     }
@@ -88,6 +142,22 @@ class MonitoringSettings implements Serializable {
         this.hiveId = hiveId;
     }
 
+    BeesCounter.CounterType getCounterType() {
+        return counterType;
+    }
+
+    void setCounterType(BeesCounter.CounterType counterType) {
+        this.counterType = counterType;
+    }
+
+    BeesCounter.BackgroundType getBackgroundType() {
+        return backgroundType;
+    }
+
+    void setBackgroundType(BeesCounter.BackgroundType backgroundType) {
+        this.backgroundType = backgroundType;
+    }
+
     BeesCounter.BlobSize getBlobSize() {
         return blobSize;
     }
@@ -112,6 +182,72 @@ class MonitoringSettings implements Serializable {
         this.maxArea = maxArea;
     }
 
+    int getDownscaleLevels() {
+        return downscaleLevels;
+    }
+
+    void setDownscaleLevels(int downscaleLevels) {
+        this.downscaleLevels = downscaleLevels;
+    }
+
+    int getMotionThreshold() {
+        return motionThreshold;
+    }
+
+    void setMotionThreshold(int motionThreshold) {
+        this.motionThreshold = motionThreshold;
+    }
+
+    boolean isAutoCalibration() {
+        return autoCalibration;
+    }
+
+    void setAutoCalibration(boolean autoCalibration) {
+        this.autoCalibration = autoCalibration;
+    }
+
+    EntranceLine getEntranceLine() {
+        return entranceLine;
+    }
+
+    void setEntranceLine(EntranceLine entranceLine) {
+        this.entranceLine = entranceLine;
+    }
+
+    int getNumEntrances() {
+        return numEntrances;
+    }
+
+    void setNumEntrances(int numEntrances) {
+        this.numEntrances = numEntrances;
+    }
+
+    long[] getEntranceHiveIds() {
+        return entranceHiveIds;
+    }
+
+    void setEntranceHiveIds(long[] entranceHiveIds) {
+        this.entranceHiveIds = entranceHiveIds;
+    }
+
+    /**
+     * Check that every entrance has its own hive selected.
+     *
+     * @return true if there is a different hive for each entrance.
+     */
+    boolean hasEntranceHives() {
+        if (entranceHiveIds == null || entranceHiveIds.length != numEntrances) {
+            return false;
+        }
+        Set<Long> hiveIds = new HashSet<>();
+        for (long entranceHiveId : entranceHiveIds) {
+            if (entranceHiveId == NO_HIVE || !hiveIds.add(entranceHiveId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     int getMaxFrameWidth() {
         return maxFrameWidth;
     }
@@ -143,4 +279,31 @@ class MonitoringSettings implements Serializable {
     void setFrameRate(long frameRate) {
         this.frameRate = frameRate;
     }
+
+    ResourceGovernor.Policy getResourcePolicy() {
+        return resourcePolicy;
+    }
+
+    void setResourcePolicy(ResourceGovernor.Policy resourcePolicy) {
+        this.resourcePolicy = resourcePolicy;
+    }
+
+    /**
+     * Get the config of the bees counter from the settings.
+     *
+     * @return bees counter config.
+     */
+    BeesCounterConfig getBeesCounterConfig() {
+        BeesCounterConfig config = new BeesCounterConfig();
+        config.setCounterType(counterType);
+        config.setBackgroundType(backgroundType);
+        config.setBlobSize(blobSize);
+        config.setMinArea(minArea);
+        config.setMaxArea(maxArea);
+        config.setDownscaleLevels(downscaleLevels);
+        config.setMotionThreshold(motionThreshold);
+        config.setAutoCalibration(autoCalibration);
+        config.setEntranceLine(entranceLine);
+        return config;
+    }
 }
@@ -33,9 +33,13 @@ import android.view.animation.AnimationUtils;
 import android.widget.RelativeLayout;
 
 import com.davidmiguel.gobees.R;
+import com.davidmiguel.gobees.data.model.Hive;
 import com.davidmiguel.gobees.monitoring.algorithm.BeesCounter;
+import com.davidmiguel.gobees.monitoring.algorithm.EntranceLine;
 import com.vanniktech.vntnumberpickerpreference.VNTNumberPickerPreference;
 
+import java.util.List;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -45,8 +49,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class MonitoringSettingsFragment extends PreferenceFragment
         implements MonitoringContract.SettingsView, Preference.OnPreferenceChangeListener {
 
+    private static final int[] ENTRANCE_HIVE_KEYS = {R.string.pref_entrance_hive_1_key,
+            R.string.pref_entrance_hive_2_key, R.string.pref_entrance_hive_3_key};
+
     private MonitoringContract.Presenter presenter;
     private RelativeLayout settingsLayout;
+    private List<Hive> hives;
+    private long hiveId;
 
     public MonitoringSettingsFragment() {
         // Requires empty public constructor
@@ -61,6 +70,8 @@ public class MonitoringSettingsFragment extends PreferenceFragment
         super.onCreate(savedInstanceState);
         // Load the preferences from an XML resource
         addPreferencesFromResource(R.xml.monitoring_settings);
+        // Hives of the apiary may have been loaded before the preferences
+        initEntranceHives();
         // For all preferences, attach an OnPreferenceChangeListener so the UI summary can be
     }
 
@@ -82,12 +93,20 @@ public class MonitoringSettingsFragment extends PreferenceFragment
     @Override
     public void initSettings() {
         // Updated when the preference changes
+        bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_bees_counter_key)));
+        bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_background_key)));
         bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_blob_size_key)));
         bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_min_area_key)));
         bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_max_area_key)));
+        bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_resolution_key)));
+        bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_motion_threshold_key)));
+        bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_auto_calibration_key)));
+        bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_entrance_line_key)));
+        bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_entrances_key)));
         bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_zoom_key)));
         bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_show_algo_output_key)));
         bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_frame_rate_key)));
+        bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_power_saving_key)));
     }
 
     @Override
@@ -121,14 +140,30 @@ public class MonitoringSettingsFragment extends PreferenceFragment
         settingsLayout.startAnimation(fadeOut);
     }
 
+    @Override
+    public void setHives(List<Hive> hives, long hiveId) {
+        this.hives = hives;
+        this.hiveId = hiveId;
+        initEntranceHives();
+    }
+
     @Override
     public MonitoringSettings getMonitoringSettings() {
         MonitoringSettings monitoringSettings = new MonitoringSettings();
+        monitoringSettings.setCounterType(getCounterType());
+        monitoringSettings.setBackgroundType(getBackgroundType());
         monitoringSettings.setBlobSize(getBlobSize());
         monitoringSettings.setMinArea(getMinArea());
         monitoringSettings.setMaxArea(getMaxArea());
+        monitoringSettings.setDownscaleLevels(getDownscaleLevels());
+        monitoringSettings.setMotionThreshold(getMotionThreshold());
+        monitoringSettings.setAutoCalibration(isAutoCalibration());
+        monitoringSettings.setEntranceLine(getEntranceLine());
+        monitoringSettings.setNumEntrances(getNumEntrances());
+        monitoringSettings.setEntranceHiveIds(getEntranceHiveIds(getNumEntrances()));
         monitoringSettings.setZoomRatio(getZoomRatio());
         monitoringSettings.setFrameRate(getFrameRate());
+        monitoringSettings.setResourcePolicy(getResourcePolicy());
         monitoringSettings.setMaxFrameWidth(640);
         monitoringSettings.setMaxFrameHeight(480);
         return monitoringSettings;
@@ -201,6 +236,14 @@ public class MonitoringSettingsFragment extends PreferenceFragment
             // Show algo output
             Boolean val = (Boolean) value;
             presenter.showAlgoOutput(val);
+        } else if (preference.getKey().equals(getString(R.string.pref_bees_counter_key))) {
+            // Update bees counter algorithm
+            String val = (String) value;
+            presenter.updateAlgoCounterType(getCounterType(val));
+        } else if (preference.getKey().equals(getString(R.string.pref_background_key))) {
+            // Update background model
+            String val = (String) value;
+            presenter.updateAlgoBackgroundType(getBackgroundType(val));
         } else if (preference.getKey().equals(getString(R.string.pref_blob_size_key))) {
             // Update blob size
             String val = (String) value;
@@ -211,9 +254,24 @@ public class MonitoringSettingsFragment extends PreferenceFragment
         } else if (preference.getKey().equals(getString(R.string.pref_max_area_key))) {
             // Update max area
             presenter.updateAlgoMaxArea(((Integer) value).doubleValue());
+        } else if (preference.getKey().equals(getString(R.string.pref_resolution_key))) {
+            // Update downscale levels
+            presenter.updateAlgoDownscaleLevels(Integer.parseInt((String) value));
+        } else if (preference.getKey().equals(getString(R.string.pref_motion_threshold_key))) {
+            // Update motion threshold
+            presenter.updateAlgoMotionThreshold(Integer.parseInt((String) value));
+        } else if (preference.getKey().equals(getString(R.string.pref_auto_calibration_key))) {
+            // Update area calibration
+            presenter.updateAlgoAutoCalibration((Boolean) value);
+        } else if (preference.getKey().equals(getString(R.string.pref_entrance_line_key))) {
+            // Update entrance line
+            presenter.updateAlgoEntranceLine(getEntranceLine((String) value));
         } else if (preference.getKey().equals(getString(R.string.pref_zoom_key))) {
             // Update zoom
             presenter.updateAlgoZoom(Integer.parseInt((String) value));
+        } else if (preference.getKey().equals(getString(R.string.pref_entrances_key))) {
+            // Enable the hive preference of each entrance
+            enableEntranceHives(Integer.parseInt((String) value));
         }
     }
 
@@ -231,6 +289,8 @@ public class MonitoringSettingsFragment extends PreferenceFragment
             int prefIndex = listPreference.findIndexOfValue((String) value);
             if (prefIndex >= 0) {
                 preference.setSummary(listPreference.getEntries()[prefIndex]);
+            } else if (isEntranceHivePreference(preference)) {
+                preference.setSummary(R.string.pref_entrance_hive_none);
             }
         } else if (preference instanceof VNTNumberPickerPreference) {
             // For number pickers, show the value
@@ -241,6 +301,62 @@ public class MonitoringSettingsFragment extends PreferenceFragment
         }
     }
 
+    /**
+     * Get bees counter algorithm.
+     *
+     * @return bees counter algorithm.
+     */
+    private BeesCounter.CounterType getCounterType() {
+        // Get value
+        String value = PreferenceManager.getDefaultSharedPreferences(getActivity())
+                .getString(getString(R.string.pref_bees_counter_key),
+                        getString(R.string.pref_bees_counter_contours));
+        // Convert value
+        return getCounterType(value);
+    }
+
+    /**
+     * Get bees counter algorithm from string.
+     *
+     * @param val string with the value.
+     * @return CounterType.
+     */
+    private BeesCounter.CounterType getCounterType(String val) {
+        if (val.equals(getString(R.string.pref_bees_counter_components))) {
+            return BeesCounter.CounterType.COMPONENTS;
+        }
+        return BeesCounter.CounterType.CONTOURS;
+    }
+
+    /**
+     * Get background model.
+     *
+     * @return background model.
+     */
+    private BeesCounter.BackgroundType getBackgroundType() {
+        // Get value
+        String value = PreferenceManager.getDefaultSharedPreferences(getActivity())
+                .getString(getString(R.string.pref_background_key),
+                        getString(R.string.pref_background_mog2));
+        // Convert value
+        return getBackgroundType(value);
+    }
+
+    /**
+     * Get background model from string.
+     *
+     * @param val string with the value.
+     * @return BackgroundType.
+     */
+    private BeesCounter.BackgroundType getBackgroundType(String val) {
+        if (val.equals(getString(R.string.pref_background_running_average))) {
+            return BeesCounter.BackgroundType.RUNNING_AVERAGE;
+        } else if (val.equals(getString(R.string.pref_background_approximate_median))) {
+            return BeesCounter.BackgroundType.APPROXIMATE_MEDIAN;
+        }
+        return BeesCounter.BackgroundType.MOG2;
+    }
+
     /**
      * Get blob size (This causes regions within an image get "thicker" or "thinner").
      *
@@ -298,6 +414,188 @@ public class MonitoringSettingsFragment extends PreferenceFragment
                         getActivity().getResources().getInteger(R.integer.pref_max_area_default));
     }
 
+    /**
+     * Get downscale levels (0 = full resolution, 1 = half, 2 = quarter).
+     *
+     * @return downscale levels.
+     */
+    private int getDownscaleLevels() {
+        // Get value
+        String value = PreferenceManager.getDefaultSharedPreferences(getActivity())
+                .getString(getString(R.string.pref_resolution_key),
+                        getString(R.string.pref_resolution_full));
+        // Convert
+        return Integer.parseInt(value);
+    }
+
+    /**
+     * Get motion threshold to skip static frames (0 = disabled).
+     *
+     * @return motion threshold.
+     */
+    private int getMotionThreshold() {
+        // Get value
+        String value = PreferenceManager.getDefaultSharedPreferences(getActivity())
+                .getString(getString(R.string.pref_motion_threshold_key),
+                        getString(R.string.pref_motion_threshold_normal));
+        // Convert
+        return Integer.parseInt(value);
+    }
+
+    /**
+     * Get whether the min and max area are calibrated online.
+     *
+     * @return true if the calibration is enabled.
+     */
+    private boolean isAutoCalibration() {
+        return PreferenceManager.getDefaultSharedPreferences(getActivity())
+                .getBoolean(getString(R.string.pref_auto_calibration_key),
+                        Boolean.parseBoolean(getString(R.string.pref_auto_calibration_default)));
+    }
+
+    /**
+     * Get entrance line to count in and out events.
+     *
+     * @return entrance line (null if disabled).
+     */
+    private EntranceLine getEntranceLine() {
+        // Get value
+        String value = PreferenceManager.getDefaultSharedPreferences(getActivity())
+                .getString(getString(R.string.pref_entrance_line_key),
+                        getString(R.string.pref_entrance_line_off));
+        // Convert value
+        return getEntranceLine(value);
+    }
+
+    /**
+     * Get entrance line from string.
+     *
+     * @param val string with the value.
+     * @return entrance line (null if disabled).
+     */
+    private EntranceLine getEntranceLine(String val) {
+        if (val.equals(getString(R.string.pref_entrance_line_top))) {
+            return EntranceLine.middle(EntranceLine.HiveSide.TOP);
+        } else if (val.equals(getString(R.string.pref_entrance_line_bottom))) {
+            return EntranceLine.middle(EntranceLine.HiveSide.BOTTOM);
+        } else if (val.equals(getString(R.string.pref_entrance_line_left))) {
+            return EntranceLine.middle(EntranceLine.HiveSide.LEFT);
+        } else if (val.equals(getString(R.string.pref_entrance_line_right))) {
+            return EntranceLine.middle(EntranceLine.HiveSide.RIGHT);
+        }
+        return null;
+    }
+
+    /**
+     * Set the hives of the apiary as the options of the hive of each entrance.
+     * Hives of other apiaries are discarded and, if the hive being monitored is not in any
+     * entrance, it is selected for the first one.
+     */
+    private void initEntranceHives() {
+        if (findPreference(getString(ENTRANCE_HIVE_KEYS[0])) == null) {
+            // Preferences not created yet
+            return;
+        }
+        // Options (empty until the hives are loaded)
+        int numHives = hives == null ? 0 : hives.size();
+        CharSequence[] names = new CharSequence[numHives];
+        CharSequence[] ids = new CharSequence[numHives];
+        for (int i = 0; i < numHives; i++) {
+            names[i] = hives.get(i).getName();
+            ids[i] = Long.toString(hives.get(i).getId());
+        }
+        int numEntrances = getNumEntrances();
+        boolean monitored = false;
+        for (int i = 0; i < ENTRANCE_HIVE_KEYS.length; i++) {
+            ListPreference preference =
+                    (ListPreference) findPreference(getString(ENTRANCE_HIVE_KEYS[i]));
+            preference.setEntries(names);
+            preference.setEntryValues(ids);
+            if (hives != null) {
+                // Discard hives that are not in the apiary
+                if (preference.findIndexOfValue(preference.getValue()) < 0) {
+                    preference.setValue("");
+                }
+                monitored |= i < numEntrances
+                        && Long.toString(hiveId).equals(preference.getValue());
+            }
+        }
+        if (hives != null && !monitored) {
+            ((ListPreference) findPreference(getString(ENTRANCE_HIVE_KEYS[0])))
+                    .setValue(Long.toString(hiveId));
+        }
+        // Summaries and enabled entrances
+        for (int key : ENTRANCE_HIVE_KEYS) {
+            bindPreferenceSummaryToValue(findPreference(getString(key)));
+        }
+        enableEntranceHives(numEntrances);
+    }
+
+    /**
+     * Enable only the hive preferences of the entrances in the frame.
+     *
+     * @param numEntrances number of entrances.
+     */
+    private void enableEntranceHives(int numEntrances) {
+        for (int i = 0; i < ENTRANCE_HIVE_KEYS.length; i++) {
+            findPreference(getString(ENTRANCE_HIVE_KEYS[i])).setEnabled(i < numEntrances);
+        }
+    }
+
+    /**
+     * Check whether the preference is the hive of an entrance.
+     *
+     * @param preference preference to check.
+     * @return true if it is the hive of an entrance.
+     */
+    private boolean isEntranceHivePreference(Preference preference) {
+        for (int key : ENTRANCE_HIVE_KEYS) {
+            if (preference.getKey().equals(getString(key))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the hive of each entrance, from left to right.
+     *
+     * @param numEntrances number of entrances.
+     * @return hive ids (NO_HIVE if an entrance has no hive of the apiary selected).
+     */
+    private long[] getEntranceHiveIds(int numEntrances) {
+        long[] hiveIds = new long[numEntrances];
+        for (int i = 0; i < numEntrances; i++) {
+            // Get value
+            String value = PreferenceManager.getDefaultSharedPreferences(getActivity())
+                    .getString(getString(ENTRANCE_HIVE_KEYS[i]), "");
+            // Convert (only hives of the apiary)
+            hiveIds[i] = MonitoringSettings.NO_HIVE;
+            if (hives != null) {
+                for (Hive hive : hives) {
+                    if (Long.toString(hive.getId()).equals(value)) {
+                        hiveIds[i] = hive.getId();
+                    }
+                }
+            }
+        }
+        return hiveIds;
+    }
+
+    /**
+     * Get number of hive entrances in the frame (side by side).
+     *
+     * @return number of entrances.
+     */
+    private int getNumEntrances() {
+        // Get value
+        String value = PreferenceManager.getDefaultSharedPreferences(getActivity())
+                .getString(getString(R.string.pref_entrances_key),
+                        getString(R.string.pref_entrances_1));
+        // Convert
+        return Integer.parseInt(value);
+    }
+
     /**
      * Get zoom ratio (100 = x1, 200 = x2…).
      *
@@ -323,4 +621,23 @@ public class MonitoringSettingsFragment extends PreferenceFragment
         // Convert
         return Long.parseLong(value);
     }
+
+    /**
+     * Get policy to throttle the monitoring (battery temperature and level).
+     *
+     * @return resource policy.
+     */
+    private ResourceGovernor.Policy getResourcePolicy() {
+        // Get value
+        String value = PreferenceManager.getDefaultSharedPreferences(getActivity())
+                .getString(getString(R.string.pref_power_saving_key),
+                        getString(R.string.pref_power_saving_balanced));
+        // Convert value
+        if (value.equals(getString(R.string.pref_power_saving_off))) {
+            return ResourceGovernor.Policy.OFF;
+        } else if (value.equals(getString(R.string.pref_power_saving_saver))) {
+            return ResourceGovernor.Policy.SAVER;
+        }
+        return ResourceGovernor.Policy.BALANCED;
+    }
 }
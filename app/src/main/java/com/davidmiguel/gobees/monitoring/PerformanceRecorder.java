@@ -0,0 +1,141 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring;
+
+import com.davidmiguel.gobees.data.model.SessionProfile;
+
+import java.util.Date;
+
+/**
+ * Low overhead recorder of the performance of the monitoring pipeline during a session:
+ * processed frames, dropped frames, processing latency percentiles and CPU time.
+ * Notes:
+ * - Latencies are counted in a histogram of 1 ms bins up to MAX_LATENCY ms (longer latencies go
+ * to the last bin), so recording a frame is O(1) and the memory is constant.
+ * - A frame is considered dropped when it is not received in 1.5 times the frame rate (the camera
+ * task could not take it because the previous one was still being processed).
+ * - CPU time is the one of the whole process (all threads), so it also includes the regions
+ * processed in parallel.
+ */
+class PerformanceRecorder {
+
+    // Max latency of the histogram (ms)
+    private static final int MAX_LATENCY = 2000;
+    // Frames are dropped when the time between frames is greater than frame rate * DROP_FACTOR
+    private static final double DROP_FACTOR = 1.5;
+
+    private final int[] latencies;
+    private boolean started;
+    private long startTimestamp;
+    private long startTime;
+    private long startCpuTime;
+    private long lastFrame;
+    private int numFrames;
+    private int numDropped;
+
+    /**
+     * PerformanceRecorder constructor.
+     */
+    PerformanceRecorder() {
+        latencies = new int[MAX_LATENCY + 1];
+    }
+
+    /**
+     * Starts the session.
+     *
+     * @param timestamp current timestamp (ms).
+     * @param time      current elapsed real time (ms).
+     * @param cpuTime   current CPU time of the process (ms).
+     */
+    void start(long timestamp, long time, long cpuTime) {
+        started = true;
+        startTimestamp = timestamp;
+        startTime = time;
+        startCpuTime = cpuTime;
+        lastFrame = time;
+    }
+
+    boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Records a processed frame.
+     *
+     * @param time      elapsed real time when the frame was received (ms).
+     * @param latency   processing time of the frame (ms).
+     * @param frameRate current frame rate (ms between frames).
+     */
+    void onFrame(long time, long latency, long frameRate) {
+        if (!started) {
+            return;
+        }
+        long interval = time - lastFrame;
+        if (numFrames > 0 && frameRate > 0 && interval > frameRate * DROP_FACTOR) {
+            // Frames not taken since the previous one
+            numDropped += (int) ((interval + frameRate / 2) / frameRate) - 1;
+        }
+        lastFrame = time;
+        latencies[(int) Math.max(0, Math.min(latency, MAX_LATENCY))]++;
+        numFrames++;
+    }
+
+    int getNumFrames() {
+        return numFrames;
+    }
+
+    int getNumDropped() {
+        return numDropped;
+    }
+
+    /**
+     * Get a percentile of the processing latency.
+     *
+     * @param percentile percentile (0-1).
+     * @return latency (ms) or 0 if there is no frame.
+     */
+    int getLatencyPercentile(double percentile) {
+        if (numFrames == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * numFrames));
+        long count = 0;
+        for (int i = 0; i < latencies.length; i++) {
+            count += latencies[i];
+            if (count >= rank) {
+                return i;
+            }
+        }
+        return MAX_LATENCY;
+    }
+
+    /**
+     * Creates the profile of the session (a new unmanaged object each time).
+     *
+     * @param time    current elapsed real time (ms).
+     * @param cpuTime current CPU time of the process (ms).
+     * @param device  device model.
+     * @return session profile.
+     */
+    SessionProfile toProfile(long time, long cpuTime, String device) {
+        return new SessionProfile(new Date(startTimestamp), time - startTime, numFrames,
+                numDropped, getLatencyPercentile(0.5), getLatencyPercentile(0.9),
+                getLatencyPercentile(0.99), cpuTime - startCpuTime, device);
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring;
+
+import com.davidmiguel.gobees.data.model.Record;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Buffer with the records of a monitoring session, stored in primitive arrays (timestamp,
+ * number of bees and in / out events) instead of one Record object per sample.
+ * Notes:
+ * - Records are stored in segments of SEGMENT_SIZE records. When the buffer is full, a new
+ * segment is added (the existing records are never copied).
+ * - Timestamps must be added in ascending order (so the last seconds can be trimmed with a
+ * binary search, without copying or removing anything).
+ * - The first records can be removed once they have been handed off (only the remaining records
+ * are copied to the beginning of the buffer).
+ * - Record objects are only created when the records are handed off to be persisted.
+ */
+class RecordBuffer {
+
+    // Records per segment (power of two)
+    private static final int SEGMENT_BITS = 10;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private long[][] timestamps;
+    private int[][] numBees;
+    private int[][] numIn;
+    private int[][] numOut;
+    private int numSegments;
+    private int size;
+
+    /**
+     * RecordBuffer constructor.
+     */
+    RecordBuffer() {
+        timestamps = new long[4][];
+        numBees = new int[4][];
+        numIn = new int[4][];
+        numOut = new int[4][];
+    }
+
+    /**
+     * Adds a record at the end of the buffer.
+     *
+     * @param timestamp timestamp (ms).
+     * @param bees      number of bees.
+     * @param in        number of bees that entered the hive.
+     * @param out       number of bees that left the hive.
+     */
+    void add(long timestamp, int bees, int in, int out) {
+        int segment = size >>> SEGMENT_BITS;
+        if (segment == numSegments) {
+            addSegment();
+        }
+        int i = size & SEGMENT_MASK;
+        timestamps[segment][i] = timestamp;
+        numBees[segment][i] = bees;
+        numIn[segment][i] = in;
+        numOut[segment][i] = out;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long getTimestamp(int i) {
+        checkIndex(i);
+        return timestamps[i >>> SEGMENT_BITS][i & SEGMENT_MASK];
+    }
+
+    int getNumBees(int i) {
+        checkIndex(i);
+        return numBees[i >>> SEGMENT_BITS][i & SEGMENT_MASK];
+    }
+
+    void setNumBees(int i, int bees) {
+        checkIndex(i);
+        numBees[i >>> SEGMENT_BITS][i & SEGMENT_MASK] = bees;
+    }
+
+    int getNumIn(int i) {
+        checkIndex(i);
+        return numIn[i >>> SEGMENT_BITS][i & SEGMENT_MASK];
+    }
+
+    int getNumOut(int i) {
+        checkIndex(i);
+        return numOut[i >>> SEGMENT_BITS][i & SEGMENT_MASK];
+    }
+
+    /**
+     * Removes the records of the last milliseconds (records newer than the timestamp of the last
+     * record - duration). Records are not copied, the size is just reduced.
+     *
+     * @param duration duration to remove (ms).
+     */
+    void trimLast(long duration) {
+        if (size == 0) {
+            return;
+        }
+        size = countUntil(getTimestamp(size - 1) - duration);
+    }
+
+    /**
+     * Counts the records that are not newer than the given timestamp (binary search).
+     *
+     * @param limit timestamp (ms).
+     * @return number of records with a timestamp lower or equal than the limit.
+     */
+    int countUntil(long limit) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getTimestamp(mid) <= limit) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Removes the first records. The remaining records are moved to the beginning of the buffer.
+     *
+     * @param n number of records to remove.
+     */
+    void removeFirst(int n) {
+        if (n < 0 || n > size) {
+            throw new IndexOutOfBoundsException("Records: " + n + ", size: " + size);
+        }
+        int remaining = size - n;
+        for (int i = 0; i < remaining; i++) {
+            int src = n + i;
+            int ss = src >>> SEGMENT_BITS;
+            int si = src & SEGMENT_MASK;
+            int ds = i >>> SEGMENT_BITS;
+            int di = i & SEGMENT_MASK;
+            timestamps[ds][di] = timestamps[ss][si];
+            numBees[ds][di] = numBees[ss][si];
+            numIn[ds][di] = numIn[ss][si];
+            numOut[ds][di] = numOut[ss][si];
+        }
+        size = remaining;
+        releaseSegments(Math.max((size + SEGMENT_MASK) >>> SEGMENT_BITS, 1));
+    }
+
+    /**
+     * Creates the records to be persisted (this is the only place where Record objects are
+     * created).
+     *
+     * @return list of records.
+     */
+    List<Record> toRecords() {
+        return toRecords(size);
+    }
+
+    /**
+     * Creates the first records to be persisted.
+     *
+     * @param n number of records.
+     * @return list of records.
+     */
+    List<Record> toRecords(int n) {
+        if (n < 0 || n > size) {
+            throw new IndexOutOfBoundsException("Records: " + n + ", size: " + size);
+        }
+        List<Record> records = new ArrayList<>(n);
+        for (int s = 0; s < numSegments; s++) {
+            int segmentSize = Math.min(SEGMENT_SIZE, n - (s << SEGMENT_BITS));
+            for (int i = 0; i < segmentSize; i++) {
+                records.add(new Record(new Date(timestamps[s][i]), numBees[s][i],
+                        numIn[s][i], numOut[s][i]));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Removes all records (and releases all segments but the first one).
+     */
+    void clear() {
+        size = 0;
+        releaseSegments(1);
+    }
+
+    /**
+     * Releases the segments that are not needed.
+     *
+     * @param keep number of segments to keep.
+     */
+    private void releaseSegments(int keep) {
+        for (int s = keep; s < numSegments; s++) {
+            timestamps[s] = null;
+            numBees[s] = null;
+            numIn[s] = null;
+            numOut[s] = null;
+        }
+        numSegments = Math.min(numSegments, keep);
+    }
+
+    /**
+     * Adds a new segment (the array of segments grows if needed).
+     */
+    private void addSegment() {
+        if (numSegments == timestamps.length) {
+            int length = numSegments * 2;
+            timestamps = Arrays.copyOf(timestamps, length);
+            numBees = Arrays.copyOf(numBees, length);
+            numIn = Arrays.copyOf(numIn, length);
+            numOut = Arrays.copyOf(numOut, length);
+        }
+        timestamps[numSegments] = new long[SEGMENT_SIZE];
+        numBees[numSegments] = new int[SEGMENT_SIZE];
+        numIn[numSegments] = new int[SEGMENT_SIZE];
+        numOut[numSegments] = new int[SEGMENT_SIZE];
+        numSegments++;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
+        }
+    }
+}
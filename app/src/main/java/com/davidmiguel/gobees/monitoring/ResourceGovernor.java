@@ -0,0 +1,170 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring;
+
+/**
+ * Steps down the monitoring workload when the phone gets hot or the battery runs low (i.e. a
+ * phone left in the sun at the hive), so the session lasts the whole day.
+ * Steps:
+ * - NORMAL: configured settings.
+ * - REDUCED: half the frame rate and half the processing resolution.
+ * - MINIMAL: a quarter of the frame rate and of the processing resolution. The optional stages
+ * (online calibration of the areas and in / out counting) are disabled.
+ * The step is chosen from the battery temperature, level and charging state according to the
+ * policy. It goes up as soon as a threshold is reached, but it only goes down when the battery
+ * is TEMPERATURE_HYSTERESIS degrees cooler and LEVEL_HYSTERESIS % fuller than the thresholds
+ * (so the settings don't flip at every check).
+ */
+class ResourceGovernor {
+
+    // Margins to step down (°C and %)
+    private static final double TEMPERATURE_HYSTERESIS = 2;
+    private static final int LEVEL_HYSTERESIS = 5;
+    // Max downscale levels (quarter resolution)
+    private static final int MAX_DOWNSCALE_LEVELS = 2;
+
+    private final Policy policy;
+    private volatile Step step;
+
+    /**
+     * ResourceGovernor constructor.
+     *
+     * @param policy throttling policy.
+     */
+    ResourceGovernor(Policy policy) {
+        this.policy = policy;
+        this.step = Step.NORMAL;
+    }
+
+    /**
+     * Update the step with the battery state.
+     *
+     * @param level       battery level (%).
+     * @param charging    true if the phone is plugged.
+     * @param temperature battery temperature (°C).
+     * @return true if the step has changed.
+     */
+    boolean update(int level, boolean charging, double temperature) {
+        Step target = policy.getStep(level, charging, temperature);
+        if (target.ordinal() < step.ordinal()) {
+            // Step down only if the battery is clearly better
+            Step relaxed = policy.getStep(level - LEVEL_HYSTERESIS, charging,
+                    temperature + TEMPERATURE_HYSTERESIS);
+            target = relaxed.ordinal() < step.ordinal() ? relaxed : step;
+        }
+        if (target == step) {
+            return false;
+        }
+        step = target;
+        return true;
+    }
+
+    Step getStep() {
+        return step;
+    }
+
+    /**
+     * Get the frame rate of the current step.
+     *
+     * @param frameRate configured frame rate (ms between frames).
+     * @return frame rate (ms between frames).
+     */
+    long getFrameRate(long frameRate) {
+        return frameRate * step.frameRateFactor;
+    }
+
+    /**
+     * Get the downscale levels of the current step.
+     *
+     * @param levels configured downscale levels.
+     * @return downscale levels.
+     */
+    int getDownscaleLevels(int levels) {
+        return Math.min(levels + step.extraDownscaleLevels, MAX_DOWNSCALE_LEVELS);
+    }
+
+    /**
+     * Checks whether the optional stages (calibration and in / out counting) can run.
+     *
+     * @return true if they are enabled.
+     */
+    boolean areOptionalStagesEnabled() {
+        return step.optionalStages;
+    }
+
+    /**
+     * Workload step.
+     */
+    enum Step {
+        NORMAL(1, 0, true),
+        REDUCED(2, 1, true),
+        MINIMAL(4, 2, false);
+
+        private final int frameRateFactor;
+        private final int extraDownscaleLevels;
+        private final boolean optionalStages;
+
+        Step(int frameRateFactor, int extraDownscaleLevels, boolean optionalStages) {
+            this.frameRateFactor = frameRateFactor;
+            this.extraDownscaleLevels = extraDownscaleLevels;
+            this.optionalStages = optionalStages;
+        }
+    }
+
+    /**
+     * Throttling policy: temperature (°C) and battery level (%) thresholds of each step.
+     * Battery level thresholds only apply when the phone is not plugged.
+     */
+    enum Policy {
+        OFF(Double.MAX_VALUE, Double.MAX_VALUE, -1, -1),
+        BALANCED(40, 45, 30, 15),
+        SAVER(37, 42, 50, 25);
+
+        private final double reducedTemperature;
+        private final double minimalTemperature;
+        private final int reducedLevel;
+        private final int minimalLevel;
+
+        Policy(double reducedTemperature, double minimalTemperature,
+               int reducedLevel, int minimalLevel) {
+            this.reducedTemperature = reducedTemperature;
+            this.minimalTemperature = minimalTemperature;
+            this.reducedLevel = reducedLevel;
+            this.minimalLevel = minimalLevel;
+        }
+
+        /**
+         * Get the step for a battery state.
+         *
+         * @param level       battery level (%).
+         * @param charging    true if the phone is plugged.
+         * @param temperature battery temperature (°C).
+         * @return step.
+         */
+        Step getStep(int level, boolean charging, double temperature) {
+            if (temperature >= minimalTemperature || (!charging && level <= minimalLevel)) {
+                return Step.MINIMAL;
+            }
+            if (temperature >= reducedTemperature || (!charging && level <= reducedLevel)) {
+                return Step.REDUCED;
+            }
+            return Step.NORMAL;
+        }
+    }
+}
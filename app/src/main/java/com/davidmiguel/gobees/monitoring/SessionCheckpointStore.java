@@ -0,0 +1,221 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring;
+
+import com.davidmiguel.gobees.logging.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Stores the checkpoint of the monitoring session in progress in the app storage. If the
+ * monitoring service is killed, the checkpoint is used to resume the same session when the
+ * system restarts it.
+ * The checkpoint is written to a temporary file that is then renamed, so a kill while it is
+ * being written never leaves a corrupted checkpoint. Checkpoints older than maxAge are discarded.
+ */
+class SessionCheckpointStore {
+
+    private static final String FILE_NAME = "monitoring_session.ser";
+    private static final String TMP_FILE_NAME = FILE_NAME + ".tmp";
+
+    private File directory;
+    private long maxAge;
+
+    /**
+     * SessionCheckpointStore constructor.
+     *
+     * @param directory directory where the checkpoint is stored.
+     * @param maxAge    max age of a valid checkpoint (in ms).
+     */
+    SessionCheckpointStore(File directory, long maxAge) {
+        this.directory = directory;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Saves the checkpoint (replacing the previous one).
+     *
+     * @param checkpoint session checkpoint.
+     * @return true if it has been saved.
+     */
+    boolean save(Checkpoint checkpoint) {
+        File tmp = new File(directory, TMP_FILE_NAME);
+        ObjectOutputStream out = null;
+        try {
+            out = new ObjectOutputStream(new FileOutputStream(tmp));
+            out.writeObject(checkpoint);
+        } catch (IOException e) {
+            Log.e(e, "Error saving session checkpoint: %s", tmp.getAbsolutePath());
+            return false;
+        } finally {
+            close(out);
+        }
+        // Replace previous checkpoint
+        if (!tmp.renameTo(getFile())) {
+            Log.e("Error saving session checkpoint: %s", getFile().getAbsolutePath());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Loads the checkpoint.
+     *
+     * @return session checkpoint or null if there is no valid checkpoint.
+     */
+    Checkpoint load() {
+        File file = getFile();
+        if (!file.exists()) {
+            return null;
+        }
+        if (System.currentTimeMillis() - file.lastModified() > maxAge) {
+            // Too old
+            delete();
+            return null;
+        }
+        ObjectInputStream in = null;
+        try {
+            in = new ObjectInputStream(new FileInputStream(file));
+            return (Checkpoint) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            Log.e(e, "Error loading session checkpoint: %s", file.getAbsolutePath());
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Deletes the checkpoint.
+     */
+    void delete() {
+        File file = getFile();
+        if (file.exists() && !file.delete()) {
+            Log.e("Error deleting session checkpoint: %s", file.getAbsolutePath());
+        }
+    }
+
+    private File getFile() {
+        return new File(directory, FILE_NAME);
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            Log.e(e, "Error closing session checkpoint.");
+        }
+    }
+
+    /**
+     * Checkpoint of a monitoring session: settings, start time and the records of each hive
+     * already saved on the db (number of records and timestamp of the last one).
+     */
+    static class Checkpoint implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final MonitoringSettings settings;
+        private final long startTime;
+        private final long[] hiveIds;
+        private final int[] numFlushed;
+        private final long[] lastFlushed;
+        private int numRecoveries;
+        private long lastRecovery;
+
+        /**
+         * Checkpoint constructor.
+         *
+         * @param settings  monitoring settings.
+         * @param startTime session start time (elapsed real time, in ms).
+         * @param hiveIds   ids of the monitored hives (one for each region of the frame).
+         */
+        Checkpoint(MonitoringSettings settings, long startTime, List<Long> hiveIds) {
+            this.settings = settings;
+            this.startTime = startTime;
+            this.hiveIds = new long[hiveIds.size()];
+            for (int i = 0; i < this.hiveIds.length; i++) {
+                this.hiveIds[i] = hiveIds.get(i);
+            }
+            this.numFlushed = new int[this.hiveIds.length];
+            this.lastFlushed = new long[this.hiveIds.length];
+        }
+
+        MonitoringSettings getSettings() {
+            return settings;
+        }
+
+        long getStartTime() {
+            return startTime;
+        }
+
+        long[] getHiveIds() {
+            return hiveIds.clone();
+        }
+
+        int getNumFlushed(int i) {
+            return numFlushed[i];
+        }
+
+        long getLastFlushed(int i) {
+            return lastFlushed[i];
+        }
+
+        /**
+         * Adds records of a hive that have been saved on the db.
+         *
+         * @param i             index of the hive.
+         * @param numRecords    number of saved records.
+         * @param lastTimestamp timestamp of the last saved record (ms).
+         */
+        void addFlushed(int i, int numRecords, long lastTimestamp) {
+            numFlushed[i] += numRecords;
+            lastFlushed[i] = Math.max(lastFlushed[i], lastTimestamp);
+        }
+
+        /**
+         * Registers a recovery of the session. Recoveries are counted while each one happens
+         * less than window ms after the previous one (so a service that keeps crashing can be
+         * detected).
+         *
+         * @param now    current time (ms).
+         * @param window max time between consecutive recoveries to be counted together (ms).
+         * @return number of consecutive recoveries (including this one).
+         */
+        int registerRecovery(long now, long window) {
+            if (numRecoveries > 0 && now - lastRecovery > window) {
+                numRecoveries = 0;
+            }
+            numRecoveries++;
+            lastRecovery = now;
+            return numRecoveries;
+        }
+    }
+}
@@ -18,92 +18,74 @@
 
 package com.davidmiguel.gobees.monitoring.algorithm;
 
-import android.support.annotation.NonNull;
-
-import com.davidmiguel.gobees.logging.Log;
-import com.davidmiguel.gobees.monitoring.algorithm.processors.BackgroundSubtractor;
-import com.davidmiguel.gobees.monitoring.algorithm.processors.Blur;
 import com.davidmiguel.gobees.monitoring.algorithm.processors.ContoursFinder;
-import com.davidmiguel.gobees.monitoring.algorithm.processors.Morphology;
 
 import org.opencv.core.Mat;
 
 /**
  * Counts the number of bees based on the area of detected moving contours.
  */
-public class AreaBeesCounter implements BeesCounter {
-
-    private static AreaBeesCounter instance;
+public class AreaBeesCounter extends BaseBeesCounter {
 
-    private Blur blur;
-    private BackgroundSubtractor bs;
-    private Morphology morphology;
     private ContoursFinder cf;
     private Mat processedFrame;
 
     /**
-     * Default ContourBeesCounter constructor.
-     * History is initialized to 10 and shadows threshold to 0.7.
+     * Default AreaBeesCounter constructor.
      * minArea is initialized to 15 and maxArea to 800.
      */
-    private AreaBeesCounter() {
-        blur = new Blur();
-        bs = new BackgroundSubtractor();
-        morphology = new Morphology();
+    AreaBeesCounter() {
+        super();
         cf = new ContoursFinder();
     }
 
-    public static AreaBeesCounter getInstance() {
-        if (instance == null) {
-            instance = new AreaBeesCounter();
-        }
-        return instance;
-    }
-
     @Override
-    public int countBees(@NonNull Mat frame) {
-        final long t0 = System.nanoTime();
-        Mat r0 = blur.process(frame);
-        Mat r1 = bs.process(r0);
-        Mat r2 = morphology.process(r1);
-        processedFrame = cf.process(r2);
-        r0.release();
-        r1.release();
-        r2.release();
-        Log.d("countBees time: %d", (System.nanoTime() - t0) / 1000000);
+    int countBlobs(Mat blobs) {
+        // Release previous processed frame
+        if (processedFrame != null) {
+            processedFrame.release();
+        }
+        processedFrame = cf.process(blobs);
         return cf.getNumBees();
     }
 
     @Override
     public Mat getProcessedFrame() {
+        restoreSize(processedFrame);
         return processedFrame;
     }
 
     @Override
-    public void updateBlobSize(BlobSize size) {
-        switch (size) {
-            case SMALL:
-                morphology.setDilateKernel(2);
-                morphology.setErodeKernel(3);
-                break;
-            case NORMAL:
-                morphology.setDilateKernel(3);
-                morphology.setErodeKernel(3);
-                break;
-            case BIG:
-            default:
-                morphology.setDilateKernel(3);
-                morphology.setErodeKernel(2);
+    public void release() {
+        super.release();
+        cf.release();
+        if (processedFrame != null) {
+            processedFrame.release();
         }
     }
 
     @Override
-    public void updateMinArea(Double minArea) {
+    int getNumBlobs() {
+        return cf.getNumBlobs();
+    }
+
+    @Override
+    double getBlobArea(int i) {
+        return cf.getArea(i);
+    }
+
+    @Override
+    void getBeeCentroids(double[] xs, double[] ys) {
+        cf.getBeeCentroids(xs, ys);
+    }
+
+    @Override
+    void setMinArea(double minArea) {
         cf.setMinArea(minArea);
     }
 
     @Override
-    public void updateMaxArea(Double maxArea) {
+    void setMaxArea(double maxArea) {
         cf.setMaxArea(maxArea);
     }
 }
@@ -0,0 +1,339 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import com.davidmiguel.gobees.logging.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Online calibration of the min and max area of a bee.
+ * The areas of the detected blobs are added to a streaming histogram (logarithmic bins with
+ * exponential decay, so memory is constant and old frames are forgotten). Periodically, the
+ * dominant area mode (the single bee area) is searched between the current limits. The first
+ * mode is taken as reference, and when the mode drifts (i.e. zoom changes, the camera is moved
+ * or the light changes), the configured limits are scaled by mode / reference.
+ * Notes:
+ * - Only MAX_AREAS_PER_FRAME areas are added per frame, so the update cost is bounded.
+ * - The mode is searched each CALIBRATION_INTERVAL frames (O(NUM_BINS)).
+ * - Limits are only changed when the scale changes more than MIN_SCALE_CHANGE, and the scale is
+ * bounded to [1 / MAX_SCALE, MAX_SCALE].
+ * - Adjustments are kept until they are polled (to be saved on the db), up to MAX_PENDING.
+ */
+public class AreaCalibrator {
+
+    // Histogram bins (areas from 1 to 2^16 pixels)
+    private static final int BINS_PER_OCTAVE = 8;
+    private static final int NUM_BINS = 16 * BINS_PER_OCTAVE;
+    // Max number of areas added per frame
+    static final int MAX_AREAS_PER_FRAME = 64;
+    // Number of frames between mode searches
+    static final int CALIBRATION_INTERVAL = 25;
+    // Weight of the histogram kept in each mode search
+    private static final double DECAY = 0.9;
+    // Min weight of the histogram to search the mode
+    private static final double MIN_WEIGHT = 50;
+    // The mode is searched above minArea * MODE_MIN_AREA_FACTOR (smaller blobs are usually noise)
+    private static final double MODE_MIN_AREA_FACTOR = 2;
+    // Min relative change of the scale to adjust the limits
+    private static final double MIN_SCALE_CHANGE = 0.1;
+    // Max scale of the limits (and min scale = 1 / MAX_SCALE)
+    private static final double MAX_SCALE = 4;
+    // Max number of adjustments not polled yet
+    static final int MAX_PENDING = 100;
+
+    private final double[] histogram;
+    private final LinkedList<Adjustment> pending;
+    private boolean enabled;
+    private double baseMinArea;
+    private double baseMaxArea;
+    private double scale;
+    private double referenceMode;
+    private int numAreasFrame;
+    private int numFrames;
+
+    /**
+     * AreaCalibrator constructor.
+     *
+     * @param minArea configured min area (at full resolution).
+     * @param maxArea configured max area (at full resolution).
+     */
+    public AreaCalibrator(double minArea, double maxArea) {
+        histogram = new double[NUM_BINS];
+        pending = new LinkedList<>();
+        baseMinArea = minArea;
+        baseMaxArea = maxArea;
+        scale = 1;
+    }
+
+    /**
+     * Adds the area of a blob of the current frame.
+     *
+     * @param area blob area (at full resolution).
+     * @return false if no more areas are accepted in the current frame.
+     */
+    public boolean addArea(double area) {
+        if (!enabled || numAreasFrame >= MAX_AREAS_PER_FRAME) {
+            return false;
+        }
+        numAreasFrame++;
+        histogram[getBin(area)]++;
+        return true;
+    }
+
+    /**
+     * Ends the current frame. Each CALIBRATION_INTERVAL frames, the mode is searched and the
+     * limits are adjusted if it has drifted.
+     *
+     * @return true if the limits have changed.
+     */
+    public boolean endFrame() {
+        numAreasFrame = 0;
+        if (!enabled || ++numFrames % CALIBRATION_INTERVAL != 0) {
+            return false;
+        }
+        boolean adjusted = calibrate();
+        // Forget old frames
+        for (int i = 0; i < NUM_BINS; i++) {
+            histogram[i] *= DECAY;
+        }
+        return adjusted;
+    }
+
+    /**
+     * Get calibrated min area.
+     *
+     * @return min area (at full resolution).
+     */
+    public double getMinArea() {
+        return baseMinArea * scale;
+    }
+
+    /**
+     * Get calibrated max area.
+     *
+     * @return max area (at full resolution).
+     */
+    public double getMaxArea() {
+        return baseMaxArea * scale;
+    }
+
+    /**
+     * Set configured min area. The calibration starts again from the new limits.
+     *
+     * @param minArea min area (at full resolution).
+     */
+    public void setMinArea(double minArea) {
+        baseMinArea = minArea;
+        resetScale();
+    }
+
+    /**
+     * Set configured max area. The calibration starts again from the new limits.
+     *
+     * @param maxArea max area (at full resolution).
+     */
+    public void setMaxArea(double maxArea) {
+        baseMaxArea = maxArea;
+        resetScale();
+    }
+
+    /**
+     * Enable or disable the calibration. When it is disabled, the configured limits are used.
+     *
+     * @param enabled true to enable it.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            resetScale();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the adjustments of the limits made since the last poll (oldest first) and forget them.
+     * Note: it can be called from other thread than the one that adds the areas.
+     *
+     * @return adjustments.
+     */
+    public synchronized List<Adjustment> pollAdjustments() {
+        List<Adjustment> adjustments = new ArrayList<>(pending);
+        pending.clear();
+        return adjustments;
+    }
+
+    /**
+     * Resets the histogram, the calibration and the adjustments not polled yet.
+     */
+    public void reset() {
+        Arrays.fill(histogram, 0);
+        synchronized (this) {
+            pending.clear();
+        }
+        resetScale();
+        numAreasFrame = 0;
+        numFrames = 0;
+    }
+
+    /**
+     * Searches the mode and adjusts the limits.
+     *
+     * @return true if the limits have changed.
+     */
+    private boolean calibrate() {
+        double mode = findMode();
+        if (mode <= 0) {
+            return false;
+        }
+        if (referenceMode <= 0) {
+            // First mode with the configured limits
+            referenceMode = mode / scale;
+            return false;
+        }
+        double newScale = Math.max(1 / MAX_SCALE, Math.min(MAX_SCALE, mode / referenceMode));
+        if (Math.abs(newScale / scale - 1) <= MIN_SCALE_CHANGE) {
+            return false;
+        }
+        scale = newScale;
+        Adjustment adjustment = new Adjustment(System.currentTimeMillis(), mode,
+                getMinArea(), getMaxArea());
+        addPending(adjustment);
+        Log.d("Areas calibrated: %s", adjustment);
+        return true;
+    }
+
+    /**
+     * Keeps an adjustment until it is polled (the oldest one is forgotten if there are too many).
+     *
+     * @param adjustment adjustment.
+     */
+    private synchronized void addPending(Adjustment adjustment) {
+        if (pending.size() >= MAX_PENDING) {
+            pending.removeFirst();
+        }
+        pending.add(adjustment);
+    }
+
+    /**
+     * Finds the histogram bin with max weight between the current limits and interpolates the
+     * mode with its neighbours.
+     *
+     * @return mode area or 0 if there is not enough data.
+     */
+    private double findMode() {
+        int first = Math.max(getBin(getMinArea() * MODE_MIN_AREA_FACTOR), 1);
+        int last = Math.min(getBin(getMaxArea()), NUM_BINS - 2);
+        int modeBin = -1;
+        double totalWeight = 0;
+        for (int i = first; i <= last; i++) {
+            totalWeight += histogram[i];
+            if (modeBin < 0 || histogram[i] > histogram[modeBin]) {
+                modeBin = i;
+            }
+        }
+        if (modeBin < 0 || totalWeight < MIN_WEIGHT) {
+            return 0;
+        }
+        // Weighted mean of the bin and its neighbours (in log scale)
+        double weight = histogram[modeBin - 1] + histogram[modeBin] + histogram[modeBin + 1];
+        double bin = (modeBin - 1) * histogram[modeBin - 1] + modeBin * histogram[modeBin]
+                + (modeBin + 1) * histogram[modeBin + 1];
+        return getArea(bin / weight);
+    }
+
+    /**
+     * Get the histogram bin of an area.
+     *
+     * @param area area.
+     * @return bin.
+     */
+    private static int getBin(double area) {
+        if (area <= 1) {
+            return 0;
+        }
+        int bin = (int) (Math.log(area) / Math.log(2) * BINS_PER_OCTAVE);
+        return Math.min(bin, NUM_BINS - 1);
+    }
+
+    /**
+     * Get the central area of a (fractional) histogram bin.
+     *
+     * @param bin bin.
+     * @return area.
+     */
+    private static double getArea(double bin) {
+        return Math.pow(2, (bin + 0.5) / BINS_PER_OCTAVE);
+    }
+
+    /**
+     * Restores the configured limits (the reference mode is searched again).
+     */
+    private void resetScale() {
+        scale = 1;
+        referenceMode = 0;
+    }
+
+    /**
+     * Adjustment of the limits.
+     */
+    public static class Adjustment {
+
+        private final long timestamp;
+        private final double mode;
+        private final double minArea;
+        private final double maxArea;
+
+        Adjustment(long timestamp, double mode, double minArea, double maxArea) {
+            this.timestamp = timestamp;
+            this.mode = mode;
+            this.minArea = minArea;
+            this.maxArea = maxArea;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public double getMode() {
+            return mode;
+        }
+
+        public double getMinArea() {
+            return minArea;
+        }
+
+        public double getMaxArea() {
+            return maxArea;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%tT mode=%.0f minArea=%.0f maxArea=%.0f",
+                    timestamp, mode, minArea, maxArea);
+        }
+    }
+}
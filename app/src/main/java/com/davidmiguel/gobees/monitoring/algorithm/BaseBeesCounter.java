@@ -0,0 +1,387 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import android.support.annotation.NonNull;
+
+import com.davidmiguel.gobees.logging.Log;
+import com.davidmiguel.gobees.monitoring.algorithm.processors.BackgroundSubtractor;
+import com.davidmiguel.gobees.monitoring.algorithm.processors.Blur;
+import com.davidmiguel.gobees.monitoring.algorithm.processors.Downscaler;
+import com.davidmiguel.gobees.monitoring.algorithm.processors.MedianBackgroundModel;
+import com.davidmiguel.gobees.monitoring.algorithm.processors.Mog2BackgroundModel;
+import com.davidmiguel.gobees.monitoring.algorithm.processors.Morphology;
+import com.davidmiguel.gobees.monitoring.algorithm.processors.RunningAverageBackgroundModel;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Base class of the bees counters that detect the moving blobs of the frame (downscale, blur,
+ * background subtraction and morphology) and then filter them by area.
+ * Area limits are always given at full resolution and rescaled to the processing resolution.
+ * Static frames can be skipped with a motion gate: the last count is returned and the
+ * background model is only updated from time to time.
+ * Area limits can be calibrated online with the areas of the detected blobs (see
+ * AreaCalibrator).
+ * If an entrance line is set, the centroids of the bees are tracked to count the bees that
+ * cross it (see CentroidTracker).
+ * Each instance has its own background model and settings.
+ */
+public abstract class BaseBeesCounter implements BeesCounter {
+
+    private static final double MIN_AREA = 15;
+    private static final double MAX_AREA = 800;
+    // Number of consecutive static frames between background model updates
+    private static final int BACKGROUND_UPDATE_INTERVAL = 10;
+
+    private Downscaler downscaler;
+    private Blur blur;
+    private BackgroundSubtractor bs;
+    private Morphology morphology;
+    private MotionGate motionGate;
+    private AreaCalibrator areaCalibrator;
+    private CentroidTracker tracker;
+    private double[] beesX;
+    private double[] beesY;
+    private int numStaticFrames;
+    private int numBees;
+    private int numIn;
+    private int numOut;
+    private Size frameSize;
+
+    /**
+     * Default BaseBeesCounter constructor.
+     * minArea is initialized to 15 and maxArea to 800.
+     */
+    BaseBeesCounter() {
+        downscaler = new Downscaler();
+        blur = new Blur();
+        bs = new BackgroundSubtractor();
+        morphology = new Morphology();
+        motionGate = new MotionGate(0);
+        areaCalibrator = new AreaCalibrator(MIN_AREA, MAX_AREA);
+        tracker = new CentroidTracker();
+        beesX = new double[0];
+        beesY = new double[0];
+    }
+
+    @Override
+    public int countBees(@NonNull Mat frame) {
+        final long t0 = System.nanoTime();
+        numIn = 0;
+        numOut = 0;
+        if (!motionGate.hasMotion(frame)) {
+            // Nothing moved, keep background model updated at reduced cost
+            numStaticFrames++;
+            if (numStaticFrames % BACKGROUND_UPDATE_INTERVAL == 0) {
+                updateBackground(frame);
+            }
+            return numBees;
+        }
+        numStaticFrames = 0;
+        Mat blobs = detectBlobs(frame);
+        numBees = countBlobs(blobs);
+        blobs.release();
+        calibrateAreas();
+        trackBees();
+        Log.d("countBees time: %d", (System.nanoTime() - t0) / 1000000);
+        return numBees;
+    }
+
+    @Override
+    public void updateBlobSize(BlobSize size) {
+        switch (size) {
+            case SMALL:
+                morphology.setDilateKernel(2);
+                morphology.setErodeKernel(3);
+                break;
+            case NORMAL:
+                morphology.setDilateKernel(3);
+                morphology.setErodeKernel(3);
+                break;
+            case BIG:
+            default:
+                morphology.setDilateKernel(3);
+                morphology.setErodeKernel(2);
+        }
+    }
+
+    @Override
+    public void updateMinArea(Double minArea) {
+        areaCalibrator.setMinArea(minArea);
+        updateAreas();
+    }
+
+    @Override
+    public void updateMaxArea(Double maxArea) {
+        areaCalibrator.setMaxArea(maxArea);
+        updateAreas();
+    }
+
+    @Override
+    public void updateDownscaleLevels(int levels) {
+        // Keep the background model (it would be created again at the new resolution)
+        Mat background = levels != downscaler.getLevels() ? getBackgroundImage() : null;
+        downscaler.setLevels(levels);
+        morphology.setDownscaleLevels(downscaler.getLevels());
+        updateAreas();
+        if (background != null) {
+            setBackgroundImage(background);
+            background.release();
+        }
+    }
+
+    @Override
+    public void updateBackgroundType(BackgroundType type) {
+        switch (type) {
+            case RUNNING_AVERAGE:
+                bs.setModel(new RunningAverageBackgroundModel());
+                break;
+            case APPROXIMATE_MEDIAN:
+                bs.setModel(new MedianBackgroundModel());
+                break;
+            case MOG2:
+            default:
+                bs.setModel(new Mog2BackgroundModel());
+        }
+    }
+
+    @Override
+    public Mat getBackgroundImage() {
+        Mat background = new Mat();
+        if (frameSize != null) {
+            bs.getBackgroundImage(background);
+            restoreSize(background);
+        }
+        return background;
+    }
+
+    @Override
+    public void setBackgroundImage(Mat background) {
+        if (background.empty()) {
+            return;
+        }
+        frameSize = background.size();
+        Mat r0 = downscaler.process(background);
+        Mat r1 = blur.process(r0);
+        bs.setBackgroundImage(r1);
+        releaseDownscaled(r0, background);
+        r1.release();
+    }
+
+    @Override
+    public void updateMotionThreshold(int threshold) {
+        motionGate.setThreshold(threshold);
+    }
+
+    @Override
+    public MotionGate getMotionGate() {
+        return motionGate;
+    }
+
+    @Override
+    public void updateAutoCalibration(boolean enabled) {
+        areaCalibrator.setEnabled(enabled);
+        updateAreas();
+    }
+
+    @Override
+    public AreaCalibrator getAreaCalibrator() {
+        return areaCalibrator;
+    }
+
+    @Override
+    public void updateEntranceLine(EntranceLine line) {
+        tracker.setLine(line);
+    }
+
+    @Override
+    public int getNumIn() {
+        return numIn;
+    }
+
+    @Override
+    public int getNumOut() {
+        return numOut;
+    }
+
+    @Override
+    public void release() {
+        bs.release();
+        motionGate.release();
+    }
+
+    /**
+     * Detects the moving blobs of the frame.
+     *
+     * @param frame the target frame in CV_8UC1 Mat format.
+     * @return binary CV_8UC1 Mat with the blobs (at the processing resolution).
+     */
+    Mat detectBlobs(Mat frame) {
+        frameSize = frame.size();
+        Mat r0 = downscaler.process(frame);
+        Mat r1 = blur.process(r0);
+        Mat r2 = bs.process(r1);
+        Mat r3 = morphology.process(r2);
+        releaseDownscaled(r0, frame);
+        r1.release();
+        r2.release();
+        return r3;
+    }
+
+    /**
+     * Updates the background model with the frame (without detecting the blobs).
+     *
+     * @param frame the target frame in CV_8UC1 Mat format.
+     */
+    private void updateBackground(Mat frame) {
+        Mat r0 = downscaler.process(frame);
+        Mat r1 = blur.process(r0);
+        Mat r2 = bs.process(r1);
+        releaseDownscaled(r0, frame);
+        r1.release();
+        r2.release();
+    }
+
+    /**
+     * Releases the output of the downscaler, unless it is the input frame itself (full
+     * resolution).
+     *
+     * @param downscaled output of the downscaler.
+     * @param frame      input of the downscaler.
+     */
+    private static void releaseDownscaled(Mat downscaled, Mat frame) {
+        if (downscaled != frame) {
+            downscaled.release();
+        }
+    }
+
+    /**
+     * Adds the areas of the detected blobs to the calibrator and applies the new limits (if they
+     * have changed).
+     */
+    private void calibrateAreas() {
+        if (!areaCalibrator.isEnabled()) {
+            return;
+        }
+        double areaScale = downscaler.getAreaScale();
+        int numBlobs = getNumBlobs();
+        for (int i = 0; i < numBlobs; i++) {
+            if (!areaCalibrator.addArea(getBlobArea(i) * areaScale)) {
+                // Max areas per frame reached
+                break;
+            }
+        }
+        if (areaCalibrator.endFrame()) {
+            updateAreas();
+        }
+    }
+
+    /**
+     * Tracks the centroids of the bees of the last frame and gets the crossings of the
+     * entrance line.
+     */
+    private void trackBees() {
+        if (!tracker.isEnabled()) {
+            return;
+        }
+        if (beesX.length < numBees) {
+            beesX = new double[numBees * 2];
+            beesY = new double[numBees * 2];
+        }
+        getBeeCentroids(beesX, beesY);
+        // Centroids at full resolution
+        int scale = 1 << downscaler.getLevels();
+        for (int i = 0; i < numBees; i++) {
+            beesX[i] *= scale;
+            beesY[i] *= scale;
+        }
+        tracker.update(beesX, beesY, numBees, (int) frameSize.width, (int) frameSize.height);
+        numIn = tracker.getNumIn();
+        numOut = tracker.getNumOut();
+    }
+
+    /**
+     * Rescales the (calibrated) area limits to the processing resolution.
+     */
+    private void updateAreas() {
+        setMinArea(areaCalibrator.getMinArea() / downscaler.getAreaScale());
+        setMaxArea(areaCalibrator.getMaxArea() / downscaler.getAreaScale());
+    }
+
+    /**
+     * Restores the original size of a processed frame (if the frames are downscaled).
+     *
+     * @param processedFrame processed frame.
+     */
+    void restoreSize(Mat processedFrame) {
+        if (frameSize != null && !processedFrame.empty()
+                && !processedFrame.size().equals(frameSize)) {
+            Imgproc.resize(processedFrame, processedFrame, frameSize, 0, 0,
+                    Imgproc.INTER_NEAREST);
+        }
+    }
+
+    /**
+     * Counts the bees of the detected blobs.
+     *
+     * @param blobs binary CV_8UC1 Mat with the blobs (at the processing resolution).
+     * @return number of bees.
+     */
+    abstract int countBlobs(Mat blobs);
+
+    /**
+     * Get the number of blobs detected in the last processed frame.
+     *
+     * @return number of blobs.
+     */
+    abstract int getNumBlobs();
+
+    /**
+     * Get the area of a blob detected in the last processed frame.
+     *
+     * @param i index of the blob.
+     * @return area (at the processing resolution).
+     */
+    abstract double getBlobArea(int i);
+
+    /**
+     * Get the centroids of the bees counted in the last processed frame.
+     *
+     * @param xs array where to put the x of the centroids (at the processing resolution).
+     * @param ys array where to put the y of the centroids (at the processing resolution).
+     */
+    abstract void getBeeCentroids(double[] xs, double[] ys);
+
+    /**
+     * Set min area at the processing resolution.
+     *
+     * @param minArea min area.
+     */
+    abstract void setMinArea(double minArea);
+
+    /**
+     * Set max area at the processing resolution.
+     *
+     * @param maxArea max area.
+     */
+    abstract void setMaxArea(double maxArea);
+}
@@ -62,7 +62,105 @@ public interface BeesCounter {
      */
     void updateMaxArea(Double maxArea);
 
+    /**
+     * Update downscale levels. Each level halves the resolution of the frames before processing
+     * them. Areas and blob sizes are rescaled automatically, and the background model is seeded
+     * at the new resolution with the background learned so far.
+     *
+     * @param levels downscale levels (0 = full resolution, 1 = half, 2 = quarter).
+     */
+    void updateDownscaleLevels(int levels);
+
+    /**
+     * Update the background model. The new model starts learning the background from scratch.
+     *
+     * @param type background model type.
+     */
+    void updateBackgroundType(BackgroundType type);
+
+    /**
+     * Get the background image learned by the background model (at the resolution of the frames).
+     *
+     * @return CV_8UC1 background image (empty if no frame has been processed yet).
+     */
+    Mat getBackgroundImage();
+
+    /**
+     * Seed the background model with a background image (i.e. a snapshot taken before the
+     * service was restarted), so frames can be counted without creating the model again.
+     *
+     * @param background CV_8UC1 background image (at the resolution of the frames).
+     */
+    void setBackgroundImage(Mat background);
+
+    /**
+     * Update the threshold of the motion gate. Frames where no downsampled pixel changed more
+     * than the threshold are not processed (the last count is returned).
+     *
+     * @param threshold intensity threshold (0 = disabled).
+     */
+    void updateMotionThreshold(int threshold);
+
+    /**
+     * Get the motion gate (i.e. to get the number of skipped and passed frames).
+     *
+     * @return motion gate.
+     */
+    MotionGate getMotionGate();
+
+    /**
+     * Enable or disable the online calibration of the min and max area. When it is enabled,
+     * the limits follow the area of a single bee (i.e. if the zoom or the camera position
+     * changes).
+     *
+     * @param enabled true to enable it.
+     */
+    void updateAutoCalibration(boolean enabled);
+
+    /**
+     * Get the area calibrator (i.e. to get the history of adjustments).
+     *
+     * @return area calibrator.
+     */
+    AreaCalibrator getAreaCalibrator();
+
+    /**
+     * Update the entrance line. The bees that cross it are counted as in or out events.
+     *
+     * @param line entrance line (null to disable the tracking of the bees).
+     */
+    void updateEntranceLine(EntranceLine line);
+
+    /**
+     * Get the number of bees that entered the hive in the last frame (0 if there is no
+     * entrance line).
+     *
+     * @return number of in events.
+     */
+    int getNumIn();
+
+    /**
+     * Get the number of bees that left the hive in the last frame (0 if there is no
+     * entrance line).
+     *
+     * @return number of out events.
+     */
+    int getNumOut();
+
+    /**
+     * Release the native resources of the bees counter. It must not be used after this call.
+     */
+    void release();
+
     enum BlobSize {
         SMALL, NORMAL, BIG
     }
+
+    enum CounterType {
+        CONTOURS, COMPONENTS
+    }
+
+    enum BackgroundType {
+        MOG2, RUNNING_AVERAGE, APPROXIMATE_MEDIAN
+    }
 }
\ No newline at end of file
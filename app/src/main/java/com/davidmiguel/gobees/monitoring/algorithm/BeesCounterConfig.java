@@ -0,0 +1,185 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+/**
+ * Configuration of a bees counter instance.
+ * By default: contours counter, MOG2 background model, normal blob size, minArea 15,
+ * maxArea 800, full resolution, motion gate and area calibration disabled and no
+ * entrance line.
+ */
+public class BeesCounterConfig {
+
+    private static final double MIN_AREA = 15;
+    private static final double MAX_AREA = 800;
+
+    /**
+     * Bees counter algorithm.
+     */
+    private BeesCounter.CounterType counterType;
+
+    /**
+     * Background model.
+     */
+    private BeesCounter.BackgroundType backgroundType;
+
+    /**
+     * Blob size. This causes regions within an image get "thicker" or "thinner".
+     */
+    private BeesCounter.BlobSize blobSize;
+
+    /**
+     * Min area. Smaller areas are not consider to be a bee.
+     */
+    private double minArea;
+
+    /**
+     * Max area. Greater areas are not consider to be a bee.
+     */
+    private double maxArea;
+
+    /**
+     * Downscale levels (0 = full resolution, 1 = half, 2 = quarter).
+     */
+    private int downscaleLevels;
+
+    /**
+     * Motion threshold to skip static frames (0 = disabled).
+     */
+    private int motionThreshold;
+
+    /**
+     * Online calibration of the min and max area.
+     */
+    private boolean autoCalibration;
+
+    /**
+     * Entrance line to count in and out events (null = disabled).
+     */
+    private EntranceLine entranceLine;
+
+    /**
+     * Default BeesCounterConfig constructor.
+     */
+    public BeesCounterConfig() {
+        counterType = BeesCounter.CounterType.CONTOURS;
+        backgroundType = BeesCounter.BackgroundType.MOG2;
+        blobSize = BeesCounter.BlobSize.NORMAL;
+        minArea = MIN_AREA;
+        maxArea = MAX_AREA;
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param config config to copy.
+     */
+    public BeesCounterConfig(BeesCounterConfig config) {
+        counterType = config.counterType;
+        backgroundType = config.backgroundType;
+        blobSize = config.blobSize;
+        minArea = config.minArea;
+        maxArea = config.maxArea;
+        downscaleLevels = config.downscaleLevels;
+        motionThreshold = config.motionThreshold;
+        autoCalibration = config.autoCalibration;
+        entranceLine = config.entranceLine;
+    }
+
+    public BeesCounter.CounterType getCounterType() {
+        return counterType;
+    }
+
+    public void setCounterType(BeesCounter.CounterType counterType) {
+        this.counterType = counterType;
+    }
+
+    public BeesCounter.BackgroundType getBackgroundType() {
+        return backgroundType;
+    }
+
+    public void setBackgroundType(BeesCounter.BackgroundType backgroundType) {
+        this.backgroundType = backgroundType;
+    }
+
+    public BeesCounter.BlobSize getBlobSize() {
+        return blobSize;
+    }
+
+    public void setBlobSize(BeesCounter.BlobSize blobSize) {
+        this.blobSize = blobSize;
+    }
+
+    public double getMinArea() {
+        return minArea;
+    }
+
+    public void setMinArea(double minArea) {
+        this.minArea = minArea;
+    }
+
+    public double getMaxArea() {
+        return maxArea;
+    }
+
+    public void setMaxArea(double maxArea) {
+        this.maxArea = maxArea;
+    }
+
+    public int getDownscaleLevels() {
+        return downscaleLevels;
+    }
+
+    public void setDownscaleLevels(int downscaleLevels) {
+        this.downscaleLevels = downscaleLevels;
+    }
+
+    public int getMotionThreshold() {
+        return motionThreshold;
+    }
+
+    public void setMotionThreshold(int motionThreshold) {
+        this.motionThreshold = motionThreshold;
+    }
+
+    public boolean isAutoCalibration() {
+        return autoCalibration;
+    }
+
+    public void setAutoCalibration(boolean autoCalibration) {
+        this.autoCalibration = autoCalibration;
+    }
+
+    public EntranceLine getEntranceLine() {
+        return entranceLine;
+    }
+
+    public void setEntranceLine(EntranceLine entranceLine) {
+        this.entranceLine = entranceLine;
+    }
+
+    @Override
+    public String toString() {
+        return "BeesCounterConfig{" + counterType + ", " + backgroundType + ", " + blobSize
+                + ", minArea=" + minArea + ", maxArea=" + maxArea
+                + ", downscaleLevels=" + downscaleLevels
+                + ", motionThreshold=" + motionThreshold
+                + ", autoCalibration=" + autoCalibration + '}';
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+/**
+ * Creates the bees counter instances of each algorithm.
+ * Each instance has its own background model, so several counters can be used at the same time
+ * (i.e. preview and monitoring). They must be released when they are not needed anymore.
+ */
+public final class BeesCounterFactory {
+
+    private BeesCounterFactory() {
+    }
+
+    /**
+     * Create a new bees counter configured with the given config (AreaBeesCounter by default).
+     *
+     * @param config bees counter config.
+     * @return bees counter.
+     */
+    public static BeesCounter createBeesCounter(BeesCounterConfig config) {
+        BeesCounter bc;
+        if (config.getCounterType() == BeesCounter.CounterType.COMPONENTS) {
+            bc = new ComponentsBeesCounter();
+        } else {
+            bc = new AreaBeesCounter();
+        }
+        configure(bc, config);
+        return bc;
+    }
+
+    /**
+     * Configure a bees counter. The background model is created again, so the counter starts
+     * learning the background from scratch.
+     *
+     * @param bc     bees counter.
+     * @param config bees counter config.
+     */
+    static void configure(BeesCounter bc, BeesCounterConfig config) {
+        bc.updateBackgroundType(config.getBackgroundType());
+        bc.updateBlobSize(config.getBlobSize());
+        bc.updateMinArea(config.getMinArea());
+        bc.updateMaxArea(config.getMaxArea());
+        bc.updateDownscaleLevels(config.getDownscaleLevels());
+        bc.updateMotionThreshold(config.getMotionThreshold());
+        bc.getMotionGate().reset();
+        bc.getAreaCalibrator().reset();
+        bc.updateAutoCalibration(config.isAutoCalibration());
+        bc.updateEntranceLine(config.getEntranceLine());
+    }
+}
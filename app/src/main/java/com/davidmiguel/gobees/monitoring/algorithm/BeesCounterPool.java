@@ -0,0 +1,126 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Small pool of bees counters, so independent pipelines can reuse the counters (and their
+ * buffers) instead of creating new ones.
+ * An acquired counter is reconfigured and its background model is created again, so it does
+ * not keep anything from the pipeline that used it before.
+ * At most maxIdle counters of each type are kept, the rest are released. Thread-safe.
+ */
+public class BeesCounterPool {
+
+    private static final int MAX_IDLE = 3;
+
+    private final int maxIdle;
+    private final Map<BeesCounter.CounterType, Deque<BeesCounter>> idle;
+    private final Map<BeesCounter, BeesCounter.CounterType> acquired;
+
+    /**
+     * Default BeesCounterPool constructor (max. 3 idle counters of each type).
+     */
+    public BeesCounterPool() {
+        this(MAX_IDLE);
+    }
+
+    /**
+     * BeesCounterPool constructor.
+     *
+     * @param maxIdle max. number of idle counters of each type.
+     */
+    public BeesCounterPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+        idle = new EnumMap<>(BeesCounter.CounterType.class);
+        acquired = new IdentityHashMap<>();
+    }
+
+    /**
+     * Acquire a bees counter configured with the given config.
+     * An idle counter of the same type is reused if available.
+     *
+     * @param config bees counter config.
+     * @return bees counter.
+     */
+    public synchronized BeesCounter acquire(BeesCounterConfig config) {
+        BeesCounter bc;
+        Deque<BeesCounter> counters = idle.get(config.getCounterType());
+        if (counters != null && !counters.isEmpty()) {
+            bc = counters.pop();
+            BeesCounterFactory.configure(bc, config);
+        } else {
+            bc = BeesCounterFactory.createBeesCounter(config);
+        }
+        acquired.put(bc, config.getCounterType());
+        return bc;
+    }
+
+    /**
+     * Return a bees counter to the pool. It must not be used after this call.
+     *
+     * @param bc bees counter acquired from this pool.
+     */
+    public synchronized void recycle(BeesCounter bc) {
+        BeesCounter.CounterType type = acquired.remove(bc);
+        if (type == null) {
+            throw new IllegalArgumentException("Bees counter not acquired from this pool.");
+        }
+        Deque<BeesCounter> counters = idle.get(type);
+        if (counters == null) {
+            counters = new ArrayDeque<>();
+            idle.put(type, counters);
+        }
+        if (counters.size() < maxIdle) {
+            counters.push(bc);
+        } else {
+            bc.release();
+        }
+    }
+
+    /**
+     * Get the number of idle counters in the pool.
+     *
+     * @return number of idle counters.
+     */
+    public synchronized int getNumIdle() {
+        int numIdle = 0;
+        for (Deque<BeesCounter> counters : idle.values()) {
+            numIdle += counters.size();
+        }
+        return numIdle;
+    }
+
+    /**
+     * Release all idle counters. Acquired counters are released when they are recycled.
+     */
+    public synchronized void clear() {
+        for (Deque<BeesCounter> counters : idle.values()) {
+            for (BeesCounter bc : counters) {
+                bc.release();
+            }
+            counters.clear();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import android.support.annotation.NonNull;
+
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Searches the minArea, maxArea and blob size that minimize the relative error of a bees
+ * counter in a footage sample with the expected number of bees of each frame.
+ * Each candidate config is evaluated with its own bees counter, in parallel in the executor.
+ * The frames are shared by all counters (they are only read).
+ * The first numSkipFrames frames are only used to create the background model.
+ */
+public class BeesCounterTuner {
+
+    private final List<Mat> frames;
+    private final int[] expectedNumBees;
+    private final int numSkipFrames;
+    private final ExecutorService executor;
+
+    /**
+     * BeesCounterTuner constructor.
+     *
+     * @param frames          CV_8UC1 frames of the sample.
+     * @param expectedNumBees expected number of bees of each frame.
+     * @param numSkipFrames   number of initial frames used to create the background model.
+     * @param executor        executor where the candidates are evaluated.
+     */
+    public BeesCounterTuner(@NonNull List<Mat> frames, @NonNull int[] expectedNumBees,
+                            int numSkipFrames, @NonNull ExecutorService executor) {
+        if (frames.size() != expectedNumBees.length || numSkipFrames >= frames.size()) {
+            throw new IllegalArgumentException("Invalid sample.");
+        }
+        this.frames = frames;
+        this.expectedNumBees = expectedNumBees;
+        this.numSkipFrames = numSkipFrames;
+        this.executor = executor;
+    }
+
+    /**
+     * Evaluates all combinations of the given values (exhaustive search).
+     *
+     * @param base      config with the rest of the settings.
+     * @param minAreas  min area candidates.
+     * @param maxAreas  max area candidates.
+     * @param blobSizes blob size candidates.
+     * @return best config.
+     */
+    public Result gridSearch(BeesCounterConfig base, double[] minAreas, double[] maxAreas,
+                             BeesCounter.BlobSize[] blobSizes) {
+        List<BeesCounterConfig> candidates = new ArrayList<>();
+        for (BeesCounter.BlobSize blobSize : blobSizes) {
+            for (double minArea : minAreas) {
+                for (double maxArea : maxAreas) {
+                    if (minArea < maxArea) {
+                        BeesCounterConfig config = new BeesCounterConfig(base);
+                        config.setBlobSize(blobSize);
+                        config.setMinArea(minArea);
+                        config.setMaxArea(maxArea);
+                        candidates.add(config);
+                    }
+                }
+            }
+        }
+        return evaluateAll(candidates, null);
+    }
+
+    /**
+     * Optimizes one parameter at a time (the candidates of each parameter are evaluated in
+     * parallel), until the error does not improve or maxRounds is reached.
+     * It needs much less evaluations than the grid search, but it may find a local minimum.
+     *
+     * @param initial   initial config.
+     * @param minAreas  min area candidates.
+     * @param maxAreas  max area candidates.
+     * @param blobSizes blob size candidates.
+     * @param maxRounds max. number of rounds (each round optimizes all parameters once).
+     * @return best config.
+     */
+    public Result coordinateDescent(BeesCounterConfig initial, double[] minAreas,
+                                    double[] maxAreas, BeesCounter.BlobSize[] blobSizes,
+                                    int maxRounds) {
+        Result best = evaluateAll(Collections.singletonList(initial), null);
+        for (int round = 0; round < maxRounds; round++) {
+            double previousError = best.getError();
+            // Blob size
+            List<BeesCounterConfig> candidates = new ArrayList<>();
+            for (BeesCounter.BlobSize blobSize : blobSizes) {
+                BeesCounterConfig config = new BeesCounterConfig(best.getConfig());
+                config.setBlobSize(blobSize);
+                candidates.add(config);
+            }
+            best = evaluateAll(candidates, best);
+            // Min area
+            candidates.clear();
+            for (double minArea : minAreas) {
+                if (minArea < best.getConfig().getMaxArea()) {
+                    BeesCounterConfig config = new BeesCounterConfig(best.getConfig());
+                    config.setMinArea(minArea);
+                    candidates.add(config);
+                }
+            }
+            best = evaluateAll(candidates, best);
+            // Max area
+            candidates.clear();
+            for (double maxArea : maxAreas) {
+                if (maxArea > best.getConfig().getMinArea()) {
+                    BeesCounterConfig config = new BeesCounterConfig(best.getConfig());
+                    config.setMaxArea(maxArea);
+                    candidates.add(config);
+                }
+            }
+            best = evaluateAll(candidates, best);
+            if (best.getError() >= previousError) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Calculates the relative error of a config in the sample.
+     *
+     * @param config bees counter config.
+     * @return relative error.
+     */
+    public double evaluate(BeesCounterConfig config) {
+        BeesCounter bc = BeesCounterFactory.createBeesCounter(config);
+        try {
+            long totalAbsoluteError = 0;
+            long expectedNumBeesTotal = 0;
+            for (int i = 0; i < frames.size(); i++) {
+                int numBees = bc.countBees(frames.get(i));
+                if (i >= numSkipFrames) {
+                    totalAbsoluteError += Math.abs(expectedNumBees[i] - numBees);
+                    expectedNumBeesTotal += expectedNumBees[i];
+                }
+            }
+            return totalAbsoluteError / (double) Math.max(expectedNumBeesTotal, 1);
+        } finally {
+            bc.release();
+        }
+    }
+
+    /**
+     * Evaluates the candidates in parallel and returns the best one.
+     *
+     * @param candidates configs to evaluate.
+     * @param best       best result so far (it is kept if no candidate improves it) or null.
+     * @return best result.
+     */
+    private Result evaluateAll(List<BeesCounterConfig> candidates, Result best) {
+        List<Callable<Double>> tasks = new ArrayList<>(candidates.size());
+        for (final BeesCounterConfig config : candidates) {
+            tasks.add(new Callable<Double>() {
+                @Override
+                public Double call() throws Exception {
+                    return evaluate(config);
+                }
+            });
+        }
+        try {
+            List<Future<Double>> errors = executor.invokeAll(tasks);
+            for (int i = 0; i < candidates.size(); i++) {
+                double error = errors.get(i).get();
+                if (best == null || error < best.getError()) {
+                    best = new Result(candidates.get(i), error);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while tuning.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error evaluating config.", e.getCause());
+        }
+        return best;
+    }
+
+    /**
+     * Config and its relative error.
+     */
+    public static class Result {
+
+        private final BeesCounterConfig config;
+        private final double error;
+
+        Result(BeesCounterConfig config, double error) {
+            this.config = config;
+            this.error = error;
+        }
+
+        public BeesCounterConfig getConfig() {
+            return config;
+        }
+
+        public double getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Lightweight tracker that links the centroids of the bees across consecutive frames and counts
+ * the crossings of the entrance line (in and out events).
+ * Each centroid is linked to the nearest track of the previous frame closer than MAX_DISTANCE.
+ * Tracks are indexed in a spatial grid hash (cells of MAX_DISTANCE), so only the 3x3 cells
+ * around a centroid are checked and the association is O(n).
+ * Notes:
+ * - Tracks without centroid during more than MAX_MISSED_FRAMES frames are removed.
+ * - Centroids closer to the line than DEAD_ZONE do not change the side of a track, so bees
+ * resting on the line are not counted several times.
+ * - All state is kept in primitive arrays that grow when needed (no allocations per frame).
+ */
+public class CentroidTracker {
+
+    // Max distance between the centroids of the same bee in consecutive frames (pixels)
+    static final double MAX_DISTANCE = 60;
+    // Max number of consecutive frames a track can be lost
+    static final int MAX_MISSED_FRAMES = 2;
+    // Distance to the line (fraction of the frame) where the side of a track is not updated
+    private static final double DEAD_ZONE = 0.02;
+    private static final int INITIAL_CAPACITY = 32;
+
+    private EntranceLine line;
+    // Tracks
+    private int numTracks;
+    private double[] trackX;
+    private double[] trackY;
+    private int[] trackSide;
+    private int[] trackMissed;
+    private boolean[] trackMatched;
+    // New tracks (swapped with the tracks at the end of each frame)
+    private double[] newX;
+    private double[] newY;
+    private int[] newSide;
+    private int[] newMissed;
+    // Grid hash (linked lists of tracks in each bucket)
+    private int[] bucketHead;
+    private int[] bucketNext;
+    // Events of the last frame
+    private int numIn;
+    private int numOut;
+
+    /**
+     * CentroidTracker constructor.
+     */
+    public CentroidTracker() {
+        allocTracks(INITIAL_CAPACITY);
+        bucketHead = new int[2 * INITIAL_CAPACITY];
+    }
+
+    /**
+     * Links the centroids of a frame with the tracks and counts the crossings of the line.
+     *
+     * @param xs     x of the centroids (pixels).
+     * @param ys     y of the centroids (pixels).
+     * @param n      number of centroids.
+     * @param width  frame width (pixels).
+     * @param height frame height (pixels).
+     */
+    public void update(double[] xs, double[] ys, int n, int width, int height) {
+        numIn = 0;
+        numOut = 0;
+        if (line == null) {
+            return;
+        }
+        ensureCapacity(numTracks + n);
+        buildGrid();
+        Arrays.fill(trackMatched, 0, numTracks, false);
+        int numNew = 0;
+        for (int i = 0; i < n; i++) {
+            int track = findNearestTrack(xs[i], ys[i]);
+            int side = getSide(xs[i], ys[i], width, height);
+            if (track < 0) {
+                // New bee
+                newX[numNew] = xs[i];
+                newY[numNew] = ys[i];
+                newSide[numNew] = side;
+                newMissed[numNew] = 0;
+                numNew++;
+                continue;
+            }
+            trackMatched[track] = true;
+            if (side != 0 && trackSide[track] != 0 && side != trackSide[track]
+                    && line.isInFront(xs[i] / width, ys[i] / height)) {
+                // Line crossed
+                if (side > 0) {
+                    numIn++;
+                } else {
+                    numOut++;
+                }
+            }
+            newX[numNew] = xs[i];
+            newY[numNew] = ys[i];
+            newSide[numNew] = side != 0 ? side : trackSide[track];
+            newMissed[numNew] = 0;
+            numNew++;
+        }
+        // Keep lost tracks for a few frames
+        for (int t = 0; t < numTracks; t++) {
+            if (!trackMatched[t] && trackMissed[t] < MAX_MISSED_FRAMES) {
+                newX[numNew] = trackX[t];
+                newY[numNew] = trackY[t];
+                newSide[numNew] = trackSide[t];
+                newMissed[numNew] = trackMissed[t] + 1;
+                numNew++;
+            }
+        }
+        swapTracks(numNew);
+    }
+
+    /**
+     * Set the entrance line (null to disable the tracker).
+     *
+     * @param line entrance line.
+     */
+    public void setLine(EntranceLine line) {
+        this.line = line;
+        reset();
+    }
+
+    public boolean isEnabled() {
+        return line != null;
+    }
+
+    /**
+     * Get number of bees that entered the hive in the last frame.
+     *
+     * @return number of in events.
+     */
+    public int getNumIn() {
+        return numIn;
+    }
+
+    /**
+     * Get number of bees that left the hive in the last frame.
+     *
+     * @return number of out events.
+     */
+    public int getNumOut() {
+        return numOut;
+    }
+
+    /**
+     * Get number of tracked bees.
+     *
+     * @return number of tracks.
+     */
+    int getNumTracks() {
+        return numTracks;
+    }
+
+    /**
+     * Removes all tracks and events.
+     */
+    public void reset() {
+        numTracks = 0;
+        numIn = 0;
+        numOut = 0;
+    }
+
+    /**
+     * Get the side of the line of a centroid.
+     *
+     * @return 1 (hive side), -1 (outside) or 0 (dead zone).
+     */
+    private int getSide(double x, double y, int width, int height) {
+        double distance = line.getSide(x / width, y / height);
+        if (Math.abs(distance) < DEAD_ZONE) {
+            return 0;
+        }
+        return distance > 0 ? 1 : -1;
+    }
+
+    /**
+     * Finds the nearest unmatched track closer than MAX_DISTANCE.
+     *
+     * @return track index or -1.
+     */
+    private int findNearestTrack(double x, double y) {
+        int cellX = (int) Math.floor(x / MAX_DISTANCE);
+        int cellY = (int) Math.floor(y / MAX_DISTANCE);
+        int nearest = -1;
+        double nearestDistance = MAX_DISTANCE * MAX_DISTANCE;
+        for (int cx = cellX - 1; cx <= cellX + 1; cx++) {
+            for (int cy = cellY - 1; cy <= cellY + 1; cy++) {
+                for (int t = bucketHead[getBucket(cx, cy)]; t >= 0; t = bucketNext[t]) {
+                    if (trackMatched[t]) {
+                        continue;
+                    }
+                    double dx = trackX[t] - x;
+                    double dy = trackY[t] - y;
+                    double distance = dx * dx + dy * dy;
+                    if (distance <= nearestDistance) {
+                        nearest = t;
+                        nearestDistance = distance;
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Indexes the tracks in the grid hash.
+     */
+    private void buildGrid() {
+        Arrays.fill(bucketHead, -1);
+        for (int t = 0; t < numTracks; t++) {
+            int bucket = getBucket((int) Math.floor(trackX[t] / MAX_DISTANCE),
+                    (int) Math.floor(trackY[t] / MAX_DISTANCE));
+            bucketNext[t] = bucketHead[bucket];
+            bucketHead[bucket] = t;
+        }
+    }
+
+    /**
+     * Get the bucket of a grid cell (number of buckets is a power of two).
+     */
+    private int getBucket(int cellX, int cellY) {
+        return (cellX * 73856093 ^ cellY * 19349663) & (bucketHead.length - 1);
+    }
+
+    /**
+     * Grows the arrays to hold the given number of tracks.
+     */
+    private void ensureCapacity(int capacity) {
+        if (trackX.length >= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, trackX.length * 2);
+        trackX = Arrays.copyOf(trackX, newCapacity);
+        trackY = Arrays.copyOf(trackY, newCapacity);
+        trackSide = Arrays.copyOf(trackSide, newCapacity);
+        trackMissed = Arrays.copyOf(trackMissed, newCapacity);
+        trackMatched = Arrays.copyOf(trackMatched, newCapacity);
+        newX = new double[newCapacity];
+        newY = new double[newCapacity];
+        newSide = new int[newCapacity];
+        newMissed = new int[newCapacity];
+        bucketNext = new int[newCapacity];
+        bucketHead = new int[Integer.highestOneBit(newCapacity) * 2];
+    }
+
+    /**
+     * Allocates the arrays of the tracks.
+     */
+    private void allocTracks(int capacity) {
+        trackX = new double[capacity];
+        trackY = new double[capacity];
+        trackSide = new int[capacity];
+        trackMissed = new int[capacity];
+        trackMatched = new boolean[capacity];
+        newX = new double[capacity];
+        newY = new double[capacity];
+        newSide = new int[capacity];
+        newMissed = new int[capacity];
+        bucketNext = new int[capacity];
+    }
+
+    /**
+     * The new tracks become the current ones.
+     */
+    private void swapTracks(int numNew) {
+        double[] tmpD = trackX;
+        trackX = newX;
+        newX = tmpD;
+        tmpD = trackY;
+        trackY = newY;
+        newY = tmpD;
+        int[] tmpI = trackSide;
+        trackSide = newSide;
+        newSide = tmpI;
+        tmpI = trackMissed;
+        trackMissed = newMissed;
+        newMissed = tmpI;
+        numTracks = numNew;
+    }
+}
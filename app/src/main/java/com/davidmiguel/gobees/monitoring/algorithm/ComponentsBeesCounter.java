@@ -0,0 +1,93 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import com.davidmiguel.gobees.monitoring.algorithm.processors.ComponentsFinder;
+
+import org.opencv.core.Mat;
+
+/**
+ * Counts the number of bees based on the area of detected moving connected components.
+ * The processed frame is only drawn when it is requested.
+ */
+public class ComponentsBeesCounter extends BaseBeesCounter {
+
+    private ComponentsFinder cf;
+    private Mat processedFrame;
+    private boolean processedFrameDrawn;
+
+    /**
+     * Default ComponentsBeesCounter constructor.
+     * minArea is initialized to 15 and maxArea to 800.
+     */
+    ComponentsBeesCounter() {
+        super();
+        cf = new ComponentsFinder();
+        processedFrame = new Mat();
+    }
+
+    @Override
+    int countBlobs(Mat blobs) {
+        cf.process(blobs);
+        processedFrameDrawn = false;
+        return cf.getNumBees();
+    }
+
+    @Override
+    public Mat getProcessedFrame() {
+        if (!processedFrameDrawn) {
+            cf.drawComponents(processedFrame);
+            restoreSize(processedFrame);
+            processedFrameDrawn = true;
+        }
+        return processedFrame;
+    }
+
+    @Override
+    public void release() {
+        super.release();
+        cf.release();
+        processedFrame.release();
+    }
+
+    @Override
+    int getNumBlobs() {
+        return cf.getNumBlobs();
+    }
+
+    @Override
+    double getBlobArea(int i) {
+        return cf.getArea(i);
+    }
+
+    @Override
+    void getBeeCentroids(double[] xs, double[] ys) {
+        cf.getBeeCentroids(xs, ys);
+    }
+
+    @Override
+    void setMinArea(double minArea) {
+        cf.setMinArea(minArea);
+    }
+
+    @Override
+    void setMaxArea(double maxArea) {
+        cf.setMaxArea(maxArea);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import java.io.Serializable;
+
+/**
+ * Line in front of the hive entrance. Bees that cross it are counted as in or out events.
+ * The line goes from (x1, y1) to (x2, y2), given as a fraction of the frame (0-1), so it does
+ * not depend on the resolution. The hive is on the right of the line (looking from the first
+ * point to the second one, with the y axis pointing down): crossing towards the right is an in
+ * event and crossing towards the left is an out event.
+ */
+public class EntranceLine implements Serializable {
+
+    private final double x1;
+    private final double y1;
+    private final double x2;
+    private final double y2;
+
+    /**
+     * EntranceLine constructor.
+     *
+     * @param x1 x of the first point (fraction of the frame width).
+     * @param y1 y of the first point (fraction of the frame height).
+     * @param x2 x of the second point (fraction of the frame width).
+     * @param y2 y of the second point (fraction of the frame height).
+     */
+    public EntranceLine(double x1, double y1, double x2, double y2) {
+        if (x1 == x2 && y1 == y2) {
+            throw new IllegalArgumentException("Entrance line points must be different.");
+        }
+        this.x1 = x1;
+        this.y1 = y1;
+        this.x2 = x2;
+        this.y2 = y2;
+    }
+
+    /**
+     * Create a line that splits the frame in half, with the hive on the given side.
+     *
+     * @param hiveSide side of the frame where the hive is.
+     * @return entrance line.
+     */
+    public static EntranceLine middle(HiveSide hiveSide) {
+        switch (hiveSide) {
+            case TOP:
+                return new EntranceLine(1, 0.5, 0, 0.5);
+            case LEFT:
+                return new EntranceLine(0.5, 0, 0.5, 1);
+            case RIGHT:
+                return new EntranceLine(0.5, 1, 0.5, 0);
+            case BOTTOM:
+            default:
+                return new EntranceLine(0, 0.5, 1, 0.5);
+        }
+    }
+
+    /**
+     * Get the signed distance of a point to the line (positive on the hive side).
+     *
+     * @param x x of the point (fraction of the frame width).
+     * @param y y of the point (fraction of the frame height).
+     * @return signed distance (fraction of the frame).
+     */
+    double getSide(double x, double y) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        return (dx * (y - y1) - dy * (x - x1)) / Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Checks whether the projection of a point falls between the two points of the line.
+     *
+     * @param x x of the point (fraction of the frame width).
+     * @param y y of the point (fraction of the frame height).
+     * @return true if it is in front of the line.
+     */
+    boolean isInFront(double x, double y) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double t = ((x - x1) * dx + (y - y1) * dy) / (dx * dx + dy * dy);
+        return t >= 0 && t <= 1;
+    }
+
+    /**
+     * Side of the frame where the hive is.
+     */
+    public enum HiveSide {
+        TOP, BOTTOM, LEFT, RIGHT
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Cheap motion detector used to skip the processing of static frames.
+ * It compares a heavily downsampled version of the frame with the previous one: if no pixel
+ * changed more than the threshold, nothing moved.
+ */
+public class MotionGate {
+
+    // Downsampling factor of the frames to compare (1/8 of the width and height)
+    private static final double SCALE = 1 / 8.0;
+
+    private Mat previous;
+    private Mat current;
+    private Mat diff;
+    private int threshold;
+    private int numSkipped;
+    private int numPassed;
+
+    /**
+     * MotionGate constructor.
+     *
+     * @param threshold min intensity change of a downsampled pixel to consider that there is
+     *                  motion (0 = disabled, all frames pass).
+     */
+    public MotionGate(int threshold) {
+        previous = new Mat();
+        current = new Mat();
+        diff = new Mat();
+        this.threshold = threshold;
+    }
+
+    /**
+     * Checks whether something moved since the previous frame.
+     * The first frame and all frames when the gate is disabled always pass (a disabled gate
+     * does not downsample the frames).
+     *
+     * @param frame CV_8UC1 frame.
+     * @return true if there is motion.
+     */
+    public boolean hasMotion(Mat frame) {
+        if (threshold <= 0) {
+            // Disabled, so the gate starts clean when it is enabled again
+            if (!previous.empty()) {
+                previous.release();
+            }
+            numPassed++;
+            return true;
+        }
+        // Downsample frame (averaging pixels, so noise is reduced)
+        Imgproc.resize(frame, current, new Size(), SCALE, SCALE, Imgproc.INTER_AREA);
+        boolean motion = true;
+        if (!previous.empty() && previous.size().equals(current.size())) {
+            // Compare with previous frame
+            Core.absdiff(current, previous, diff);
+            Imgproc.threshold(diff, diff, threshold, 255, Imgproc.THRESH_BINARY);
+            motion = Core.countNonZero(diff) > 0;
+        }
+        // Swap buffers
+        Mat tmp = previous;
+        previous = current;
+        current = tmp;
+        // Update metrics
+        if (motion) {
+            numPassed++;
+        } else {
+            numSkipped++;
+        }
+        return motion;
+    }
+
+    /**
+     * Set threshold.
+     *
+     * @param threshold min intensity change of a downsampled pixel to consider that there is
+     *                  motion (0 = disabled).
+     */
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Get number of static frames skipped.
+     *
+     * @return number of frames skipped.
+     */
+    public int getNumSkipped() {
+        return numSkipped;
+    }
+
+    /**
+     * Get number of frames with motion (that passed the gate).
+     *
+     * @return number of frames passed.
+     */
+    public int getNumPassed() {
+        return numPassed;
+    }
+
+    /**
+     * Resets the previous frame and the metrics.
+     */
+    public void reset() {
+        previous.release();
+        numSkipped = 0;
+        numPassed = 0;
+    }
+
+    /**
+     * Releases the buffers of the motion gate.
+     */
+    public void release() {
+        previous.release();
+        current.release();
+        diff.release();
+    }
+}
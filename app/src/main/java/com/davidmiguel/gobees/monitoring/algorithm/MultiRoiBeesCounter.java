@@ -0,0 +1,169 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import android.support.annotation.NonNull;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Counts the bees of several regions of interest of the same frame (i.e. the entrances of
+ * hives placed side by side). Each region has its own bees counter (and background model).
+ * The regions are processed in parallel: the first one in the calling thread and the rest in
+ * the executor. Regions are views of the frame, so it is not copied.
+ */
+public class MultiRoiBeesCounter {
+
+    private final BeesCounterPool pool;
+    private final ExecutorService executor;
+    private final List<Rect> rois;
+    private final List<BeesCounter> counters;
+    private final List<Future<Integer>> futures;
+    private final int[] numBees;
+
+    /**
+     * MultiRoiBeesCounter constructor.
+     *
+     * @param pool     pool where the bees counters are acquired.
+     * @param config   config of the bees counters.
+     * @param rois     regions of interest (in pixels).
+     * @param executor executor to process the regions in parallel (it can be null if there is
+     *                 only one region).
+     */
+    public MultiRoiBeesCounter(@NonNull BeesCounterPool pool, @NonNull BeesCounterConfig config,
+                               @NonNull List<Rect> rois, ExecutorService executor) {
+        this.pool = pool;
+        this.executor = executor;
+        this.rois = new ArrayList<>(rois);
+        counters = new ArrayList<>(rois.size());
+        for (int i = 0; i < rois.size(); i++) {
+            counters.add(pool.acquire(config));
+        }
+        futures = new ArrayList<>(rois.size());
+        numBees = new int[rois.size()];
+    }
+
+    /**
+     * Count the number of bees in each region of the frame.
+     *
+     * @param frame the target frame in CV_8UC1 Mat format.
+     * @return number of bees of each region (the array is reused in each call).
+     */
+    public int[] countBees(@NonNull Mat frame) {
+        // Process regions 1..n in the executor
+        futures.clear();
+        for (int i = 1; i < rois.size(); i++) {
+            futures.add(executor.submit(new CountTask(frame, i)));
+        }
+        // Process region 0 in this thread
+        numBees[0] = countBees(frame, 0);
+        // Wait for the rest
+        try {
+            for (int i = 1; i < rois.size(); i++) {
+                numBees[i] = futures.get(i - 1).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while counting bees.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error counting bees.", e.getCause());
+        }
+        return numBees;
+    }
+
+    /**
+     * Get the number of regions.
+     *
+     * @return number of regions.
+     */
+    public int getNumRois() {
+        return rois.size();
+    }
+
+    /**
+     * Get the region of interest of the given index.
+     *
+     * @param i index of the region.
+     * @return region in pixels.
+     */
+    public Rect getRoi(int i) {
+        return rois.get(i);
+    }
+
+    /**
+     * Get the bees counter of the given region (i.e. to update its settings).
+     *
+     * @param i index of the region.
+     * @return bees counter.
+     */
+    public BeesCounter getBeesCounter(int i) {
+        return counters.get(i);
+    }
+
+    /**
+     * Return the bees counters to the pool. It must not be used after this call.
+     */
+    public void release() {
+        for (BeesCounter bc : counters) {
+            pool.recycle(bc);
+        }
+        counters.clear();
+    }
+
+    /**
+     * Count the bees of a region.
+     *
+     * @param frame the target frame in CV_8UC1 Mat format.
+     * @param i     index of the region.
+     * @return number of bees.
+     */
+    private int countBees(Mat frame, int i) {
+        Mat roi = frame.submat(rois.get(i));
+        int result = counters.get(i).countBees(roi);
+        roi.release();
+        return result;
+    }
+
+    /**
+     * Task that counts the bees of a region.
+     */
+    private class CountTask implements Callable<Integer> {
+
+        private final Mat frame;
+        private final int roi;
+
+        CountTask(Mat frame, int roi) {
+            this.frame = frame;
+            this.roi = roi;
+        }
+
+        @Override
+        public Integer call() throws Exception {
+            return countBees(frame, roi);
+        }
+    }
+}
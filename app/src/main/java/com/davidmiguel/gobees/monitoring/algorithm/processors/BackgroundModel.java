@@ -0,0 +1,55 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm.processors;
+
+import org.opencv.core.Mat;
+
+/**
+ * A BackgroundModel learns the static part of the scene and segments the moving objects.
+ */
+public interface BackgroundModel {
+
+    /**
+     * Computes the foreground mask of a frame and updates the background model with it.
+     *
+     * @param frame      input CV_8UC1 frame.
+     * @param foreground output CV_8UC1 mask (non-zero pixels belong to the foreground).
+     */
+    void apply(Mat frame, Mat foreground);
+
+    /**
+     * Gets the current background image (empty if the model has not received any frame).
+     *
+     * @param background output CV_8UC1 background image.
+     */
+    void getBackgroundImage(Mat background);
+
+    /**
+     * Seeds the background model with a background image, so it can segment the following
+     * frames without learning the background again.
+     *
+     * @param background CV_8UC1 background image.
+     */
+    void setBackgroundImage(Mat background);
+
+    /**
+     * Releases the background model.
+     */
+    void release();
+}
@@ -23,62 +23,40 @@ import android.support.annotation.NonNull;
 import com.davidmiguel.gobees.logging.Log;
 
 import org.opencv.core.Mat;
-import org.opencv.video.BackgroundSubtractorMOG2;
-import org.opencv.video.Video;
 
 /**
- * Implements a background subtraction algorithm (in particular, BackgroundSubtractorMOG2).
+ * Implements a background subtraction algorithm. The background model is pluggable
+ * (BackgroundSubtractorMOG2 by default).
  */
 public class BackgroundSubtractor implements VideoProcessor {
 
-
-    // Number of frames to consider in the background model
-    private static final int HISTORY = 10;
-    // Ratio of frames to add a pixel to the bg model if it keeps semi-constant
-    private static final double BACKGROUND_RATIO = 0.04;
-    // Threshold to decide whether a pixel belongs to the background model or not
-    private static final double VAR_THRESHOLD = 40;
-    // Initial variance of each gaussian component
-    private static final double VAR_INIT = 15;
-    // Detect shadows
-    private static final boolean DETECT_SHADOWS = true;
-    // Threshold to consider a pixel as shadow or not.
-    private static final double SHADOWS_THRESHOLD = 0.7;
-
-    private BackgroundSubtractorMOG2 mog;
+    private BackgroundModel model;
 
     /**
-     * Default BackgroundSubtractor constructor.
+     * Default BackgroundSubtractor constructor (MOG2 model).
      * History is initialized to 10 and shadows threshold to 0.7.
      */
     public BackgroundSubtractor() {
-        mog = getMogInstance(HISTORY, SHADOWS_THRESHOLD);
+        model = new Mog2BackgroundModel();
     }
 
     /**
-     * BackgroundSubtractor constructor.
+     * BackgroundSubtractor constructor (MOG2 model).
      *
      * @param history         the number of frames to consider in the background model.
      * @param shadowThreshold the threshold to consider a pixel as shadow or not.
      */
     public BackgroundSubtractor(int history, double shadowThreshold) {
-        mog = getMogInstance(history, shadowThreshold);
+        model = new Mog2BackgroundModel(history, shadowThreshold);
     }
 
     /**
-     * Get the instance of BackgroundSubtractorMOG2 with the desired configuration.
+     * BackgroundSubtractor constructor.
      *
-     * @param history         the number of frames to consider in the background model.
-     * @param shadowThreshold the threshold to consider a pixel as shadow or not.
-     * @return instance of BackgroundSubtractorMOG2.
+     * @param model background model to use.
      */
-    private BackgroundSubtractorMOG2 getMogInstance(int history, double shadowThreshold) {
-        BackgroundSubtractorMOG2 instance =
-                Video.createBackgroundSubtractorMOG2(history, VAR_THRESHOLD, DETECT_SHADOWS);
-        instance.setBackgroundRatio(BACKGROUND_RATIO);
-        instance.setVarInit(VAR_INIT);
-        instance.setShadowThreshold(shadowThreshold);
-        return instance;
+    public BackgroundSubtractor(@NonNull BackgroundModel model) {
+        this.model = model;
     }
 
     @Override
@@ -89,7 +67,43 @@ public class BackgroundSubtractor implements VideoProcessor {
         }
         Mat foreground = new Mat();
         // Apply background substraction
-        mog.apply(frame, foreground);
+        model.apply(frame, foreground);
         return foreground;
     }
+
+    /**
+     * Gets the current background image of the model.
+     *
+     * @param background output CV_8UC1 background image (empty if there is no model yet).
+     */
+    public void getBackgroundImage(Mat background) {
+        model.getBackgroundImage(background);
+    }
+
+    /**
+     * Seeds the background model with a background image.
+     *
+     * @param background CV_8UC1 background image.
+     */
+    public void setBackgroundImage(Mat background) {
+        model.setBackgroundImage(background);
+    }
+
+    /**
+     * Set the background model. The previous model is released, so the new one starts learning
+     * the background from scratch.
+     *
+     * @param model background model to use.
+     */
+    public void setModel(@NonNull BackgroundModel model) {
+        this.model.release();
+        this.model = model;
+    }
+
+    /**
+     * Releases the background model.
+     */
+    public void release() {
+        model.release();
+    }
 }
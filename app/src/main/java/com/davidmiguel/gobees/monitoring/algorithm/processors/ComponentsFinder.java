@@ -0,0 +1,222 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm.processors;
+
+import android.support.annotation.NonNull;
+
+import com.davidmiguel.gobees.logging.Log;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Connected components are the regions of connected foreground pixels of a binary image.
+ * ComponentsFinder labels the components of the given frame and filters them by area.
+ * Areas, bounding boxes and centroids are obtained in one pass, without creating a Java object
+ * per component (as findContours does).
+ */
+public class ComponentsFinder implements VideoProcessor {
+
+    private static final int CONNECTIVITY = 8;
+    private static final double MIN_AREA = 15;
+    private static final double MAX_AREA = 800;
+    private static final byte[] BLACK = {0, 0, 0};
+    private static final byte[] RED = {(byte) 255, 0, 0};
+    private static final byte[] GREEN = {0, (byte) 255, 0};
+
+    private Mat labels;
+    private Mat stats;
+    private Mat centroids;
+    private int[] statsData;
+    private double[] centroidsData;
+    private boolean[] bees;
+    private int numComponents;
+    private int[] labelsData;
+    private byte[] colorsData;
+    private double minArea;
+    private double maxArea;
+    private int numBees;
+
+    /**
+     * Default ComponentsFinder constructor.
+     * minArea is initialized to 15 and maxArea to 800.
+     */
+    public ComponentsFinder() {
+        this(MIN_AREA, MAX_AREA);
+    }
+
+    /**
+     * ComponentsFinder constructor.
+     *
+     * @param minArea the min area to consider a component a bee.
+     * @param maxArea the max area to consider a component a bee.
+     */
+    public ComponentsFinder(double minArea, double maxArea) {
+        labels = new Mat();
+        stats = new Mat();
+        centroids = new Mat();
+        statsData = new int[0];
+        centroidsData = new double[0];
+        bees = new boolean[0];
+        this.minArea = minArea;
+        this.maxArea = maxArea;
+    }
+
+    /**
+     * Labels the components of the frame and counts the bees.
+     * The returned CV_32S Mat with the labels is reused in each call, so it must not be
+     * released.
+     *
+     * @param frame input binary frame.
+     * @return labels Mat.
+     */
+    @Override
+    public Mat process(@NonNull Mat frame) {
+        if (frame.empty()) {
+            Log.e("Invalid input frame.");
+            return null;
+        }
+        // Label components (label 0 is the background)
+        numComponents = Imgproc.connectedComponentsWithStats(frame, labels, stats, centroids,
+                CONNECTIVITY, CvType.CV_32S);
+        // Get all stats at once
+        int size = numComponents * Imgproc.CC_STAT_MAX;
+        if (statsData.length < size) {
+            statsData = new int[size];
+        }
+        if (bees.length < numComponents) {
+            bees = new boolean[numComponents];
+        }
+        stats.get(0, 0, statsData);
+        // Filter bees
+        numBees = 0;
+        bees[0] = false;
+        for (int i = 1; i < numComponents; i++) {
+            int area = statsData[i * Imgproc.CC_STAT_MAX + Imgproc.CC_STAT_AREA];
+            bees[i] = area > minArea && area < maxArea;
+            if (bees[i]) {
+                numBees++;
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * Draws the components of the last processed frame: bees in green and the rest in red.
+     *
+     * @param output CV_8UC3 Mat where to draw the components.
+     */
+    public void drawComponents(@NonNull Mat output) {
+        int numPixels = labels.rows() * labels.cols();
+        if (labelsData == null || labelsData.length != numPixels) {
+            labelsData = new int[numPixels];
+            colorsData = new byte[numPixels * 3];
+        }
+        labels.get(0, 0, labelsData);
+        for (int i = 0; i < numPixels; i++) {
+            int label = labelsData[i];
+            byte[] color = label == 0 ? BLACK : bees[label] ? GREEN : RED;
+            System.arraycopy(color, 0, colorsData, i * 3, 3);
+        }
+        output.create(labels.rows(), labels.cols(), CvType.CV_8UC3);
+        output.put(0, 0, colorsData);
+    }
+
+    /**
+     * Get number of bees counted in the processed frame.
+     *
+     * @return number of bees.
+     */
+    public int getNumBees() {
+        return numBees;
+    }
+
+    /**
+     * Get the centroids of the bees of the processed frame.
+     *
+     * @param xs array where to put the x of the centroids (at least numBees elements).
+     * @param ys array where to put the y of the centroids (at least numBees elements).
+     */
+    public void getBeeCentroids(double[] xs, double[] ys) {
+        if (numBees == 0) {
+            return;
+        }
+        // Get all centroids at once
+        int size = numComponents * 2;
+        if (centroidsData.length < size) {
+            centroidsData = new double[size];
+        }
+        centroids.get(0, 0, centroidsData);
+        int bee = 0;
+        for (int i = 1; i < numComponents; i++) {
+            if (bees[i]) {
+                xs[bee] = centroidsData[i * 2];
+                ys[bee] = centroidsData[i * 2 + 1];
+                bee++;
+            }
+        }
+    }
+
+    /**
+     * Get number of components found in the processed frame (without the background).
+     *
+     * @return number of components.
+     */
+    public int getNumBlobs() {
+        return Math.max(numComponents - 1, 0);
+    }
+
+    /**
+     * Get the area of a component of the processed frame.
+     *
+     * @param i index of the component (0 is the first one after the background).
+     * @return area.
+     */
+    public double getArea(int i) {
+        return statsData[(i + 1) * Imgproc.CC_STAT_MAX + Imgproc.CC_STAT_AREA];
+    }
+
+    /**
+     * Set min area. Smaller areas are not consider to be a bee.
+     *
+     * @param minArea min area.
+     */
+    public void setMinArea(double minArea) {
+        this.minArea = minArea;
+    }
+
+    /**
+     * Set max area. Greater areas are not consider to be a bee.
+     *
+     * @param maxArea max area.
+     */
+    public void setMaxArea(double maxArea) {
+        this.maxArea = maxArea;
+    }
+
+    /**
+     * Releases the labels and stats of the last processed frame.
+     */
+    public void release() {
+        labels.release();
+        stats.release();
+        centroids.release();
+    }
+}
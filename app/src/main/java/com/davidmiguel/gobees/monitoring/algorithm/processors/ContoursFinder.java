@@ -25,6 +25,7 @@ import com.davidmiguel.gobees.logging.Log;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfPoint;
+import org.opencv.core.Rect;
 import org.opencv.core.Scalar;
 import org.opencv.imgproc.Imgproc;
 
@@ -45,6 +46,8 @@ public class ContoursFinder implements VideoProcessor {
 
     private List<MatOfPoint> contourList;
     private Mat hierarchy;
+    private double[] areas;
+    private int[] beeContours;
     private double minArea;
     private double maxArea;
     private int numBees;
@@ -56,6 +59,8 @@ public class ContoursFinder implements VideoProcessor {
     public ContoursFinder() {
         contourList = new ArrayList<>();
         hierarchy = new Mat();
+        areas = new double[0];
+        beeContours = new int[0];
         this.minArea = MIN_AREA;
         this.maxArea = MAX_AREA;
     }
@@ -69,6 +74,8 @@ public class ContoursFinder implements VideoProcessor {
     public ContoursFinder(double minArea, double maxArea) {
         contourList = new ArrayList<>();
         hierarchy = new Mat();
+        areas = new double[0];
+        beeContours = new int[0];
         this.minArea = minArea;
         this.maxArea = maxArea;
     }
@@ -90,11 +97,16 @@ public class ContoursFinder implements VideoProcessor {
         double area;
         Scalar color;
         numBees = 0;
+        if (areas.length < contourList.size()) {
+            areas = new double[contourList.size()];
+            beeContours = new int[contourList.size()];
+        }
         for (int i = 0; i < contourList.size(); i++) {
             area = Imgproc.contourArea(contourList.get(i));
+            areas[i] = area;
             if (area > minArea && area < maxArea) {
                 color = GREEN;
-                numBees++;
+                beeContours[numBees++] = i;
             } else {
                 color = RED;
             }
@@ -113,6 +125,39 @@ public class ContoursFinder implements VideoProcessor {
         return numBees;
     }
 
+    /**
+     * Get the centroids of the bees of the processed frame (centers of their bounding boxes).
+     *
+     * @param xs array where to put the x of the centroids (at least numBees elements).
+     * @param ys array where to put the y of the centroids (at least numBees elements).
+     */
+    public void getBeeCentroids(double[] xs, double[] ys) {
+        for (int i = 0; i < numBees; i++) {
+            Rect box = Imgproc.boundingRect(contourList.get(beeContours[i]));
+            xs[i] = box.x + box.width / 2.0;
+            ys[i] = box.y + box.height / 2.0;
+        }
+    }
+
+    /**
+     * Get number of contours found in the processed frame.
+     *
+     * @return number of contours.
+     */
+    public int getNumBlobs() {
+        return contourList.size();
+    }
+
+    /**
+     * Get the area of a contour of the processed frame.
+     *
+     * @param i index of the contour.
+     * @return area.
+     */
+    public double getArea(int i) {
+        return areas[i];
+    }
+
     /**
      * Set min area. Smaller areas are not consider to be a bee.
      *
@@ -130,4 +175,15 @@ public class ContoursFinder implements VideoProcessor {
     public void setMaxArea(double maxArea) {
         this.maxArea = maxArea;
     }
+
+    /**
+     * Releases the contours of the last processed frame.
+     */
+    public void release() {
+        for (MatOfPoint contour : contourList) {
+            contour.release();
+        }
+        contourList.clear();
+        hierarchy.release();
+    }
 }
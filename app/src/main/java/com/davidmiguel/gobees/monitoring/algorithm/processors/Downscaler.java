@@ -0,0 +1,93 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm.processors;
+
+import android.support.annotation.NonNull;
+
+import com.davidmiguel.gobees.logging.Log;
+
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Downscaler reduces the resolution of the frame using a Gaussian pyramid.
+ * Each level halves the width and the height of the frame, so the processing work of the
+ * following steps is divided by 4.
+ * At full resolution (0 levels) the input frame itself is returned, without copying it, so the
+ * caller must not release the output in that case.
+ */
+public class Downscaler implements VideoProcessor {
+
+    private static final int MAX_LEVELS = 2;
+
+    private int levels;
+
+    /**
+     * Default Downscaler constructor (full resolution).
+     */
+    public Downscaler() {
+        this.levels = 0;
+    }
+
+    @Override
+    public Mat process(@NonNull Mat frame) {
+        if (frame.empty()) {
+            Log.e("Invalid input frame.");
+            return null;
+        }
+        if (levels == 0) {
+            // Nothing to do
+            return frame;
+        }
+        // Apply pyrDown once per level
+        Mat tmp = new Mat();
+        Imgproc.pyrDown(frame, tmp);
+        for (int i = 1; i < levels; i++) {
+            Imgproc.pyrDown(tmp, tmp);
+        }
+        return tmp;
+    }
+
+    /**
+     * Get number of levels.
+     *
+     * @return levels (0 = full resolution, 1 = half, 2 = quarter).
+     */
+    public int getLevels() {
+        return levels;
+    }
+
+    /**
+     * Set number of levels.
+     *
+     * @param levels levels (0 = full resolution, 1 = half, 2 = quarter).
+     */
+    public void setLevels(int levels) {
+        this.levels = Math.max(0, Math.min(levels, MAX_LEVELS));
+    }
+
+    /**
+     * Get the ratio between the areas at full resolution and at the downscaled resolution.
+     *
+     * @return area ratio (1, 4 or 16).
+     */
+    public int getAreaScale() {
+        return 1 << (2 * levels);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm.processors;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Background model based on the approximate median of the frames.
+ * Each frame, the background pixels are increased (or decreased) by a fixed step if the frame
+ * is brighter (or darker), so they converge to the median. A pixel belongs to the foreground
+ * if it differs from the background more than a threshold.
+ * The step is bigger in the first frames (64/n), so the model is ready after a few frames.
+ */
+public class MedianBackgroundModel implements BackgroundModel {
+
+    // Intensity step added to (or subtracted from) the background each frame
+    private static final double STEP = 8;
+    // Step of the first frame after the initial one (it decreases as 1/n)
+    private static final double WARM_UP_STEP = 64;
+    // Min intensity difference with the background to consider a pixel as foreground
+    private static final double THRESHOLD = 35;
+
+    private double step;
+    private double threshold;
+    private Mat background;
+    private Mat brighterMask;
+    private Mat darkerMask;
+    private int numFrames;
+
+    /**
+     * Default MedianBackgroundModel constructor.
+     * Step is initialized to 8 and threshold to 35.
+     */
+    public MedianBackgroundModel() {
+        this(STEP, THRESHOLD);
+    }
+
+    /**
+     * MedianBackgroundModel constructor.
+     *
+     * @param step      intensity step added to (or subtracted from) the background each frame.
+     * @param threshold min intensity difference with the background to be foreground.
+     */
+    public MedianBackgroundModel(double step, double threshold) {
+        this.step = step;
+        this.threshold = threshold;
+        background = new Mat();
+        brighterMask = new Mat();
+        darkerMask = new Mat();
+    }
+
+    @Override
+    public void apply(Mat frame, Mat foreground) {
+        if (background.empty() || !background.size().equals(frame.size())) {
+            // First frame (or resolution changed): it is the background
+            frame.copyTo(background);
+            numFrames = 1;
+            foreground.create(frame.size(), CvType.CV_8UC1);
+            foreground.setTo(new Scalar(0));
+            return;
+        }
+        // Foreground = pixels far from the background
+        Core.absdiff(frame, background, foreground);
+        Imgproc.threshold(foreground, foreground, threshold, 255, Imgproc.THRESH_BINARY);
+        // Move the background towards the frame (saturated arithmetic)
+        numFrames++;
+        Scalar currentStep = new Scalar(Math.max(step, WARM_UP_STEP / numFrames));
+        // Both masks are computed before updating, so every pixel moves once
+        Core.compare(frame, background, brighterMask, Core.CMP_GT);
+        Core.compare(frame, background, darkerMask, Core.CMP_LT);
+        Core.add(background, currentStep, background, brighterMask);
+        Core.subtract(background, currentStep, background, darkerMask);
+    }
+
+    @Override
+    public void getBackgroundImage(Mat background) {
+        this.background.copyTo(background);
+    }
+
+    @Override
+    public void setBackgroundImage(Mat background) {
+        background.copyTo(this.background);
+        // Skip warm up
+        numFrames = (int) Math.ceil(WARM_UP_STEP / step);
+    }
+
+    @Override
+    public void release() {
+        background.release();
+        brighterMask.release();
+        darkerMask.release();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm.processors;
+
+import org.opencv.core.Mat;
+import org.opencv.video.BackgroundSubtractorMOG2;
+import org.opencv.video.Video;
+
+/**
+ * Background model based on a mixture of gaussians per pixel (BackgroundSubtractorMOG2).
+ * It is the most accurate model with changing light, but also the most expensive one.
+ */
+public class Mog2BackgroundModel implements BackgroundModel {
+
+    // Number of frames to consider in the background model
+    private static final int HISTORY = 10;
+    // Ratio of frames to add a pixel to the bg model if it keeps semi-constant
+    private static final double BACKGROUND_RATIO = 0.04;
+    // Threshold to decide whether a pixel belongs to the background model or not
+    private static final double VAR_THRESHOLD = 40;
+    // Initial variance of each gaussian component
+    private static final double VAR_INIT = 15;
+    // Detect shadows
+    private static final boolean DETECT_SHADOWS = true;
+    // Threshold to consider a pixel as shadow or not.
+    private static final double SHADOWS_THRESHOLD = 0.7;
+
+    private BackgroundSubtractorMOG2 mog;
+
+    /**
+     * Default Mog2BackgroundModel constructor.
+     * History is initialized to 10 and shadows threshold to 0.7.
+     */
+    public Mog2BackgroundModel() {
+        this(HISTORY, SHADOWS_THRESHOLD);
+    }
+
+    /**
+     * Mog2BackgroundModel constructor.
+     *
+     * @param history         the number of frames to consider in the background model.
+     * @param shadowThreshold the threshold to consider a pixel as shadow or not.
+     */
+    public Mog2BackgroundModel(int history, double shadowThreshold) {
+        mog = Video.createBackgroundSubtractorMOG2(history, VAR_THRESHOLD, DETECT_SHADOWS);
+        mog.setBackgroundRatio(BACKGROUND_RATIO);
+        mog.setVarInit(VAR_INIT);
+        mog.setShadowThreshold(shadowThreshold);
+    }
+
+    @Override
+    public void apply(Mat frame, Mat foreground) {
+        mog.apply(frame, foreground);
+    }
+
+    @Override
+    public void getBackgroundImage(Mat background) {
+        mog.getBackgroundImage(background);
+    }
+
+    @Override
+    public void setBackgroundImage(Mat background) {
+        // Learning rate 1 reinitializes the model with the image
+        Mat foreground = new Mat();
+        mog.apply(background, foreground, 1);
+        foreground.release();
+    }
+
+    @Override
+    public void release() {
+        // Native instance is deleted when it is garbage collected
+        mog = null;
+    }
+}
@@ -41,6 +41,9 @@ public class Morphology implements VideoProcessor {
 
     private Mat kernelErode;
     private Mat kernelDilate;
+    private int downscaleLevels;
+    private int repetitionsDilate;
+    private int repetitionsErode;
 
     /**
      * Default constructor. Initializes the kernels.
@@ -48,6 +51,8 @@ public class Morphology implements VideoProcessor {
     public Morphology() {
         kernelErode = KERNEL3;
         kernelDilate = KERNEL3;
+        repetitionsDilate = REPETITIONS_DILATE;
+        repetitionsErode = REPETITIONS_ERODE;
     }
 
     @Override
@@ -58,15 +63,15 @@ public class Morphology implements VideoProcessor {
         }
         Mat tmp = frame.clone();
         // Step 1: erode to remove legs
-        Imgproc.erode(tmp, tmp, KERNEL3);
+        Imgproc.erode(tmp, tmp, getKernel(3));
         // Step 2: dilate to join bodies and heads
-        Imgproc.dilate(tmp, tmp, KERNEL2);
-        for (int i = 0; i < REPETITIONS_DILATE; i++) {
+        Imgproc.dilate(tmp, tmp, getKernel(2));
+        for (int i = 0; i < repetitionsDilate; i++) {
             Imgproc.dilate(tmp, tmp, kernelDilate);
         }
         // Step 3: erode to recover original size
-        Imgproc.erode(tmp, tmp, KERNEL1);
-        for (int i = 0; i < REPETITIONS_ERODE; i++) {
+        Imgproc.erode(tmp, tmp, getKernel(1));
+        for (int i = 0; i < repetitionsErode; i++) {
             Imgproc.erode(tmp, tmp, kernelErode);
         }
         return tmp;
@@ -109,4 +114,36 @@ public class Morphology implements VideoProcessor {
                 kernelDilate = KERNEL3;
         }
     }
+
+    /**
+     * Set the downscale levels of the frames (see Downscaler). The blobs are modified in the
+     * same proportion: the fixed steps use smaller kernels and the repeated steps are repeated
+     * fewer times (so dilation and erosion keep balanced).
+     *
+     * @param levels downscale levels.
+     */
+    public void setDownscaleLevels(int levels) {
+        downscaleLevels = levels;
+        repetitionsDilate = Math.max(1, Math.round(REPETITIONS_DILATE / (float) (1 << levels)));
+        repetitionsErode = Math.max(1, Math.round(REPETITIONS_ERODE / (float) (1 << levels)));
+    }
+
+    /**
+     * Get the kernel of the given size at full resolution, scaled to the downscale levels.
+     *
+     * @param size size at full resolution (1, 2 or 3).
+     * @return kernel.
+     */
+    private Mat getKernel(int size) {
+        switch (Math.round(size / (float) (1 << downscaleLevels))) {
+            case 0:
+            case 1:
+                return KERNEL1;
+            case 2:
+                return KERNEL2;
+            case 3:
+            default:
+                return KERNEL3;
+        }
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm.processors;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Background model based on an exponential running average of the frames.
+ * A pixel belongs to the foreground if it differs from the average more than a threshold.
+ * The first frames are averaged with the same weight (1/n), so the model is ready after a few
+ * frames. It only needs an absdiff and a weighted sum per pixel, much cheaper than MOG2.
+ */
+public class RunningAverageBackgroundModel implements BackgroundModel {
+
+    // Weight of the new frame in the average
+    private static final double ALPHA = 0.05;
+    // Min intensity difference with the average to consider a pixel as foreground
+    private static final double THRESHOLD = 30;
+
+    private double alpha;
+    private double threshold;
+    private Mat average;
+    private Mat background;
+    private int numFrames;
+
+    /**
+     * Default RunningAverageBackgroundModel constructor.
+     * Alpha is initialized to 0.05 and threshold to 30.
+     */
+    public RunningAverageBackgroundModel() {
+        this(ALPHA, THRESHOLD);
+    }
+
+    /**
+     * RunningAverageBackgroundModel constructor.
+     *
+     * @param alpha     weight of the new frame in the average (0-1).
+     * @param threshold min intensity difference with the average to be foreground.
+     */
+    public RunningAverageBackgroundModel(double alpha, double threshold) {
+        this.alpha = alpha;
+        this.threshold = threshold;
+        average = new Mat();
+        background = new Mat();
+    }
+
+    @Override
+    public void apply(Mat frame, Mat foreground) {
+        if (average.empty() || !average.size().equals(frame.size())) {
+            // First frame (or resolution changed): it is the background
+            frame.convertTo(average, CvType.CV_32F);
+            numFrames = 1;
+            foreground.create(frame.size(), CvType.CV_8UC1);
+            foreground.setTo(new Scalar(0));
+            return;
+        }
+        // Foreground = pixels far from the average
+        average.convertTo(background, CvType.CV_8U);
+        Core.absdiff(frame, background, foreground);
+        Imgproc.threshold(foreground, foreground, threshold, 255, Imgproc.THRESH_BINARY);
+        // Update the average
+        numFrames++;
+        Imgproc.accumulateWeighted(frame, average, Math.max(alpha, 1.0 / numFrames));
+    }
+
+    @Override
+    public void getBackgroundImage(Mat background) {
+        average.convertTo(background, CvType.CV_8U);
+    }
+
+    @Override
+    public void setBackgroundImage(Mat background) {
+        background.convertTo(average, CvType.CV_32F);
+        // Skip warm up
+        numFrames = (int) Math.ceil(1 / alpha);
+    }
+
+    @Override
+    public void release() {
+        average.release();
+        background.release();
+    }
+}
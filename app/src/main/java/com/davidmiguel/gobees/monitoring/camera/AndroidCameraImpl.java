@@ -25,9 +25,6 @@ import android.hardware.Camera.PreviewCallback;
 
 import com.davidmiguel.gobees.logging.Log;
 
-import org.opencv.core.CvType;
-import org.opencv.core.Mat;
-
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
@@ -169,9 +166,8 @@ public class AndroidCameraImpl implements AndroidCamera, PreviewCallback {
         Camera.Parameters params = camera.getParameters();
         int mFrameWidth = params.getPreviewSize().width;
         int mFrameHeight = params.getPreviewSize().height;
-        // Create frame mat
-        Mat mFrame = new Mat(mFrameHeight + (mFrameHeight / 2), mFrameWidth, CvType.CV_8UC1);
-        cameraFrame = new CameraFrame(mFrame, mFrameWidth, mFrameHeight);
+        // Create frame (there is no preview, so only the luminance is needed)
+        cameraFrame = new CameraFrame(mFrameWidth, mFrameHeight);
         // Config texture
         if (this.texture != null) {
             this.texture.release();
@@ -18,23 +18,30 @@
 
 package com.davidmiguel.gobees.monitoring.camera;
 
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.imgproc.Imgproc;
 
 /**
  * Models a camera frame.
  * Based on JavaCameraFrame from OpenCV.
+ * In luminance only mode, just the Y plane of the NV21 frames is copied. The chroma is only
+ * copied and converted when the RGBA frame is requested.
  */
 public class CameraFrame {
 
+    private final boolean luminanceOnly;
     private Mat yuvFrameData;
+    private Mat grayFrameData;
+    private byte[] frameData;
     private Mat rgba;
     private int width;
     private int height;
+    private boolean yuvFilled;
     private boolean rgbaConverted;
 
     /**
-     * CameraFrame constructor.
+     * CameraFrame constructor (the whole NV21 frame is copied).
      *
      * @param frame  frame Mat where to store the frame data.
      * @param width  frame width.
@@ -42,9 +49,26 @@ public class CameraFrame {
      */
     CameraFrame(Mat frame, int width, int height) {
         super();
+        this.luminanceOnly = false;
         this.width = width;
         this.height = height;
         yuvFrameData = frame;
+        grayFrameData = yuvFrameData.submat(0, height, 0, width);
+        rgba = new Mat();
+    }
+
+    /**
+     * CameraFrame constructor in luminance only mode (just the Y plane is copied).
+     *
+     * @param width  frame width.
+     * @param height frame height.
+     */
+    CameraFrame(int width, int height) {
+        super();
+        this.luminanceOnly = true;
+        this.width = width;
+        this.height = height;
+        grayFrameData = new Mat(height, width, CvType.CV_8UC1);
         rgba = new Mat();
     }
 
@@ -54,7 +78,14 @@ public class CameraFrame {
      * @param frameData byte array with the data.
      */
     synchronized void putFrameData(byte[] frameData) {
-        yuvFrameData.put(0, 0, frameData);
+        if (luminanceOnly) {
+            // Only the Y plane fits into the gray Mat
+            grayFrameData.put(0, 0, frameData);
+            this.frameData = frameData;
+            yuvFilled = false;
+        } else {
+            yuvFrameData.put(0, 0, frameData);
+        }
         invalidate();
     }
 
@@ -64,7 +95,7 @@ public class CameraFrame {
      * @return gray Mat.
      */
     public Mat gray() {
-        return yuvFrameData.submat(0, height, 0, width);
+        return grayFrameData;
     }
 
     /**
@@ -79,8 +110,20 @@ public class CameraFrame {
      *
      * @return RGBA Mat.
      */
-    public Mat rgba() {
+    public synchronized Mat rgba() {
         if (!rgbaConverted) {
+            if (luminanceOnly && frameData == null) {
+                // No frame yet
+                return rgba;
+            }
+            if (luminanceOnly && !yuvFilled) {
+                // Copy the whole frame (with chroma)
+                if (yuvFrameData == null) {
+                    yuvFrameData = new Mat(height + (height / 2), width, CvType.CV_8UC1);
+                }
+                yuvFrameData.put(0, 0, frameData);
+                yuvFilled = true;
+            }
             Imgproc.cvtColor(yuvFrameData, rgba, Imgproc.COLOR_YUV2BGR_NV12, 4);
             rgbaConverted = true;
         }
@@ -92,5 +135,10 @@ public class CameraFrame {
      */
     public void release() {
         rgba.release();
+        grayFrameData.release();
+        if (yuvFrameData != null) {
+            yuvFrameData.release();
+        }
+        frameData = null;
     }
 }
@@ -0,0 +1,55 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.camera;
+
+import java.io.IOException;
+
+/**
+ * Source of recorded frames for the ReplayCamera.
+ * Frames are returned in NV21 format (like the preview frames of the camera).
+ */
+public interface FrameSource {
+
+    /**
+     * Get the width of the frames.
+     *
+     * @return frame width.
+     */
+    int getWidth();
+
+    /**
+     * Get the height of the frames.
+     *
+     * @return frame height.
+     */
+    int getHeight();
+
+    /**
+     * Reads the next frame.
+     *
+     * @return NV21 frame data or null if there are no more frames.
+     * @throws IOException if the frame cannot be read.
+     */
+    byte[] nextFrame() throws IOException;
+
+    /**
+     * Closes the source.
+     */
+    void close();
+}
@@ -0,0 +1,137 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.camera;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Frame source that reads the numbered images of a directory in numeric order
+ * (i.e. the datasets of src/testMock/res/img: 001.jpg, 002.jpg...). Numbers do not need zero
+ * padding (1.jpg, 2.jpg... 10.jpg). Other files are ignored.
+ * Images are converted to gray scale and returned as NV21 frames with neutral chroma.
+ * All frames are resized to the size of the first one.
+ */
+public class ImageSequenceFrameSource implements FrameSource {
+
+    private static final byte NEUTRAL_CHROMA = (byte) 128;
+    private static final String FRAME_NAME_PATTERN = "\\d+\\.(jpg|png)";
+
+    private final File[] files;
+    private final Mat gray;
+    private int width;
+    private int height;
+    private int next;
+
+    /**
+     * ImageSequenceFrameSource constructor.
+     *
+     * @param directory directory with the numbered images (jpg or png).
+     * @throws IOException if the directory has no images or they cannot be read.
+     */
+    public ImageSequenceFrameSource(File directory) throws IOException {
+        files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.toLowerCase(Locale.US).matches(FRAME_NAME_PATTERN);
+            }
+        });
+        if (files == null || files.length == 0) {
+            throw new IOException("No images in " + directory.getAbsolutePath());
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                int c = Long.valueOf(getFrameNumber(f1)).compareTo(getFrameNumber(f2));
+                return c != 0 ? c : f1.getName().compareTo(f2.getName());
+            }
+        });
+        gray = new Mat();
+        // Frame size of the first image
+        readImage(files[0]);
+        width = gray.cols();
+        height = gray.rows();
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public byte[] nextFrame() throws IOException {
+        if (next >= files.length) {
+            return null;
+        }
+        readImage(files[next++]);
+        if (gray.cols() != width || gray.rows() != height) {
+            Imgproc.resize(gray, gray, new Size(width, height));
+        }
+        // Y plane + neutral chroma plane
+        byte[] frame = new byte[width * height * 3 / 2];
+        gray.get(0, 0, frame);
+        Arrays.fill(frame, width * height, frame.length, NEUTRAL_CHROMA);
+        return frame;
+    }
+
+    @Override
+    public void close() {
+        gray.release();
+    }
+
+    /**
+     * Get the number of a frame from its file name (i.e. 10 for 010.jpg).
+     *
+     * @param file image file.
+     * @return frame number.
+     */
+    private static long getFrameNumber(File file) {
+        String name = file.getName();
+        return Long.parseLong(name.substring(0, name.indexOf('.')));
+    }
+
+    /**
+     * Reads an image in gray scale.
+     *
+     * @param file image file.
+     * @throws IOException if the image cannot be read.
+     */
+    private void readImage(File file) throws IOException {
+        Mat img = Imgcodecs.imread(file.getAbsolutePath(), Imgcodecs.IMREAD_GRAYSCALE);
+        if (img.empty()) {
+            throw new IOException("Error reading image " + file.getAbsolutePath());
+        }
+        img.copyTo(gray);
+        img.release();
+    }
+}
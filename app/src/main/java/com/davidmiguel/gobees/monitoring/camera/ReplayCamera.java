@@ -0,0 +1,179 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.camera;
+
+import com.davidmiguel.gobees.logging.Log;
+
+import java.io.IOException;
+
+/**
+ * Camera that replays recorded frames from a FrameSource (image sequence or raw NV21 file)
+ * through the same AndroidCameraListener contract as the real camera.
+ * It does not depend on the Android camera, so recordings can be reprocessed with new
+ * parameters (and the pipeline profiled) on a plain JVM.
+ * Notes:
+ * - Frames are delivered in a dedicated thread.
+ * - In real time mode, a frame is delivered each period (given by the frame rate), like the
+ * real camera. Otherwise, frames are delivered as fast as possible.
+ * - When the source has no more frames, the replay ends (see awaitCompletion()).
+ * - The camera can be released from the listener (in the replay thread). Then, the replay ends
+ * when the listener returns.
+ */
+public class ReplayCamera implements AndroidCamera {
+
+    private final AndroidCameraListener user;
+    private final FrameSource source;
+    private final boolean realTime;
+    private volatile long initialDelay;
+    private volatile long frameRate;
+    private volatile boolean frameRateUpdated;
+    private CameraFrame cameraFrame;
+    private Thread replayThread;
+    private volatile boolean running;
+    private int numFrames;
+
+    /**
+     * ReplayCamera constructor.
+     *
+     * @param user         camera client.
+     * @param source       source of the frames.
+     * @param realTime     true to deliver a frame each period, false to deliver them as fast
+     *                     as possible.
+     * @param initialDelay time to wait before issue the first frame (in milliseconds).
+     * @param frameRate    period between frames (in milliseconds).
+     */
+    public ReplayCamera(AndroidCameraListener user, FrameSource source, boolean realTime,
+                        long initialDelay, long frameRate) {
+        this.user = user;
+        this.source = source;
+        this.realTime = realTime;
+        this.initialDelay = initialDelay;
+        this.frameRate = frameRate;
+    }
+
+    @Override
+    public synchronized void connect() {
+        if (!user.isOpenCvLoaded() || replayThread != null) {
+            return;
+        }
+        cameraFrame = new CameraFrame(source.getWidth(), source.getHeight());
+        running = true;
+        replayThread = new Thread(new ReplayTask(), "ReplayCamera");
+        replayThread.start();
+    }
+
+    @Override
+    public void release() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = replayThread;
+        }
+        // The replay thread cannot wait for itself (released from the listener)
+        if (thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            replayThread = null;
+            source.close();
+            if (cameraFrame != null) {
+                cameraFrame.release();
+                cameraFrame = null;
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean isConnected() {
+        return replayThread != null;
+    }
+
+    @Override
+    public void updateFrameRate(long delay, long period) {
+        this.initialDelay = delay;
+        this.frameRate = period;
+        this.frameRateUpdated = true;
+    }
+
+    /**
+     * Waits until all frames of the source have been delivered (or the camera is released).
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting.
+     */
+    public void awaitCompletion() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            thread = replayThread;
+        }
+        if (thread != null) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Get the number of frames delivered.
+     *
+     * @return number of frames.
+     */
+    public synchronized int getNumFrames() {
+        return numFrames;
+    }
+
+    /**
+     * Task that reads the frames of the source and delivers them to the client.
+     */
+    private class ReplayTask implements Runnable {
+        @Override
+        public void run() {
+            user.onCameraStarted(source.getWidth(), source.getHeight());
+            try {
+                long nextFrameTime = System.currentTimeMillis() + (realTime ? initialDelay : 0);
+                byte[] frame;
+                while (running && (frame = source.nextFrame()) != null) {
+                    if (realTime) {
+                        if (frameRateUpdated) {
+                            frameRateUpdated = false;
+                            nextFrameTime = System.currentTimeMillis() + initialDelay;
+                        }
+                        long wait = nextFrameTime - System.currentTimeMillis();
+                        if (wait > 0) {
+                            Thread.sleep(wait);
+                        }
+                        nextFrameTime += frameRate;
+                    }
+                    cameraFrame.putFrameData(frame);
+                    user.onPreviewFrame(cameraFrame);
+                    synchronized (ReplayCamera.this) {
+                        numFrames++;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Log.d("Replay interrupted.");
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                Log.e(e, "Error reading replay frame.");
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.camera;
+
+import com.davidmiguel.gobees.logging.Log;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Frame source that reads a raw recording: consecutive NV21 preview frames of the same size,
+ * without any header (width * height * 3 / 2 bytes each).
+ */
+public class YuvFileFrameSource implements FrameSource {
+
+    private final DataInputStream input;
+    private final int width;
+    private final int height;
+
+    /**
+     * YuvFileFrameSource constructor.
+     *
+     * @param file   raw NV21 file.
+     * @param width  frame width.
+     * @param height frame height.
+     * @throws IOException if the file cannot be opened.
+     */
+    public YuvFileFrameSource(File file, int width, int height) throws IOException {
+        this.input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public byte[] nextFrame() throws IOException {
+        byte[] frame = new byte[width * height * 3 / 2];
+        try {
+            input.readFully(frame);
+        } catch (EOFException e) {
+            // No more frames (an incomplete last frame is discarded)
+            return null;
+        }
+        return frame;
+    }
+
+    @Override
+    public void close() {
+        try {
+            input.close();
+        } catch (IOException e) {
+            Log.e(e, "Error closing raw recording.");
+        }
+    }
+}
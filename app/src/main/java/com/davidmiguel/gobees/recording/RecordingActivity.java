@@ -23,6 +23,7 @@ import android.os.Bundle;
 import com.davidmiguel.gobees.R;
 import com.davidmiguel.gobees.utils.AndroidUtils;
 import com.davidmiguel.gobees.utils.BaseActivity;
+import com.davidmiguel.gobees.utils.DefaultTaskScheduler;
 
 import java.util.Date;
 
@@ -77,6 +78,7 @@ public class RecordingActivity extends BaseActivity {
 
         // Create the presenter
         new RecordingPresenter(goBeesRepository, recordingFragment, apiaryId, hiveId,
-                new Date(startDate), new Date(endDate));
+                new Date(startDate), new Date(endDate),
+                new DefaultTaskScheduler(), RecordingChartDataCache.getInstance());
     }
 }
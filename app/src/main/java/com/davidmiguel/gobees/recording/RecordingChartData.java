@@ -0,0 +1,197 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.recording;
+
+import com.davidmiguel.gobees.data.model.MeteoRecord;
+import com.davidmiguel.gobees.data.model.Record;
+import com.davidmiguel.gobees.data.model.Recording;
+
+import java.util.List;
+
+/**
+ * Chart model of a recording. It contains the data of the bees, temperature, rain and wind
+ * charts as primitive arrays ready to be drawn, so it can be prepared in background.
+ * Timestamps are in seconds and relative to the first record.
+ */
+class RecordingChartData {
+
+    private long referenceTimestamp;
+    private long lastTimestamp;
+    private float[] beesTimestamps;
+    private float[] beesNumbers;
+    private int maxNumBees;
+    private float[] weatherTimestamps;
+    private float[] temperatures;
+    private float[] rains;
+    private float[] winds;
+    private float minTemperature;
+    private float maxTemperature;
+    private float maxRain;
+    private float maxWind;
+
+    private RecordingChartData() {
+    }
+
+    /**
+     * Builds the chart model of a recording (it must have at least one record).
+     *
+     * @param recording recording.
+     * @return chart model.
+     */
+    static RecordingChartData create(Recording recording) {
+        RecordingChartData data = new RecordingChartData();
+        data.setupBeesData(recording.getRecords());
+        List<MeteoRecord> meteo = recording.getMeteo();
+        if (meteo != null && !meteo.isEmpty()) {
+            data.setupWeatherData(meteo);
+        }
+        return data;
+    }
+
+    long getReferenceTimestamp() {
+        return referenceTimestamp;
+    }
+
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    float[] getBeesTimestamps() {
+        return beesTimestamps;
+    }
+
+    float[] getBeesNumbers() {
+        return beesNumbers;
+    }
+
+    int getMaxNumBees() {
+        return maxNumBees;
+    }
+
+    boolean hasWeather() {
+        return weatherTimestamps != null;
+    }
+
+    float[] getWeatherTimestamps() {
+        return weatherTimestamps;
+    }
+
+    float[] getTemperatures() {
+        return temperatures;
+    }
+
+    float[] getRains() {
+        return rains;
+    }
+
+    float[] getWinds() {
+        return winds;
+    }
+
+    float getMinTemperature() {
+        return minTemperature;
+    }
+
+    float getMaxTemperature() {
+        return maxTemperature;
+    }
+
+    float getMaxRain() {
+        return maxRain;
+    }
+
+    float getMaxWind() {
+        return maxWind;
+    }
+
+    /**
+     * Setup bees chart data.
+     *
+     * @param records list of records.
+     */
+    private void setupBeesData(List<Record> records) {
+        referenceTimestamp = records.get(0).getTimestamp().getTime() / 1000;
+        beesTimestamps = new float[records.size()];
+        beesNumbers = new float[records.size()];
+        maxNumBees = 0;
+        int i = 0;
+        for (Record record : records) {
+            // Convert timestamp to seconds and relative to first timestamp
+            beesTimestamps[i] = record.getTimestamp().getTime() / 1000 - referenceTimestamp;
+            int numBees = record.getNumBees();
+            beesNumbers[i] = numBees;
+            // Get max num of bees
+            if (numBees > maxNumBees) {
+                maxNumBees = numBees;
+            }
+            i++;
+        }
+        lastTimestamp = (long) beesTimestamps[beesTimestamps.length - 1];
+    }
+
+    /**
+     * Setup weather charts data.
+     * First and last entries are copies of the first and last weather records, placed at the
+     * beginning (0) and at the end (last timestamp) of the recording.
+     *
+     * @param meteo meteo records.
+     */
+    private void setupWeatherData(List<MeteoRecord> meteo) {
+        int size = meteo.size() + 2;
+        weatherTimestamps = new float[size];
+        temperatures = new float[size];
+        rains = new float[size];
+        winds = new float[size];
+        maxTemperature = Float.MIN_VALUE;
+        minTemperature = Float.MAX_VALUE;
+        maxRain = Float.MIN_VALUE;
+        maxWind = Float.MIN_VALUE;
+        int i = 1;
+        for (MeteoRecord meteoRecord : meteo) {
+            weatherTimestamps[i] =
+                    meteoRecord.getTimestamp().getTime() / 1000 - referenceTimestamp;
+            float temperature = (float) meteoRecord.getTemperature();
+            float rain = (float) meteoRecord.getRain();
+            float wind = (float) meteoRecord.getWindSpeed();
+            temperatures[i] = temperature;
+            rains[i] = rain;
+            winds[i] = wind;
+            // Get max and min values
+            maxTemperature = Math.max(maxTemperature, temperature);
+            minTemperature = Math.min(minTemperature, temperature);
+            maxRain = Math.max(maxRain, rain);
+            maxWind = Math.max(maxWind, wind);
+            i++;
+        }
+        weatherTimestamps[size - 1] = lastTimestamp;
+        copyEdges(temperatures);
+        copyEdges(rains);
+        copyEdges(winds);
+    }
+
+    /**
+     * Copies the first and last values to the extra entries of the beginning and the end.
+     *
+     * @param values values.
+     */
+    private static void copyEdges(float[] values) {
+        values[0] = values[1];
+        values[values.length - 1] = values[values.length - 2];
+    }
+}
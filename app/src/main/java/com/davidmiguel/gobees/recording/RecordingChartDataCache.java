@@ -0,0 +1,114 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.recording;
+
+import com.davidmiguel.gobees.utils.DateTimeUtils;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory LRU cache of the chart models of the last opened recordings, keyed by hive and
+ * day. It makes reopening a recording instant.
+ * Each entry keeps the data version of its hive (see GoBeesRepository.getDataVersion) when it
+ * was prepared. An entry of an older version is outdated (i.e. records have been appended
+ * while a recording is in progress) and it is not returned.
+ */
+class RecordingChartDataCache {
+
+    private static final int MAX_ENTRIES = 8;
+
+    private static RecordingChartDataCache instance = null;
+
+    private final Map<String, Entry> cache;
+
+    RecordingChartDataCache() {
+        // Access ordered, so the eldest entry is the least recently used one
+        cache = new LinkedHashMap<String, Entry>(MAX_ENTRIES + 1, 1f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+    }
+
+    /**
+     * Returns the single instance of this class, creating it if necessary.
+     *
+     * @return RecordingChartDataCache instance.
+     */
+    static synchronized RecordingChartDataCache getInstance() {
+        if (instance == null) {
+            instance = new RecordingChartDataCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Get the chart model of a recording.
+     *
+     * @param hiveId  hive id.
+     * @param day     day of the recording.
+     * @param version current data version of the hive.
+     * @return chart model or null if it is not cached or it is outdated.
+     */
+    synchronized RecordingChartData get(long hiveId, Date day, long version) {
+        String key = getKey(hiveId, day);
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.version != version) {
+            cache.remove(key);
+            return null;
+        }
+        return entry.chartData;
+    }
+
+    /**
+     * Caches the chart model of a recording.
+     *
+     * @param hiveId    hive id.
+     * @param day       day of the recording.
+     * @param version   data version of the hive the recording was loaded with.
+     * @param chartData chart model.
+     */
+    synchronized void put(long hiveId, Date day, long version, RecordingChartData chartData) {
+        cache.put(getKey(hiveId, day), new Entry(version, chartData));
+    }
+
+    private static String getKey(long hiveId, Date day) {
+        return hiveId + "_" + DateTimeUtils.setTime(day, 0, 0, 0, 0).getTime();
+    }
+
+    /**
+     * Cached chart model with the data version it was prepared from.
+     */
+    private static class Entry {
+
+        private final long version;
+        private final RecordingChartData chartData;
+
+        Entry(long version, RecordingChartData chartData) {
+            this.version = version;
+            this.chartData = chartData;
+        }
+    }
+}
@@ -20,7 +20,6 @@ package com.davidmiguel.gobees.recording;
 
 import android.support.annotation.NonNull;
 
-import com.davidmiguel.gobees.data.model.Recording;
 import com.davidmiguel.gobees.utils.BaseLoadDataPresenter;
 import com.davidmiguel.gobees.utils.BaseView;
 
@@ -50,9 +49,9 @@ interface RecordingContract {
         /**
          * Show recording details.
          *
-         * @param recording recording.
+         * @param chartData chart model of the recording.
          */
-        void showRecording(@NonNull Recording recording);
+        void showRecording(@NonNull RecordingChartData chartData);
 
         /**
          * Shows loading recording error message.
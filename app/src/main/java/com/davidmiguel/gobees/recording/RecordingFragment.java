@@ -19,6 +19,7 @@
 package com.davidmiguel.gobees.recording;
 
 import android.graphics.Color;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -27,17 +28,16 @@ import android.support.v4.app.Fragment;
 import android.support.v4.content.ContextCompat;
 import android.support.v7.app.ActionBar;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
 
 import com.davidmiguel.gobees.R;
-import com.davidmiguel.gobees.data.model.MeteoRecord;
-import com.davidmiguel.gobees.data.model.Record;
-import com.davidmiguel.gobees.data.model.Recording;
 import com.davidmiguel.gobees.data.source.preferences.GoBeesPreferences;
 import com.davidmiguel.gobees.utils.AndroidUtils;
+import com.davidmiguel.gobees.utils.ChartDownsampler;
 import com.davidmiguel.gobees.utils.HourAxisValueFormatter;
 import com.davidmiguel.gobees.utils.RainValueFormatter;
 import com.davidmiguel.gobees.utils.StringUtils;
@@ -52,6 +52,8 @@ import com.github.mikephil.charting.data.Entry;
 import com.github.mikephil.charting.data.LineData;
 import com.github.mikephil.charting.data.LineDataSet;
 import com.github.mikephil.charting.formatter.IAxisValueFormatter;
+import com.github.mikephil.charting.listener.ChartTouchListener;
+import com.github.mikephil.charting.listener.OnChartGestureListener;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -80,9 +82,15 @@ public class RecordingFragment extends Fragment implements RecordingContract.Vie
     private ImageView rainIcon;
     private ImageView windIcon;
 
-    private long referenceTimestamp;
     private long lastTimestamp;
 
+    // Full resolution bees data (it is downsampled to be drawn)
+    private float[] beesTimestamps;
+    private float[] beesNumbers;
+    private DownsampleTask beesDownsampleTask;
+    private float beesWindowFromX;
+    private float beesWindowToX;
+
     public RecordingFragment() {
         // Requires empty public constructor
     }
@@ -147,13 +155,14 @@ public class RecordingFragment extends Fragment implements RecordingContract.Vie
     }
 
     @Override
-    public void showRecording(@NonNull Recording recording) {
+    public void showRecording(@NonNull RecordingChartData chartData) {
         // Setup charts
-        setupBeesChart(recording.getRecords());
-        if (recording.getMeteo() != null && !recording.getMeteo().isEmpty()) {
-            setupTempChart(recording.getMeteo());
-            setupRainChart(recording.getMeteo());
-            setupWindChart(recording.getMeteo());
+        lastTimestamp = chartData.getLastTimestamp();
+        setupBeesChart(chartData);
+        if (chartData.hasWeather()) {
+            setupTempChart(chartData);
+            setupRainChart(chartData);
+            setupWindChart(chartData);
         } else {
             showNoWeatherData();
         }
@@ -251,27 +260,17 @@ public class RecordingFragment extends Fragment implements RecordingContract.Vie
     /**
      * Configure bees chart and the data.
      *
-     * @param recordsList list of records.
+     * @param chartData chart model of the recording.
      */
-    private void setupBeesChart(List<Record> recordsList) {
+    private void setupBeesChart(RecordingChartData chartData) {
         // Setup data
-        referenceTimestamp = recordsList.get(0).getTimestamp().getTime() / 1000;
-        Record[] records = recordsList.toArray(new Record[recordsList.size()]);
-        List<Entry> entries = new ArrayList<>();
-        int maxNumBees = 0;
-        for (Record record : records) {
-            // Convert timestamp to seconds and relative to first timestamp
-            long timestamp = record.getTimestamp().getTime() / 1000 - referenceTimestamp;
-            int numBees = record.getNumBees();
-            entries.add(new Entry(timestamp, numBees));
-            // Get max num of bees
-            if (numBees > maxNumBees) {
-                maxNumBees = numBees;
-            }
-        }
-        lastTimestamp = (long) entries.get(entries.size() - 1).getX();
+        long referenceTimestamp = chartData.getReferenceTimestamp();
+        beesTimestamps = chartData.getBeesTimestamps();
+        beesNumbers = chartData.getBeesNumbers();
+        int maxNumBees = chartData.getMaxNumBees();
         // Style char lines (type, color, etc.)
-        LineDataSet lineDataSet = new LineDataSet(entries, getString(R.string.num_bees));
+        LineDataSet lineDataSet =
+                new LineDataSet(new ArrayList<Entry>(), getString(R.string.num_bees));
         lineDataSet.setMode(LineDataSet.Mode.HORIZONTAL_BEZIER);
         lineDataSet.setCubicIntensity(0.2f);
         lineDataSet.setDrawValues(false);
@@ -285,9 +284,12 @@ public class RecordingFragment extends Fragment implements RecordingContract.Vie
         beesChart.getDescription().setEnabled(false);
         beesChart.getLegend().setEnabled(false);
         beesChart.setTouchEnabled(true);
-        beesChart.setDragEnabled(false);
-        beesChart.setScaleEnabled(false);
+        // Horizontal zoom (the visible window is downsampled again when the gesture ends)
+        beesChart.setDragEnabled(true);
+        beesChart.setScaleXEnabled(true);
+        beesChart.setScaleYEnabled(false);
         beesChart.setPinchZoom(false);
+        beesChart.setOnChartGestureListener(new BeesChartGestureListener());
         BeesMarkerView mv = new BeesMarkerView(getContext(), R.layout.recording_bees_marker_vew);
         mv.setChartView(beesChart);
         beesChart.setMarker(mv);
@@ -300,6 +302,9 @@ public class RecordingFragment extends Fragment implements RecordingContract.Vie
         xAxis.setDrawAxisLine(false);
         xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
         xAxis.setTextColor(Color.BLACK);
+        // Fixed range, so it does not change when the data is downsampled again
+        xAxis.setAxisMinimum(0);
+        xAxis.setAxisMaximum(lastTimestamp);
         // Y axis setup
         YAxis leftAxis = beesChart.getAxisLeft();
         leftAxis.setAxisMaximum(maxNumBees > 40 ? maxNumBees + 2 : 40);
@@ -311,134 +316,91 @@ public class RecordingFragment extends Fragment implements RecordingContract.Vie
         rightAxis.setAxisMinimum(0);
         rightAxis.setDrawGridLines(true);
         rightAxis.setDrawAxisLine(false);
-        // Add data
-        beesChart.setData(new LineData(lineDataSet));
+        // Add data (downsampled in background)
+        downsampleBeesChart(lineDataSet, 0, lastTimestamp);
     }
 
     /**
      * Configure temperature chart and the data.
      *
-     * @param meteo meteo records.
+     * @param chartData chart model of the recording.
      */
-    private void setupTempChart(List<MeteoRecord> meteo) {
-        // Setup data
-        List<Entry> entries = new ArrayList<>();
-        // Add as first entry a copy of the first temperature record
-        // First relative timestamp is 0
-        entries.add(new Entry(0, (float) meteo.get(0).getTemperature()));
-        // Add all temperature records
-        float maxTemp = Float.MIN_VALUE;
-        float minTemp = Float.MAX_VALUE;
-        for (MeteoRecord meteoRecord : meteo) {
-            // Convert timestamp to seconds and relative to first timestamp
-            long timestamp = meteoRecord.getTimestamp().getTime() / 1000 - referenceTimestamp;
-            float temperature = (float) meteoRecord.getTemperature();
-            entries.add(new Entry(timestamp, temperature));
-            // Get max and min temperature
-            if (temperature > maxTemp) {
-                maxTemp = temperature;
-            }
-            if (temperature < minTemp) {
-                minTemp = temperature;
-            }
-        }
-        // Add as last entry a copy of the last temperature record
-        entries.add(new Entry(lastTimestamp,
-                (float) meteo.get(meteo.size() - 1).getTemperature()));
+    private void setupTempChart(RecordingChartData chartData) {
         // Style char lines (type, color, etc.)
         TempValueFormatter tempValueFormatter = new TempValueFormatter(
                 GoBeesPreferences.isMetric(getContext()) ?
                         TempValueFormatter.Unit.CELSIUS : TempValueFormatter.Unit.FAHRENHEIT);
-        tempChart.setData(new LineData(
-                configureWeatherChart(tempChart, R.string.temperature,
-                        R.color.colorLineTempChart, R.color.colorFillTempChart,
-                        entries, tempValueFormatter, minTemp - 5, maxTemp + 5)
-        ));
+        LineDataSet lineDataSet = configureWeatherChart(tempChart, R.string.temperature,
+                R.color.colorLineTempChart, R.color.colorFillTempChart, tempValueFormatter,
+                chartData.getMinTemperature() - 5, chartData.getMaxTemperature() + 5);
+        // Add data (downsampled in background)
+        new DownsampleTask(tempChart, lineDataSet, chartData.getWeatherTimestamps(),
+                chartData.getTemperatures(), 0, lastTimestamp).execute();
     }
 
-
     /**
      * Configure rain chart and the data.
      *
-     * @param meteo meteo records.
+     * @param chartData chart model of the recording.
      */
-    private void setupRainChart(List<MeteoRecord> meteo) {
-        // Setup data
-        List<Entry> entries = new ArrayList<>();
-        // Add as first entry a copy of the first rain record
-        // First relative timestamp is 0
-        entries.add(new Entry(0, (float) meteo.get(0).getRain()));
-        // Add all rain records
-        float maxRain = Float.MIN_VALUE;
-        for (MeteoRecord meteoRecord : meteo) {
-            // Convert timestamp to seconds and relative to first timestamp
-            long timestamp = meteoRecord.getTimestamp().getTime() / 1000 - referenceTimestamp;
-            float rain = (float) meteoRecord.getRain();
-            entries.add(new Entry(timestamp, rain));
-            // Get max and min temperature
-            if (rain > maxRain) {
-                maxRain = rain;
-            }
-        }
-        // Add as last entry a copy of the last rain record
-        entries.add(new Entry(lastTimestamp, (float) meteo.get(meteo.size() - 1).getRain()));
+    private void setupRainChart(RecordingChartData chartData) {
         // Style char lines (type, color, etc.)
         RainValueFormatter rainValueFormatter = new RainValueFormatter(RainValueFormatter.Unit.MM);
-        rainChart.setData(new LineData(
-                configureWeatherChart(rainChart, R.string.rain,
-                        R.color.colorLineRainChart, R.color.colorFillRainChart,
-                        entries, rainValueFormatter, 0, maxRain + 1)
-        ));
+        LineDataSet lineDataSet = configureWeatherChart(rainChart, R.string.rain,
+                R.color.colorLineRainChart, R.color.colorFillRainChart,
+                rainValueFormatter, 0, chartData.getMaxRain() + 1);
+        // Add data (downsampled in background)
+        new DownsampleTask(rainChart, lineDataSet, chartData.getWeatherTimestamps(),
+                chartData.getRains(), 0, lastTimestamp).execute();
     }
 
-
     /**
      * Configure wind chart and the data.
      *
-     * @param meteo meteo records.
+     * @param chartData chart model of the recording.
      */
-    private void setupWindChart(List<MeteoRecord> meteo) {
-        // Setup data
-        List<Entry> entries = new ArrayList<>();
-        // Add as first entry a copy of the first wind record
-        // First relative timestamp is 0
-        entries.add(new Entry(0, (float) meteo.get(0).getWindSpeed()));
-        // Add all wind records
-        float maxWind = Float.MIN_VALUE;
-        for (MeteoRecord meteoRecord : meteo) {
-            // Convert timestamp to seconds and relative to first timestamp
-            long timestamp = meteoRecord.getTimestamp().getTime() / 1000 - referenceTimestamp;
-            float wind = (float) meteoRecord.getWindSpeed();
-            entries.add(new Entry(timestamp, wind));
-            // Get max and min temperature
-            if (wind > maxWind) {
-                maxWind = wind;
-            }
-        }
-        // Add as last entry a copy of the last wind record
-        entries.add(new Entry(lastTimestamp, (float) meteo.get(meteo.size() - 1).getWindSpeed()));
+    private void setupWindChart(RecordingChartData chartData) {
         // Style char lines (type, color, etc.)
         WindValueFormatter windValueFormatter = new WindValueFormatter(WindValueFormatter.Unit.MS);
-        windChart.setData(new LineData(
-                configureWeatherChart(windChart, R.string.wind,
-                        R.color.colorLineWindChart, R.color.colorFillWindChart,
-                        entries, windValueFormatter, 0, maxWind + 5)
-        ));
+        LineDataSet lineDataSet = configureWeatherChart(windChart, R.string.wind,
+                R.color.colorLineWindChart, R.color.colorFillWindChart,
+                windValueFormatter, 0, chartData.getMaxWind() + 5);
+        // Add data (downsampled in background)
+        new DownsampleTask(windChart, lineDataSet, chartData.getWeatherTimestamps(),
+                chartData.getWinds(), 0, lastTimestamp).execute();
+    }
+
+    /**
+     * Downsamples in background the given window of the bees chart and draws it.
+     * A downsampling still in progress is cancelled.
+     *
+     * @param lineDataSet bees chart data set.
+     * @param fromX       first visible x value.
+     * @param toX         last visible x value.
+     */
+    private void downsampleBeesChart(LineDataSet lineDataSet, float fromX, float toX) {
+        if (beesDownsampleTask != null) {
+            beesDownsampleTask.cancel(false);
+        }
+        beesWindowFromX = fromX;
+        beesWindowToX = toX;
+        beesDownsampleTask = new DownsampleTask(beesChart, lineDataSet,
+                beesTimestamps, beesNumbers, fromX, toX);
+        beesDownsampleTask.execute();
     }
 
     /**
      * Configure styles of weather charts.
      *
-     * @param entries   chart data.
      * @param formatter value formatter.
      * @param minVal    min value to show.
      * @param maxVal    max value to show.
-     * @return chart formatted.
+     * @return chart data set formatted (without data).
      */
     private LineDataSet configureWeatherChart(
             LineChart chart, int chartName, int colorLineTempChart, int colorFillTempChart,
-            List<Entry> entries, IAxisValueFormatter formatter, double minVal, double maxVal) {
-        LineDataSet lineDataSet = new LineDataSet(entries, getString(chartName));
+            IAxisValueFormatter formatter, double minVal, double maxVal) {
+        LineDataSet lineDataSet = new LineDataSet(new ArrayList<Entry>(), getString(chartName));
         lineDataSet.setMode(LineDataSet.Mode.HORIZONTAL_BEZIER);
         lineDataSet.setDrawValues(false);
         lineDataSet.setValueTextSize(10f);
@@ -486,4 +448,115 @@ public class RecordingFragment extends Fragment implements RecordingContract.Vie
         windChart.setNoDataText(getString(R.string.no_weather_data_available));
         windChart.getPaint(Chart.PAINT_INFO).setTextSize(textSize);
     }
+
+    /**
+     * Background task to downsample the data of a chart (from the full resolution data) to
+     * as many points as pixels has the chart width.
+     */
+    private class DownsampleTask extends AsyncTask<Void, Void, List<Entry>> {
+
+        private final LineChart chart;
+        private final LineDataSet lineDataSet;
+        private final float[] x;
+        private final float[] y;
+        private final float fromX;
+        private final float toX;
+        private final int threshold;
+
+        DownsampleTask(LineChart chart, LineDataSet lineDataSet, float[] x, float[] y,
+                       float fromX, float toX) {
+            this.chart = chart;
+            this.lineDataSet = lineDataSet;
+            this.x = x;
+            this.y = y;
+            this.fromX = fromX;
+            this.toX = toX;
+            // Chart width in pixels (screen width if it is not measured yet)
+            int width = (int) chart.getViewPortHandler().contentWidth();
+            this.threshold = width > 0 ? width : getResources().getDisplayMetrics().widthPixels;
+        }
+
+        @Override
+        protected List<Entry> doInBackground(Void... params) {
+            int[] indexes = ChartDownsampler.downsampleWindow(x, y, fromX, toX, threshold);
+            List<Entry> entries = new ArrayList<>(indexes.length);
+            for (int index : indexes) {
+                entries.add(new Entry(x[index], y[index]));
+            }
+            return entries;
+        }
+
+        @Override
+        protected void onPostExecute(List<Entry> entries) {
+            // The view may not be able to handle UI updates anymore
+            if (!isActive()) {
+                return;
+            }
+            lineDataSet.setValues(entries);
+            if (chart.getData() == null || chart.getData().getDataSetByIndex(0) != lineDataSet) {
+                chart.setData(new LineData(lineDataSet));
+            } else {
+                chart.getData().notifyDataChanged();
+                chart.notifyDataSetChanged();
+            }
+            chart.invalidate();
+        }
+    }
+
+    /**
+     * Downsamples again the bees chart when the visible window changes (zoom or drag).
+     */
+    private class BeesChartGestureListener implements OnChartGestureListener {
+
+        @Override
+        public void onChartGestureStart(MotionEvent me,
+                                        ChartTouchListener.ChartGesture lastPerformedGesture) {
+            // Nothing to do
+        }
+
+        @Override
+        public void onChartGestureEnd(MotionEvent me,
+                                      ChartTouchListener.ChartGesture lastPerformedGesture) {
+            if (beesChart.getData() == null) {
+                return;
+            }
+            float fromX = beesChart.getLowestVisibleX();
+            float toX = beesChart.getHighestVisibleX();
+            if (fromX != beesWindowFromX || toX != beesWindowToX) {
+                downsampleBeesChart((LineDataSet) beesChart.getData().getDataSetByIndex(0),
+                        fromX, toX);
+            }
+        }
+
+        @Override
+        public void onChartLongPressed(MotionEvent me) {
+            // Nothing to do
+        }
+
+        @Override
+        public void onChartDoubleTapped(MotionEvent me) {
+            // Nothing to do
+        }
+
+        @Override
+        public void onChartSingleTapped(MotionEvent me) {
+            // Nothing to do
+        }
+
+        @Override
+        public void onChartFling(MotionEvent me1, MotionEvent me2, float velocityX,
+                                 float velocityY) {
+            // Nothing to do
+        }
+
+        @Override
+        public void onChartScale(MotionEvent me, float scaleX, float scaleY) {
+            // Nothing to do
+        }
+
+        @Override
+        public void onChartTranslate(MotionEvent me, float dX, float dY) {
+            // Nothing to do
+        }
+    }
 }
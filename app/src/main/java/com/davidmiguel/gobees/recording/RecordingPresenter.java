@@ -21,6 +21,7 @@ package com.davidmiguel.gobees.recording;
 import com.davidmiguel.gobees.data.model.Recording;
 import com.davidmiguel.gobees.data.source.GoBeesDataSource.GetRecordingCallback;
 import com.davidmiguel.gobees.data.source.repository.GoBeesRepository;
+import com.davidmiguel.gobees.utils.TaskScheduler;
 
 import java.util.Date;
 
@@ -39,8 +40,12 @@ class RecordingPresenter implements RecordingContract.Presenter {
     private Date end;
     private Recording recording;
 
+    private TaskScheduler taskScheduler;
+    private RecordingChartDataCache chartDataCache;
+
     RecordingPresenter(GoBeesRepository goBeesRepository, RecordingContract.View view,
-                       long apiaryId, long hiveId, Date start, Date end) {
+                       long apiaryId, long hiveId, Date start, Date end,
+                       TaskScheduler taskScheduler, RecordingChartDataCache chartDataCache) {
         this.goBeesRepository = goBeesRepository;
         this.view = view;
         this.view.setPresenter(this);
@@ -48,6 +53,8 @@ class RecordingPresenter implements RecordingContract.Presenter {
         this.hiveId = hiveId;
         this.start = start;
         this.end = end;
+        this.taskScheduler = taskScheduler;
+        this.chartDataCache = chartDataCache;
     }
 
     @Override
@@ -84,17 +91,25 @@ class RecordingPresenter implements RecordingContract.Presenter {
     private void loadRecording(final Date start, Date end) {
         // Set title
         view.showTitle(start);
+        // Check if its chart model is already prepared
+        final long version = goBeesRepository.getDataVersion(hiveId);
+        RecordingChartData chartData = chartDataCache.get(hiveId, start, version);
+        if (chartData != null) {
+            view.setLoadingIndicator(false);
+            view.showRecording(chartData);
+            return;
+        }
         // Get recording
         goBeesRepository.getRecording(apiaryId, hiveId, start, end, new GetRecordingCallback() {
             @Override
             public void onRecordingLoaded(Recording r) {
                 recording = r;
-                // Hide loading indicator
-                view.setLoadingIndicator(false);
                 if (!recording.getRecords().isEmpty()) {
-                    // Show data
-                    view.showRecording(recording);
+                    // Prepare chart model and show data
+                    prepareChartData(start, version, recording);
                 } else {
+                    // Hide loading indicator
+                    view.setLoadingIndicator(false);
                     // No records
                     view.showNoRecords();
                 }
@@ -109,4 +124,35 @@ class RecordingPresenter implements RecordingContract.Presenter {
             }
         });
     }
+
+    /**
+     * Prepares in background the chart model of a recording, caches it and shows it.
+     *
+     * @param day       day of the recording.
+     * @param version   data version of the hive the recording was loaded with.
+     * @param recording recording.
+     */
+    private void prepareChartData(final Date day, final long version,
+                                  final Recording recording) {
+        taskScheduler.execute(new Runnable() {
+            @Override
+            public void run() {
+                final RecordingChartData chartData = RecordingChartData.create(recording);
+                chartDataCache.put(hiveId, day, version, chartData);
+                taskScheduler.notifyResult(new Runnable() {
+                    @Override
+                    public void run() {
+                        // The view may not be able to handle UI updates anymore
+                        if (!view.isActive()) {
+                            return;
+                        }
+                        // Hide loading indicator
+                        view.setLoadingIndicator(false);
+                        // Show data
+                        view.showRecording(chartData);
+                    }
+                });
+            }
+        });
+    }
 }
@@ -54,6 +54,8 @@ public class SettingsFragment extends PreferenceFragment implements SettingsCont
         // so the UI summary can be updated when the preference changes
         presenter.bindPreferenceSummaryToValue(
                 findPreference(getString(R.string.pref_weather_units_key)));
+        presenter.bindPreferenceSummaryToValue(
+                findPreference(getString(R.string.pref_records_retention_key)));
 
         // For all preferences that trigger some action, attach an OnPreferenceClickListener
         presenter.bindPreferenceClickListener(
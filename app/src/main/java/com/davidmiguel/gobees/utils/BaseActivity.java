@@ -36,7 +36,7 @@ public abstract class BaseActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
 
         // Init db
-        goBeesRepository = Injection.provideApiariesRepository();
+        goBeesRepository = Injection.provideApiariesRepository(this);
         goBeesRepository.openDb();
     }
 
@@ -0,0 +1,165 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+package com.davidmiguel.gobees.utils;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Reduces the number of points of a chart series while keeping its visual shape, so charts with
+ * thousands of records (e.g. a full day recording) can be drawn quickly.
+ * It implements the Largest-Triangle-Three-Buckets algorithm (Sveinn Steinarsson, 2013).
+ * Methods work with primitive arrays and do not depend on the UI, so they can be run in
+ * background.
+ */
+public final class ChartDownsampler {
+
+    // Min number of points that LTTB can select (first, last and one bucket)
+    private static final int MIN_THRESHOLD = 3;
+
+    private ChartDownsampler() {
+    }
+
+    /**
+     * Selects the most representative points of the series in the given range.
+     *
+     * @param x         x values (sorted in ascending order).
+     * @param y         y values.
+     * @param from      first index of the range (inclusive).
+     * @param to        last index of the range (exclusive).
+     * @param threshold max number of points to select (i.e. chart width in pixels).
+     * @return indexes of the selected points (sorted in ascending order).
+     */
+    @NonNull
+    public static int[] downsample(@NonNull float[] x, @NonNull float[] y, int from, int to,
+                                   int threshold) {
+        int length = to - from;
+        if (length <= 0) {
+            return new int[0];
+        }
+        if (threshold >= length || threshold < MIN_THRESHOLD) {
+            // Nothing to downsample
+            int[] all = new int[length];
+            for (int i = 0; i < length; i++) {
+                all[i] = from + i;
+            }
+            return all;
+        }
+        int[] sampled = new int[threshold];
+        // Bucket size (first and last points are always selected)
+        double every = (double) (length - 2) / (threshold - 2);
+        int a = from;
+        sampled[0] = a;
+        for (int i = 0; i < threshold - 2; i++) {
+            // Average point of the next bucket
+            int avgRangeStart = from + (int) Math.floor((i + 1) * every) + 1;
+            int avgRangeEnd = Math.min(from + (int) Math.floor((i + 2) * every) + 1, to);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgRangeStart; j < avgRangeEnd; j++) {
+                avgX += x[j];
+                avgY += y[j];
+            }
+            int avgRangeLength = avgRangeEnd - avgRangeStart;
+            avgX /= avgRangeLength;
+            avgY /= avgRangeLength;
+            // Point of the current bucket that forms the largest triangle with the previously
+            // selected point and the average point of the next bucket
+            int rangeStart = from + (int) Math.floor(i * every) + 1;
+            int rangeEnd = from + (int) Math.floor((i + 1) * every) + 1;
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((x[a] - avgX) * (y[j] - y[a])
+                        - (x[a] - x[j]) * (avgY - y[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            sampled[i + 1] = next;
+            a = next;
+        }
+        sampled[threshold - 1] = to - 1;
+        return sampled;
+    }
+
+    /**
+     * Selects the most representative points of the whole series, with more detail in the
+     * visible window. Points outside the window are kept at a coarse resolution, so the chart
+     * can be dragged before the new window is downsampled.
+     *
+     * @param x         x values (sorted in ascending order).
+     * @param y         y values.
+     * @param fromX     first visible x value.
+     * @param toX       last visible x value.
+     * @param threshold max number of points to select in the visible window.
+     * @return indexes of the selected points (sorted in ascending order).
+     */
+    @NonNull
+    public static int[] downsampleWindow(@NonNull float[] x, @NonNull float[] y, float fromX,
+                                         float toX, int threshold) {
+        // Include the points just outside the window, so lines reach the chart edges
+        int from = Math.max(lowerBound(x, fromX) - 1, 0);
+        int to = Math.min(lowerBound(x, toX) + 1, x.length);
+        int[] window = downsample(x, y, from, to, threshold);
+        if (from == 0 && to == x.length) {
+            return window;
+        }
+        int[] coarse = downsample(x, y, 0, x.length, threshold);
+        // Merge coarse points outside the window with the detailed ones inside
+        int[] merged = new int[coarse.length + window.length];
+        int n = 0;
+        int i = 0;
+        while (i < coarse.length && coarse[i] < from) {
+            merged[n++] = coarse[i++];
+        }
+        for (int index : window) {
+            merged[n++] = index;
+        }
+        while (i < coarse.length) {
+            if (coarse[i] >= to) {
+                merged[n++] = coarse[i];
+            }
+            i++;
+        }
+        int[] result = new int[n];
+        System.arraycopy(merged, 0, result, 0, n);
+        return result;
+    }
+
+    /**
+     * Get the index of the first value that is not less than the given one.
+     *
+     * @param sorted sorted values.
+     * @param value  value to search.
+     * @return index (sorted.length if all values are less).
+     */
+    private static int lowerBound(float[] sorted, float value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
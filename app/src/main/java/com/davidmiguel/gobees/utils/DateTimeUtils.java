@@ -29,7 +29,11 @@ import java.util.GregorianCalendar;
 public final class DateTimeUtils {
 
     public static final long T_5_SECONDS = 5000;
+    public static final long T_1_MINUTE = 60000;
+    public static final long T_10_MINUTES = 600000;
     public static final long T_15_MINUTES = 900000;
+    public static final long T_1_HOUR = 3600000;
+    public static final long T_1_WEEK = 604800000;
 
     private static final long ONE_HOUR_IN_MS = 3600000;
     private static final long ONE_MIN_IN_MS = 60000;
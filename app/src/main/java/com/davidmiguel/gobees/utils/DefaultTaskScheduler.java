@@ -0,0 +1,46 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.utils;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Task scheduler that executes the tasks in the AsyncTask thread pool and notifies the
+ * results through the main looper.
+ */
+public class DefaultTaskScheduler implements TaskScheduler {
+
+    private Handler handler;
+
+    public DefaultTaskScheduler() {
+        handler = new Handler(Looper.getMainLooper());
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(task);
+    }
+
+    @Override
+    public void notifyResult(Runnable task) {
+        handler.post(task);
+    }
+}
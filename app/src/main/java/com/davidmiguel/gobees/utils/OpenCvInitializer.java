@@ -0,0 +1,134 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+
+package com.davidmiguel.gobees.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+import com.davidmiguel.gobees.logging.Log;
+
+import org.opencv.android.BaseLoaderCallback;
+import org.opencv.android.LoaderCallbackInterface;
+import org.opencv.android.OpenCVLoader;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the OpenCV native libraries packaged in the apk (in-process, without OpenCV Manager).
+ * The libraries are loaded once, in a background thread, when the application starts. The
+ * service and the fragment wait for them with whenReady() instead of binding to OpenCV Manager.
+ * Notes:
+ * - All tasks run in the same single thread executor, so the callbacks always run after the
+ * libraries have been loaded (and they are posted to the main thread).
+ * - If the libraries are not packaged for the device ABI, it falls back to OpenCV Manager.
+ */
+public final class OpenCvInitializer {
+
+    private static ExecutorService executor;
+    private static Future<Boolean> loaded;
+
+    private OpenCvInitializer() {
+    }
+
+    /**
+     * Starts loading the OpenCV native libraries in a background thread.
+     * Should be done when the application starts (calling it again has no effect).
+     */
+    public static synchronized void init() {
+        if (loaded != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadExecutor();
+        loaded = executor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                long start = System.currentTimeMillis();
+                boolean success = OpenCVLoader.initDebug();
+                Log.d("OpenCV loaded in-process: %b (%d ms)", success,
+                        System.currentTimeMillis() - start);
+                return success;
+            }
+        });
+    }
+
+    /**
+     * Get the readiness of the OpenCV native libraries.
+     *
+     * @return future with true if they have been loaded in-process.
+     */
+    public static synchronized Future<Boolean> getReadiness() {
+        init();
+        return loaded;
+    }
+
+    /**
+     * Notifies the callback (in the main thread) when OpenCV is ready.
+     * If the libraries could not be loaded in-process, OpenCV Manager is used instead.
+     *
+     * @param context  context.
+     * @param callback OpenCV callback.
+     */
+    public static synchronized void whenReady(@NonNull final Context context,
+                                              @NonNull final BaseLoaderCallback callback) {
+        final Future<Boolean> readiness = getReadiness();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final boolean success = isLoaded(readiness);
+                new Handler(Looper.getMainLooper()).post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (success) {
+                            callback.onManagerConnected(LoaderCallbackInterface.SUCCESS);
+                        } else {
+                            Log.w("OpenCV libraries not packaged, using OpenCV Manager");
+                            OpenCVLoader.initAsync(OpenCVLoader.OPENCV_VERSION_3_2_0, context,
+                                    callback);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Waits for the libraries to be loaded.
+     *
+     * @param readiness readiness future.
+     * @return true if they have been loaded in-process.
+     */
+    private static boolean isLoaded(Future<Boolean> readiness) {
+        try {
+            return readiness.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            Log.e(e.getCause(), "Error loading OpenCV");
+            return false;
+        }
+    }
+}
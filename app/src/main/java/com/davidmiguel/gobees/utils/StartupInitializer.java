@@ -0,0 +1,242 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+
+package com.davidmiguel.gobees.utils;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import com.davidmiguel.gobees.logging.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the initialization tasks of the application with dependency ordering.
+ * Critical tasks run in the caller thread (the main thread) when start() is called, in the
+ * order they were added. The rest of tasks run in the executor (in parallel) as soon as all
+ * their dependencies have finished.
+ * Notes:
+ * - Critical tasks can only depend on critical tasks added before them.
+ * - If a task fails, the tasks that depend on it are skipped (they are finished but not run).
+ * - await() can be used to wait for a task that is needed before going on.
+ */
+public class StartupInitializer {
+
+    private final Executor executor;
+    private final Map<String, Task> tasks;
+    private boolean started;
+
+    /**
+     * StartupInitializer constructor.
+     *
+     * @param executor executor where the background tasks run.
+     */
+    public StartupInitializer(@NonNull Executor executor) {
+        this.executor = executor;
+        this.tasks = new LinkedHashMap<>();
+    }
+
+    /**
+     * Adds a task that must be finished when start() returns (it runs in the caller thread).
+     *
+     * @param name         task name.
+     * @param action       task action.
+     * @param dependencies names of the critical tasks it depends on.
+     * @return this initializer.
+     */
+    public StartupInitializer addCriticalTask(@NonNull String name, @NonNull Runnable action,
+                                              String... dependencies) {
+        for (String dependency : dependencies) {
+            Task task = tasks.get(dependency);
+            if (task == null || !task.critical) {
+                throw new IllegalArgumentException(
+                        "Critical task " + name + " can only depend on critical tasks.");
+            }
+        }
+        return addTask(new Task(name, action, true, dependencies));
+    }
+
+    /**
+     * Adds a task that runs in background when its dependencies have finished.
+     *
+     * @param name         task name.
+     * @param action       task action.
+     * @param dependencies names of the tasks it depends on (added before it).
+     * @return this initializer.
+     */
+    public StartupInitializer addTask(@NonNull String name, @NonNull Runnable action,
+                                      String... dependencies) {
+        for (String dependency : dependencies) {
+            if (!tasks.containsKey(dependency)) {
+                throw new IllegalArgumentException("Unknown dependency of " + name + ": "
+                        + dependency);
+            }
+        }
+        return addTask(new Task(name, action, false, dependencies));
+    }
+
+    /**
+     * Runs the critical tasks and schedules the background ones.
+     */
+    public void start() {
+        synchronized (this) {
+            if (started) {
+                throw new IllegalStateException("Initializer already started.");
+            }
+            started = true;
+        }
+        // Run critical tasks (they are in order, so their dependencies have already finished)
+        for (Task task : tasks.values()) {
+            if (task.critical) {
+                run(task);
+            }
+        }
+        // Schedule background tasks without dependencies (the rest are scheduled by the last
+        // dependency that finishes)
+        for (Task task : tasks.values()) {
+            if (!task.critical && task.dependencies.isEmpty()) {
+                schedule(task);
+            }
+        }
+    }
+
+    /**
+     * Waits for a task to finish.
+     *
+     * @param name    task name.
+     * @param timeout max time to wait.
+     * @param unit    time unit of the timeout.
+     * @return true if it has finished successfully (false if it failed, was skipped or the
+     * timeout elapsed).
+     * @throws InterruptedException if the current thread is interrupted while waiting.
+     */
+    public boolean await(@NonNull String name, long timeout, @NonNull TimeUnit unit)
+            throws InterruptedException {
+        Task task = tasks.get(name);
+        if (task == null) {
+            throw new IllegalArgumentException("Unknown task: " + name);
+        }
+        return task.finished.await(timeout, unit) && task.succeeded;
+    }
+
+    /**
+     * Adds a task and registers it as dependent of its dependencies.
+     */
+    private StartupInitializer addTask(Task task) {
+        if (started) {
+            throw new IllegalStateException("Initializer already started.");
+        }
+        if (tasks.containsKey(task.name)) {
+            throw new IllegalArgumentException("Duplicated task: " + task.name);
+        }
+        for (String dependency : task.dependencies) {
+            tasks.get(dependency).dependents.add(task);
+        }
+        tasks.put(task.name, task);
+        return this;
+    }
+
+    /**
+     * Runs a task in the executor.
+     */
+    private void schedule(final Task task) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                StartupInitializer.this.run(task);
+            }
+        });
+    }
+
+    /**
+     * Runs a task (or skips it if a dependency has failed) and schedules the background
+     * dependents that have no more pending dependencies.
+     */
+    private void run(Task task) {
+        if (task.skipped) {
+            Log.w("Startup task %s skipped", task.name);
+        } else {
+            long start = SystemClock.elapsedRealtime();
+            try {
+                task.action.run();
+                task.succeeded = true;
+                Log.d("Startup task %s finished in %d ms (%s)", task.name,
+                        SystemClock.elapsedRealtime() - start, Thread.currentThread().getName());
+            } catch (RuntimeException e) {
+                Log.e(e, "Startup task %s failed", task.name);
+            }
+        }
+        task.finished.countDown();
+        for (Task dependent : task.getDependents()) {
+            if (dependent.onDependencyFinished(task.succeeded) && !dependent.critical) {
+                schedule(dependent);
+            }
+        }
+    }
+
+    /**
+     * Initialization task.
+     */
+    private static class Task {
+
+        private final String name;
+        private final Runnable action;
+        private final boolean critical;
+        private final List<String> dependencies;
+        private final List<Task> dependents;
+        private final CountDownLatch finished;
+        private int pendingDependencies;
+        private volatile boolean skipped;
+        private volatile boolean succeeded;
+
+        Task(String name, Runnable action, boolean critical, String... dependencies) {
+            this.name = name;
+            this.action = action;
+            this.critical = critical;
+            this.dependencies = Arrays.asList(dependencies);
+            this.dependents = new ArrayList<>();
+            this.finished = new CountDownLatch(1);
+            this.pendingDependencies = dependencies.length;
+        }
+
+        /**
+         * Registers that a dependency has finished.
+         *
+         * @param succeeded whether the dependency succeeded.
+         * @return true if there are no more pending dependencies.
+         */
+        synchronized boolean onDependencyFinished(boolean succeeded) {
+            if (!succeeded) {
+                skipped = true;
+            }
+            return --pendingDependencies == 0;
+        }
+
+        synchronized List<Task> getDependents() {
+            return new ArrayList<>(dependents);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+
+package com.davidmiguel.gobees.utils;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import com.davidmiguel.gobees.logging.Log;
+
+/**
+ * Measures the application startup: time from the process start to the first screen with data
+ * (the apiaries list). Intermediate steps can be marked and they are reported with the total.
+ * Notes:
+ * - On API 24+, the trace starts when the process is created. In older versions, it starts
+ * when start() is called (Application.onCreate()).
+ * - Only the first finish() is reported (later screens are not startup).
+ */
+public final class StartupTrace {
+
+    private static long startTime = -1;
+    private static StringBuilder steps = new StringBuilder();
+    private static boolean finished;
+
+    private StartupTrace() {
+        // Utility class
+    }
+
+    /**
+     * Starts the trace. Should be called when the application is created.
+     */
+    public static synchronized void start() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            startTime = Process.getStartElapsedRealtime();
+        } else {
+            startTime = SystemClock.elapsedRealtime();
+        }
+    }
+
+    /**
+     * Marks an intermediate step of the startup.
+     *
+     * @param step step name.
+     */
+    public static synchronized void mark(@NonNull String step) {
+        if (startTime < 0 || finished) {
+            return;
+        }
+        if (steps.length() > 0) {
+            steps.append(", ");
+        }
+        steps.append(step).append(" +").append(getElapsedTime()).append(" ms");
+    }
+
+    /**
+     * Finishes the trace and reports the startup time (only the first time).
+     *
+     * @param milestone name of the screen shown.
+     */
+    public static synchronized void finish(@NonNull String milestone) {
+        if (startTime < 0 || finished) {
+            return;
+        }
+        finished = true;
+        Log.i("Startup: %d ms to %s (%s)", getElapsedTime(), milestone, steps);
+        steps = null;
+    }
+
+    /**
+     * Get elapsed time since the start of the trace.
+     *
+     * @return elapsed time (ms).
+     */
+    private static long getElapsedTime() {
+        return SystemClock.elapsedRealtime() - startTime;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.utils;
+
+/**
+ * Runs tasks in a background thread and delivers their results in the UI thread.
+ */
+public interface TaskScheduler {
+
+    /**
+     * Executes the given task in a background thread.
+     *
+     * @param task task to execute.
+     */
+    void execute(Runnable task);
+
+    /**
+     * Runs the given task in the UI thread (used to notify the result of a background task).
+     *
+     * @param task task to run.
+     */
+    void notifyResult(Runnable task);
+}
@@ -31,7 +31,7 @@ public class App extends BaseApp {
     protected void initRealm() {
         // Initialize Realm. Should only be done once when the application starts.
         Realm.init(this);
-        GoBeesDbConfig realmConfig = new GoBeesDbConfig();
+        GoBeesDbConfig realmConfig = new GoBeesDbConfig(this);
         // Delete all
         Realm.deleteRealm(realmConfig.getRealmConfiguration());
         // Set config
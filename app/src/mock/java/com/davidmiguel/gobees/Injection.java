@@ -18,8 +18,11 @@
 
 package com.davidmiguel.gobees;
 
+import android.content.Context;
+
 import com.davidmiguel.gobees.data.source.repository.GoBeesRepository;
 import com.davidmiguel.gobees.data.source.local.GoBeesLocalDataSource;
+import com.davidmiguel.gobees.data.source.network.FakeWeatherProvider;
 import com.davidmiguel.gobees.data.source.network.WeatherDataSource;
 
 /**
@@ -32,8 +35,8 @@ public class Injection {
     private Injection() {
     }
 
-    public static GoBeesRepository provideApiariesRepository() {
+    public static GoBeesRepository provideApiariesRepository(Context context) {
         return GoBeesRepository.getInstance(GoBeesLocalDataSource.getInstance(),
-                WeatherDataSource.getInstance());
+                WeatherDataSource.getInstance(context, new FakeWeatherProvider()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+package com.davidmiguel.gobees.data.source.network;
+
+import android.support.annotation.NonNull;
+
+import com.davidmiguel.gobees.data.model.MeteoRecord;
+import com.davidmiguel.gobees.utils.DateTimeUtils;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Local fake implementation of the weather provider.
+ * It generates deterministic weather data (from the time of the day) without network access,
+ * so weather related features can be tested hermetically.
+ */
+public class FakeWeatherProvider implements WeatherProvider {
+
+    private static final String CITY = "GoBees";
+    private static final int CONDITION_CLEAR = 800;
+    private static final String ICON_CLEAR = "01d";
+
+    @Override
+    public MeteoRecord getCurrentWeather(double latitude, double longitude) {
+        return generateMeteoRecord(new Date());
+    }
+
+    @NonNull
+    @Override
+    public List<MeteoRecord> getHistoricalWeather(double latitude, double longitude,
+                                                  Date start, Date end) {
+        // One record per hour (as the real provider)
+        List<MeteoRecord> meteoRecords = new ArrayList<>();
+        long first = start.getTime() - start.getTime() % DateTimeUtils.T_1_HOUR;
+        for (long t = first; t <= end.getTime(); t += DateTimeUtils.T_1_HOUR) {
+            if (t >= start.getTime()) {
+                meteoRecords.add(generateMeteoRecord(new Date(t)));
+            }
+        }
+        return meteoRecords;
+    }
+
+    @Override
+    public long getMaxHistoricalInterval() {
+        return DateTimeUtils.T_1_WEEK;
+    }
+
+    /**
+     * Generates a meteo record. Temperature follows a daily cycle (max at 15h).
+     *
+     * @param timestamp timestamp of the record.
+     * @return meteo record.
+     */
+    private MeteoRecord generateMeteoRecord(Date timestamp) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(timestamp);
+        double hour = calendar.get(Calendar.HOUR_OF_DAY) + calendar.get(Calendar.MINUTE) / 60.0;
+        double temperature = 18 + 8 * Math.cos((hour - 15) * Math.PI / 12);
+        return new MeteoRecord(timestamp, CITY, CONDITION_CLEAR, ICON_CLEAR, temperature,
+                temperature - 2, temperature + 2, 1013, 60, 3.5, 180, 10, 0, 0);
+    }
+}
@@ -1,7 +1,10 @@
 package com.davidmiguel.gobees;
 
+import android.content.Context;
+
 import com.davidmiguel.gobees.data.source.repository.GoBeesRepository;
 import com.davidmiguel.gobees.data.source.local.GoBeesLocalDataSource;
+import com.davidmiguel.gobees.data.source.network.OpenWeatherMapProvider;
 import com.davidmiguel.gobees.data.source.network.WeatherDataSource;
 
 /**
@@ -12,8 +15,8 @@ public class Injection {
     private Injection() {
     }
 
-    public static GoBeesRepository provideApiariesRepository() {
+    public static GoBeesRepository provideApiariesRepository(Context context) {
         return GoBeesRepository.getInstance(GoBeesLocalDataSource.getInstance(),
-                WeatherDataSource.getInstance());
+                WeatherDataSource.getInstance(context, new OpenWeatherMapProvider()));
     }
 }
\ No newline at end of file
@@ -19,6 +19,8 @@ package com.davidmiguel.gobees.data.model;
 
 import org.junit.Test;
 
+import java.util.Date;
+
 import static org.junit.Assert.*;
 
 /**
@@ -36,6 +38,11 @@ public class RecordTest {
         // num bees
         record.setNumBees(0);
         assertEquals(0, record.getNumBees());
+        // in and out events
+        Record flowRecord = new Record(new Date(), 3, 2, 1);
+        assertEquals(3, flowRecord.getNumBees());
+        assertEquals(2, flowRecord.getNumIn());
+        assertEquals(1, flowRecord.getNumOut());
         // equals
         Record newRecord = new Record();
         newRecord.setId(0);
@@ -0,0 +1,136 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+
+package com.davidmiguel.gobees.data.source.local;
+
+import com.davidmiguel.gobees.data.model.Record;
+import com.davidmiguel.gobees.data.model.RecordAggregate;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for RecordRollup.
+ */
+public class RecordRollupTest {
+
+    private static final long T0 = 1500000000000L - 1500000000000L % RecordRollup.TEN_MINUTES;
+
+    @Test
+    public void aggregateRecords_onePerMinute() {
+        List<Record> records = new ArrayList<>();
+        records.add(new Record(new Date(T0), 2, 1, 0));
+        records.add(new Record(new Date(T0 + 20000), 4, 0, 1));
+        records.add(new Record(new Date(T0 + 40000), 6, 2, 0));
+        records.add(new Record(new Date(T0 + RecordRollup.MINUTE + 5000), 10, 0, 3));
+        List<RecordAggregate> aggregates =
+                RecordRollup.aggregateRecords(records, RecordRollup.MINUTE);
+        assertEquals(2, aggregates.size());
+        RecordAggregate first = aggregates.get(0);
+        assertEquals(T0, first.getTimestamp().getTime());
+        assertEquals(RecordRollup.MINUTE, first.getResolution());
+        assertEquals(3, first.getCount());
+        assertEquals(2, first.getMinBees());
+        assertEquals(6, first.getMaxBees());
+        assertEquals(4, first.getMeanBees(), 0.001);
+        assertEquals(3, first.getNumIn());
+        assertEquals(1, first.getNumOut());
+        RecordAggregate second = aggregates.get(1);
+        assertEquals(T0 + RecordRollup.MINUTE, second.getTimestamp().getTime());
+        assertEquals(1, second.getCount());
+        assertEquals(10, second.getMeanBees(), 0.001);
+        assertEquals(3, second.getNumOut());
+    }
+
+    @Test
+    public void aggregateRecords_markersSkipped() {
+        List<Record> records = new ArrayList<>();
+        records.add(new Record(new Date(T0), -1, 0, 0));
+        records.add(new Record(new Date(T0 + 20000), 4, 0, 0));
+        records.add(new Record(new Date(T0 + 40000), 6, 0, 0));
+        records.add(new Record(new Date(T0 + RecordRollup.MINUTE + 5000), -1, 0, 0));
+        List<RecordAggregate> aggregates =
+                RecordRollup.aggregateRecords(records, RecordRollup.MINUTE);
+        // The start and end of the recording are not part of the statistics
+        assertEquals(1, aggregates.size());
+        assertEquals(2, aggregates.get(0).getCount());
+        assertEquals(4, aggregates.get(0).getMinBees());
+        assertEquals(5, aggregates.get(0).getMeanBees(), 0.001);
+    }
+
+    @Test
+    public void getRecordsBatchEnd_wholeMinutes() {
+        // Several records per minute (more than a batch)
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < RecordRollup.BATCH_SIZE + 10; i++) {
+            records.add(new Record(new Date(T0 + i * 7000L), 1));
+        }
+        Date limit = new Date(T0 + RecordRollup.TEN_MINUTES * 1000);
+        int end = RecordRollup.getRecordsBatchEnd(records, 0, limit);
+        // The batch is extended until the end of the minute of its last record
+        long lastMinute = records.get(RecordRollup.BATCH_SIZE - 1).getTimestamp().getTime()
+                / RecordRollup.MINUTE;
+        assertEquals(lastMinute, records.get(end - 1).getTimestamp().getTime()
+                / RecordRollup.MINUTE);
+        assertEquals(lastMinute + 1, records.get(end).getTimestamp().getTime()
+                / RecordRollup.MINUTE);
+        // Last batch
+        assertEquals(records.size(), RecordRollup.getRecordsBatchEnd(records, end, limit));
+    }
+
+    @Test
+    public void mergeAggregates_weightedByCount() {
+        List<RecordAggregate> aggregates = Arrays.asList(
+                new RecordAggregate(new Date(T0), RecordRollup.MINUTE, 1, 2, 2, 2, 1, 0),
+                new RecordAggregate(new Date(T0 + RecordRollup.MINUTE), RecordRollup.MINUTE,
+                        3, 1, 9, 6, 0, 2),
+                new RecordAggregate(new Date(T0 + RecordRollup.TEN_MINUTES),
+                        RecordRollup.MINUTE, 2, 5, 5, 5, 1, 1));
+        List<RecordAggregate> merged =
+                RecordRollup.mergeAggregates(aggregates, RecordRollup.TEN_MINUTES);
+        assertEquals(2, merged.size());
+        RecordAggregate first = merged.get(0);
+        assertEquals(T0, first.getTimestamp().getTime());
+        assertEquals(RecordRollup.TEN_MINUTES, first.getResolution());
+        assertEquals(4, first.getCount());
+        assertEquals(1, first.getMinBees());
+        assertEquals(9, first.getMaxBees());
+        assertEquals(5, first.getMeanBees(), 0.001);
+        assertEquals(1, first.getNumIn());
+        assertEquals(2, first.getNumOut());
+        assertEquals(2, merged.get(1).getCount());
+    }
+
+    @Test
+    public void toRecord_meanNumberOfBees() {
+        RecordAggregate aggregate =
+                new RecordAggregate(new Date(T0), RecordRollup.MINUTE, 4, 1, 9, 4.6, 2, 3);
+        Record record = aggregate.toRecord();
+        assertEquals(T0, record.getTimestamp().getTime());
+        assertEquals(5, record.getNumBees());
+        assertEquals(2, record.getNumIn());
+        assertEquals(3, record.getNumOut());
+    }
+}
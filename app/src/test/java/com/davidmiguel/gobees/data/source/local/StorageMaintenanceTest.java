@@ -0,0 +1,58 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+
+package com.davidmiguel.gobees.data.source.local;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for StorageMaintenance.
+ */
+public class StorageMaintenanceTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    public void shouldCompact_smallFileIsNotCompacted() {
+        assertFalse(StorageMaintenance.shouldCompact(MB, 0, false));
+        assertFalse(StorageMaintenance.shouldCompact(MB, 0, true));
+    }
+
+    @Test
+    public void shouldCompact_fragmentedFileIsCompacted() {
+        assertTrue(StorageMaintenance.shouldCompact(32 * MB, 10 * MB, false));
+    }
+
+    @Test
+    public void shouldCompact_fileWithLiveDataIsNotCompacted() {
+        assertFalse(StorageMaintenance.shouldCompact(32 * MB, 30 * MB, false));
+        assertFalse(StorageMaintenance.shouldCompact(32 * MB, 30 * MB, true));
+    }
+
+    @Test
+    public void shouldCompact_lowerThresholdsWhileCharging() {
+        assertFalse(StorageMaintenance.shouldCompact(4 * MB, 3 * MB, false));
+        assertTrue(StorageMaintenance.shouldCompact(4 * MB, 3 * MB, true));
+        assertFalse(StorageMaintenance.shouldCompact(32 * MB, 24 * MB, false));
+        assertTrue(StorageMaintenance.shouldCompact(32 * MB, 24 * MB, true));
+    }
+}
@@ -21,8 +21,11 @@ import com.davidmiguel.gobees.data.model.MeteoRecord;
 
 import org.junit.Test;
 
+import java.util.List;
+
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
 
 /**
  * OpenWeatherMapUtilsTest unit tests.
@@ -90,4 +93,49 @@ public class OpenWeatherMapUtilsTest {
         assertEquals("snow", 0, mr.getSnow(), 0);
     }
 
+    @Test
+    public void parseHistoricalWeatherJson() throws Exception {
+        String jsonResponse = "{\n"
+                + "   \"cod\":\"200\",\n"
+                + "   \"city_id\":2885679,\n"
+                + "   \"cnt\":2,\n"
+                + "   \"list\":[\n"
+                + "      {\n"
+                + "         \"dt\":1369821600,\n"
+                + "         \"main\":{\"temp\":289.5,\"pressure\":1013,\"humidity\":89,"
+                + "\"temp_min\":287.04,\"temp_max\":292.04},\n"
+                + "         \"wind\":{\"speed\":7.31,\"deg\":187.002},\n"
+                + "         \"clouds\":{\"all\":92},\n"
+                + "         \"rain\":{\"1h\":0.5},\n"
+                + "         \"weather\":[{\"id\":500,\"main\":\"Rain\","
+                + "\"description\":\"light rain\",\"icon\":\"10n\"}]\n"
+                + "      },\n"
+                + "      {\n"
+                + "         \"dt\":1369825200,\n"
+                + "         \"main\":{\"temp\":288.1,\"pressure\":1014,\"humidity\":91,"
+                + "\"temp_min\":286.0,\"temp_max\":290.0},\n"
+                + "         \"wind\":{\"speed\":5.1,\"deg\":190},\n"
+                + "         \"clouds\":{\"all\":90},\n"
+                + "         \"weather\":[{\"id\":804,\"main\":\"Clouds\","
+                + "\"description\":\"overcast clouds\",\"icon\":\"04n\"}]\n"
+                + "      }\n"
+                + "   ]\n"
+                + "}";
+        List<MeteoRecord> mrs = OpenWeatherMapUtils.parseHistoricalWeatherJson(jsonResponse);
+        assertEquals("size", 2, mrs.size());
+        assertEquals("timestamp", 1369821600000L, mrs.get(0).getTimestamp().getTime());
+        assertEquals("weatherCondition", 500, mrs.get(0).getWeatherCondition());
+        assertEquals("temperature", 289.5, mrs.get(0).getTemperature(), 0);
+        assertEquals("rain", 0.5, mrs.get(0).getRain(), 0);
+        assertEquals("timestamp", 1369825200000L, mrs.get(1).getTimestamp().getTime());
+        assertEquals("weatherConditionIcon", "04n", mrs.get(1).getWeatherConditionIcon());
+        assertEquals("rain", 0, mrs.get(1).getRain(), 0);
+    }
+
+    @Test
+    public void parseHistoricalWeatherJson_error() throws Exception {
+        String jsonResponse = "{\"cod\":401,\"message\":\"Invalid API key.\"}";
+        assertTrue(OpenWeatherMapUtils.parseHistoricalWeatherJson(jsonResponse).isEmpty());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.data.source.network;
+
+import android.content.SharedPreferences;
+
+import com.davidmiguel.gobees.data.model.MeteoRecord;
+import com.davidmiguel.gobees.utils.DateTimeUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * WeatherCache unit tests.
+ */
+public class WeatherCacheTest {
+
+    private static final String JSON = "{\"cod\":200}";
+
+    @Mock
+    private SharedPreferences preferences;
+
+    @Mock
+    private SharedPreferences.Editor editor;
+
+    private WeatherCache weatherCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(preferences.edit()).thenReturn(editor);
+        when(editor.putString(anyString(), anyString())).thenReturn(editor);
+        when(editor.putLong(anyString(), anyLong())).thenReturn(editor);
+        when(editor.remove(anyString())).thenReturn(editor);
+        weatherCache = new WeatherCache(preferences);
+    }
+
+    @Test
+    public void getKey_closeLocationsShareKey() {
+        assertEquals(WeatherCache.getKey(42.3401, -3.7001), WeatherCache.getKey(42.3399, -3.6999));
+        assertFalse(WeatherCache.getKey(42.34, -3.70).equals(WeatherCache.getKey(42.36, -3.70)));
+    }
+
+    @Test
+    public void getKey_negativeZeroIsNormalised() {
+        assertEquals("0.00_0.00", WeatherCache.getKey(-0.001, -0.004));
+        assertEquals(WeatherCache.getKey(0.001, 0.004), WeatherCache.getKey(-0.001, -0.004));
+    }
+
+    @Test
+    public void entry_freshness() {
+        long now = System.currentTimeMillis();
+        WeatherCache.Entry fresh = new WeatherCache.Entry(JSON, now);
+        assertTrue(fresh.isFresh(now));
+        assertTrue(fresh.isUsable(now));
+        WeatherCache.Entry stale = new WeatherCache.Entry(JSON, now - DateTimeUtils.T_15_MINUTES);
+        assertFalse(stale.isFresh(now));
+        assertTrue(stale.isUsable(now));
+        WeatherCache.Entry expired = new WeatherCache.Entry(JSON, now - 2 * DateTimeUtils.T_1_HOUR);
+        assertFalse(expired.isUsable(now));
+    }
+
+    @Test
+    public void toJson_fromJson_roundTrip() throws Exception {
+        long now = System.currentTimeMillis();
+        MeteoRecord original = createMeteoRecord(now);
+        MeteoRecord copy = WeatherCache.fromJson(WeatherCache.toJson(original), now);
+        assertEquals(now, copy.getTimestamp().getTime());
+        assertEquals("Burgos", copy.getCityName());
+        assertEquals(804, copy.getWeatherCondition());
+        assertEquals("04n", copy.getWeatherConditionIcon());
+        assertEquals(289.5, copy.getTemperature(), 0);
+        assertEquals(1013, copy.getPressure());
+        assertEquals(7.31, copy.getWindSpeed(), 0);
+        assertEquals(92, copy.getClouds());
+        assertEquals(1.5, copy.getRain(), 0);
+    }
+
+    @Test
+    public void put_isServedFromMemoryAndPersisted() {
+        long now = System.currentTimeMillis();
+        weatherCache.put(42.34, -3.70, createMeteoRecord(now));
+        verify(editor).apply();
+        WeatherCache.Entry entry = weatherCache.get(42.3401, -3.7001);
+        assertNotNull(entry);
+        assertEquals(now, entry.getTimestamp());
+        MeteoRecord meteoRecord = entry.getMeteoRecord();
+        assertNotNull(meteoRecord);
+        assertEquals("Burgos", meteoRecord.getCityName());
+        // Memory hit, disk is not read
+        verify(preferences, never()).getString(anyString(), anyString());
+    }
+
+    @Test
+    public void get_restoresFromDisk() {
+        long now = System.currentTimeMillis();
+        when(preferences.getString("weather_42.34_-3.70_json", null)).thenReturn(JSON);
+        when(preferences.getLong("weather_42.34_-3.70_timestamp", 0)).thenReturn(now);
+        WeatherCache.Entry entry = weatherCache.get(42.34, -3.70);
+        assertNotNull(entry);
+        assertEquals(JSON, entry.getJson());
+    }
+
+    @Test
+    public void get_expiredEntryIsEvicted() {
+        long old = System.currentTimeMillis() - 2 * DateTimeUtils.T_1_HOUR;
+        weatherCache.put(42.34, -3.70, createMeteoRecord(old));
+        assertNull(weatherCache.get(42.34, -3.70));
+        verify(editor).remove("weather_42.34_-3.70_json");
+    }
+
+    @Test
+    public void put_evictsExpiredEntriesOfOtherLocations() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> persisted = new HashMap<>();
+        persisted.put("weather_40.42_-3.70_json", JSON);
+        persisted.put("weather_40.42_-3.70_timestamp", now - 2 * DateTimeUtils.T_1_HOUR);
+        persisted.put("weather_41.65_-0.88_json", JSON);
+        persisted.put("weather_41.65_-0.88_timestamp", now);
+        persisted.put("other_timestamp", 0L);
+        Mockito.<Map<String, ?>>when(preferences.getAll()).thenReturn(persisted);
+        weatherCache.put(42.34, -3.70, createMeteoRecord(now));
+        verify(editor).remove("weather_40.42_-3.70_json");
+        verify(editor).remove("weather_40.42_-3.70_timestamp");
+        verify(editor, never()).remove("weather_41.65_-0.88_json");
+        verify(editor, never()).remove("other_timestamp");
+    }
+
+    private static MeteoRecord createMeteoRecord(long timestamp) {
+        return new MeteoRecord(new Date(timestamp), "Burgos", 804, "04n", 289.5, 287.04, 292.04,
+                1013, 89, 7.31, 187.002, 92, 1.5, 0);
+    }
+}
@@ -18,9 +18,11 @@
 package com.davidmiguel.gobees.data.source.repository;
 
 import com.davidmiguel.gobees.data.model.Apiary;
+import com.davidmiguel.gobees.data.model.AreaAdjustment;
 import com.davidmiguel.gobees.data.model.Hive;
 import com.davidmiguel.gobees.data.model.Record;
 import com.davidmiguel.gobees.data.model.Recording;
+import com.davidmiguel.gobees.data.model.SessionProfile;
 import com.davidmiguel.gobees.data.model.mothers.ApiaryMother;
 import com.davidmiguel.gobees.data.source.GoBeesDataSource;
 import com.davidmiguel.gobees.data.source.GoBeesDataSource.GetApiariesCallback;
@@ -321,6 +323,30 @@ public class GoBeesRepositoryTest {
                 eq(saveRecordingCallback));
     }
 
+    @Test
+    public void appendRecords_appendLocalDataSource() {
+        goBeesRepository.appendRecords(HIVE_ID, new ArrayList<Record>(), taskCallback);
+        verify(goBeesLocalDataSource).appendRecords(anyLong(), anyListOf(Record.class),
+                eq(taskCallback));
+    }
+
+    @Test
+    public void saveSessionProfile_saveLocalDataSource() {
+        List<Long> hiveIds = new ArrayList<>();
+        hiveIds.add(HIVE_ID);
+        goBeesRepository.saveSessionProfile(hiveIds, new SessionProfile(), taskCallback);
+        verify(goBeesLocalDataSource).saveSessionProfile(eq(hiveIds), any(SessionProfile.class),
+                eq(taskCallback));
+    }
+
+    @Test
+    public void saveAreaAdjustments_saveLocalDataSource() {
+        goBeesRepository.saveAreaAdjustments(HIVE_ID, new ArrayList<AreaAdjustment>(),
+                taskCallback);
+        verify(goBeesLocalDataSource).saveAreaAdjustments(anyLong(),
+                anyListOf(AreaAdjustment.class), eq(taskCallback));
+    }
+
     @Test
     public void getRecording_getFromLocalDataSource() {
         goBeesRepository.getRecording(APIARY_ID, HIVE_ID,
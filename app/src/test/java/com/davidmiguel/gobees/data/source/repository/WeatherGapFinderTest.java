@@ -0,0 +1,129 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+package com.davidmiguel.gobees.data.source.repository;
+
+import com.davidmiguel.gobees.data.model.MeteoRecord;
+import com.davidmiguel.gobees.utils.DateTimeUtils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * WeatherGapFinder unit tests.
+ */
+public class WeatherGapFinderTest {
+
+    private static final long NOW = 1500000000000L;
+    private static final long MINUTE = 60000;
+
+    @Test
+    public void findGaps_coveredRecordsHaveNoGaps() {
+        List<Date> records = dates(NOW - 60 * MINUTE, NOW - 50 * MINUTE, NOW - 40 * MINUTE);
+        List<Date> meteo = dates(NOW - 55 * MINUTE, NOW - 30 * MINUTE);
+        assertTrue(WeatherGapFinder.findGaps(records, meteo, NOW).isEmpty());
+    }
+
+    @Test
+    public void findGaps_withoutMeteoRecords() {
+        // Two recordings of the same day (morning and afternoon)
+        List<Date> records = dates(NOW - 300 * MINUTE, NOW - 299 * MINUTE, NOW - 250 * MINUTE,
+                NOW - 60 * MINUTE, NOW - 10 * MINUTE);
+        List<WeatherGapFinder.Gap> gaps =
+                WeatherGapFinder.findGaps(records, new ArrayList<Date>(), NOW);
+        assertEquals(2, gaps.size());
+        assertEquals(NOW - 300 * MINUTE, gaps.get(0).getStart());
+        assertEquals(NOW - 250 * MINUTE, gaps.get(0).getEnd());
+        assertEquals(NOW - 60 * MINUTE, gaps.get(1).getStart());
+        assertEquals(NOW - 10 * MINUTE, gaps.get(1).getEnd());
+    }
+
+    @Test
+    public void findGaps_partiallyCovered() {
+        List<Date> records = dates(NOW - 200 * MINUTE, NOW - 150 * MINUTE, NOW - 100 * MINUTE,
+                NOW - 50 * MINUTE);
+        List<Date> meteo = dates(NOW - 200 * MINUTE);
+        List<WeatherGapFinder.Gap> gaps = WeatherGapFinder.findGaps(records, meteo, NOW);
+        assertEquals(1, gaps.size());
+        assertEquals(NOW - 150 * MINUTE, gaps.get(0).getStart());
+        assertEquals(NOW - 50 * MINUTE, gaps.get(0).getEnd());
+    }
+
+    @Test
+    public void findGaps_oldRecordsAreIgnored() {
+        List<Date> records = dates(NOW - 2 * DateTimeUtils.T_1_WEEK);
+        assertTrue(WeatherGapFinder.findGaps(records, new ArrayList<Date>(), NOW).isEmpty());
+    }
+
+    @Test
+    public void filterGaps_keepsOnlyNewRecordsInsideGaps() {
+        List<Date> meteo = dates(NOW - 200 * MINUTE);
+        List<WeatherGapFinder.Gap> gaps = WeatherGapFinder.findGaps(
+                dates(NOW - 200 * MINUTE, NOW - 150 * MINUTE, NOW - 100 * MINUTE), meteo, NOW);
+        List<MeteoRecord> historical = new ArrayList<>();
+        for (long t = NOW - 240 * MINUTE; t <= NOW; t += 60 * MINUTE) {
+            historical.add(meteoRecord(t));
+        }
+        // Historical records: -240 (outside), -180 (inside, duplicated), -120 (inside),
+        // -60 (outside), 0 (outside)
+        List<MeteoRecord> filtered = WeatherGapFinder.filterGaps(historical, gaps, meteo);
+        assertEquals(1, filtered.size());
+        assertEquals(NOW - 120 * MINUTE, filtered.get(0).getTimestamp().getTime());
+    }
+
+    @Test
+    public void findUnfilledGaps_gapsWithoutHistoricalData() {
+        List<WeatherGapFinder.Gap> gaps = WeatherGapFinder.findGaps(
+                dates(NOW - 300 * MINUTE, NOW - 60 * MINUTE), new ArrayList<Date>(), NOW);
+        List<MeteoRecord> filtered = new ArrayList<>();
+        filtered.add(meteoRecord(NOW - 70 * MINUTE));
+        List<WeatherGapFinder.Gap> unfilled = WeatherGapFinder.findUnfilledGaps(gaps, filtered);
+        assertEquals(1, unfilled.size());
+        assertEquals(NOW - 300 * MINUTE, unfilled.get(0).getStart());
+    }
+
+    @Test
+    public void removeKnownGaps_skipsGapsInsideKnownOnes() {
+        List<WeatherGapFinder.Gap> known = new ArrayList<>();
+        known.add(new WeatherGapFinder.Gap(NOW - 300 * MINUTE, NOW - 250 * MINUTE));
+        List<WeatherGapFinder.Gap> gaps = WeatherGapFinder.findGaps(dates(NOW - 290 * MINUTE,
+                NOW - 260 * MINUTE, NOW - 60 * MINUTE), new ArrayList<Date>(), NOW);
+        List<WeatherGapFinder.Gap> remaining = WeatherGapFinder.removeKnownGaps(gaps, known);
+        assertEquals(1, remaining.size());
+        assertEquals(NOW - 60 * MINUTE, remaining.get(0).getStart());
+    }
+
+    private static List<Date> dates(long... timestamps) {
+        Date[] dates = new Date[timestamps.length];
+        for (int i = 0; i < timestamps.length; i++) {
+            dates[i] = new Date(timestamps[i]);
+        }
+        return Arrays.asList(dates);
+    }
+
+    private static MeteoRecord meteoRecord(long timestamp) {
+        return new MeteoRecord(new Date(timestamp), "Burgos", 800, "01d", 20, 18, 22, 1013, 60,
+                3.5, 180, 10, 0, 0);
+    }
+}
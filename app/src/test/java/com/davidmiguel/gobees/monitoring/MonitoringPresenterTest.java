@@ -17,12 +17,23 @@
 
 package com.davidmiguel.gobees.monitoring;
 
+import com.davidmiguel.gobees.data.model.Hive;
+import com.davidmiguel.gobees.data.source.GoBeesDataSource;
+import com.davidmiguel.gobees.data.source.repository.GoBeesRepository;
+
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,6 +45,9 @@ public class MonitoringPresenterTest {
     private static final long APIARY_ID = 1;
     private static final long HIVE_ID = 1;
 
+    @Mock
+    private GoBeesRepository goBeesRepository;
+
     @Mock
     private MonitoringContract.View view;
 
@@ -43,6 +57,9 @@ public class MonitoringPresenterTest {
     @Mock
     private MonitoringSettings monitoringSettings;
 
+    @Captor
+    private ArgumentCaptor<GoBeesDataSource.GetHivesCallback> getHivesCallbackCaptor;
+
     private MonitoringPresenter presenter;
 
     @Before
@@ -51,7 +68,8 @@ public class MonitoringPresenterTest {
         MockitoAnnotations.initMocks(this);
 
         // Get a reference to the class under test
-        presenter = new MonitoringPresenter(view, settingsView, APIARY_ID, HIVE_ID);
+        presenter = new MonitoringPresenter(goBeesRepository, view, settingsView,
+                APIARY_ID, HIVE_ID);
 
         // The presenter won't update the view unless it's active
         when(view.isActive()).thenReturn(true);
@@ -61,6 +79,7 @@ public class MonitoringPresenterTest {
     @Test
     public void onStartClicked_startMonitoring() {
         when(settingsView.getMonitoringSettings()).thenReturn(monitoringSettings);
+        when(monitoringSettings.hasEntranceHives()).thenReturn(true);
         presenter.startMonitoring();
         // Config view and start monitoring
         verify(view).hideCameraView();
@@ -69,6 +88,17 @@ public class MonitoringPresenterTest {
         verify(view).bindMonitoringService();
     }
 
+    @Test
+    public void onStartClickedWithoutEntranceHives_showError() {
+        when(settingsView.getMonitoringSettings()).thenReturn(monitoringSettings);
+        when(monitoringSettings.hasEntranceHives()).thenReturn(false);
+        presenter.startMonitoring();
+        // Show error in settings and don't start monitoring
+        verify(settingsView).showSettings();
+        verify(view).showEntranceHivesError();
+        verify(view, never()).startMonitoringService(any(MonitoringSettings.class));
+    }
+
     @Test
     public void onStopClicked_stopMonitoring() {
         presenter.stopMonitoring();
@@ -123,6 +153,11 @@ public class MonitoringPresenterTest {
         presenter.start(false);
         // Show preview
         verify(view).initOpenCV(eq(presenter));
+        // Set hives of the apiary in settings
+        List<Hive> hives = new ArrayList<>();
+        verify(goBeesRepository).getHives(eq(APIARY_ID), getHivesCallbackCaptor.capture());
+        getHivesCallbackCaptor.getValue().onHivesLoaded(hives);
+        verify(settingsView).setHives(eq(hives), eq(HIVE_ID));
     }
 
     @Test
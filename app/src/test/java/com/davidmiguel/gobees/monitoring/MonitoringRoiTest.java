@@ -0,0 +1,51 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring;
+
+import org.junit.Test;
+import org.opencv.core.Rect;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the implementation of MonitoringRoi.
+ */
+public class MonitoringRoiTest {
+
+    @Test
+    public void splitColumns_oneHive_wholeFrame() {
+        List<MonitoringRoi> rois = MonitoringRoi.splitColumns(Arrays.asList(7L));
+        assertEquals(1, rois.size());
+        assertEquals(7L, rois.get(0).getHiveId());
+        assertEquals(new Rect(0, 0, 640, 480), rois.get(0).toRect(640, 480));
+    }
+
+    @Test
+    public void splitColumns_threeHives_sideBySide() {
+        List<MonitoringRoi> rois = MonitoringRoi.splitColumns(Arrays.asList(1L, 2L, 3L));
+        assertEquals(3, rois.size());
+        assertEquals(new Rect(0, 0, 213, 480), rois.get(0).toRect(640, 480));
+        assertEquals(new Rect(213, 0, 214, 480), rois.get(1).toRect(640, 480));
+        assertEquals(new Rect(427, 0, 213, 480), rois.get(2).toRect(640, 480));
+        assertEquals(3L, rois.get(2).getHiveId());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring;
+
+import com.davidmiguel.gobees.data.model.SessionProfile;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the implementation of PerformanceRecorder.
+ */
+public class PerformanceRecorderTest {
+
+    private static final long FRAME_RATE = 1000;
+
+    private PerformanceRecorder recorder;
+
+    @Before
+    public void setUp() {
+        recorder = new PerformanceRecorder();
+    }
+
+    @Test
+    public void onFrame_notStarted_isIgnored() {
+        recorder.onFrame(1000, 10, FRAME_RATE);
+        assertEquals(0, recorder.getNumFrames());
+    }
+
+    @Test
+    public void onFrame_countsDroppedFrames() {
+        recorder.start(0, 0, 0);
+        recorder.onFrame(1000, 10, FRAME_RATE);
+        recorder.onFrame(2000, 10, FRAME_RATE);
+        // Slightly late frame, not dropped
+        recorder.onFrame(3400, 10, FRAME_RATE);
+        // Two frames not taken
+        recorder.onFrame(6400, 10, FRAME_RATE);
+        assertEquals(4, recorder.getNumFrames());
+        assertEquals(2, recorder.getNumDropped());
+    }
+
+    @Test
+    public void getLatencyPercentile_fromHistogram() {
+        recorder.start(0, 0, 0);
+        for (int i = 1; i <= 100; i++) {
+            recorder.onFrame(i * FRAME_RATE, i, FRAME_RATE);
+        }
+        assertEquals(50, recorder.getLatencyPercentile(0.5));
+        assertEquals(90, recorder.getLatencyPercentile(0.9));
+        assertEquals(99, recorder.getLatencyPercentile(0.99));
+        assertEquals(1, recorder.getLatencyPercentile(0));
+    }
+
+    @Test
+    public void getLatencyPercentile_longLatenciesInLastBin() {
+        recorder.start(0, 0, 0);
+        recorder.onFrame(FRAME_RATE, 10000, FRAME_RATE);
+        assertEquals(2000, recorder.getLatencyPercentile(0.5));
+    }
+
+    @Test
+    public void toProfile_summarizesSession() {
+        recorder.start(5000, 100, 200);
+        for (int i = 1; i <= 10; i++) {
+            recorder.onFrame(100 + i * FRAME_RATE, 20, FRAME_RATE);
+        }
+        SessionProfile profile = recorder.toProfile(100 + 10 * FRAME_RATE, 2200, "device");
+        assertEquals(5000, profile.getTimestamp().getTime());
+        assertEquals(10 * FRAME_RATE, profile.getDuration());
+        assertEquals(10, profile.getNumFrames());
+        assertEquals(0, profile.getNumDropped());
+        assertEquals(1.0, profile.getFps(), 1e-9);
+        assertEquals(20, profile.getLatencyP90(), 1e-9);
+        assertEquals(2000, profile.getCpuTime());
+        assertEquals("device", profile.getDevice());
+        // Not shared until the number of hives is set
+        assertEquals(1, profile.getNumHives());
+        profile.setNumHives(3);
+        assertEquals(3, profile.getNumHives());
+    }
+}
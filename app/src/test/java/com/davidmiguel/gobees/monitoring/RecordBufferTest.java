@@ -0,0 +1,132 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring;
+
+import com.davidmiguel.gobees.data.model.Record;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the implementation of RecordBuffer.
+ */
+public class RecordBufferTest {
+
+    private RecordBuffer buffer;
+
+    @Before
+    public void setUp() {
+        buffer = new RecordBuffer();
+    }
+
+    @Test
+    public void add_severalSegments() {
+        // One record per second during more than 3 hours
+        int n = 12000;
+        for (int i = 0; i < n; i++) {
+            buffer.add(i * 1000L, i % 7, i % 3, i % 2);
+        }
+        assertEquals(n, buffer.size());
+        assertEquals(0, buffer.getTimestamp(0));
+        assertEquals(5000 * 1000L, buffer.getTimestamp(5000));
+        assertEquals(5000 % 7, buffer.getNumBees(5000));
+        assertEquals((n - 1) % 3, buffer.getNumIn(n - 1));
+        assertEquals((n - 1) % 2, buffer.getNumOut(n - 1));
+    }
+
+    @Test
+    public void trimLast_removesLastSeconds() {
+        for (int i = 0; i < 20; i++) {
+            buffer.add(i * 1000L, 1, 0, 0);
+        }
+        buffer.trimLast(5000);
+        // Timestamps 15000 - 19000 removed
+        assertEquals(15, buffer.size());
+        assertEquals(14000, buffer.getTimestamp(buffer.size() - 1));
+    }
+
+    @Test
+    public void trimLast_shortRecording_empty() {
+        buffer.add(0, 1, 0, 0);
+        buffer.add(1000, 1, 0, 0);
+        buffer.trimLast(5000);
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void toRecords_allRecords() {
+        int n = 2500;
+        for (int i = 0; i < n; i++) {
+            buffer.add(i * 1000L, i, 1, 2);
+        }
+        buffer.setNumBees(0, -1);
+        List<Record> records = buffer.toRecords();
+        assertEquals(n, records.size());
+        assertEquals(-1, records.get(0).getNumBees());
+        assertEquals(n - 1, records.get(n - 1).getNumBees());
+        assertEquals((n - 1) * 1000L, records.get(n - 1).getTimestamp().getTime());
+        assertEquals(1, records.get(1500).getNumIn());
+        assertEquals(2, records.get(1500).getNumOut());
+    }
+
+    @Test
+    public void flush_keepsLastSeconds() {
+        // One record per second during more than one segment
+        int n = 1100;
+        for (int i = 0; i < n; i++) {
+            buffer.add(i * 1000L, i, 0, 0);
+        }
+        // Hand off all but the last 5 seconds and the record before them
+        int numRecords = buffer.countUntil(buffer.getTimestamp(n - 1) - 5000) - 1;
+        assertEquals(n - 6, numRecords);
+        List<Record> records = buffer.toRecords(numRecords);
+        buffer.removeFirst(numRecords);
+        assertEquals(numRecords, records.size());
+        assertEquals(n - 7, records.get(numRecords - 1).getNumBees());
+        assertEquals(6, buffer.size());
+        assertEquals(n - 6, buffer.getNumBees(0));
+        assertEquals((n - 1) * 1000L, buffer.getTimestamp(5));
+        // The record before the last seconds remains after trimming them
+        buffer.trimLast(5000);
+        assertEquals(1, buffer.size());
+    }
+
+    @Test
+    public void clear_bufferReused() {
+        for (int i = 0; i < 3000; i++) {
+            buffer.add(i, 1, 0, 0);
+        }
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+        buffer.add(5, 2, 0, 0);
+        assertEquals(1, buffer.size());
+        assertEquals(2, buffer.getNumBees(0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_outOfBounds() {
+        buffer.add(0, 1, 0, 0);
+        buffer.getNumBees(1);
+    }
+}
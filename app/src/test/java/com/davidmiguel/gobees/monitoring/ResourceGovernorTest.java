@@ -0,0 +1,94 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring;
+
+import com.davidmiguel.gobees.monitoring.ResourceGovernor.Policy;
+import com.davidmiguel.gobees.monitoring.ResourceGovernor.Step;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the implementation of ResourceGovernor.
+ */
+public class ResourceGovernorTest {
+
+    @Test
+    public void update_off_neverStepsDown() {
+        ResourceGovernor governor = new ResourceGovernor(Policy.OFF);
+        assertFalse(governor.update(1, false, 60));
+        assertEquals(Step.NORMAL, governor.getStep());
+    }
+
+    @Test
+    public void update_hot_stepsDownWorkload() {
+        ResourceGovernor governor = new ResourceGovernor(Policy.BALANCED);
+        assertFalse(governor.update(80, false, 35));
+        assertEquals(Step.NORMAL, governor.getStep());
+        assertTrue(governor.update(80, false, 41));
+        assertEquals(Step.REDUCED, governor.getStep());
+        assertTrue(governor.update(80, false, 46));
+        assertEquals(Step.MINIMAL, governor.getStep());
+    }
+
+    @Test
+    public void update_coolingDown_needsMargin() {
+        ResourceGovernor governor = new ResourceGovernor(Policy.BALANCED);
+        governor.update(80, false, 41);
+        // Just below the threshold, the step is kept
+        assertFalse(governor.update(80, false, 39));
+        assertEquals(Step.REDUCED, governor.getStep());
+        // Clearly cooler
+        assertTrue(governor.update(80, false, 37.5));
+        assertEquals(Step.NORMAL, governor.getStep());
+    }
+
+    @Test
+    public void update_lowBattery_onlyWhenNotCharging() {
+        ResourceGovernor governor = new ResourceGovernor(Policy.BALANCED);
+        assertFalse(governor.update(10, true, 30));
+        assertEquals(Step.NORMAL, governor.getStep());
+        assertTrue(governor.update(10, false, 30));
+        assertEquals(Step.MINIMAL, governor.getStep());
+        // Plugged again
+        assertTrue(governor.update(10, true, 30));
+        assertEquals(Step.NORMAL, governor.getStep());
+    }
+
+    @Test
+    public void getSettings_dependOnStep() {
+        ResourceGovernor governor = new ResourceGovernor(Policy.SAVER);
+        assertEquals(1000, governor.getFrameRate(1000));
+        assertEquals(1, governor.getDownscaleLevels(1));
+        assertTrue(governor.areOptionalStagesEnabled());
+        governor.update(40, false, 30);
+        assertEquals(Step.REDUCED, governor.getStep());
+        assertEquals(2000, governor.getFrameRate(1000));
+        assertEquals(2, governor.getDownscaleLevels(1));
+        assertTrue(governor.areOptionalStagesEnabled());
+        governor.update(20, false, 30);
+        assertEquals(Step.MINIMAL, governor.getStep());
+        assertEquals(4000, governor.getFrameRate(1000));
+        assertEquals(2, governor.getDownscaleLevels(1));
+        assertFalse(governor.areOptionalStagesEnabled());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring;
+
+import com.davidmiguel.gobees.monitoring.SessionCheckpointStore.Checkpoint;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the implementation of SessionCheckpointStore.
+ */
+public class SessionCheckpointStoreTest {
+
+    private static final long MAX_AGE = 3600000;
+    private static final long APIARY_ID = 1;
+    private static final long HIVE_ID = 2;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SessionCheckpointStore store;
+    private Checkpoint checkpoint;
+
+    @Before
+    public void setUp() {
+        store = new SessionCheckpointStore(folder.getRoot(), MAX_AGE);
+        MonitoringSettings settings = new MonitoringSettings();
+        settings.setApiaryId(APIARY_ID);
+        settings.setHiveId(HIVE_ID);
+        checkpoint = new Checkpoint(settings, 1000, Arrays.asList(HIVE_ID, HIVE_ID + 1));
+    }
+
+    @Test
+    public void load_withoutCheckpoint_returnsNull() {
+        assertNull(store.load());
+    }
+
+    @Test
+    public void saveAndLoad_restoresSession() {
+        checkpoint.addFlushed(0, 60, 61000);
+        checkpoint.addFlushed(1, 58, 59000);
+        checkpoint.addFlushed(0, 60, 121000);
+        assertTrue(store.save(checkpoint));
+        Checkpoint loaded = store.load();
+        assertNotNull(loaded);
+        assertEquals(APIARY_ID, loaded.getSettings().getApiaryId());
+        assertEquals(HIVE_ID, loaded.getSettings().getHiveId());
+        assertEquals(1000, loaded.getStartTime());
+        assertArrayEquals(new long[]{HIVE_ID, HIVE_ID + 1}, loaded.getHiveIds());
+        assertEquals(120, loaded.getNumFlushed(0));
+        assertEquals(121000, loaded.getLastFlushed(0));
+        assertEquals(58, loaded.getNumFlushed(1));
+        assertEquals(59000, loaded.getLastFlushed(1));
+    }
+
+    @Test
+    public void save_replacesPreviousCheckpoint() {
+        assertTrue(store.save(checkpoint));
+        checkpoint.addFlushed(0, 10, 10000);
+        assertTrue(store.save(checkpoint));
+        assertEquals(10, store.load().getNumFlushed(0));
+        // The temporary file has been renamed
+        assertEquals(1, folder.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void load_oldCheckpoint_returnsNull() {
+        assertTrue(store.save(checkpoint));
+        File file = folder.getRoot().listFiles()[0];
+        assertTrue(file.setLastModified(System.currentTimeMillis() - MAX_AGE - 1000));
+        assertNull(store.load());
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void delete_removesCheckpoint() {
+        assertTrue(store.save(checkpoint));
+        store.delete();
+        assertNull(store.load());
+    }
+
+    @Test
+    public void registerRecovery_countsConsecutiveRecoveries() {
+        long window = 600000;
+        assertEquals(1, checkpoint.registerRecovery(0, window));
+        assertEquals(2, checkpoint.registerRecovery(window, window));
+        assertEquals(3, checkpoint.registerRecovery(2 * window, window));
+        // Recovered after a long time, the count starts again
+        assertEquals(1, checkpoint.registerRecovery(4 * window, window));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the implementation of AreaCalibrator.
+ */
+public class AreaCalibratorTest {
+
+    private static final double DELTA = 0.5;
+
+    private AreaCalibrator calibrator;
+
+    @Before
+    public void setUp() {
+        calibrator = new AreaCalibrator(15, 800);
+        calibrator.setEnabled(true);
+    }
+
+    @Test
+    public void disabled_limitsNotChanged() {
+        calibrator.setEnabled(false);
+        assertFalse(calibrator.addArea(200));
+        addFrames(200, 10 * AreaCalibrator.CALIBRATION_INTERVAL);
+        assertEquals(15, calibrator.getMinArea(), DELTA);
+        assertEquals(800, calibrator.getMaxArea(), DELTA);
+    }
+
+    @Test
+    public void stableMode_limitsNotChanged() {
+        addFrames(200, 10 * AreaCalibrator.CALIBRATION_INTERVAL);
+        assertEquals(15, calibrator.getMinArea(), DELTA);
+        assertEquals(800, calibrator.getMaxArea(), DELTA);
+        assertTrue(calibrator.pollAdjustments().isEmpty());
+    }
+
+    @Test
+    public void modeDrift_limitsScaled() {
+        // Reference mode
+        addFrames(200, AreaCalibrator.CALIBRATION_INTERVAL);
+        // Zoom x1.4 (bees area x2)
+        addFrames(400, 10 * AreaCalibrator.CALIBRATION_INTERVAL);
+        assertEquals(30, calibrator.getMinArea(), DELTA);
+        assertEquals(1600, calibrator.getMaxArea(), DELTA);
+        List<AreaCalibrator.Adjustment> adjustments = calibrator.pollAdjustments();
+        assertEquals(1, adjustments.size());
+        assertEquals(1600, adjustments.get(0).getMaxArea(), DELTA);
+        // Polled adjustments are forgotten
+        assertTrue(calibrator.pollAdjustments().isEmpty());
+    }
+
+    @Test
+    public void setMinArea_calibrationRestarted() {
+        addFrames(200, AreaCalibrator.CALIBRATION_INTERVAL);
+        addFrames(400, 10 * AreaCalibrator.CALIBRATION_INTERVAL);
+        calibrator.setMinArea(20);
+        assertEquals(20, calibrator.getMinArea(), DELTA);
+        assertEquals(800, calibrator.getMaxArea(), DELTA);
+    }
+
+    @Test
+    public void addArea_boundedPerFrame() {
+        for (int i = 0; i < AreaCalibrator.MAX_AREAS_PER_FRAME; i++) {
+            assertTrue(calibrator.addArea(200));
+        }
+        assertFalse(calibrator.addArea(200));
+        calibrator.endFrame();
+        assertTrue(calibrator.addArea(200));
+    }
+
+    /**
+     * Adds frames with five bees of the given area and some noise.
+     *
+     * @param beeArea   area of the bees.
+     * @param numFrames number of frames.
+     */
+    private void addFrames(double beeArea, int numFrames) {
+        for (int i = 0; i < numFrames; i++) {
+            for (int j = 0; j < 5; j++) {
+                calibrator.addArea(beeArea);
+                calibrator.addArea(5);
+            }
+            calibrator.endFrame();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the implementation of CentroidTracker.
+ * Frames are 640x480 and the hive is at the bottom (line at y = 240).
+ */
+public class CentroidTrackerTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    private CentroidTracker tracker;
+    private int numIn;
+    private int numOut;
+
+    @Before
+    public void setUp() {
+        tracker = new CentroidTracker();
+        tracker.setLine(EntranceLine.middle(EntranceLine.HiveSide.BOTTOM));
+    }
+
+    @Test
+    public void beeEntering_inCounted() {
+        update(new double[]{100}, new double[]{180});
+        update(new double[]{105}, new double[]{220});
+        update(new double[]{110}, new double[]{260});
+        update(new double[]{115}, new double[]{300});
+        assertEquals(1, numIn);
+        assertEquals(0, numOut);
+    }
+
+    @Test
+    public void beeLeaving_outCounted() {
+        update(new double[]{300}, new double[]{300});
+        update(new double[]{300}, new double[]{250});
+        update(new double[]{300}, new double[]{200});
+        assertEquals(0, numIn);
+        assertEquals(1, numOut);
+    }
+
+    @Test
+    public void beeOnTheLine_notCounted() {
+        update(new double[]{300}, new double[]{230});
+        for (int i = 0; i < 10; i++) {
+            update(new double[]{300}, new double[]{i % 2 == 0 ? 236 : 244});
+        }
+        assertEquals(0, numIn);
+        assertEquals(0, numOut);
+    }
+
+    @Test
+    public void twoBees_crossingInOppositeDirections() {
+        update(new double[]{100, 500}, new double[]{220, 260});
+        update(new double[]{100, 500}, new double[]{260, 220});
+        assertEquals(1, numIn);
+        assertEquals(1, numOut);
+        assertEquals(2, tracker.getNumTracks());
+    }
+
+    @Test
+    public void lostTrack_removed() {
+        update(new double[]{100}, new double[]{200});
+        for (int i = 0; i <= CentroidTracker.MAX_MISSED_FRAMES; i++) {
+            update(new double[0], new double[0]);
+        }
+        assertEquals(0, tracker.getNumTracks());
+        // The bee appears again on the other side (new track)
+        update(new double[]{100}, new double[]{280});
+        assertEquals(0, numIn);
+    }
+
+    @Test
+    public void farCentroid_newTrack() {
+        update(new double[]{100}, new double[]{200});
+        update(new double[]{100 + 2 * CentroidTracker.MAX_DISTANCE}, new double[]{280});
+        assertEquals(0, numIn);
+        assertEquals(2, tracker.getNumTracks());
+    }
+
+    @Test
+    public void manyBees_capacityGrows() {
+        int n = 100;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = (i % 10) * 64 + 10;
+            ys[i] = (i / 10) * 20 + 10;
+        }
+        update(xs, ys);
+        for (int i = 0; i < n; i++) {
+            ys[i] += 300;
+        }
+        // Too far, all new tracks (old ones are kept for a few frames)
+        update(xs, ys);
+        assertEquals(2 * n, tracker.getNumTracks());
+    }
+
+    @Test
+    public void disabled_noEvents() {
+        tracker.setLine(null);
+        update(new double[]{100}, new double[]{200});
+        update(new double[]{100}, new double[]{280});
+        assertEquals(0, numIn);
+        assertEquals(0, numOut);
+    }
+
+    /**
+     * Updates the tracker with a frame and accumulates the events.
+     */
+    private void update(double[] xs, double[] ys) {
+        tracker.update(xs, ys, xs.length, WIDTH, HEIGHT);
+        numIn += tracker.getNumIn();
+        numOut += tracker.getNumOut();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.recording;
+
+import com.davidmiguel.gobees.data.model.MeteoRecord;
+import com.davidmiguel.gobees.data.model.Record;
+import com.davidmiguel.gobees.data.model.Recording;
+import com.davidmiguel.gobees.data.model.mothers.RecordMother;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for RecordingChartData.
+ */
+public class RecordingChartDataTest {
+
+    private static final long START = 1500000000000L;
+    private static final float DELTA = 0.0001f;
+
+    @Test
+    public void recordingWithoutWeather_onlyBeesData() {
+        RecordingChartData data = RecordingChartData.create(new Recording(new Date(START),
+                newRecords(4, 10, 25, 7)));
+        assertEquals(START / 1000, data.getReferenceTimestamp());
+        assertEquals(180, data.getLastTimestamp());
+        assertArrayEquals(new float[]{0, 60, 120, 180}, data.getBeesTimestamps(), DELTA);
+        assertArrayEquals(new float[]{4, 10, 25, 7}, data.getBeesNumbers(), DELTA);
+        assertEquals(25, data.getMaxNumBees());
+        assertFalse(data.hasWeather());
+    }
+
+    @Test
+    public void recordingWithWeather_weatherDataWithEdges() {
+        List<MeteoRecord> meteo = Arrays.asList(
+                newMeteoRecord(START + 30000, 15, 0, 2),
+                newMeteoRecord(START + 90000, 21, 1.5, 4));
+        RecordingChartData data = RecordingChartData.create(new Recording(new Date(START),
+                newRecords(4, 10, 25, 7), meteo));
+        assertTrue(data.hasWeather());
+        assertArrayEquals(new float[]{0, 30, 90, 180}, data.getWeatherTimestamps(), DELTA);
+        assertArrayEquals(new float[]{15, 15, 21, 21}, data.getTemperatures(), DELTA);
+        assertArrayEquals(new float[]{0, 0, 1.5f, 1.5f}, data.getRains(), DELTA);
+        assertArrayEquals(new float[]{2, 2, 4, 4}, data.getWinds(), DELTA);
+        assertEquals(15, data.getMinTemperature(), DELTA);
+        assertEquals(21, data.getMaxTemperature(), DELTA);
+        assertEquals(1.5f, data.getMaxRain(), DELTA);
+        assertEquals(4, data.getMaxWind(), DELTA);
+    }
+
+    @Test
+    public void cache_keyedByHiveAndDay() {
+        RecordingChartDataCache cache = new RecordingChartDataCache();
+        RecordingChartData data = RecordingChartData.create(new Recording(new Date(START),
+                newRecords(1, 2)));
+        cache.put(1, new Date(START), 3, data);
+        // Same day, other hour
+        assertEquals(data, cache.get(1, new Date(START + 60000), 3));
+        // Other hive
+        assertEquals(null, cache.get(2, new Date(START), 3));
+    }
+
+    @Test
+    public void cache_outdatedVersion() {
+        RecordingChartDataCache cache = new RecordingChartDataCache();
+        RecordingChartData data = RecordingChartData.create(new Recording(new Date(START),
+                newRecords(1, 2)));
+        cache.put(1, new Date(START), 3, data);
+        // Data of the hive changed
+        assertEquals(null, cache.get(1, new Date(START), 4));
+        // Outdated entry is removed
+        assertEquals(null, cache.get(1, new Date(START), 3));
+    }
+
+    private List<Record> newRecords(int... numBees) {
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < numBees.length; i++) {
+            records.add(RecordMother.newDefaultRecord(new Date(START + i * 60000), numBees[i]));
+        }
+        return records;
+    }
+
+    private MeteoRecord newMeteoRecord(long timestamp, double temperature, double rain,
+                                       double wind) {
+        return new MeteoRecord(new Date(timestamp), "", 0, "", temperature, temperature,
+                temperature, 0, 0, wind, 0, 0, rain, 0);
+    }
+}
@@ -22,6 +22,7 @@ import com.davidmiguel.gobees.data.model.Recording;
 import com.davidmiguel.gobees.data.model.mothers.RecordingMother;
 import com.davidmiguel.gobees.data.source.GoBeesDataSource.GetRecordingCallback;
 import com.davidmiguel.gobees.data.source.repository.GoBeesRepository;
+import com.davidmiguel.gobees.utils.ImmediateTaskScheduler;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -34,10 +35,13 @@ import org.mockito.MockitoAnnotations;
 import java.util.ArrayList;
 import java.util.Date;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -67,7 +71,8 @@ public class RecordingPresenterTest {
         MockitoAnnotations.initMocks(this);
 
         // Get a reference to the class under test
-        presenter = new RecordingPresenter(goBeesRepository, view, 0, HIVE_ID, DATE, DATE);
+        presenter = new RecordingPresenter(goBeesRepository, view, 0, HIVE_ID, DATE, DATE,
+                new ImmediateTaskScheduler(), new RecordingChartDataCache());
 
         // The presenter won't update the view unless it's active
         when(view.isActive()).thenReturn(true);
@@ -89,10 +94,35 @@ public class RecordingPresenterTest {
         InOrder inOrder = inOrder(view);
         // Then progress indicator is hidden and all hives are shown in UI
         inOrder.verify(view).setLoadingIndicator(false);
-        ArgumentCaptor<Recording> showRecordingArgumentCaptor = ArgumentCaptor.forClass(Recording.class);
+        ArgumentCaptor<RecordingChartData> showRecordingArgumentCaptor =
+                ArgumentCaptor.forClass(RecordingChartData.class);
         verify(view).showRecording(showRecordingArgumentCaptor.capture());
         // Assert that the recording is correct
-        assertTrue(showRecordingArgumentCaptor.getValue().getDate().equals(RECORDING.getDate()));
+        assertTrue(showRecordingArgumentCaptor.getValue().getReferenceTimestamp()
+                == RECORDING.getRecords().get(0).getTimestamp().getTime() / 1000);
+        assertEquals(RECORDING.getRecords().size(),
+                showRecordingArgumentCaptor.getValue().getBeesNumbers().length);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void reopenRecording_showCachedChartData() {
+        // Given a recording already shown
+        presenter.start();
+        verify(goBeesRepository).getRecording(anyLong(), anyLong(), any(Date.class), any(Date.class),
+                getRecordingCallbackArgumentCaptor.capture());
+        getRecordingCallbackArgumentCaptor.getValue().onRecordingLoaded(RECORDING);
+        ArgumentCaptor<RecordingChartData> showRecordingArgumentCaptor =
+                ArgumentCaptor.forClass(RecordingChartData.class);
+        verify(view).showRecording(showRecordingArgumentCaptor.capture());
+        // When it is opened again
+        reset(goBeesRepository, view);
+        when(view.isActive()).thenReturn(true);
+        presenter.start();
+        // Then the prepared chart data is shown without loading the recording
+        verify(goBeesRepository, never()).getRecording(anyLong(), anyLong(), any(Date.class),
+                any(Date.class), any(GetRecordingCallback.class));
+        verify(view).showRecording(showRecordingArgumentCaptor.getValue());
     }
 
     @SuppressWarnings("unchecked")
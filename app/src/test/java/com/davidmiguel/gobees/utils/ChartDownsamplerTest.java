@@ -0,0 +1,97 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+package com.davidmiguel.gobees.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for ChartDownsampler.
+ */
+public class ChartDownsamplerTest {
+
+    @Test
+    public void downsample_smallSeriesIsNotChanged() {
+        float[] x = {0, 1, 2, 3};
+        float[] y = {5, 3, 8, 1};
+        assertArrayEquals(new int[]{0, 1, 2, 3}, ChartDownsampler.downsample(x, y, 0, 4, 10));
+    }
+
+    @Test
+    public void downsample_keepsFirstLastAndThreshold() {
+        int n = 40000;
+        float[] x = new float[n];
+        float[] y = new float[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i;
+            y[i] = (float) Math.sin(i / 500.0) * 20;
+        }
+        int[] sampled = ChartDownsampler.downsample(x, y, 0, n, 1000);
+        assertEquals(1000, sampled.length);
+        assertEquals(0, sampled[0]);
+        assertEquals(n - 1, sampled[sampled.length - 1]);
+        for (int i = 1; i < sampled.length; i++) {
+            assertTrue(sampled[i] > sampled[i - 1]);
+        }
+    }
+
+    @Test
+    public void downsample_keepsPeaks() {
+        int n = 10000;
+        float[] x = new float[n];
+        float[] y = new float[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i;
+        }
+        // Isolated peak (i.e. swarming activity)
+        y[5003] = 50;
+        int[] sampled = ChartDownsampler.downsample(x, y, 0, n, 100);
+        boolean peakFound = false;
+        for (int index : sampled) {
+            peakFound |= index == 5003;
+        }
+        assertTrue(peakFound);
+    }
+
+    @Test
+    public void downsampleWindow_moreDetailInsideWindow() {
+        int n = 10000;
+        float[] x = new float[n];
+        float[] y = new float[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i;
+            y[i] = i % 7;
+        }
+        int[] sampled = ChartDownsampler.downsampleWindow(x, y, 4000, 4200, 100);
+        int inside = 0;
+        for (int i = 0; i < sampled.length; i++) {
+            if (i > 0) {
+                assertTrue(sampled[i] > sampled[i - 1]);
+            }
+            if (sampled[i] >= 4000 && sampled[i] <= 4200) {
+                inside++;
+            }
+        }
+        assertTrue(inside >= 95);
+        assertEquals(0, sampled[0]);
+        assertEquals(n - 1, sampled[sampled.length - 1]);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+
+package com.davidmiguel.gobees.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for StartupInitializer.
+ */
+public class StartupInitializerTest {
+
+    private LinkedList<Runnable> queue;
+    private List<String> executed;
+    private StartupInitializer initializer;
+
+    @Before
+    public void setup() {
+        queue = new LinkedList<>();
+        executed = new ArrayList<>();
+        // Executor that runs the tasks when runQueue() is called
+        initializer = new StartupInitializer(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queue.add(command);
+            }
+        });
+    }
+
+    @Test
+    public void start_criticalTasksRunBeforeReturning() {
+        initializer.addCriticalTask("a", record("a"))
+                .addCriticalTask("b", record("b"), "a")
+                .addTask("c", record("c"))
+                .start();
+        assertEquals(2, executed.size());
+        assertEquals("a", executed.get(0));
+        assertEquals("b", executed.get(1));
+        runQueue();
+        assertEquals("c", executed.get(2));
+    }
+
+    @Test
+    public void start_backgroundTasksRunAfterTheirDependencies() throws Exception {
+        initializer.addCriticalTask("realm", record("realm"))
+                .addTask("crashlytics", record("crashlytics"))
+                .addTask("reports", record("reports"), "realm", "crashlytics")
+                .start();
+        assertFalse(executed.contains("reports"));
+        runQueue();
+        assertEquals(3, executed.size());
+        assertEquals("reports", executed.get(2));
+        assertTrue(initializer.await("reports", 0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void start_dependentsOfFailedTaskAreSkipped() throws Exception {
+        initializer.addTask("a", new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("Error");
+            }
+        })
+                .addTask("b", record("b"), "a")
+                .addTask("c", record("c"), "b")
+                .start();
+        runQueue();
+        assertTrue(executed.isEmpty());
+        assertFalse(initializer.await("a", 0, TimeUnit.MILLISECONDS));
+        assertFalse(initializer.await("c", 0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void await_notFinishedTaskTimesOut() throws Exception {
+        initializer.addTask("a", record("a")).start();
+        assertFalse(initializer.await("a", 1, TimeUnit.MILLISECONDS));
+        runQueue();
+        assertTrue(initializer.await("a", 1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addCriticalTask_cannotDependOnBackgroundTask() {
+        initializer.addTask("a", record("a"))
+                .addCriticalTask("b", record("b"), "a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addTask_unknownDependency() {
+        initializer.addTask("a", record("a"), "b");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void start_onlyOnce() {
+        initializer.addTask("a", record("a")).start();
+        initializer.start();
+    }
+
+    private Runnable record(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                executed.add(name);
+            }
+        };
+    }
+
+    private void runQueue() {
+        while (!queue.isEmpty()) {
+            queue.removeFirst().run();
+        }
+    }
+}
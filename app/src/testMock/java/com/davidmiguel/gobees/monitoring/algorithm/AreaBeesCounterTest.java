@@ -17,23 +17,13 @@
 
 package com.davidmiguel.gobees.monitoring.algorithm;
 
-import android.annotation.SuppressLint;
-
-import com.davidmiguel.gobees.TestUtils;
-
-import org.apache.log4j.PropertyConfigurator;
-import org.junit.Before;
-import org.junit.BeforeClass;
 import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.text.DecimalFormat;
+import org.opencv.core.Scalar;
 
+import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertTrue;
 
 /**
@@ -41,23 +31,28 @@ import static junit.framework.Assert.assertTrue;
  * It calculates the relative error of the algorithm by using the manually counted frames.
  * This relative error is asserted with a max. error threshold.
  */
-@SuppressLint("DefaultLocale")
-public class AreaBeesCounterTest extends OpenCvBaseTest {
-
-    private static final String LOGGER_PROP = "src/testMock/res/log4j.properties";
-    private static final double MAX_ERROR_THRESHOLD = 0.1;
-    private static final int NUM_FRAMES_SKIP = 10;
-    private final Logger logger = LoggerFactory.getLogger(AreaBeesCounterTest.class);
-    private DecimalFormat df;
-
-    @BeforeClass
-    public static void setLogger() {
-        PropertyConfigurator.configure(LOGGER_PROP);
-    }
+public class AreaBeesCounterTest extends BeesCounterBaseTest {
 
-    @Before
-    public void setUp() throws Exception {
-        df = new DecimalFormat("##0.00%");
+    /**
+     * Changing the resolution in the middle of a session keeps the learned background.
+     */
+    @Test
+    public void downscaleLevelsKeepBackground() throws Exception {
+        BeesCounter bc = new AreaBeesCounter();
+        Mat background = new Mat(48, 64, CvType.CV_8U, new Scalar(100));
+        try {
+            bc.updateBackgroundType(BeesCounter.BackgroundType.APPROXIMATE_MEDIAN);
+            bc.setBackgroundImage(background);
+            bc.updateDownscaleLevels(1);
+            background.release();
+            background = bc.getBackgroundImage();
+            assertEquals(64, background.cols());
+            assertEquals(48, background.rows());
+            assertEquals(100, Core.mean(background).val[0], 1);
+        } finally {
+            background.release();
+            bc.release();
+        }
     }
 
     /**
@@ -66,11 +61,15 @@ public class AreaBeesCounterTest extends OpenCvBaseTest {
     @Test
     public void case1() throws Exception {
         logger.debug("Case1:");
-        BeesCounter bc = AreaBeesCounter.getInstance();
-        bc.updateBlobSize(BeesCounter.BlobSize.NORMAL);
-        double error = calculateRelativeError(bc, "c14");
-        System.out.println("Error case1: " + df.format(error));
-        assertTrue(error < MAX_ERROR_THRESHOLD);
+        BeesCounter bc = new AreaBeesCounter();
+        try {
+            bc.updateBlobSize(BeesCounter.BlobSize.NORMAL);
+            double error = calculateRelativeError(bc, "c14");
+            System.out.println("Error case1: " + df.format(error));
+            assertTrue(error < MAX_ERROR_THRESHOLD);
+        } finally {
+            bc.release();
+        }
     }
 
     /**
@@ -79,13 +78,17 @@ public class AreaBeesCounterTest extends OpenCvBaseTest {
     @Test
     public void case2() throws Exception {
         logger.debug("Case2:");
-        BeesCounter bc = AreaBeesCounter.getInstance();
-        bc.updateBlobSize(BeesCounter.BlobSize.SMALL);
-        bc.updateMinArea(10.0);
-        bc.updateMaxArea(800.0);
-        double error = calculateRelativeError(bc, "c17");
-        System.out.println("Error case2: " + df.format(error));
-        assertTrue(error < MAX_ERROR_THRESHOLD);
+        BeesCounter bc = new AreaBeesCounter();
+        try {
+            bc.updateBlobSize(BeesCounter.BlobSize.SMALL);
+            bc.updateMinArea(10.0);
+            bc.updateMaxArea(800.0);
+            double error = calculateRelativeError(bc, "c17");
+            System.out.println("Error case2: " + df.format(error));
+            assertTrue(error < MAX_ERROR_THRESHOLD);
+        } finally {
+            bc.release();
+        }
     }
 
     /**
@@ -94,80 +97,76 @@ public class AreaBeesCounterTest extends OpenCvBaseTest {
     @Test
     public void case3() throws Exception {
         logger.debug("Case3:");
-        BeesCounter bc = AreaBeesCounter.getInstance();
-        bc.updateBlobSize(BeesCounter.BlobSize.BIG);
-        bc.updateMinArea(30.0);
-        bc.updateMaxArea(2000.0);
-        double error = calculateRelativeError(bc, "c5");
-        System.out.println("Error case3: " + df.format(error));
-        assertTrue(error < MAX_ERROR_THRESHOLD);
+        BeesCounter bc = new AreaBeesCounter();
+        try {
+            bc.updateBlobSize(BeesCounter.BlobSize.BIG);
+            bc.updateMinArea(30.0);
+            bc.updateMaxArea(2000.0);
+            double error = calculateRelativeError(bc, "c5");
+            System.out.println("Error case3: " + df.format(error));
+            assertTrue(error < MAX_ERROR_THRESHOLD);
+        } finally {
+            bc.release();
+        }
     }
 
     /**
-     * Calculate the relative error from the output of the algorithm and the expected values
-     * obtained manually.
-     *
-     * @param bc      bees counter instance.
-     * @param dataset dataset of frames to process.
-     * @return relative error.
+     * Reports the relative error and processing time at full, half and quarter resolution.
+     * The error at half resolution is asserted with the max. error threshold.
+     * Each case uses new counters, so the background model of a case does not affect the next.
      */
-    @SuppressWarnings({"UnusedAssignment", "unused"})
-    private double calculateRelativeError(BeesCounter bc, String dataset) throws Exception {
-        int i = 1;
-        long totalAbsoluteError = 0;
-        long expectedNumBeesTotal = 0;
-
-        File expectedOutputs =
-                TestUtils.getFileFromPath(this, "res/img/" + dataset + "/numBees.txt");
-        try (BufferedReader br = new BufferedReader(new FileReader(expectedOutputs))) {
-            // Process NUM_FRAMES_SKIP frames to create background model
-            for (String line; i <= NUM_FRAMES_SKIP && (line = br.readLine()) != null; i++) {
-                bc.countBees(readFreame(i, dataset));
-            }
-            // Compare beesCounter output with the expected output
-            int expectedNumBees;
-            int numBees;
-            for (String line; (line = br.readLine()) != null; i++) {
-                // Get number of bees in the frame (expected and output)
-                expectedNumBeesTotal += expectedNumBees = Integer.parseInt(line);
-                numBees = bc.countBees(readFreame(i, dataset));
-                // Calculate and log absolute error
-                int absoluteError = expectedNumBees - numBees;
-                logger.debug("{}:{}", i, absoluteError);
-                totalAbsoluteError += Math.abs(absoluteError);
-                // If they are not equal -> save frame to revise
-                if (expectedNumBees != numBees) {
-                    saveFrames(bc.getProcessedFrame(), i, expectedNumBees, numBees);
+    @Test
+    public void downscaled() throws Exception {
+        for (int i = 0; i < DATASETS.length; i++) {
+            for (int levels = 0; levels <= 2; levels++) {
+                BeesCounter bc = new AreaBeesCounter();
+                BeesCounter timedBc = new AreaBeesCounter();
+                try {
+                    configure(bc, i);
+                    bc.updateDownscaleLevels(levels);
+                    configure(timedBc, i);
+                    timedBc.updateDownscaleLevels(levels);
+                    double error = calculateRelativeError(bc, DATASETS[i]);
+                    double time = calculateAverageTime(timedBc, DATASETS[i]);
+                    System.out.println(String.format("%s downscale x%d: error %s, %.2f ms/frame",
+                            DATASETS[i], 1 << levels, df.format(error), time));
+                    if (levels <= 1) {
+                        assertTrue(error < MAX_ERROR_THRESHOLD);
+                    }
+                } finally {
+                    bc.release();
+                    timedBc.release();
                 }
             }
         }
-        // Calculate relative error
-        return totalAbsoluteError / (double) expectedNumBeesTotal;
-    }
-
-    /**
-     * Saves a mat to jpg file with the following name:
-     * {id}_e{expectedNumBees}_o{numBees}.jpg
-     * Ex: 001_e5_o4.jpg
-     *
-     * @param frame           mat to save.
-     * @param id              id of the frame.
-     * @param expectedNumBees expected number of bees.
-     * @param numBees         output number of bees.
-     */
-    private void saveFrames(Mat frame, int id, int expectedNumBees, int numBees) {
-        TestUtils.saveMatToFile(frame,
-                String.format("/img/%03d_e%d_o%d", id, expectedNumBees, numBees));
     }
 
     /**
-     * Reads an image from test resources and returns it as a OpenCV Mat.
-     *
-     * @param i       index of the image.
-     * @param dataset dataset that belongs the image.
-     * @return mat of the image.
+     * Reports the relative error and processing time of each background model.
+     * The error of all models is asserted with the max. error threshold.
+     * Each case uses new counters, so the background model of a case does not affect the next.
      */
-    private Mat readFreame(int i, String dataset) {
-        return TestUtils.loadGrayImage("res/img/" + dataset + String.format("/%03d", i) + ".jpg");
+    @Test
+    public void backgroundModels() throws Exception {
+        for (int i = 0; i < DATASETS.length; i++) {
+            for (BeesCounter.BackgroundType type : BeesCounter.BackgroundType.values()) {
+                BeesCounter bc = new AreaBeesCounter();
+                BeesCounter timedBc = new AreaBeesCounter();
+                try {
+                    configure(bc, i);
+                    bc.updateBackgroundType(type);
+                    configure(timedBc, i);
+                    timedBc.updateBackgroundType(type);
+                    double error = calculateRelativeError(bc, DATASETS[i]);
+                    double time = calculateAverageTime(timedBc, DATASETS[i]);
+                    System.out.println(String.format("%s %s: error %s, %.2f ms/frame",
+                            DATASETS[i], type, df.format(error), time));
+                    assertTrue(error < MAX_ERROR_THRESHOLD);
+                } finally {
+                    bc.release();
+                    timedBc.release();
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,207 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import android.annotation.SuppressLint;
+
+import com.davidmiguel.gobees.TestUtils;
+
+import org.apache.log4j.PropertyConfigurator;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.opencv.core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for the integration tests of the bee counter algorithms.
+ * It uses the manually counted frames of the datasets to calculate the relative error and the
+ * processing time of an algorithm.
+ */
+@SuppressLint("DefaultLocale")
+public abstract class BeesCounterBaseTest extends OpenCvBaseTest {
+
+    static final double MAX_ERROR_THRESHOLD = 0.1;
+    // Datasets and their configuration
+    static final String[] DATASETS = {"c14", "c17", "c5"};
+    private static final BeesCounter.BlobSize[] BLOB_SIZES = {BeesCounter.BlobSize.NORMAL,
+            BeesCounter.BlobSize.SMALL, BeesCounter.BlobSize.BIG};
+    private static final double[] MIN_AREAS = {15.0, 10.0, 30.0};
+    private static final double[] MAX_AREAS = {800.0, 800.0, 2000.0};
+    private static final String LOGGER_PROP = "src/testMock/res/log4j.properties";
+    static final int NUM_FRAMES_SKIP = 10;
+    final Logger logger = LoggerFactory.getLogger(getClass());
+    DecimalFormat df;
+
+    @BeforeClass
+    public static void setLogger() {
+        PropertyConfigurator.configure(LOGGER_PROP);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        df = new DecimalFormat("##0.00%");
+    }
+
+    /**
+     * Configures a bees counter with the settings of the given dataset.
+     *
+     * @param bc      bees counter instance.
+     * @param dataset index of the dataset in DATASETS.
+     */
+    void configure(BeesCounter bc, int dataset) {
+        bc.updateBlobSize(BLOB_SIZES[dataset]);
+        bc.updateMinArea(MIN_AREAS[dataset]);
+        bc.updateMaxArea(MAX_AREAS[dataset]);
+    }
+
+    /**
+     * Calculate the relative error from the output of the algorithm and the expected values
+     * obtained manually.
+     *
+     * @param bc      bees counter instance.
+     * @param dataset dataset of frames to process.
+     * @return relative error.
+     */
+    @SuppressWarnings({"UnusedAssignment", "unused"})
+    double calculateRelativeError(BeesCounter bc, String dataset) throws Exception {
+        int i = 1;
+        long totalAbsoluteError = 0;
+        long expectedNumBeesTotal = 0;
+
+        File expectedOutputs =
+                TestUtils.getFileFromPath(this, "res/img/" + dataset + "/numBees.txt");
+        try (BufferedReader br = new BufferedReader(new FileReader(expectedOutputs))) {
+            // Process NUM_FRAMES_SKIP frames to create background model
+            for (String line; i <= NUM_FRAMES_SKIP && (line = br.readLine()) != null; i++) {
+                bc.countBees(readFreame(i, dataset));
+            }
+            // Compare beesCounter output with the expected output
+            int expectedNumBees;
+            int numBees;
+            for (String line; (line = br.readLine()) != null; i++) {
+                // Get number of bees in the frame (expected and output)
+                expectedNumBeesTotal += expectedNumBees = Integer.parseInt(line);
+                numBees = bc.countBees(readFreame(i, dataset));
+                // Calculate and log absolute error
+                int absoluteError = expectedNumBees - numBees;
+                logger.debug("{}:{}", i, absoluteError);
+                totalAbsoluteError += Math.abs(absoluteError);
+                // If they are not equal -> save frame to revise
+                if (expectedNumBees != numBees) {
+                    saveFrames(bc.getProcessedFrame(), i, expectedNumBees, numBees);
+                }
+            }
+        }
+        // Calculate relative error
+        return totalAbsoluteError / (double) expectedNumBeesTotal;
+    }
+
+    /**
+     * Calculate the average time (in milliseconds) that the algorithm takes to process a frame
+     * of the dataset. Frames are loaded before, so only the processing is measured.
+     *
+     * @param bc      bees counter instance.
+     * @param dataset dataset of frames to process.
+     * @return average processing time per frame.
+     */
+    double calculateAverageTime(BeesCounter bc, String dataset) throws Exception {
+        // Load frames
+        List<Mat> frames = loadFrames(dataset);
+        // Process frames
+        long t0 = System.nanoTime();
+        for (Mat frame : frames) {
+            bc.countBees(frame);
+        }
+        long time = System.nanoTime() - t0;
+        for (Mat frame : frames) {
+            frame.release();
+        }
+        return time / 1000000.0 / frames.size();
+    }
+
+    /**
+     * Loads all the frames of a dataset.
+     *
+     * @param dataset dataset of frames to load.
+     * @return frames.
+     */
+    List<Mat> loadFrames(String dataset) throws Exception {
+        int numFrames = loadExpectedNumBees(dataset).length;
+        List<Mat> frames = new ArrayList<>(numFrames);
+        for (int i = 1; i <= numFrames; i++) {
+            frames.add(readFreame(i, dataset));
+        }
+        return frames;
+    }
+
+    /**
+     * Loads the expected number of bees of each frame of a dataset (manually counted).
+     *
+     * @param dataset dataset of frames.
+     * @return expected number of bees.
+     */
+    int[] loadExpectedNumBees(String dataset) throws Exception {
+        List<Integer> expected = new ArrayList<>();
+        File expectedOutputs =
+                TestUtils.getFileFromPath(this, "res/img/" + dataset + "/numBees.txt");
+        try (BufferedReader br = new BufferedReader(new FileReader(expectedOutputs))) {
+            for (String line; (line = br.readLine()) != null; ) {
+                expected.add(Integer.parseInt(line));
+            }
+        }
+        int[] result = new int[expected.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = expected.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Saves a mat to jpg file with the following name:
+     * {id}_e{expectedNumBees}_o{numBees}.jpg
+     * Ex: 001_e5_o4.jpg
+     *
+     * @param frame           mat to save.
+     * @param id              id of the frame.
+     * @param expectedNumBees expected number of bees.
+     * @param numBees         output number of bees.
+     */
+    private void saveFrames(Mat frame, int id, int expectedNumBees, int numBees) {
+        TestUtils.saveMatToFile(frame,
+                String.format("/img/%03d_e%d_o%d", id, expectedNumBees, numBees));
+    }
+
+    /**
+     * Reads an image from test resources and returns it as a OpenCV Mat.
+     *
+     * @param i       index of the image.
+     * @param dataset dataset that belongs the image.
+     * @return mat of the image.
+     */
+    private Mat readFreame(int i, String dataset) {
+        return TestUtils.loadGrayImage("res/img/" + dataset + String.format("/%03d", i) + ".jpg");
+    }
+}
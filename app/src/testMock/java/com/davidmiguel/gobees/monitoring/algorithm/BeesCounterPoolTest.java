@@ -0,0 +1,116 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for BeesCounterPool class.
+ * OpenCV 3.1.0 native lib must be on PATH environment variable.
+ */
+public class BeesCounterPoolTest extends OpenCvBaseTest {
+
+    private BeesCounterPool pool;
+    private BeesCounterConfig config;
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new BeesCounterPool(1);
+        config = new BeesCounterConfig();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.clear();
+    }
+
+    @Test
+    public void acquire_newInstances() {
+        BeesCounter bc1 = pool.acquire(config);
+        BeesCounter bc2 = pool.acquire(config);
+        assertNotSame(bc1, bc2);
+        pool.recycle(bc1);
+        pool.recycle(bc2);
+    }
+
+    @Test
+    public void recycle_reusedBySameType() {
+        BeesCounter bc1 = pool.acquire(config);
+        pool.recycle(bc1);
+        assertEquals(1, pool.getNumIdle());
+        assertSame(bc1, pool.acquire(config));
+        config.setCounterType(BeesCounter.CounterType.COMPONENTS);
+        BeesCounter bc2 = pool.acquire(config);
+        assertNotSame(bc1, bc2);
+        assertTrue(bc2 instanceof ComponentsBeesCounter);
+        pool.recycle(bc1);
+        pool.recycle(bc2);
+    }
+
+    @Test
+    public void recycle_maxIdle() {
+        BeesCounter bc1 = pool.acquire(config);
+        BeesCounter bc2 = pool.acquire(config);
+        pool.recycle(bc1);
+        pool.recycle(bc2);
+        assertEquals(1, pool.getNumIdle());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void recycle_notAcquired() {
+        pool.recycle(BeesCounterFactory.createBeesCounter(config));
+    }
+
+    @Test
+    public void independentBackgroundModels() {
+        Mat background = new Mat(480, 640, CvType.CV_8U, new Scalar(100));
+        Mat frame = background.clone();
+        Imgproc.circle(frame, new Point(320, 240), 12, new Scalar(0), -1);
+        BeesCounter bc1 = pool.acquire(config);
+        BeesCounter bc2 = pool.acquire(config);
+        // Only the first counter learns the background
+        for (int i = 0; i < 10; i++) {
+            bc1.countBees(background);
+        }
+        assertEquals(1, bc1.countBees(frame));
+        // The second one has no background model, so it cannot see the bee
+        assertEquals(0, bc2.countBees(frame));
+        // A recycled counter does not keep the background model
+        pool.recycle(bc1);
+        BeesCounter bc3 = pool.acquire(config);
+        assertSame(bc1, bc3);
+        assertEquals(0, bc3.countBees(frame));
+        pool.recycle(bc2);
+        pool.recycle(bc3);
+        background.release();
+        frame.release();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencv.core.Mat;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Integration test of the bees counter tuner.
+ * It searches the best config of each dataset and reports it.
+ * The error of the best config is asserted with the error of the default config.
+ */
+public class BeesCounterTunerTest extends BeesCounterBaseTest {
+
+    private static final double[] MIN_AREAS = {5.0, 10.0, 15.0, 20.0, 30.0};
+    private static final double[] MAX_AREAS = {400.0, 800.0, 1200.0, 2000.0};
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUpExecutor() throws Exception {
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdown();
+    }
+
+    @Test
+    public void gridSearch() throws Exception {
+        for (String dataset : DATASETS) {
+            List<Mat> frames = loadFrames(dataset);
+            BeesCounterTuner tuner = new BeesCounterTuner(frames, loadExpectedNumBees(dataset),
+                    NUM_FRAMES_SKIP, executor);
+            long t0 = System.nanoTime();
+            BeesCounterTuner.Result best = tuner.gridSearch(new BeesCounterConfig(),
+                    MIN_AREAS, MAX_AREAS, BeesCounter.BlobSize.values());
+            long time = (System.nanoTime() - t0) / 1000000;
+            double defaultError = tuner.evaluate(new BeesCounterConfig());
+            System.out.println(String.format("%s grid search (%d ms): error %s (default %s), %s",
+                    dataset, time, df.format(best.getError()), df.format(defaultError),
+                    best.getConfig()));
+            assertTrue(best.getError() <= defaultError);
+            assertTrue(best.getError() < MAX_ERROR_THRESHOLD);
+            release(frames);
+        }
+    }
+
+    @Test
+    public void coordinateDescent() throws Exception {
+        for (String dataset : DATASETS) {
+            List<Mat> frames = loadFrames(dataset);
+            BeesCounterTuner tuner = new BeesCounterTuner(frames, loadExpectedNumBees(dataset),
+                    NUM_FRAMES_SKIP, executor);
+            long t0 = System.nanoTime();
+            BeesCounterTuner.Result best = tuner.coordinateDescent(new BeesCounterConfig(),
+                    MIN_AREAS, MAX_AREAS, BeesCounter.BlobSize.values(), 3);
+            long time = (System.nanoTime() - t0) / 1000000;
+            double defaultError = tuner.evaluate(new BeesCounterConfig());
+            System.out.println(String.format("%s coordinate descent (%d ms): error %s "
+                            + "(default %s), %s", dataset, time, df.format(best.getError()),
+                    df.format(defaultError), best.getConfig()));
+            assertTrue(best.getError() <= defaultError);
+            release(frames);
+        }
+    }
+
+    private void release(List<Mat> frames) {
+        for (Mat frame : frames) {
+            frame.release();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Integration test of the connected components bee counter algorithm.
+ * It calculates the relative error of the algorithm by using the manually counted frames.
+ * This relative error is asserted with a max. error threshold.
+ * It is also benchmarked against AreaBeesCounter.
+ */
+public class ComponentsBeesCounterTest extends BeesCounterBaseTest {
+
+    /**
+     * Dataset c14: 100 frames, average fly activity, some flys, light shadows.
+     */
+    @Test
+    public void case1() throws Exception {
+        logger.debug("Case1:");
+        BeesCounter bc = new ComponentsBeesCounter();
+        bc.updateBlobSize(BeesCounter.BlobSize.NORMAL);
+        double error = calculateRelativeError(bc, "c14");
+        System.out.println("Error case1: " + df.format(error));
+        assertTrue(error < MAX_ERROR_THRESHOLD);
+    }
+
+    /**
+     * Dataset c17: 200 frames, average fly activity, some flys, light shadows.
+     */
+    @Test
+    public void case2() throws Exception {
+        logger.debug("Case2:");
+        BeesCounter bc = new ComponentsBeesCounter();
+        bc.updateBlobSize(BeesCounter.BlobSize.SMALL);
+        bc.updateMinArea(10.0);
+        bc.updateMaxArea(800.0);
+        double error = calculateRelativeError(bc, "c17");
+        System.out.println("Error case2: " + df.format(error));
+        assertTrue(error < MAX_ERROR_THRESHOLD);
+    }
+
+    /**
+     * Dataset c5: 100 frames, high fly activity, not optimum recorded.
+     */
+    @Test
+    public void case3() throws Exception {
+        logger.debug("Case3:");
+        BeesCounter bc = new ComponentsBeesCounter();
+        bc.updateBlobSize(BeesCounter.BlobSize.BIG);
+        bc.updateMinArea(30.0);
+        bc.updateMaxArea(2000.0);
+        double error = calculateRelativeError(bc, "c5");
+        System.out.println("Error case3: " + df.format(error));
+        assertTrue(error < MAX_ERROR_THRESHOLD);
+    }
+
+    /**
+     * Compares the relative error and processing time with AreaBeesCounter in all datasets.
+     */
+    @Test
+    public void compareWithAreaBeesCounter() throws Exception {
+        BeesCounter[] counters = {new AreaBeesCounter(),
+                new ComponentsBeesCounter()};
+        for (int i = 0; i < DATASETS.length; i++) {
+            for (BeesCounter bc : counters) {
+                configure(bc, i);
+                double error = calculateRelativeError(bc, DATASETS[i]);
+                double time = calculateAverageTime(bc, DATASETS[i]);
+                System.out.println(String.format("%s %s: error %s, %.2f ms/frame",
+                        DATASETS[i], bc.getClass().getSimpleName(), df.format(error), time));
+                assertTrue(error < MAX_ERROR_THRESHOLD);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for MotionGate class.
+ * OpenCV 3.1.0 native lib must be on PATH environment variable.
+ */
+public class MotionGateTest extends OpenCvBaseTest {
+
+    private Mat background;
+    private Mat frame;
+    private MotionGate motionGate;
+
+    @Before
+    public void setUp() throws Exception {
+        background = new Mat(480, 640, CvType.CV_8U, new Scalar(100));
+        frame = new Mat();
+        motionGate = new MotionGate(10);
+    }
+
+    @Test
+    public void staticFrames_skipped() {
+        assertTrue(motionGate.hasMotion(background));
+        for (int i = 0; i < 5; i++) {
+            assertFalse(motionGate.hasMotion(background));
+        }
+        assertEquals(5, motionGate.getNumSkipped());
+        assertEquals(1, motionGate.getNumPassed());
+    }
+
+    @Test
+    public void noisyStaticFrames_skipped() {
+        assertTrue(motionGate.hasMotion(background));
+        Mat noise = new Mat(background.size(), CvType.CV_8U);
+        for (int i = 0; i < 5; i++) {
+            Core.randn(noise, 0, 4);
+            Core.add(background, noise, frame);
+            assertFalse(motionGate.hasMotion(frame));
+        }
+        noise.release();
+    }
+
+    @Test
+    public void movingBee_passed() {
+        assertTrue(motionGate.hasMotion(background));
+        for (int i = 0; i < 5; i++) {
+            background.copyTo(frame);
+            Imgproc.circle(frame, new Point(100 + i * 40, 200), 10, new Scalar(0), -1);
+            assertTrue(motionGate.hasMotion(frame));
+        }
+        assertEquals(0, motionGate.getNumSkipped());
+        assertEquals(6, motionGate.getNumPassed());
+    }
+
+    @Test
+    public void disabledGate_allFramesPassed() {
+        motionGate.setThreshold(0);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(motionGate.hasMotion(background));
+        }
+        assertEquals(0, motionGate.getNumSkipped());
+    }
+
+    @Test
+    public void reenabledGate_firstFramePassed() {
+        assertTrue(motionGate.hasMotion(background));
+        motionGate.setThreshold(0);
+        assertTrue(motionGate.hasMotion(background));
+        // The frame before disabling the gate is not compared
+        motionGate.setThreshold(10);
+        assertTrue(motionGate.hasMotion(background));
+        assertFalse(motionGate.hasMotion(background));
+    }
+
+    @Test
+    public void reset_firstFramePassed() {
+        motionGate.hasMotion(background);
+        motionGate.hasMotion(background);
+        motionGate.reset();
+        assertEquals(0, motionGate.getNumSkipped());
+        assertEquals(0, motionGate.getNumPassed());
+        assertTrue(motionGate.hasMotion(background));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        background.release();
+        frame.release();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.algorithm;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Test for MultiRoiBeesCounter class.
+ * OpenCV 3.1.0 native lib must be on PATH environment variable.
+ */
+public class MultiRoiBeesCounterTest extends OpenCvBaseTest {
+
+    private BeesCounterPool pool;
+    private ExecutorService executor;
+    private MultiRoiBeesCounter bc;
+    private Mat background;
+    private Mat frame;
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new BeesCounterPool();
+        executor = Executors.newFixedThreadPool(2);
+        bc = new MultiRoiBeesCounter(pool, new BeesCounterConfig(), Arrays.asList(
+                new Rect(0, 0, 200, 480), new Rect(200, 0, 200, 480), new Rect(400, 0, 240, 480)),
+                executor);
+        background = new Mat(480, 640, CvType.CV_8U, new Scalar(100));
+        frame = new Mat();
+        // Create background models
+        for (int i = 0; i < 10; i++) {
+            bc.countBees(background);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        bc.release();
+        pool.clear();
+        executor.shutdown();
+        background.release();
+        frame.release();
+    }
+
+    @Test
+    public void beesCountedInTheirRegion() {
+        background.copyTo(frame);
+        Imgproc.circle(frame, new Point(100, 240), 12, new Scalar(0), -1);
+        Imgproc.circle(frame, new Point(500, 100), 12, new Scalar(0), -1);
+        Imgproc.circle(frame, new Point(500, 300), 12, new Scalar(0), -1);
+        assertArrayEquals(new int[]{1, 0, 2}, bc.countBees(frame));
+    }
+
+    @Test
+    public void noBees() {
+        assertArrayEquals(new int[]{0, 0, 0}, bc.countBees(background));
+    }
+}
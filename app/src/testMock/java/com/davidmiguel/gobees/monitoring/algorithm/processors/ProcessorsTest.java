@@ -22,6 +22,7 @@ import com.davidmiguel.gobees.monitoring.algorithm.OpenCvBaseTest;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.opencv.core.Core;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.Point;
@@ -32,9 +33,12 @@ import static com.davidmiguel.gobees.TestUtils.assertMatEqual;
 import static com.davidmiguel.gobees.TestUtils.assertMatNotEqual;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
- * Test for Blur, BacakgroundSubtractor, Morphology and ContourFinder classes.
+ * Test for Downscaler, Blur, BacakgroundSubtractor (and its models), Morphology,
+ * ContourFinder and ComponentsFinder classes.
  * OpenCV 3.1.0 native lib must be on PATH environment variable.
  */
 public class ProcessorsTest extends OpenCvBaseTest {
@@ -49,6 +53,8 @@ public class ProcessorsTest extends OpenCvBaseTest {
     private BackgroundSubtractor bs;
     private Morphology morf;
     private ContoursFinder cf;
+    private ComponentsFinder compf;
+    private Downscaler ds;
 
     /**
      * Create needed mats and instances.
@@ -85,6 +91,9 @@ public class ProcessorsTest extends OpenCvBaseTest {
         morf = new Morphology();
         cf = new ContoursFinder(); // To test default constructor
         cf = new ContoursFinder(16, 600);
+        compf = new ComponentsFinder(); // To test default constructor
+        compf = new ComponentsFinder(16, 600);
+        ds = new Downscaler();
     }
 
     /**
@@ -122,6 +131,54 @@ public class ProcessorsTest extends OpenCvBaseTest {
         assertMatNotEqual(black, result);
     }
 
+    @Test
+    public void testBackgroundSubRunningAverage() throws Exception {
+        bs.setModel(new RunningAverageBackgroundModel());
+        assertBackgroundModel();
+    }
+
+    @Test
+    public void testBackgroundSubMedian() throws Exception {
+        bs = new BackgroundSubtractor(new MedianBackgroundModel());
+        assertBackgroundModel();
+    }
+
+    @Test
+    public void testMedianBackgroundModelStep() throws Exception {
+        MedianBackgroundModel model = new MedianBackgroundModel();
+        Mat background = new Mat(4, 4, CvType.CV_8U, new Scalar(100));
+        Mat frame = new Mat(4, 4, CvType.CV_8U, new Scalar(105));
+        Mat foreground = new Mat();
+        model.setBackgroundImage(background);
+        // A frame closer than one step moves the background one step towards it
+        model.apply(frame, foreground);
+        model.getBackgroundImage(background);
+        assertEquals(108, (int) background.get(0, 0)[0]);
+        // And back
+        model.apply(frame, foreground);
+        model.getBackgroundImage(background);
+        assertEquals(100, (int) background.get(0, 0)[0]);
+        model.release();
+        background.release();
+        frame.release();
+        foreground.release();
+    }
+
+    /**
+     * Asserts that static frames are background and a changed pixel is foreground.
+     */
+    private void assertBackgroundModel() {
+        for (int i = 0; i < 10; i++) {
+            result = bs.process(source);
+        }
+        assertMatEqual(black, result);
+        Mat mod = source.clone();
+        mod.put(2, 2, 0);
+        result = bs.process(mod);
+        assertEquals(255, (int) result.get(2, 2)[0]);
+        assertEquals(1, Core.countNonZero(result));
+    }
+
     @Test
     public void testMorphology() throws Exception {
         for (int i = 1; i <= 3; i++) {
@@ -158,6 +215,64 @@ public class ProcessorsTest extends OpenCvBaseTest {
         assertEquals(2, num);
     }
 
+    @Test
+    public void testComponentsFinder() throws Exception {
+        compf.process(sourceContours);
+        int num = compf.getNumBees();
+        assertEquals(1, num);
+        // Add another bee
+        Imgproc.circle(sourceContours, new Point(150, 150), 10, new Scalar(255), -1);
+        compf.process(sourceContours);
+        num = compf.getNumBees();
+        assertEquals(2, num);
+        // Add an object with area out of rage (max)
+        Imgproc.circle(sourceContours, new Point(300, 300), 15, new Scalar(255), -1);
+        compf.process(sourceContours);
+        num = compf.getNumBees();
+        assertEquals(2, num);
+        // Add an object with area out of rage (min)
+        Imgproc.circle(sourceContours, new Point(50, 50), 2, new Scalar(255), -1);
+        compf.process(sourceContours);
+        num = compf.getNumBees();
+        assertEquals(2, num);
+        // Draw components (bees in green and the rest in red)
+        result = new Mat();
+        compf.drawComponents(result);
+        assertEquals(CvType.CV_8UC3, result.type());
+        assertEquals(0, result.get(200, 200)[0], 0);
+        assertEquals(255, result.get(200, 200)[1], 0);
+        assertEquals(255, result.get(300, 300)[0], 0);
+        assertEquals(0, result.get(0, 0)[1], 0);
+    }
+
+    @Test
+    public void testDownscaler() throws Exception {
+        // Full resolution (the frame is not copied)
+        assertSame(sourceContours, ds.process(sourceContours));
+        assertEquals(1, ds.getAreaScale());
+        // Half and quarter resolution
+        for (int levels = 1; levels <= 2; levels++) {
+            ds.setLevels(levels);
+            result = ds.process(sourceContours);
+            assertEquals(sourceContours.rows() >> levels, result.rows());
+            assertEquals(sourceContours.cols() >> levels, result.cols());
+            assertEquals(1 << (2 * levels), ds.getAreaScale());
+        }
+        // Levels are limited
+        ds.setLevels(5);
+        assertEquals(2, ds.getLevels());
+    }
+
+    @Test
+    public void testMorphologyDownscaled() throws Exception {
+        // Kernels are scaled down and the bee is kept
+        for (int levels = 0; levels <= 2; levels++) {
+            morf.setDownscaleLevels(levels);
+            result = morf.process(sourceContours);
+            assertTrue(Core.countNonZero(result) > 0);
+        }
+    }
+
     @Test
     public void testeEmptyMat() throws Exception {
         result = blur.process(new Mat());
@@ -168,5 +283,9 @@ public class ProcessorsTest extends OpenCvBaseTest {
         assertNull(result);
         result = cf.process(new Mat());
         assertNull(result);
+        result = compf.process(new Mat());
+        assertNull(result);
+        result = ds.process(new Mat());
+        assertNull(result);
     }
 }
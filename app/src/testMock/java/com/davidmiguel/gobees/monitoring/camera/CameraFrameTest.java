@@ -0,0 +1,83 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.camera;
+
+import com.davidmiguel.gobees.monitoring.algorithm.OpenCvBaseTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import static com.davidmiguel.gobees.TestUtils.assertMatEqual;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test for CameraFrame class (full and luminance only modes).
+ */
+public class CameraFrameTest extends OpenCvBaseTest {
+
+    private static final int WIDTH = 4;
+    private static final int HEIGHT = 2;
+
+    private byte[] frameData;
+
+    /**
+     * Create NV21 frame with a Y plane (0..7) and a chroma plane (100..103).
+     */
+    @Before
+    public void setUp() throws Exception {
+        frameData = new byte[WIDTH * HEIGHT * 3 / 2];
+        for (int i = 0; i < frameData.length; i++) {
+            frameData[i] = (byte) (i < WIDTH * HEIGHT ? i : 100 + i - WIDTH * HEIGHT);
+        }
+    }
+
+    @Test
+    public void luminanceOnly_sameGrayAsFullFrame() {
+        CameraFrame full = new CameraFrame(
+                new Mat(HEIGHT + HEIGHT / 2, WIDTH, CvType.CV_8UC1), WIDTH, HEIGHT);
+        CameraFrame luminance = new CameraFrame(WIDTH, HEIGHT);
+        full.putFrameData(frameData);
+        luminance.putFrameData(frameData);
+        assertEquals(CvType.CV_8UC1, luminance.gray().type());
+        assertEquals(HEIGHT, luminance.gray().rows());
+        assertEquals(WIDTH, luminance.gray().cols());
+        assertMatEqual(full.gray(), luminance.gray());
+        full.release();
+        luminance.release();
+    }
+
+    @Test
+    public void luminanceOnly_sameRgbaAsFullFrame() {
+        CameraFrame full = new CameraFrame(
+                new Mat(HEIGHT + HEIGHT / 2, WIDTH, CvType.CV_8UC1), WIDTH, HEIGHT);
+        CameraFrame luminance = new CameraFrame(WIDTH, HEIGHT);
+        full.putFrameData(frameData);
+        luminance.putFrameData(frameData);
+        assertMatEqual(full.rgba(), luminance.rgba());
+        // New frame
+        frameData[0] = 50;
+        full.putFrameData(frameData);
+        luminance.putFrameData(frameData);
+        assertMatEqual(full.rgba(), luminance.rgba());
+        full.release();
+        luminance.release();
+    }
+}
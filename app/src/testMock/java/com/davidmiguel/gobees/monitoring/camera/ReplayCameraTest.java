@@ -0,0 +1,198 @@
+/*
+ * GoBees
+ * Copyright (c) 2016 - 2017 David Miguel Lozano
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/gpl-3.0.txt>.
+ */
+
+package com.davidmiguel.gobees.monitoring.camera;
+
+import com.davidmiguel.gobees.TestUtils;
+import com.davidmiguel.gobees.monitoring.algorithm.OpenCvBaseTest;
+
+import org.junit.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.davidmiguel.gobees.TestUtils.assertMatEqual;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for ReplayCamera class and its frame sources.
+ * OpenCV 3.1.0 native lib must be on PATH environment variable.
+ */
+public class ReplayCameraTest extends OpenCvBaseTest {
+
+    private static final String DATASET = "res/img/c14";
+
+    @Test
+    public void imageSequence_allFramesDelivered() throws Exception {
+        File directory = TestUtils.getFileFromPath(this, DATASET + "/001.jpg").getParentFile();
+        ImageSequenceFrameSource source = new ImageSequenceFrameSource(directory);
+        RecordingListener listener = new RecordingListener();
+        ReplayCamera camera = new ReplayCamera(listener, source, false, 0, 0);
+        camera.connect();
+        camera.awaitCompletion();
+        // Frame size and number of frames
+        Mat first = TestUtils.loadGrayImage(DATASET + "/001.jpg");
+        assertEquals(first.cols(), listener.width);
+        assertEquals(first.rows(), listener.height);
+        assertEquals(directory.list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".jpg");
+            }
+        }).length, camera.getNumFrames());
+        // Same gray frame
+        assertMatEqual(first, listener.frames.get(0));
+        camera.release();
+        first.release();
+        listener.release();
+    }
+
+    @Test
+    public void yuvFile_allFramesDelivered() throws Exception {
+        int width = 4;
+        int height = 2;
+        int frameSize = width * height * 3 / 2;
+        // Raw file with 3 frames and an incomplete one
+        File file = File.createTempFile("replay", ".yuv");
+        file.deleteOnExit();
+        byte[] data = new byte[frameSize * 3 + 2];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i / frameSize);
+        }
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+        RecordingListener listener = new RecordingListener();
+        ReplayCamera camera = new ReplayCamera(listener,
+                new YuvFileFrameSource(file, width, height), false, 0, 0);
+        camera.connect();
+        camera.awaitCompletion();
+        assertEquals(3, camera.getNumFrames());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, (int) listener.frames.get(i).get(1, 3)[0]);
+        }
+        camera.release();
+        listener.release();
+    }
+
+    @Test
+    public void realTime_framesPaced() throws Exception {
+        File directory = TestUtils.getFileFromPath(this, DATASET + "/001.jpg").getParentFile();
+        RecordingListener listener = new RecordingListener();
+        ReplayCamera camera = new ReplayCamera(listener,
+                new ImageSequenceFrameSource(directory), true, 0, 20);
+        long t0 = System.currentTimeMillis();
+        camera.connect();
+        Thread.sleep(100);
+        camera.release();
+        // About 5 frames in 100 ms
+        int numFrames = camera.getNumFrames();
+        assertTrue(numFrames >= 3 && numFrames <= 8);
+        assertTrue(System.currentTimeMillis() - t0 < 1000);
+        listener.release();
+    }
+
+    @Test(timeout = 5000)
+    public void releaseFromListener_replayEnds() throws Exception {
+        File directory = TestUtils.getFileFromPath(this, DATASET + "/001.jpg").getParentFile();
+        final ReplayCamera[] camera = new ReplayCamera[1];
+        RecordingListener listener = new RecordingListener() {
+            @Override
+            public void onPreviewFrame(CameraFrame cameraFrame) {
+                super.onPreviewFrame(cameraFrame);
+                // Released in the replay thread (it must not wait for itself)
+                camera[0].release();
+            }
+        };
+        camera[0] = new ReplayCamera(listener, new ImageSequenceFrameSource(directory),
+                false, 0, 0);
+        camera[0].connect();
+        camera[0].awaitCompletion();
+        assertEquals(1, listener.frames.size());
+        listener.release();
+    }
+
+    @Test
+    public void imageSequence_numericOrder() throws Exception {
+        // Sequence without zero padding
+        File directory = new File(System.getProperty("java.io.tmpdir"),
+                "replay" + System.nanoTime());
+        assertTrue(directory.mkdir());
+        int[] names = {1, 2, 10};
+        for (int i = 0; i < names.length; i++) {
+            Mat img = new Mat(2, 4, CvType.CV_8UC1, new Scalar(i * 100));
+            Imgcodecs.imwrite(new File(directory, names[i] + ".png").getAbsolutePath(), img);
+            img.release();
+        }
+        RecordingListener listener = new RecordingListener();
+        ReplayCamera camera = new ReplayCamera(listener,
+                new ImageSequenceFrameSource(directory), false, 0, 0);
+        camera.connect();
+        camera.awaitCompletion();
+        assertEquals(3, listener.frames.size());
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(i * 100, (int) listener.frames.get(i).get(1, 3)[0]);
+        }
+        camera.release();
+        listener.release();
+        for (File file : directory.listFiles()) {
+            assertTrue(file.delete());
+        }
+        assertTrue(directory.delete());
+    }
+
+    /**
+     * Camera client that keeps a copy of the gray frames.
+     */
+    private static class RecordingListener implements AndroidCameraListener {
+
+        private int width;
+        private int height;
+        private List<Mat> frames = new ArrayList<>();
+
+        @Override
+        public boolean isOpenCvLoaded() {
+            return true;
+        }
+
+        @Override
+        public void onCameraStarted(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public void onPreviewFrame(CameraFrame cameraFrame) {
+            frames.add(cameraFrame.gray().clone());
+        }
+
+        void release() {
+            for (Mat frame : frames) {
+                frame.release();
+            }
+        }
+    }
+}